@@ -1,8 +1,7 @@
 package bbmovie.ai_platform.agentic_ai.config;
 
+import bbmovie.ai_platform.agentic_ai.service.chat.advisors.ReactiveChatMemoryAdvisor;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
-import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.ollama.OllamaChatModel;
 import org.springframework.beans.factory.annotation.Value;
@@ -24,13 +23,10 @@ public class ChatClientConfig {
     }
 
     @Bean
-    public ChatClient chatClient(ChatClient.Builder builder, ChatMemory chatMemory) {
+    public ChatClient chatClient(ChatClient.Builder builder, ReactiveChatMemoryAdvisor chatMemoryAdvisor) {
         return builder
                 .defaultSystem(systemPromptResource)
-                .defaultAdvisors(
-                    MessageChatMemoryAdvisor.builder(chatMemory)
-                    .build()
-                )
+                .defaultAdvisors(chatMemoryAdvisor)
                 .build();
     }
 }
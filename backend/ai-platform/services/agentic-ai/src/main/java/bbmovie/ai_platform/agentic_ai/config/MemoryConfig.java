@@ -6,7 +6,6 @@ import io.nats.client.JetStream;
 import io.qdrant.client.QdrantClient;
 import tools.jackson.databind.ObjectMapper;
 
-import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.ai.vectorstore.qdrant.QdrantVectorStore;
@@ -21,9 +20,9 @@ public class MemoryConfig {
 
     @Bean
     @Primary
-    public ChatMemory chatMemory(
-            @Qualifier("rRedisTemplate") // Redis Template
-            ReactiveRedisTemplate<String, String> redisTemplate, 
+    public HybridChatMemory chatMemory(
+            @Qualifier("rRedisBytesTemplate") // Binary Redis Template
+            ReactiveRedisTemplate<String, byte[]> redisTemplate,
             MessageRepository messageRepository, ObjectMapper objectMapper,
             JetStream jetStream) {
         // Hybrid memory: Redis (Short-term) + NATS Event (Long-term)
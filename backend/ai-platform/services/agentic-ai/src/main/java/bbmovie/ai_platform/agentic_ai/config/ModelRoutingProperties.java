@@ -0,0 +1,77 @@
+package bbmovie.ai_platform.agentic_ai.config;
+
+import bbmovie.ai_platform.agentic_ai.entity.enums.AiModel;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Configuration properties for adaptive model routing.
+ *
+ * <p>Every provider gets an AIMD concurrency limit that grows by one per limit's worth of fast, successful
+ * calls and shrinks by {@link #backoffRatio} when a call fails or its time-to-first-token exceeds
+ * {@link #latencyTolerance} times the provider's best observed TTFT. When the requested provider is saturated,
+ * failing or much slower than another one, the request moves to that provider's {@link #fallbackModels entry}.
+ *
+ * <p>Configure in {@code application.properties}:
+ * <pre>
+ * ai.routing.initial-limit=8
+ * ai.routing.fallback-models.groq=GROQ_LLAMA_3_70B
+ * ai.routing.hedge.enabled=true
+ * </pre>
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "ai.routing")
+public class ModelRoutingProperties {
+
+    /** Moves requests off the requested provider when it is unhealthy. Limits are tracked either way. */
+    private boolean allowProviderSwitch = true;
+
+    /** Concurrent streams a provider starts with before any feedback. */
+    private int initialLimit = 8;
+
+    private int minLimit = 1;
+
+    private int maxLimit = 64;
+
+    /** Multiplicative decrease applied on errors and slow first tokens. */
+    private double backoffRatio = 0.7;
+
+    /** A TTFT above this multiple of the provider's baseline counts as congestion. */
+    private double latencyTolerance = 2.0;
+
+    /** Weight of the newest sample in the TTFT and error-rate moving averages. */
+    private double ewmaAlpha = 0.2;
+
+    /** Providers whose smoothed error rate is above this are only used as a last resort. */
+    private double errorRateThreshold = 0.5;
+
+    /** Model used when traffic is shifted to a provider, keyed by {@link AiModel#getProvider()}. */
+    private Map<String, AiModel> fallbackModels = new LinkedHashMap<>(Map.of(
+            "ollama", AiModel.QWEN_BALANCED,
+            "google", AiModel.GEMINI_1_5_FLASH,
+            "groq", AiModel.GROQ_LLAMA_3_70B
+    ));
+
+    private Hedge hedge = new Hedge();
+
+    @Data
+    public static class Hedge {
+
+        /** Starts a second provider when the first one has not produced a token in time. */
+        private boolean enabled = true;
+
+        /** Hedge delay as a multiple of the primary provider's smoothed TTFT. */
+        private double ttftMultiplier = 3.0;
+
+        private Duration minDelay = Duration.ofSeconds(1);
+
+        /** Also the delay used while a provider has no TTFT samples yet. */
+        private Duration maxDelay = Duration.ofSeconds(8);
+    }
+}
@@ -34,4 +34,18 @@ public class ReactiveRedisConfiguration {
 
           return new ReactiveRedisTemplate<>(factory, context);
      }
+
+     /**
+      * Binary-valued template for the chat memory window, which stores messages in their compact
+      * encoded form instead of JSON strings.
+      */
+     @Bean("rRedisBytesTemplate")
+     public ReactiveRedisTemplate<String, byte[]> rRedisBytesTemplate(ReactiveRedisConnectionFactory factory) {
+          RedisSerializationContext<String, byte[]> context = RedisSerializationContext
+                    .<String, byte[]>newSerializationContext(new StringRedisSerializer())
+                    .value(RedisSerializer.byteArray())
+                    .build();
+
+          return new ReactiveRedisTemplate<>(factory, context);
+     }
 }
@@ -0,0 +1,21 @@
+package bbmovie.ai_platform.agentic_ai.exception;
+
+/**
+ * Thrown when every AI provider that could serve a request is at its adaptive concurrency limit.
+ *
+ * <p>Unlike {@link ProviderNotConfiguredException} this is a momentary condition; it is excluded from the
+ * provider circuit breakers so that load shedding does not open a circuit on an otherwise healthy provider.
+ */
+public class ProviderOverloadedException extends RuntimeException {
+
+    private final String provider;
+
+    public ProviderOverloadedException(String provider) {
+        super("AI provider '" + provider + "' and its fallbacks are at their concurrency limit.");
+        this.provider = provider;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+}
@@ -0,0 +1,96 @@
+package bbmovie.ai_platform.agentic_ai.repository;
+
+import bbmovie.ai_platform.agentic_ai.entity.ChatMessage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Multi-row inserts for {@code chat_message}.
+ *
+ * {@link MessageRepository#saveAll} issues one INSERT per entity; this writes up to
+ * {@value #MAX_ROWS_PER_STATEMENT} rows per statement, so a whole worker batch usually costs a single round trip.
+ * Rows whose id already exists are skipped, which makes replaying the same messages harmless.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ChatMessageBatchRepository {
+
+    /** 10 bind parameters per row; keeps each statement far below PostgreSQL's 65535 parameter limit. */
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private static final String INSERT_PREFIX = "INSERT INTO chat_message "
+            + "(id, session_id, user_id, sender_type, content, thinking, prompt_tokens, completion_tokens, parent_id, created_at) VALUES ";
+
+    private final DatabaseClient databaseClient;
+
+    private static final String ON_CONFLICT = " ON CONFLICT (id) DO NOTHING";
+
+    /**
+     * Inserts all messages that are not stored yet and emits the number of rows written.
+     */
+    public Mono<Long> insertAll(List<ChatMessage> messages) {
+        if (messages.isEmpty()) {
+            return Mono.just(0L);
+        }
+        return Flux.fromIterable(chunks(messages))
+                .concatMap(this::insertChunk)
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> insertChunk(List<ChatMessage> chunk) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + chunk.size() * 96).append(INSERT_PREFIX);
+        for (int i = 0; i < chunk.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:id").append(i)
+                    .append(", :sessionId").append(i)
+                    .append(", :userId").append(i)
+                    .append(", :senderType").append(i)
+                    .append(", :content").append(i)
+                    .append(", :thinking").append(i)
+                    .append(", :promptTokens").append(i)
+                    .append(", :completionTokens").append(i)
+                    .append(", :parentId").append(i)
+                    .append(", :createdAt").append(i)
+                    .append(')');
+        }
+        sql.append(ON_CONFLICT);
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < chunk.size(); i++) {
+            ChatMessage m = chunk.get(i);
+            spec = spec.bind("id" + i, m.getId())
+                    .bind("sessionId" + i, m.getSessionId())
+                    .bind("userId" + i, m.getUserId())
+                    .bind("senderType" + i, m.getSenderType().name())
+                    .bind("content" + i, m.getContent());
+            spec = bindNullable(spec, "thinking" + i, m.getThinking(), String.class);
+            spec = bindNullable(spec, "promptTokens" + i, m.getPromptTokens(), Long.class);
+            spec = bindNullable(spec, "completionTokens" + i, m.getCompletionTokens(), Long.class);
+            spec = bindNullable(spec, "parentId" + i, m.getParentId(), UUID.class);
+            spec = bindNullable(spec, "createdAt" + i, m.getCreatedAt(), Instant.class);
+        }
+        return spec.fetch().rowsUpdated();
+    }
+
+    private static <T> DatabaseClient.GenericExecuteSpec bindNullable(
+            DatabaseClient.GenericExecuteSpec spec, String name, T value, Class<T> type) {
+        return value == null ? spec.bindNull(name, type) : spec.bind(name, value);
+    }
+
+    private static List<List<ChatMessage>> chunks(List<ChatMessage> messages) {
+        int size = messages.size();
+        return IntStream.range(0, (size + MAX_ROWS_PER_STATEMENT - 1) / MAX_ROWS_PER_STATEMENT)
+                .mapToObj(c -> messages.subList(c * MAX_ROWS_PER_STATEMENT, Math.min(size, (c + 1) * MAX_ROWS_PER_STATEMENT)))
+                .toList();
+    }
+}
@@ -0,0 +1,130 @@
+package bbmovie.ai_platform.agentic_ai.repository;
+
+import bbmovie.ai_platform.agentic_ai.service.chat.UsageEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Multi-row upserts for {@code ai_token_usage}, one row per (user, model, minute).
+ *
+ * Counts are added to an existing row, so the same minute may be written by several flushes or instances.
+ * The buckets of one call must have distinct keys (see {@link UsageEvent#aggregate}); PostgreSQL rejects an
+ * upsert that touches the same row twice. Because the upsert is additive, callers claim the message ids of the
+ * events in {@code ai_token_usage_message} within the same transaction and only add the newly claimed ones.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TokenUsageBatchRepository {
+
+    /** 7 bind parameters per row; keeps each statement far below PostgreSQL's 65535 parameter limit. */
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private static final String INSERT_PREFIX = "INSERT INTO ai_token_usage "
+            + "(user_id, model, bucket_start, request_count, prompt_tokens, completion_tokens, total_tokens) VALUES ";
+
+    private static final String ON_CONFLICT = " ON CONFLICT (user_id, model, bucket_start) DO UPDATE SET "
+            + "request_count = ai_token_usage.request_count + EXCLUDED.request_count, "
+            + "prompt_tokens = ai_token_usage.prompt_tokens + EXCLUDED.prompt_tokens, "
+            + "completion_tokens = ai_token_usage.completion_tokens + EXCLUDED.completion_tokens, "
+            + "total_tokens = ai_token_usage.total_tokens + EXCLUDED.total_tokens, "
+            + "updated_at = CURRENT_TIMESTAMP";
+
+    private static final String CLAIM_PREFIX = "INSERT INTO ai_token_usage_message (message_id) VALUES ";
+
+    private static final String CLAIM_SUFFIX = " ON CONFLICT (message_id) DO NOTHING RETURNING message_id";
+
+    private static final String PURGE_SQL = "DELETE FROM ai_token_usage_message WHERE processed_at < :before";
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Records the message ids as processed and emits those that were not recorded before.
+     */
+    public Flux<String> claimMessageIds(List<String> messageIds) {
+        int size = messageIds.size();
+        return Flux.range(0, (size + MAX_ROWS_PER_STATEMENT - 1) / MAX_ROWS_PER_STATEMENT)
+                .map(c -> messageIds.subList(c * MAX_ROWS_PER_STATEMENT, Math.min(size, (c + 1) * MAX_ROWS_PER_STATEMENT)))
+                .concatMap(this::claimChunk);
+    }
+
+    /**
+     * Forgets message ids processed before {@code before}; redeliveries older than that are no longer expected.
+     */
+    public Mono<Long> purgeMessageIdsBefore(Instant before) {
+        return databaseClient.sql(PURGE_SQL)
+                .bind("before", before)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private Flux<String> claimChunk(List<String> chunk) {
+        StringBuilder sql = new StringBuilder(CLAIM_PREFIX.length() + CLAIM_SUFFIX.length() + chunk.size() * 16)
+                .append(CLAIM_PREFIX);
+        for (int i = 0; i < chunk.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:messageId").append(i).append(')');
+        }
+        sql.append(CLAIM_SUFFIX);
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < chunk.size(); i++) {
+            spec = spec.bind("messageId" + i, chunk.get(i));
+        }
+        return spec.map(row -> row.get("message_id", String.class)).all();
+    }
+
+    /**
+     * Adds all buckets to their rows and emits the number of rows written.
+     */
+    public Mono<Long> upsertAll(List<UsageEvent> buckets) {
+        if (buckets.isEmpty()) {
+            return Mono.just(0L);
+        }
+        int size = buckets.size();
+        return Flux.range(0, (size + MAX_ROWS_PER_STATEMENT - 1) / MAX_ROWS_PER_STATEMENT)
+                .map(c -> buckets.subList(c * MAX_ROWS_PER_STATEMENT, Math.min(size, (c + 1) * MAX_ROWS_PER_STATEMENT)))
+                .concatMap(this::upsertChunk)
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> upsertChunk(List<UsageEvent> chunk) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + ON_CONFLICT.length() + chunk.size() * 96)
+                .append(INSERT_PREFIX);
+        for (int i = 0; i < chunk.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:userId").append(i)
+                    .append(", :model").append(i)
+                    .append(", :bucketStart").append(i)
+                    .append(", :requests").append(i)
+                    .append(", :promptTokens").append(i)
+                    .append(", :completionTokens").append(i)
+                    .append(", :totalTokens").append(i)
+                    .append(')');
+        }
+        sql.append(ON_CONFLICT);
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < chunk.size(); i++) {
+            UsageEvent bucket = chunk.get(i);
+            UsageEvent.Key key = bucket.key();
+            spec = spec.bind("userId" + i, key.userId())
+                    .bind("model" + i, key.model())
+                    .bind("bucketStart" + i, key.minute())
+                    .bind("requests" + i, bucket.requests())
+                    .bind("promptTokens" + i, bucket.promptTokens())
+                    .bind("completionTokens" + i, bucket.completionTokens())
+                    .bind("totalTokens" + i, bucket.totalTokens());
+        }
+        return spec.fetch().rowsUpdated();
+    }
+}
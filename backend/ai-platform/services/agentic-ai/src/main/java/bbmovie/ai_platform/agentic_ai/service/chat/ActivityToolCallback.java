@@ -0,0 +1,45 @@
+package bbmovie.ai_platform.agentic_ai.service.chat;
+
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+
+/**
+ * Reports every invocation of the wrapped tool before running it.
+ *
+ * <p>A stream that is executing tools emits no content tokens, so {@link ChatServiceImpl} uses this signal to
+ * tell a busy primary from a stalled one and does not hedge it (which would run the tools a second time).
+ */
+final class ActivityToolCallback implements ToolCallback {
+
+    private final ToolCallback delegate;
+    private final Runnable onCall;
+
+    ActivityToolCallback(ToolCallback delegate, Runnable onCall) {
+        this.delegate = delegate;
+        this.onCall = onCall;
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return delegate.getToolDefinition();
+    }
+
+    @Override
+    public ToolMetadata getToolMetadata() {
+        return delegate.getToolMetadata();
+    }
+
+    @Override
+    public String call(String toolInput) {
+        onCall.run();
+        return delegate.call(toolInput);
+    }
+
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        onCall.run();
+        return delegate.call(toolInput, toolContext);
+    }
+}
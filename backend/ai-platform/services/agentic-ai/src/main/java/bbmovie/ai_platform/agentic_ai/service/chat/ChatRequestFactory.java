@@ -4,9 +4,11 @@ import bbmovie.ai_platform.agentic_ai.entity.enums.AiMode;
 import bbmovie.ai_platform.agentic_ai.entity.enums.AiModel;
 import bbmovie.ai_platform.agentic_ai.service.personalize.PersonalizationService;
 import bbmovie.ai_platform.agentic_ai.service.tool.ToolManager;
+import bbmovie.ai_platform.agentic_ai.service.chat.advisors.ReactiveChatMemoryAdvisor;
 import bbmovie.ai_platform.agentic_ai.service.chat.advisors.ThinkingAdvisor;
 import bbmovie.ai_platform.agentic_ai.service.chat.advisors.TokenUsageAdvisor;
 import bbmovie.ai_platform.agentic_ai.service.chat.options.ChatOptionsStrategy;
+import bbmovie.ai_platform.agentic_ai.service.memory.PendingTurn;
 import bbmovie.ai_platform.agentic_ai.utils.AiConstants;
 import bbmovie.ai_platform.aop_policy.hitl.ApprovalContextHolder;
 import bbmovie.ai_platform.aop_policy.hitl.ExecutionContext;
@@ -14,10 +16,9 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
-import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.tool.ToolCallback;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -45,9 +46,24 @@ public class ChatRequestFactory {
     private final ModelRoutingService modelRoutingService;
     private final ThinkingAdvisor thinkingAdvisor;
     private final TokenUsageAdvisor tokenUsageAdvisor;
-    private final ChatMemory chatMemory;
+    private final ReactiveChatMemoryAdvisor chatMemoryAdvisor;
     private final List<ChatOptionsStrategy> optionsStrategies;
 
+    /**
+     * Rejects model/mode combinations that cannot be served, before any provider is picked.
+     *
+     * @throws ResponseStatusException (400) if the model or mode is missing, or thinking is not supported.
+     */
+    public void validate(AiModel model, AiMode mode) {
+        if (model == null || mode == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Model and Mode are required.");
+        }
+        if (mode == AiMode.THINKING && !model.isSupportsThinking()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Model " + model.name() + " does not support Thinking.");
+        }
+    }
+
     /**
      * Creates a fully configured ChatClientRequestSpec.
      * 
@@ -57,21 +73,23 @@ public class ChatRequestFactory {
      * 3. Select the appropriate ChatModel via ModelRoutingService.
      * 4. Build a ChatClient with an Advisor Chain:
      * - ThinkingAdvisor: Extracts reasoning before memory is saved.
-     * - MessageChatMemoryAdvisor: Persists the conversation.
+     * - ReactiveChatMemoryAdvisor: Loads and persists the conversation without blocking.
      * 5. Set system prompt parameters and provider-specific ChatOptions.
+     *
+     * @param model       the model that serves this attempt, as chosen by the router
+     * @param pendingTurn shared by the attempts of a hedged turn so memory stores it once; may be {@code null}
+     * @param onToolCall  run whenever the model invokes one of the tools; may be {@code null}
      */
     public Mono<ChatClient.ChatClientRequestSpec> createRequest(
             UUID sessionId, UUID userId,
-            String message, UUID assetId, AiMode mode, AiModel model, String userRole) {
+            String message, UUID assetId, AiMode mode, AiModel model, String userRole,
+            PendingTurn pendingTurn, Runnable onToolCall) {
 
         // 1. Fail Fast: Validate Model & Mode
-        if (model == null || mode == null) {
-            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Model and Mode are required."));
-        }
-
-        if (mode == AiMode.THINKING && !model.isSupportsThinking()) {
-            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                    "Model " + model.name() + " does not support Thinking."));
+        try {
+            validate(model, mode);
+        } catch (ResponseStatusException e) {
+            return Mono.error(e);
         }
 
         // 2. Fetch Personalization and Asset Content (via Intelligent Routing)
@@ -110,25 +128,31 @@ public class ChatRequestFactory {
                             )
                             .user(message)
                             .options(options)
-                            .advisors(a -> a
-                                    .advisors(
-                                            // 1. Extract thinking tags FIRST
-                                            thinkingAdvisor,
-                                            // 2. Save to memory (so it includes the extracted 'think' metadata)
-                                            MessageChatMemoryAdvisor.builder(chatMemory).build(),
-                                            // 3. Record token usage LAST (captures final state)
-                                            tokenUsageAdvisor
-                                    )
-                                    .param(AiConstants.CHAT_MEMORY_CONVERSATION_ID_KEY, conversationId)
-                                    .param(AiConstants.CHAT_MEMORY_RETRIEVE_SIZE_KEY, AiConstants.DEFAULT_MEMORY_RETRIEVE_SIZE)
-                            )
+                            .advisors(a -> {
+                                a.advisors(
+                                                // 1. Extract thinking tags FIRST
+                                                thinkingAdvisor,
+                                                // 2. Save to memory (so it includes the extracted 'think' metadata)
+                                                chatMemoryAdvisor,
+                                                // 3. Record token usage LAST (captures final state)
+                                                tokenUsageAdvisor
+                                        )
+                                        .param(AiConstants.CHAT_MEMORY_CONVERSATION_ID_KEY, conversationId)
+                                        .param(AiConstants.CHAT_MEMORY_RETRIEVE_SIZE_KEY, AiConstants.DEFAULT_MEMORY_RETRIEVE_SIZE);
+                                if (pendingTurn != null) {
+                                    a.param(AiConstants.CHAT_MEMORY_PENDING_TURN_KEY, pendingTurn);
+                                }
+                            })
                             .toolContext(Map.of("userId", userId, "userRole", userRole));
 
                     return spec;
                 })
                 .map(spec -> {
                     if (model.isSupportsTools()) {
-                        spec.toolCallbacks(toolManager.getAllTools());
+                        List<ToolCallback> tools = toolManager.getAllTools();
+                        spec.toolCallbacks(onToolCall == null ? tools : tools.stream()
+                                .<ToolCallback>map(tool -> new ActivityToolCallback(tool, onToolCall))
+                                .toList());
                     }
                     return spec;
                 });
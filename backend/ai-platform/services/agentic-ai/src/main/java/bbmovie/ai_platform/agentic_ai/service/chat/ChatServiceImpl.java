@@ -3,13 +3,27 @@ package bbmovie.ai_platform.agentic_ai.service.chat;
 import bbmovie.ai_platform.agentic_ai.config.AiTimeoutProperties;
 import bbmovie.ai_platform.agentic_ai.entity.enums.AiMode;
 import bbmovie.ai_platform.agentic_ai.entity.enums.AiModel;
+import bbmovie.ai_platform.agentic_ai.exception.ProviderOverloadedException;
+import bbmovie.ai_platform.agentic_ai.service.chat.routing.AdaptiveModelRouter;
+import bbmovie.ai_platform.agentic_ai.service.chat.routing.RouteLease;
+import bbmovie.ai_platform.agentic_ai.service.chat.routing.RoutePlan;
+import bbmovie.ai_platform.agentic_ai.service.memory.PendingTurn;
 import bbmovie.ai_platform.agentic_ai.service.message.MessageService;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * ChatServiceImpl provides the high-level implementation for AI interaction.
@@ -23,8 +37,15 @@ import java.util.UUID;
  * We emit rather than throw because exceptions in SSE streams are swallowed by the
  * framework and the client would see an abrupt connection close with no context.
  *
- * <p><b>Resilience:</b> Circuit breaking and retry are applied by {@link ResilientChatService}
- * via the Decorator pattern — this class contains only business logic.
+ * <p><b>Routing:</b> {@link AdaptiveModelRouter} decides which provider serves the stream and holds a
+ * concurrency slot for it. If the plan names a hedge, a second stream is started on that provider once the
+ * first has failed or has produced no token within the hedge delay; whichever emits first is relayed and the
+ * other is cancelled. Both share a {@link PendingTurn} so the turn is stored in memory once. A primary that
+ * has started calling tools is never hedged: it is busy rather than stalled, and a hedge would repeat the
+ * tools' side effects.
+ *
+ * <p><b>Resilience:</b> Each attempt runs behind the circuit breaker of the provider it was routed to, so a
+ * rerouted call is charged to the provider that served it. Retry is applied by {@link ResilientChatService}.
  */
 @Slf4j
 @Service
@@ -33,7 +54,9 @@ public class ChatServiceImpl implements ChatService {
 
     private final MessageService messageService;
     private final ChatRequestFactory requestFactory;
+    private final AdaptiveModelRouter modelRouter;
     private final AiTimeoutProperties timeoutProperties;
+    private final Map<String, CircuitBreaker> providerCircuitBreakers;
 
     /**
      * Sentinel token emitted to the SSE stream when the AI provider exceeds its timeout.
@@ -48,14 +71,83 @@ public class ChatServiceImpl implements ChatService {
     public Flux<String> chat(UUID sessionId, UUID userId, String message, UUID parentId, UUID assetId, AiMode mode, AiModel model, String userRole) {
         log.info("[Chat] Session: {}, Mode: {}, Model: {}, Asset: {}", sessionId, mode, model, assetId);
 
-        return requestFactory.createRequest(sessionId, userId, message, assetId, mode, model, userRole)
-                .flatMapMany(spec -> spec.stream().content())
+        return Flux.defer(() -> {
+                    requestFactory.validate(model, mode);
+                    RoutePlan plan = modelRouter.plan(model, mode);
+                    PendingTurn turn = new PendingTurn();
+
+                    AtomicBoolean primaryCalledTools = new AtomicBoolean();
+                    Flux<String> primary = attempt(plan.primary(), sessionId, userId, message, assetId, mode, userRole, turn,
+                            plan.hedge() == null ? null : () -> primaryCalledTools.set(true));
+                    if (plan.hedge() == null) {
+                        return primary.doFinally(signal -> turn.settle());
+                    }
+
+                    // The hedge starts after the delay, or right away if the primary fails before any token,
+                    // unless the primary has already run a tool.
+                    Sinks.Empty<Void> primaryFailed = Sinks.empty();
+                    primary = primary.doOnError(e -> primaryFailed.tryEmitEmpty());
+                    Flux<String> hedge = Flux.defer(() -> primaryCalledTools.get()
+                                    ? Flux.<String>empty()
+                                    : hedge(plan, sessionId, userId, message, assetId, mode, userRole, turn))
+                            .delaySubscription(Mono.firstWithSignal(Mono.delay(plan.hedgeDelay()).then(), primaryFailed.asMono()));
+                    return Flux.firstWithValue(primary, hedge)
+                            .onErrorMap(NoSuchElementException.class, ChatServiceImpl::firstAttemptError)
+                            .doFinally(signal -> turn.settle());
+                })
                 .timeout(
                     timeoutProperties.getTimeoutForMode(mode),
                     Flux.just(STREAM_TIMEOUT_SENTINEL)
                 );
     }
 
+    /**
+     * One stream on the routed provider, behind that provider's circuit breaker; feeds its TTFT and outcome back
+     * to the router through the lease.
+     */
+    private Flux<String> attempt(
+            RouteLease lease, UUID sessionId, UUID userId, String message, UUID assetId,
+            AiMode mode, String userRole, PendingTurn turn, Runnable onToolCall) {
+        return requestFactory.createRequest(sessionId, userId, message, assetId, mode, lease.model(), userRole, turn, onToolCall)
+                .flatMapMany(spec -> spec.stream().content())
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker(lease.provider())))
+                .doOnNext(token -> lease.firstToken())
+                .doOnComplete(lease::complete)
+                .doOnError(e -> lease.fail())
+                .doOnCancel(lease::cancel);
+    }
+
+    private Flux<String> hedge(
+            RoutePlan plan, UUID sessionId, UUID userId, String message, UUID assetId,
+            AiMode mode, String userRole, PendingTurn turn) {
+        AiModel model = plan.hedge();
+        return modelRouter.tryAcquire(model)
+                .map(lease -> {
+                    log.info("[Chat] No token from {} within {} ms, hedging on {}",
+                            plan.primary().model(), plan.hedgeDelay().toMillis(), model);
+                    modelRouter.recordHedge(model.getProvider(), "launched");
+                    return attempt(lease, sessionId, userId, message, assetId, mode, userRole, turn, null)
+                            .doOnComplete(() -> modelRouter.recordHedge(model.getProvider(), "won"));
+                })
+                .orElseGet(() -> Flux.error(new ProviderOverloadedException(model.getProvider())));
+    }
+
+    private CircuitBreaker circuitBreaker(String provider) {
+        return providerCircuitBreakers.getOrDefault(provider,
+                providerCircuitBreakers.getOrDefault("ollama", providerCircuitBreakers.values().iterator().next()));
+    }
+
+    /**
+     * {@link Flux#firstWithValue} fails with a {@link NoSuchElementException} wrapping every attempt's error;
+     * surface the primary's so retry and circuit breaking see the provider error itself.
+     */
+    private static Throwable firstAttemptError(NoSuchElementException e) {
+        return Exceptions.unwrapMultiple(e.getCause()).stream()
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(e);
+    }
+
     /**
      * Edits an existing message and triggers a new AI response.
      */
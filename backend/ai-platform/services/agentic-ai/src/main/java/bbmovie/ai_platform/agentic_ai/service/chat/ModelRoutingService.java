@@ -14,6 +14,9 @@ import java.util.Optional;
 /**
  * ModelRoutingService is a dynamic router that selects the appropriate Spring AI {@link ChatModel}
  * based on the requested provider.
+ *
+ * Which provider serves a given chat is decided beforehand by
+ * {@link bbmovie.ai_platform.agentic_ai.service.chat.routing.AdaptiveModelRouter}.
  * 
  * It manages the availability of different AI providers (Ollama, Google, OpenAI) and ensures
  * that a runtime exception is thrown if a requested provider is not configured in the application.
@@ -45,4 +48,16 @@ public class ModelRoutingService {
             default -> throw new IllegalArgumentException("Unknown model provider: " + provider);
         };
     }
+
+    /**
+     * Returns whether a ChatModel bean exists for the given provider name, without logging or throwing.
+     */
+    public boolean isConfigured(String provider) {
+        return switch (provider.toLowerCase()) {
+            case "ollama" -> ollamaChatModel.isPresent();
+            case "gemini", "google" -> googleChatModel.isPresent();
+            case "groq", "openai" -> openAiChatModel.isPresent();
+            default -> false;
+        };
+    }
 }
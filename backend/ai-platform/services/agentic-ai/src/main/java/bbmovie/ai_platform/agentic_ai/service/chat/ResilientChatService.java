@@ -2,9 +2,8 @@ package bbmovie.ai_platform.agentic_ai.service.chat;
 
 import bbmovie.ai_platform.agentic_ai.entity.enums.AiMode;
 import bbmovie.ai_platform.agentic_ai.entity.enums.AiModel;
-import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import bbmovie.ai_platform.agentic_ai.exception.ProviderOverloadedException;
 import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
-import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
 import io.github.resilience4j.retry.Retry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -15,29 +14,30 @@ import org.springframework.web.reactive.function.client.WebClientResponseExcepti
 import reactor.core.publisher.Flux;
 
 import java.time.Duration;
-import java.util.Map;
 import java.util.UUID;
 
 /**
  * Resilience decorator for {@link ChatService}.
  *
- * <p>Applies circuit breaker and retry policies around the core {@link ChatServiceImpl}
- * delegate. By using the Decorator pattern with {@code @Primary}, all components that
+ * <p>Applies the retry policy around the core {@link ChatServiceImpl} delegate and turns open
+ * circuits into a degraded response. By using the Decorator pattern with {@code @Primary}, all components that
  * inject {@link ChatService} automatically receive the resilient version — no changes
  * needed elsewhere.
  *
- * <p><b>Operator order:</b>
- * <pre>
- *   CircuitBreaker (outer) → Retry (inner)
- * </pre>
- * CB is outermost so that when the circuit is open, retries do not execute against a
- * known-dead provider. Only transient errors (429, 503) are retried.
+ * <p><b>Chat:</b> Only transient errors (429, 503) are retried; each retry is routed again. Circuit
+ * breaking for chat is applied per attempt inside {@link ChatServiceImpl}, keyed by the provider the attempt
+ * was routed to, so that
+ * {@link bbmovie.ai_platform.agentic_ai.service.chat.routing.AdaptiveModelRouter} can move a request off a
+ * provider whose circuit is open instead of the call being refused up front.
  *
  * <p><b>Circuit breaker selection:</b> One CB instance per provider ({@code "ollama"},
  * {@code "google"}, {@code "groq"}), configured in {@code application.properties} under
  * {@code resilience4j.circuitbreaker.instances.<provider>.*}.
  * Falls back to the {@code "ollama"} CB if the provider is unknown.
  *
+ * <p><b>Load shedding:</b> a {@link ProviderOverloadedException} (every usable provider at its concurrency
+ * limit) is not retried and is answered with the same {@code [PROVIDER_UNAVAILABLE]} sentinel as an open circuit.
+ *
  * <p><b>SSE timeout sentinel:</b> {@link ChatServiceImpl#STREAM_TIMEOUT_SENTINEL} emitted
  * by the inner stream is NOT treated as an error — it passes through the CB/retry unchanged.
  */
@@ -47,15 +47,12 @@ import java.util.UUID;
 public class ResilientChatService implements ChatService {
 
     private final ChatService delegate;
-    private final Map<String, CircuitBreaker> circuitBreakers;
     private final Retry retry;
 
     public ResilientChatService(
             @Qualifier("chatServiceImpl") ChatService delegate,
-            Map<String, CircuitBreaker> providerCircuitBreakers,
             Retry aiProviderRetry) {
         this.delegate = delegate;
-        this.circuitBreakers = providerCircuitBreakers;
         this.retry = aiProviderRetry;
     }
 
@@ -63,10 +60,7 @@ public class ResilientChatService implements ChatService {
     public Flux<String> chat(
         UUID sessionId, UUID userId, String message,UUID parentId, UUID assetId, 
         AiMode mode, AiModel model, String userRole) {
-        CircuitBreaker cb = resolveCircuitBreaker(model);
-
         return delegate.chat(sessionId, userId, message, parentId, assetId, mode, model, userRole)
-                .transformDeferred(CircuitBreakerOperator.of(cb))   // Outer: CB — blocks calls when open
                 .retryWhen(
                     reactor.util.retry.Retry.backoff(retry.getRetryConfig().getMaxAttempts(),
                     Duration.ofMillis(retry.getRetryConfig().getIntervalBiFunction().apply(0, null))
@@ -74,49 +68,34 @@ public class ResilientChatService implements ChatService {
                 .filter(this::isTransientError)
                 .doBeforeRetry(sig -> log.warn("[Resilience] Retrying AI call (attempt {}): {}", sig.totalRetries() + 1, sig.failure().getMessage())))
                 .onErrorResume(CallNotPermittedException.class, ex -> {
-                    // Circuit is open — provider is considered down. Emit a clear sentinel.
-                    log.warn("[Resilience] Circuit OPEN for provider '{}'. Returning degraded response.",
+                    // The circuit of the provider the call was routed to is open. Emit a clear sentinel.
+                    log.warn("[Resilience] Circuit OPEN for the routed provider of '{}'. Returning degraded response.",
                             model != null ? model.getProvider() : "unknown");
                     return Flux.just("[PROVIDER_UNAVAILABLE]");
+                })
+                .onErrorResume(ProviderOverloadedException.class, ex -> {
+                    log.warn("[Resilience] {}", ex.getMessage());
+                    return Flux.just("[PROVIDER_UNAVAILABLE]");
                 });
     }
 
     @Override
     public Flux<String> regenerateMessage(UUID messageId, UUID userId) {
-        // regenerate and edit don't need per-provider CB since model is resolved internally,
-        // but we still apply the default CB for baseline protection.
-        CircuitBreaker defaultCb = circuitBreakers.getOrDefault("ollama", circuitBreakers.values().iterator().next());
-
+        // regenerate and edit go through ChatServiceImpl#chat, whose attempts carry their provider's CB.
         return delegate.regenerateMessage(messageId, userId)
-                .transformDeferred(CircuitBreakerOperator.of(defaultCb))
                 .retryWhen(buildRetrySpec())
                 .onErrorResume(CallNotPermittedException.class, ex -> Flux.just("[PROVIDER_UNAVAILABLE]"));
     }
 
     @Override
     public Flux<String> editMessage(UUID messageId, UUID userId, String newContent) {
-        CircuitBreaker defaultCb = circuitBreakers.getOrDefault("ollama", circuitBreakers.values().iterator().next());
-
         return delegate.editMessage(messageId, userId, newContent)
-                .transformDeferred(CircuitBreakerOperator.of(defaultCb))
                 .retryWhen(buildRetrySpec())
                 .onErrorResume(CallNotPermittedException.class, ex -> Flux.just("[PROVIDER_UNAVAILABLE]"));
     }
 
     // ─── Helpers ────────────────────────────────────────────────────────────────
 
-    /**
-     * Selects the circuit breaker for the given model's provider.
-     * Falls back to "ollama" CB if model is null or provider is not registered.
-     */
-    private CircuitBreaker resolveCircuitBreaker(AiModel model) {
-        if (model == null) {
-            return circuitBreakers.getOrDefault("ollama", circuitBreakers.values().iterator().next());
-        }
-        return circuitBreakers.getOrDefault(model.getProvider(),
-                circuitBreakers.getOrDefault("ollama", circuitBreakers.values().iterator().next()));
-    }
-
     /**
      * Returns true for errors that are safe to retry:
      * <ul>
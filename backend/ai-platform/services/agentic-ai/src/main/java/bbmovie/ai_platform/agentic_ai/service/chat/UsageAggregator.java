@@ -0,0 +1,181 @@
+package bbmovie.ai_platform.agentic_ai.service.chat;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.nats.client.JetStream;
+import io.nats.client.PublishOptions;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers per-call {@link UsageEvent}s in a bounded ring buffer and publishes them to NATS as one event per
+ * (user, model, minute) every {@code ai.usage.flush-interval-ms}, instead of one NATS message per model call.
+ *
+ * Nothing is discarded on purpose:
+ * - Full Buffer: The event is published on its own, as before.
+ * - Failed Publish: The bucket is carried over as is and re-sent with the next flush under its original message
+ *   id, so JetStream's duplicate window discards it if the failed attempt was in fact stored. It is never merged
+ *   with newer events, which get a bucket (and id) of their own.
+ * - Shutdown: The buffer is drained and flushed one last time.
+ * Only events that cannot be published at all are counted as dropped.
+ */
+@Slf4j
+@Component
+public class UsageAggregator {
+
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final JetStream jetStream;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<UsageEvent> buffer;
+    private final Duration flushInterval;
+
+    /** Message ids are unique per (instance, flush, bucket) and stay the same for every retry of a bucket. */
+    private final String instanceId = UUID.randomUUID().toString();
+
+    /** Buckets whose publish failed, retried with the next flush. Only touched by the flush thread. */
+    private final List<PendingBucket> carriedOver = new ArrayList<>();
+    private long flushSequence;
+
+    private final Counter recorded;
+    private final Counter overflow;
+    private final Counter published;
+    private final Counter dropped;
+
+    @Value("${nats.usage.subject:ai.usage.recorded}")
+    private String usageSubject;
+
+    private volatile boolean running;
+    private volatile Thread flushThread;
+
+    public UsageAggregator(
+            JetStream jetStream,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${ai.usage.buffer-capacity:16384}") int bufferCapacity,
+            @Value("${ai.usage.flush-interval-ms:5000}") long flushIntervalMs
+    ) {
+        this.jetStream = jetStream;
+        this.objectMapper = objectMapper;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.flushInterval = Duration.ofMillis(flushIntervalMs);
+
+        Gauge.builder("ai.usage.buffer.depth", buffer, BlockingQueue::size)
+                .description("Usage events waiting for the next flush")
+                .register(meterRegistry);
+        this.recorded = Counter.builder("ai.usage.events.recorded").register(meterRegistry);
+        this.overflow = Counter.builder("ai.usage.events.overflow")
+                .description("Usage events published on their own because the buffer was full")
+                .register(meterRegistry);
+        this.published = Counter.builder("ai.usage.buckets.published").register(meterRegistry);
+        this.dropped = Counter.builder("ai.usage.events.dropped")
+                .description("Usage events that could not be published")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        flushThread = Thread.ofVirtual().name("usage-aggregator").start(this::flushLoop);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        Thread thread = flushThread;
+        if (thread != null) {
+            thread.interrupt();
+            thread.join(SHUTDOWN_TIMEOUT.toMillis());
+        }
+    }
+
+    /**
+     * Adds one model call to the current minute's bucket. Never blocks the caller.
+     */
+    public void record(UsageEvent event) {
+        recorded.increment();
+        if (running && buffer.offer(event)) {
+            return;
+        }
+        overflow.increment();
+        try {
+            jetStream.publishAsync(usageSubject, objectMapper.writeValueAsBytes(event))
+                    .exceptionally(e -> {
+                        dropped.increment();
+                        log.error("[Usage] Failed to publish overflow usage event: {}", e.getMessage());
+                        return null;
+                    });
+        } catch (Exception e) {
+            dropped.increment();
+            log.error("[Usage] Failed to publish overflow usage event", e);
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            try {
+                Thread.sleep(flushInterval);
+            } catch (InterruptedException e) {
+                break;
+            }
+            flush();
+        }
+        // Final flush of whatever arrived before shutdown.
+        flush();
+        if (!carriedOver.isEmpty()) {
+            long requests = carriedOver.stream().mapToLong(pending -> pending.bucket().requests()).sum();
+            dropped.increment(requests);
+            log.error("[Usage] {} usage buckets ({} requests) could not be published before shutdown",
+                    carriedOver.size(), requests);
+        }
+    }
+
+    void flush() {
+        List<PendingBucket> pending = new ArrayList<>(carriedOver);
+        carriedOver.clear();
+        List<UsageEvent> drained = new ArrayList<>(buffer.size());
+        buffer.drainTo(drained);
+        if (pending.isEmpty() && drained.isEmpty()) {
+            return;
+        }
+
+        long sequence = ++flushSequence;
+        for (UsageEvent bucket : UsageEvent.aggregate(drained)) {
+            pending.add(new PendingBucket(messageId(sequence, bucket.key()), bucket));
+        }
+        for (PendingBucket next : pending) {
+            try {
+                PublishOptions options = PublishOptions.builder()
+                        .messageId(next.messageId())
+                        .build();
+                jetStream.publish(usageSubject, objectMapper.writeValueAsBytes(next.bucket()), options);
+                published.increment();
+            } catch (Exception e) {
+                log.warn("[Usage] Failed to publish usage bucket {}, retrying next flush: {}",
+                        next.bucket().key(), e.getMessage());
+                carriedOver.add(next);
+            }
+        }
+        log.debug("[Usage] Flushed {} usage events", drained.size());
+    }
+
+    private String messageId(long sequence, UsageEvent.Key key) {
+        return instanceId + ":" + sequence + ":" + key.userId() + ":" + key.model() + ":" + key.minute().getEpochSecond();
+    }
+
+    private record PendingBucket(String messageId, UsageEvent bucket) {
+    }
+}
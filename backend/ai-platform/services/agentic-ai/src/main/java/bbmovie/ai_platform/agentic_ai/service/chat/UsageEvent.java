@@ -2,10 +2,17 @@ package bbmovie.ai_platform.agentic_ai.service.chat;
 
 import java.io.Serializable;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 
 /**
- * Event representing AI token usage for a specific request.
+ * Event representing AI token usage for a specific request, or the sum of several requests of one user and model
+ * within one minute ({@code requests > 1}, {@code timestamp} at the start of the minute).
  * Published to NATS for asynchronous processing and persistence.
  */
 public record UsageEvent(
@@ -15,9 +22,12 @@ public record UsageEvent(
     long promptTokens,
     long completionTokens,
     long totalTokens,
-    Instant timestamp
+    Instant timestamp,
+    long requests
 ) implements Serializable {
-    
+
+    public static final String UNKNOWN_MODEL = "unknown";
+
     public static UsageEvent of(UUID userId, UUID sessionId, String model, long prompt, long completion) {
         return new UsageEvent(
             userId, 
@@ -26,7 +36,48 @@ public record UsageEvent(
             prompt, 
             completion, 
             prompt + completion, 
-            Instant.now()
+            Instant.now(),
+            1
+        );
+    }
+
+    /**
+     * The (user, model, minute) bucket this usage is aggregated into.
+     */
+    public Key key() {
+        Instant at = timestamp != null ? timestamp : Instant.now();
+        return new Key(userId, model != null ? model : UNKNOWN_MODEL, at.truncatedTo(ChronoUnit.MINUTES));
+    }
+
+    /**
+     * Folds {@code events} into one event per {@link Key}, in order of first appearance. The session is kept only
+     * when every event of a bucket shares it. Events published before {@code requests} existed count as one.
+     */
+    public static List<UsageEvent> aggregate(Collection<UsageEvent> events) {
+        Map<Key, UsageEvent> buckets = new LinkedHashMap<>();
+        for (UsageEvent event : events) {
+            Key key = event.key();
+            UsageEvent bucket = new UsageEvent(key.userId(), event.sessionId(), key.model(),
+                    event.promptTokens(), event.completionTokens(), event.totalTokens(), key.minute(),
+                    Math.max(1, event.requests()));
+            buckets.merge(key, bucket, UsageEvent::plus);
+        }
+        return List.copyOf(buckets.values());
+    }
+
+    private UsageEvent plus(UsageEvent other) {
+        return new UsageEvent(
+            userId,
+            Objects.equals(sessionId, other.sessionId) ? sessionId : null,
+            model,
+            promptTokens + other.promptTokens,
+            completionTokens + other.completionTokens,
+            totalTokens + other.totalTokens,
+            timestamp,
+            requests + other.requests
         );
     }
+
+    public record Key(UUID userId, String model, Instant minute) {
+    }
 }
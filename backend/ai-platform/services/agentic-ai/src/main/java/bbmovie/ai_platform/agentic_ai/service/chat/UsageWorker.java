@@ -1,41 +1,108 @@
 package bbmovie.ai_platform.agentic_ai.service.chat;
 
+import bbmovie.ai_platform.agentic_ai.repository.TokenUsageBatchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.nats.client.*;
 import io.nats.client.api.AckPolicy;
 import io.nats.client.api.ConsumerConfiguration;
 import io.nats.client.api.StorageType;
 import io.nats.client.api.StreamConfiguration;
-import lombok.RequiredArgsConstructor;
+import io.nats.client.impl.Headers;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
 import tools.jackson.databind.ObjectMapper;
 
 import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * UsageWorker is a background service that processes token usage events from NATS.
- * 
- * In a production environment, this worker would persist the usage data to a 
- * database (e.g., PostgreSQL or a time-series DB like InfluxDB) for billing 
- * and analytics.
+ * UsageWorker is a background service that persists token usage events from NATS.
+ *
+ * Events arrive already aggregated per (user, model, minute) by {@link UsageAggregator}. A dedicated loop
+ * fetches up to {@code nats.usage.batch-size} of them, folds buckets of the same key again and adds them to
+ * {@code ai_token_usage} with one upsert per batch, after which the whole batch is acked.
+ *
+ * The upsert adds to existing counts, so every event is counted once by its message id (the publisher's
+ * {@code Nats-Msg-Id}, or the stream sequence): the ids are claimed in {@code ai_token_usage_message} in the same
+ * transaction as the upsert, and only newly claimed events are added. A redelivery after a crash, or to another
+ * instance, finds its id claimed and is only acked. Claims are kept for {@code nats.usage.dedup-retention-hours}.
+ * When the write fails, the batch is nak'ed with a growing delay so a database outage does not exhaust the
+ * deliveries within seconds.
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class UsageWorker {
 
+    private static final String MSG_ID_HEADER = "Nats-Msg-Id";
+    private static final Duration WRITE_TIMEOUT = Duration.ofSeconds(20);
+    private static final Duration PURGE_INTERVAL = Duration.ofHours(1);
+    private static final Duration MIN_REDELIVERY_DELAY = Duration.ofSeconds(5);
+    private static final Duration MAX_REDELIVERY_DELAY = Duration.ofMinutes(5);
+    private static final int MAX_DELIVER = 20;
+
     private final Connection natsConnection;
     private final ObjectMapper objectMapper;
+    private final TokenUsageBatchRepository usageBatchRepository;
+    private final TransactionalOperator transactionalOperator;
 
     @Value("${nats.usage.subject:ai.usage.recorded}")
     private String usageSubject;
 
+    @Value("${nats.usage.batch-size:500}")
+    private int batchSize;
+
+    @Value("${nats.usage.fetch-wait-ms:1000}")
+    private long fetchWaitMs;
+
+    @Value("${nats.usage.dedup-retention-hours:168}")
+    private long dedupRetentionHours;
+
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private final Counter persistedCounter;
+    private final Counter duplicateCounter;
+    private final Counter failedBatchCounter;
+
+    private volatile boolean running;
+    private volatile Thread pollThread;
+    private long lastPurgeMs;
+
+    public UsageWorker(
+            Connection natsConnection,
+            ObjectMapper objectMapper,
+            TokenUsageBatchRepository usageBatchRepository,
+            ReactiveTransactionManager transactionManager,
+            MeterRegistry meterRegistry
+    ) {
+        this.natsConnection = natsConnection;
+        this.objectMapper = objectMapper;
+        this.usageBatchRepository = usageBatchRepository;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+
+        Gauge.builder("ai.usage.consumer.pending", pendingEvents, AtomicLong::get)
+                .description("Usage events not yet delivered to the worker")
+                .register(meterRegistry);
+        this.persistedCounter = Counter.builder("ai.usage.buckets.persisted").register(meterRegistry);
+        this.duplicateCounter = Counter.builder("ai.usage.events.duplicate").register(meterRegistry);
+        this.failedBatchCounter = Counter.builder("ai.usage.batch.failed").register(meterRegistry);
+    }
+
     @EventListener(ApplicationReadyEvent.class)
     public void startListening() {
-        log.info("[UsageWorker] Initializing JetStream Pull Worker on subject: {}", usageSubject);
+        log.info("[UsageWorker] Initializing batched JetStream Pull Worker on subject: {}", usageSubject);
         try {
             String streamName = "AI_USAGE_STREAM";
             String durableName = "usage-persistence-worker";
@@ -61,38 +128,152 @@ public class UsageWorker {
                     .durable(durableName)
                     .filterSubject(usageSubject)
                     .ackPolicy(AckPolicy.Explicit)
-                    .maxDeliver(3)
+                    .maxDeliver(MAX_DELIVER)
                     .ackWait(Duration.ofSeconds(30))
                     .build();
-            
+
             ConsumerContext consumerContext = streamContext.createOrUpdateConsumer(consumerConfig);
 
-            // 4. Start Consume
-            consumerContext.consume(msg -> {
+            // 4. Start the fetch loop on its own thread; it blocks only on NATS and on the batch write.
+            running = true;
+            pollThread = Thread.ofVirtual()
+                    .name("usage-batch-worker")
+                    .start(() -> pollLoop(consumerContext));
+
+            log.info("[UsageWorker] Consumer is now running (batch size {})...", batchSize);
+
+        } catch (Exception e) {
+            log.error("[UsageWorker] Critical error starting NATS listener", e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        Thread thread = pollThread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void pollLoop(ConsumerContext consumerContext) {
+        FetchConsumeOptions options = FetchConsumeOptions.builder()
+                .maxMessages(batchSize)
+                .expiresIn(fetchWaitMs)
+                .build();
+
+        while (running) {
+            try {
+                List<Message> batch = new ArrayList<>(batchSize);
+                FetchConsumer fetch = consumerContext.fetch(options);
+                Message msg;
+                while ((msg = fetch.nextMessage()) != null) {
+                    batch.add(msg);
+                }
+                if (!batch.isEmpty()) {
+                    processBatch(batch);
+                    pendingEvents.set(consumerContext.getConsumerInfo().getNumPending());
+                }
+                purgeClaims();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("[UsageWorker] Fetch loop error, backing off", e);
                 try {
-                    UsageEvent event = objectMapper.readValue(msg.getData(), UsageEvent.class);
-                    processUsageEvent(event, msg);
-                } catch (Exception e) {
-                    log.error("[UsageWorker] Failed to parse UsageEvent. terminating message.", e);
-                    msg.term();
+                    Thread.sleep(fetchWaitMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    void processBatch(List<Message> natsMessages) {
+        List<Message> accepted = new ArrayList<>(natsMessages.size());
+        Map<String, UsageEvent> eventsById = new LinkedHashMap<>();
+        for (Message natsMsg : natsMessages) {
+            try {
+                UsageEvent event = objectMapper.readValue(natsMsg.getData(), UsageEvent.class);
+                if (event.userId() == null) {
+                    throw new IllegalArgumentException("usage event without user");
+                }
+                accepted.add(natsMsg);
+                if (eventsById.putIfAbsent(messageId(natsMsg), event) != null) {
+                    duplicateCounter.increment();
                 }
-            });
+            } catch (Exception e) {
+                log.error("[UsageWorker] Invalid UsageEvent. Message will be terminated (poison message).", e);
+                natsMsg.term();
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
 
-            log.info("[UsageWorker] Consumer is now running...");
+        int persisted;
+        try {
+            persisted = write(eventsById).block(WRITE_TIMEOUT);
+        } catch (Exception e) {
+            failedBatchCounter.increment();
+            log.error("[UsageWorker] DB Sync Failed for batch of {} usage events", accepted.size(), e);
+            accepted.forEach(msg -> msg.nakWithDelay(redeliveryDelay(msg)));
+            return;
+        }
+
+        accepted.forEach(Message::ack);
+        duplicateCounter.increment(eventsById.size() - persisted);
+        log.debug("[UsageWorker] Persisted {} of {} usage events", persisted, accepted.size());
+    }
+
+    /**
+     * Claims the message ids and adds the events whose id was not claimed before, in one transaction.
+     * Emits the number of events added.
+     */
+    private Mono<Integer> write(Map<String, UsageEvent> eventsById) {
+        return usageBatchRepository.claimMessageIds(List.copyOf(eventsById.keySet()))
+                .map(eventsById::get)
+                .collectList()
+                .flatMap(fresh -> {
+                    List<UsageEvent> buckets = UsageEvent.aggregate(fresh);
+                    return usageBatchRepository.upsertAll(buckets)
+                            .doOnSuccess(rows -> persistedCounter.increment(buckets.size()))
+                            .thenReturn(fresh.size());
+                })
+                .as(transactionalOperator::transactional);
+    }
 
+    private void purgeClaims() {
+        long now = System.currentTimeMillis();
+        if (now - lastPurgeMs < PURGE_INTERVAL.toMillis()) {
+            return;
+        }
+        lastPurgeMs = now;
+        try {
+            Long purged = usageBatchRepository.purgeMessageIdsBefore(
+                    Instant.ofEpochMilli(now).minus(Duration.ofHours(dedupRetentionHours))).block(WRITE_TIMEOUT);
+            log.debug("[UsageWorker] Purged {} processed usage message ids", purged);
         } catch (Exception e) {
-            log.error("[UsageWorker] Critical error starting NATS listener", e);
+            log.warn("[UsageWorker] Failed to purge processed usage message ids: {}", e.getMessage());
         }
     }
 
-    private void processUsageEvent(UsageEvent event, Message natsMsg) {
-        log.info("[UsageRecord] User: {}, Session: {}, Model: {}, Tokens: [P:{}, C:{}, T:{}]", 
-                event.userId(), event.sessionId(), event.model(), 
-                event.promptTokens(), event.completionTokens(), event.totalTokens());
-        
-        // TODO: Persist to DB for cost calculation/billing
-        
-        
-        natsMsg.ack();
+    /**
+     * Doubles with every delivery of the message, from 5 seconds up to 5 minutes.
+     */
+    private static Duration redeliveryDelay(Message msg) {
+        long deliveries = Math.max(1, msg.metaData().deliveredCount());
+        long seconds = MIN_REDELIVERY_DELAY.toSeconds() << Math.min(deliveries - 1, 16);
+        return seconds >= MAX_REDELIVERY_DELAY.toSeconds() ? MAX_REDELIVERY_DELAY : Duration.ofSeconds(seconds);
+    }
+
+    /**
+     * The publisher's message id, or the stream sequence for events published without one.
+     */
+    private static String messageId(Message msg) {
+        Headers headers = msg.getHeaders();
+        String messageId = headers != null ? headers.getFirst(MSG_ID_HEADER) : null;
+        return messageId != null ? messageId : "seq:" + msg.metaData().streamSequence();
     }
 }
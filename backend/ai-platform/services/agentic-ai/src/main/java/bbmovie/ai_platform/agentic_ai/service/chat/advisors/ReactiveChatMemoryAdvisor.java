@@ -0,0 +1,164 @@
+package bbmovie.ai_platform.agentic_ai.service.chat.advisors;
+
+import bbmovie.ai_platform.agentic_ai.service.memory.HybridChatMemory;
+import bbmovie.ai_platform.agentic_ai.service.memory.PendingTurn;
+import bbmovie.ai_platform.agentic_ai.utils.AiConstants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClientMessageAggregator;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ReactiveChatMemoryAdvisor replaces Spring AI's {@code MessageChatMemoryAdvisor} for the streaming chat path.
+ *
+ * <p>{@code MessageChatMemoryAdvisor} goes through the synchronous {@code ChatMemory} API, so every turn
+ * blocked a thread on a Redis read before the model call and on a Redis write plus NATS publish after it.
+ * This advisor uses {@link HybridChatMemory}'s reactive methods instead:
+ * <ol>
+ *   <li>The conversation window is loaded as part of the stream (one LRANGE) and merged into the prompt.</li>
+ *   <li>The user and assistant messages are appended together once the stream completes, in one Redis
+ *       round trip followed by the NATS hand-off.</li>
+ * </ol>
+ *
+ * <p>When the request carries a {@link PendingTurn} (a routed chat that may be hedged onto a second provider),
+ * only the attempt that completes first stores the turn, and an aborted attempt defers its user-only write to it.
+ *
+ * <p>It runs at {@link Advisor#DEFAULT_CHAT_MEMORY_PRECEDENCE_ORDER}, i.e. outside {@link ThinkingAdvisor},
+ * so the stored assistant message already carries the extracted {@code "think"} metadata.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReactiveChatMemoryAdvisor implements CallAdvisor, StreamAdvisor {
+
+    private final HybridChatMemory chatMemory;
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        String conversationId = conversationId(request);
+        if (conversationId == null) {
+            return chain.nextCall(request);
+        }
+
+        List<Message> history = chatMemory.get(conversationId);
+        ChatClientResponse response = chain.nextCall(withHistory(request, history));
+
+        List<Message> turn = new ArrayList<>(2);
+        addIfPresent(turn, request.prompt().getUserMessage());
+        if (response != null && response.chatResponse() != null && response.chatResponse().getResult() != null) {
+            turn.add(response.chatResponse().getResult().getOutput());
+        }
+        chatMemory.add(conversationId, turn);
+        return response;
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        String conversationId = conversationId(request);
+        if (conversationId == null) {
+            return chain.nextStream(request);
+        }
+
+        return chatMemory.load(conversationId)
+                .flatMapMany(history -> {
+                    AtomicBoolean persisted = new AtomicBoolean(false);
+                    UserMessage userMessage = request.prompt().getUserMessage();
+                    PendingTurn pendingTurn = pendingTurn(request);
+
+                    Flux<ChatClientResponse> responses = chain.nextStream(withHistory(request, history));
+                    return new ChatClientMessageAggregator()
+                            .aggregateChatClientResponse(responses, aggregated -> {
+                                if (!persisted.compareAndSet(false, true)
+                                        || (pendingTurn != null && !pendingTurn.complete())) {
+                                    return;
+                                }
+                                List<Message> turn = new ArrayList<>(2);
+                                addIfPresent(turn, userMessage);
+                                if (aggregated.chatResponse() != null && aggregated.chatResponse().getResult() != null) {
+                                    turn.add(aggregated.chatResponse().getResult().getOutput());
+                                }
+                                persist(conversationId, turn);
+                            })
+                            .doFinally(signal -> {
+                                // Cancelled or failed before completion: keep the user's turn so the
+                                // conversation stays consistent on retry.
+                                if (persisted.compareAndSet(false, true)) {
+                                    List<Message> turn = new ArrayList<>(1);
+                                    addIfPresent(turn, userMessage);
+                                    if (pendingTurn != null) {
+                                        pendingTurn.abandon(() -> persist(conversationId, turn));
+                                    } else {
+                                        persist(conversationId, turn);
+                                    }
+                                }
+                            });
+                });
+    }
+
+    private void persist(String conversationId, List<Message> turn) {
+        chatMemory.append(conversationId, turn)
+                .subscribe(
+                        null,
+                        e -> log.error("[Memory] Failed to persist turn for {}: {}", conversationId, e.getMessage())
+                );
+    }
+
+    /**
+     * Prepends the stored history to the prompt, keeping system instructions at the head.
+     */
+    private ChatClientRequest withHistory(ChatClientRequest request, List<Message> history) {
+        if (history.isEmpty()) {
+            return request;
+        }
+        List<Message> instructions = request.prompt().getInstructions();
+        List<Message> merged = new ArrayList<>(history.size() + instructions.size());
+        instructions.stream().filter(m -> m.getMessageType() == MessageType.SYSTEM).forEach(merged::add);
+        history.stream().filter(m -> m.getMessageType() != MessageType.SYSTEM).forEach(merged::add);
+        instructions.stream().filter(m -> m.getMessageType() != MessageType.SYSTEM).forEach(merged::add);
+
+        return request.mutate()
+                .prompt(request.prompt().mutate().messages(merged).build())
+                .build();
+    }
+
+    private String conversationId(ChatClientRequest request) {
+        Object id = request.context().get(AiConstants.CHAT_MEMORY_CONVERSATION_ID_KEY);
+        return id == null ? null : id.toString();
+    }
+
+    private PendingTurn pendingTurn(ChatClientRequest request) {
+        return request.context().get(AiConstants.CHAT_MEMORY_PENDING_TURN_KEY) instanceof PendingTurn turn ? turn : null;
+    }
+
+    private static void addIfPresent(List<Message> turn, UserMessage userMessage) {
+        if (userMessage != null && userMessage.getText() != null && !userMessage.getText().isBlank()) {
+            turn.add(userMessage);
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return Advisor.DEFAULT_CHAT_MEMORY_PRECEDENCE_ORDER;
+    }
+
+    @Override
+    public String getName() {
+        return "ReactiveChatMemoryAdvisor";
+    }
+}
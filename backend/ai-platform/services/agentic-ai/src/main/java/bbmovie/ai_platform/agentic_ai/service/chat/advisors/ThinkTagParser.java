@@ -0,0 +1,237 @@
+package bbmovie.ai_platform.agentic_ai.service.chat.advisors;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single-pass scanner that separates thinking blocks from visible content.
+ *
+ * <p>All configured open and close tags are compiled into one Aho-Corasick automaton, flattened into a DFA
+ * transition table, so each input character costs one table lookup regardless of how many tags are configured.
+ * Text is copied straight from the input chunk into the content or thinking buffer in ranges; only the few
+ * characters that might still turn into a tag at a chunk boundary (at most the longest tag) are carried over to
+ * the next chunk.
+ *
+ * <p>The automaton is immutable and shared; each response (unary or stream subscription) gets its own
+ * {@link Session}. Open tag {@code i} is paired with close tag {@code i} (or the first close tag if there are
+ * fewer), and inside a block only that close tag ends it.
+ */
+final class ThinkTagParser {
+
+    private final String[] tags;
+    private final int openCount;
+    private final int[] pairedClose;
+    private final int[] asciiClass = new int[128];
+    private final Map<Character, Integer> otherClass = new HashMap<>();
+    private final int[][] delta;
+    private final int[] depth;
+    private final int[][] outputs;
+
+    ThinkTagParser(List<String> openTags, List<String> closeTags) {
+        if (openTags.isEmpty() || closeTags.isEmpty()) {
+            throw new IllegalArgumentException("At least one open and one close tag are required");
+        }
+        this.openCount = openTags.size();
+        this.tags = new String[openCount + closeTags.size()];
+        for (int i = 0; i < openCount; i++) {
+            tags[i] = openTags.get(i);
+        }
+        for (int i = 0; i < closeTags.size(); i++) {
+            tags[openCount + i] = closeTags.get(i);
+        }
+        this.pairedClose = new int[openCount];
+        for (int i = 0; i < openCount; i++) {
+            pairedClose[i] = openCount + (i < closeTags.size() ? i : 0);
+        }
+
+        // Character classes: 0 for every character that appears in no tag, 1..n otherwise.
+        int classes = 1;
+        for (String tag : tags) {
+            for (int i = 0; i < tag.length(); i++) {
+                char ch = tag.charAt(i);
+                if (classOf(ch) == 0) {
+                    if (ch < 128) {
+                        asciiClass[ch] = classes++;
+                    } else {
+                        otherClass.put(ch, classes++);
+                    }
+                }
+            }
+        }
+
+        // Trie over all tags.
+        List<int[]> trie = new ArrayList<>();
+        List<Integer> depths = new ArrayList<>();
+        List<List<Integer>> outs = new ArrayList<>();
+        trie.add(emptyRow(classes));
+        depths.add(0);
+        outs.add(new ArrayList<>());
+        for (int p = 0; p < tags.length; p++) {
+            int s = 0;
+            for (int i = 0; i < tags[p].length(); i++) {
+                int c = classOf(tags[p].charAt(i));
+                if (trie.get(s)[c] < 0) {
+                    trie.get(s)[c] = trie.size();
+                    trie.add(emptyRow(classes));
+                    depths.add(i + 1);
+                    outs.add(new ArrayList<>());
+                }
+                s = trie.get(s)[c];
+            }
+            outs.get(s).add(p);
+        }
+
+        // Failure links folded into a full transition table, breadth-first so shallower states are final first.
+        int states = trie.size();
+        int[] fail = new int[states];
+        this.delta = new int[states][];
+        Deque<Integer> queue = new ArrayDeque<>();
+        delta[0] = new int[classes];
+        for (int c = 0; c < classes; c++) {
+            int child = trie.get(0)[c];
+            delta[0][c] = Math.max(child, 0);
+            if (child > 0) {
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            delta[s] = new int[classes];
+            for (int c = 0; c < classes; c++) {
+                int child = trie.get(s)[c];
+                if (child < 0) {
+                    delta[s][c] = delta[fail[s]][c];
+                    continue;
+                }
+                fail[child] = delta[fail[s]][c];
+                outs.get(child).addAll(outs.get(fail[child]));
+                delta[s][c] = child;
+                queue.add(child);
+            }
+        }
+
+        this.depth = depths.stream().mapToInt(Integer::intValue).toArray();
+        this.outputs = outs.stream().map(o -> o.stream().mapToInt(Integer::intValue).toArray()).toArray(int[][]::new);
+    }
+
+    Session newSession() {
+        return new Session();
+    }
+
+    private int classOf(char ch) {
+        return ch < 128 ? asciiClass[ch] : otherClass.getOrDefault(ch, 0);
+    }
+
+    private static int[] emptyRow(int classes) {
+        int[] row = new int[classes];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    /**
+     * Parsing state of one response. Not thread-safe; a stream feeds its chunks sequentially.
+     */
+    final class Session {
+
+        private final StringBuilder carry = new StringBuilder();
+        private final StringBuilder thinking = new StringBuilder();
+        private int state;
+        /** Pattern id of the close tag that ends the current block, or -1 outside a block. */
+        private int activeClose = -1;
+        private boolean sawTag;
+
+        /**
+         * Appends the visible part of {@code chunk} to {@code content} and its reasoning part to this session's
+         * thinking. Characters that may be the start of a tag are held back until the next chunk.
+         */
+        void feed(CharSequence chunk, StringBuilder content) {
+            int len = chunk.length();
+            int emitFrom = 0;
+            for (int i = 0; i < len; i++) {
+                state = delta[state][classOf(chunk.charAt(i))];
+                int matched = relevantMatch();
+                if (matched >= 0) {
+                    int pending = carry.length() + (i + 1 - emitFrom);
+                    emit(chunk, emitFrom, pending - tags[matched].length(), content);
+                    // Whatever is still pending is the tag itself.
+                    carry.setLength(0);
+                    emitFrom = i + 1;
+                    toggle(matched);
+                    state = 0;
+                }
+            }
+            int pending = carry.length() + (len - emitFrom);
+            emitFrom = emit(chunk, emitFrom, pending - Math.min(depth[state], pending), content);
+            carry.append(chunk, emitFrom, len);
+        }
+
+        /**
+         * Flushes held-back characters at the end of the response.
+         */
+        void finish(StringBuilder content) {
+            emit("", 0, carry.length(), content);
+            state = 0;
+        }
+
+        boolean inside() {
+            return activeClose >= 0;
+        }
+
+        boolean sawTag() {
+            return sawTag;
+        }
+
+        int thinkingLength() {
+            return thinking.length();
+        }
+
+        String thinking() {
+            return thinking.toString().trim();
+        }
+
+        private int relevantMatch() {
+            for (int p : outputs[state]) {
+                if (activeClose < 0 ? p < openCount : p == activeClose) {
+                    return p;
+                }
+            }
+            return -1;
+        }
+
+        private void toggle(int matched) {
+            sawTag = true;
+            if (activeClose < 0) {
+                if (!thinking.isEmpty()) {
+                    thinking.append('\n');
+                }
+                activeClose = pairedClose[matched];
+            } else {
+                activeClose = -1;
+            }
+        }
+
+        /**
+         * Moves the first {@code n} pending characters (carry first, then {@code chunk} from {@code from}) to the
+         * buffer of the current mode and returns the new chunk position.
+         */
+        private int emit(CharSequence chunk, int from, int n, StringBuilder content) {
+            if (n <= 0) {
+                return from;
+            }
+            StringBuilder sink = activeClose >= 0 ? thinking : content;
+            int fromCarry = Math.min(n, carry.length());
+            if (fromCarry > 0) {
+                sink.append(carry, 0, fromCarry);
+                carry.delete(0, fromCarry);
+            }
+            int fromChunk = n - fromCarry;
+            sink.append(chunk, from, from + fromChunk);
+            return from + fromChunk;
+        }
+    }
+}
@@ -14,14 +14,11 @@ import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.model.Generation;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
  * ThinkingAdvisor intercepts the AI's response to extract and handle "thinking" blocks.
@@ -29,7 +26,8 @@ import java.util.stream.IntStream;
  * <p>Many modern models (like DeepSeek-R1, Qwen-Reasoning, some Claude variants) output their
  * internal thought process wrapped in model-specific tags. This advisor:
  * <ol>
- *   <li>Locates thinking blocks using a stateful parser (streaming) or Regex (unary calls).</li>
+ *   <li>Locates thinking blocks with {@link ThinkTagParser}, a single-pass tag automaton shared by the
+ *       unary and streaming paths.</li>
  *   <li>Extracts the reasoning content.</li>
  *   <li>Moves the reasoning into the message metadata under the key {@code "think"}.</li>
  *   <li>Removes the tags from the final user-facing content.</li>
@@ -39,11 +37,14 @@ import java.util.stream.IntStream;
  * {@code ai.advisor.thinking.*} in {@code application.yaml}.
  * By default, both {@code <think>} and {@code <thinking>} variants are supported.
  *
- * <p><b>Design note on the streaming parser:</b><br>
- * The parser maintains per-subscription state so each concurrent stream has its own
- * isolated instance. The partial-tag buffer handles the case where a tag is split across
- * two LLM output chunks (e.g., {@code "<thi"} arrives in one token, {@code "nk>"} in the next).
- * The buffer threshold is derived from the longest configured tag, not hardcoded.
+ * <p><b>Design note on the streaming path:</b><br>
+ * Each subscription gets its own parser session, so concurrent streams stay isolated. A tag split across
+ * two LLM output chunks (e.g., {@code "<thi"} + {@code "nk>"}) is held back by the session until it can be
+ * decided. The accumulated reasoning is attached to a chunk only when a thinking block closes or the
+ * stream finishes, instead of re-materializing tens of KB of reasoning on every token; the memory
+ * advisor's aggregation keeps the last value, which is the complete reasoning. The session is finished
+ * once, when the upstream completes, and not on a finish reason: some providers put an empty finish
+ * reason on every intermediate chunk. Whatever the session still held back is emitted as one extra chunk.
  */
 @Component
 @RequiredArgsConstructor
@@ -52,34 +53,13 @@ public class ThinkingAdvisor implements CallAdvisor, StreamAdvisor {
     private final ThinkingAdvisorProperties properties;
 
     /**
-     * Compiled regex that matches all configured open/close tag pairs.
-     * Example result pattern: {@code (?:<think>|<thinking>)(.*?)(?:</think>|</thinking>)}
-     * Built once at startup from the configured tag list.
+     * Tag automaton built once at startup from the configured tag lists.
      */
-    private Pattern thinkPattern;
-
-    /**
-     * The maximum character length across all configured open and close tags.
-     * Used by the streaming parser to determine when a potential partial tag
-     * must be buffered rather than passed through.
-     */
-    private int maxTagLength;
+    private ThinkTagParser tagParser;
 
     @PostConstruct
     void init() {
-        List<String> opens  = properties.getOpenTags();
-        List<String> closes = properties.getCloseTags();
-
-        // Build alternating non-capturing groups:
-        // (?:<think>|<thinking>) (.*?) (?:</think>|</thinking>)
-        String openAlts  = opens.stream().map(Pattern::quote).collect(Collectors.joining("|", "(?:", ")"));
-        String closeAlts = closes.stream().map(Pattern::quote).collect(Collectors.joining("|", "(?:", ")"));
-        thinkPattern = Pattern.compile(openAlts + "(.*?)" + closeAlts, Pattern.DOTALL);
-
-        maxTagLength = IntStream.concat(
-                opens.stream().mapToInt(String::length),
-                closes.stream().mapToInt(String::length)
-        ).max().orElse(16);
+        tagParser = new ThinkTagParser(properties.getOpenTags(), properties.getCloseTags());
     }
 
     // ─── Unary (non-streaming) ────────────────────────────────────────────────
@@ -100,35 +80,28 @@ public class ThinkingAdvisor implements CallAdvisor, StreamAdvisor {
         String content = originalMessage.getText();
         if (content == null) return clientResponse;
 
-        // Pre-check: skip Regex entirely if no open tag is present in the full response.
-        boolean hasAnyTag = properties.getOpenTags().stream().anyMatch(content::contains);
-        if (!hasAnyTag) return clientResponse;
-
-        Matcher matcher = thinkPattern.matcher(content);
-        StringBuilder thinkingBuilder = new StringBuilder();
-        String cleanedContent = content;
+        ThinkTagParser.Session session = tagParser.newSession();
+        StringBuilder cleaned = new StringBuilder(content.length());
+        session.feed(content, cleaned);
+        session.finish(cleaned);
+        if (!session.sawTag()) return clientResponse;
 
-        while (matcher.find()) {
-            thinkingBuilder.append(matcher.group(1)).append("\n");
-            cleanedContent = cleanedContent.replace(matcher.group(0), "");
-        }
-
-        String thinking = thinkingBuilder.toString().trim();
-        if (thinking.isEmpty()) return clientResponse;
+        String thinking = session.thinking();
 
         // Build new message with thinking in metadata, clean text in content.
         Map<String, Object> metadata = new HashMap<>(originalMessage.getMetadata());
-        metadata.put("think", thinking);
-
         Map<String, Object> newContext = new HashMap<>(clientResponse.context());
-        newContext.put("think", thinking);
+        if (!thinking.isEmpty()) {
+            metadata.put("think", thinking);
+            newContext.put("think", thinking);
+        }
 
-        AssistantMessage cleanMessage = new AssistantMessage(cleanedContent.trim());
+        AssistantMessage cleanMessage = new AssistantMessage(cleaned.toString().trim());
         cleanMessage.getMetadata().putAll(metadata);
 
         ChatResponse cleanChatResponse = ChatResponse.builder()
                 .from(chatResponse)
-                .generations(List.of(new Generation(cleanMessage)))
+                .generations(List.of(new Generation(cleanMessage, generation.getMetadata())))
                 .build();
 
         return ChatClientResponse.builder()
@@ -144,61 +117,31 @@ public class ThinkingAdvisor implements CallAdvisor, StreamAdvisor {
         return Flux.defer(() -> {
             // Flux.defer ensures each subscriber gets its own isolated processor instance,
             // which is critical for concurrent streaming requests.
-            StreamingThinkingProcessor processor = new StreamingThinkingProcessor(
-                    properties.getOpenTags(),
-                    properties.getCloseTags(),
-                    maxTagLength
-            );
-            return chain.nextStream(request).map(processor::process);
+            StreamingThinkingProcessor processor = new StreamingThinkingProcessor(tagParser.newSession());
+            return chain.nextStream(request)
+                    .map(processor::process)
+                    .concatWith(Mono.fromSupplier(processor::finish));
         });
     }
 
-    // ─── Inner class: stateful streaming parser ───────────────────────────────
+    // ─── Inner class: per-stream state ────────────────────────────────────────
 
     /**
-     * Stateful parser for streaming chunks.
-     *
-     * <p>Maintains inside/outside-thinking state across tokens and buffers potential
-     * partial tags that span chunk boundaries. Supports multiple configurable tag pairs.
-     *
-     * <p><b>Partial tag buffering:</b><br>
-     * When {@code '<'} is encountered with fewer remaining characters than the longest
-     * configured tag, the remaining text is buffered and prepended to the next chunk.
-     * This handles split tags like {@code "...<thi"} + {@code "nk>..."} across two tokens.
-     *
-     * <p><b>Paired tag matching:</b><br>
-     * When openTags[i] is matched, the processor locks onto closeTags[i] as the expected
-     * close tag. This prevents cross-pair matching (e.g., {@code <think>} closed by {@code </thinking>}).
+     * Feeds each streamed chunk through the subscription's parser session and rebuilds the chunk with
+     * the visible text only.
      */
     private static class StreamingThinkingProcessor {
 
-        private final List<String> openTags;
-        private final List<String> closeTags;
+        private final ThinkTagParser.Session session;
 
-        /**
-         * Maximum character length across all configured tags.
-         * The partial-tag buffer is triggered when fewer characters remain in the
-         * current chunk than this value, conservatively preventing missed tags.
-         */
-        private final int maxTagLength;
-
-        private boolean insideThink = false;
-
-        /**
-         * The specific close tag to look for, determined when an open tag is matched.
-         * Uses index-pairing: openTags[i] → closeTags[i].
-         */
-        private String activeCloseTag = null;
+        /** Length of the reasoning last attached to a chunk, so it is only re-attached when it grew. */
+        private int publishedThinkingLength;
 
-        private final StringBuilder thinkingAccumulator = new StringBuilder();
+        /** Last chunk that carried a generation, the template for the chunk emitted on completion. */
+        private ChatClientResponse lastResponse;
 
-        /** Leftover text from the previous chunk that starts with {@code '<'} */
-        private String tagBuffer = "";
-
-        StreamingThinkingProcessor(List<String> openTags, List<String> closeTags, int maxTagLength) {
-            this.openTags     = openTags;
-            this.closeTags    = closeTags;
-            this.maxTagLength = maxTagLength;
+        StreamingThinkingProcessor(ThinkTagParser.Session session) {
+            this.session = session;
         }
 
         ChatClientResponse process(ChatClientResponse response) {
@@ -212,53 +155,16 @@ public class ThinkingAdvisor implements CallAdvisor, StreamAdvisor {
             String chunk = originalMessage.getText();
             if (chunk == null) return response;
 
-            String fullText = tagBuffer + chunk;
-            tagBuffer = "";
-
-            StringBuilder outputText = new StringBuilder();
-            int i = 0;
-
-            while (i < fullText.length()) {
-                char c = fullText.charAt(i);
-
-                if (!insideThink) {
-                    String matchedOpen = matchTagAt(fullText, i, openTags);
-                    if (matchedOpen != null) {
-                        // Entered a thinking block — lock in the paired close tag.
-                        insideThink = true;
-                        int idx = openTags.indexOf(matchedOpen);
-                        activeCloseTag = (idx < closeTags.size()) ? closeTags.get(idx) : closeTags.get(0);
-                        i += matchedOpen.length();
-                    } else if (c == '<' && (fullText.length() - i) < maxTagLength) {
-                        // Potential partial open tag at chunk boundary — buffer it.
-                        tagBuffer = fullText.substring(i);
-                        break;
-                    } else {
-                        outputText.append(c);
-                        i++;
-                    }
-                } else {
-                    if (activeCloseTag != null && fullText.startsWith(activeCloseTag, i)) {
-                        // Exited the thinking block.
-                        insideThink = false;
-                        i += activeCloseTag.length();
-                        activeCloseTag = null;
-                    } else if (c == '<' && (fullText.length() - i) < maxTagLength) {
-                        // Potential partial close tag at chunk boundary — buffer it.
-                        tagBuffer = fullText.substring(i);
-                        break;
-                    } else {
-                        thinkingAccumulator.append(c);
-                        i++;
-                    }
-                }
-            }
+            lastResponse = response;
+            StringBuilder outputText = new StringBuilder(chunk.length());
+            session.feed(chunk, outputText);
 
-            // Build the updated response chunk with clean content and thinking in metadata.
+            // Build the updated response chunk with clean content and, when a block just completed,
+            // the reasoning so far in metadata.
             Map<String, Object> metadata = new HashMap<>(originalMessage.getMetadata());
-            String currentThinking = thinkingAccumulator.toString().trim();
-            if (!currentThinking.isEmpty()) {
-                metadata.put("think", currentThinking);
+            Map<String, Object> newContext = new HashMap<>(response.context());
+            if (session.thinkingLength() > publishedThinkingLength && !session.inside()) {
+                publishThinking(metadata, newContext);
             }
 
             AssistantMessage newMessage = new AssistantMessage(outputText.toString());
@@ -266,14 +172,9 @@ public class ThinkingAdvisor implements CallAdvisor, StreamAdvisor {
 
             ChatResponse newChatResponse = ChatResponse.builder()
                     .from(chatResponse)
-                    .generations(List.of(new Generation(newMessage)))
+                    .generations(List.of(new Generation(newMessage, generation.getMetadata())))
                     .build();
 
-            Map<String, Object> newContext = new HashMap<>(response.context());
-            if (!currentThinking.isEmpty()) {
-                newContext.put("think", currentThinking);
-            }
-
             return ChatClientResponse.builder()
                     .chatResponse(newChatResponse)
                     .context(newContext)
@@ -281,16 +182,39 @@ public class ThinkingAdvisor implements CallAdvisor, StreamAdvisor {
         }
 
         /**
-         * Returns the first tag from {@code tags} that begins exactly at position {@code pos}
-         * in {@code text}, or {@code null} if no tag matches at that position.
+         * Flushes text held back at the end of the stream and the reasoning of an unclosed block, or returns
+         * {@code null} if there is nothing left. The chunk carries no response metadata (usage, ids), which the
+         * upstream's last chunk already delivered.
          */
-        private String matchTagAt(String text, int pos, List<String> tags) {
-            for (String tag : tags) {
-                if (text.startsWith(tag, pos)) {
-                    return tag;
-                }
+        ChatClientResponse finish() {
+            StringBuilder outputText = new StringBuilder();
+            session.finish(outputText);
+            boolean thinkingGrew = session.thinkingLength() > publishedThinkingLength;
+            if (lastResponse == null || (outputText.isEmpty() && !thinkingGrew)) return null;
+
+            Generation generation = lastResponse.chatResponse().getResults().get(0);
+            Map<String, Object> metadata = new HashMap<>();
+            Map<String, Object> newContext = new HashMap<>(lastResponse.context());
+            if (thinkingGrew) {
+                publishThinking(metadata, newContext);
             }
-            return null;
+
+            AssistantMessage newMessage = new AssistantMessage(outputText.toString());
+            newMessage.getMetadata().putAll(metadata);
+
+            return ChatClientResponse.builder()
+                    .chatResponse(ChatResponse.builder()
+                            .generations(List.of(new Generation(newMessage, generation.getMetadata())))
+                            .build())
+                    .context(newContext)
+                    .build();
+        }
+
+        private void publishThinking(Map<String, Object> metadata, Map<String, Object> context) {
+            publishedThinkingLength = session.thinkingLength();
+            String currentThinking = session.thinking();
+            metadata.put("think", currentThinking);
+            context.put("think", currentThinking);
         }
     }
 
@@ -1,9 +1,9 @@
 package bbmovie.ai_platform.agentic_ai.service.chat.advisors;
 
 import bbmovie.ai_platform.agentic_ai.dto.ConversationId;
+import bbmovie.ai_platform.agentic_ai.service.chat.UsageAggregator;
 import bbmovie.ai_platform.agentic_ai.service.chat.UsageEvent;
 import bbmovie.ai_platform.agentic_ai.utils.AiConstants;
-import io.nats.client.JetStream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClientRequest;
@@ -14,25 +14,19 @@ import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
 import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
 import org.springframework.ai.chat.metadata.Usage;
 import org.springframework.ai.chat.model.ChatResponse;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
-import tools.jackson.databind.ObjectMapper;
 
 /**
  * TokenUsageAdvisor extracts token usage metrics from AI responses and 
- * publishes them asynchronously to NATS.
+ * hands them to {@link UsageAggregator}, which publishes them to NATS per user, model and minute.
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class TokenUsageAdvisor implements CallAdvisor, StreamAdvisor {
 
-    private final JetStream jetStream;
-    private final ObjectMapper objectMapper;
-
-    @Value("${nats.usage.subject:ai.usage.recorded}")
-    private String usageSubject;
+    private final UsageAggregator usageAggregator;
 
     @Override
     public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
@@ -76,11 +70,11 @@ public class TokenUsageAdvisor implements CallAdvisor, StreamAdvisor {
                 usage.getCompletionTokens()
             );
 
-            log.debug("[Usage] Publishing usage event for session: {}. Tokens: {}", convId.sessionId(), event.totalTokens());
-            jetStream.publishAsync(usageSubject, objectMapper.writeValueAsBytes(event));
+            log.debug("[Usage] Recording usage event for session: {}. Tokens: {}", convId.sessionId(), event.totalTokens());
+            usageAggregator.record(event);
             
         } catch (Exception e) {
-            log.error("[Usage] Failed to publish usage event", e);
+            log.error("[Usage] Failed to record usage event", e);
         }
     }
 
@@ -0,0 +1,229 @@
+package bbmovie.ai_platform.agentic_ai.service.chat.routing;
+
+import bbmovie.ai_platform.agentic_ai.config.ModelRoutingProperties;
+import bbmovie.ai_platform.agentic_ai.entity.enums.AiMode;
+import bbmovie.ai_platform.agentic_ai.entity.enums.AiModel;
+import bbmovie.ai_platform.agentic_ai.exception.ProviderOverloadedException;
+import bbmovie.ai_platform.agentic_ai.service.chat.ModelRoutingService;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Chooses which provider serves a chat stream, based on what each provider is doing right now.
+ *
+ * <p>{@link ModelRoutingService} maps a provider name to its {@code ChatModel}; this router decides the provider.
+ * Each provider has a {@link ProviderLimiter} fed by the streams it serves (time-to-first-token, errors,
+ * cancellations), and a request stays on the provider of the requested model unless that provider is:
+ * <ul>
+ *   <li>behind an open circuit breaker ({@code circuit_open}),</li>
+ *   <li>at its concurrency limit ({@code saturated}),</li>
+ *   <li>failing more often than {@code ai.routing.error-rate-threshold} ({@code errors}), or</li>
+ *   <li>more than {@code ai.routing.latency-tolerance} times slower to first token than the best
+ *       alternative ({@code slow}).</li>
+ * </ul>
+ * The alternative is the provider's configured fallback model, and only if it supports what the request needs
+ * (tools, thinking mode). The plan also names a hedge: the best other provider, to be started when the primary
+ * has produced nothing after a few of its usual TTFTs.
+ *
+ * <p>Metrics: {@code ai.routing.concurrency.limit}, {@code ai.routing.inflight}, {@code ai.routing.ttft.ewma},
+ * {@code ai.routing.error.rate} (gauges per provider), {@code ai.routing.ttft} and
+ * {@code ai.routing.stream.duration} (timers), {@code ai.routing.decisions}, {@code ai.routing.hedges} and
+ * {@code ai.routing.rejected} (counters).
+ */
+@Slf4j
+@Service
+public class AdaptiveModelRouter {
+
+    static final String REQUESTED = "requested";
+
+    private final ModelRoutingService modelRoutingService;
+    private final Map<String, CircuitBreaker> circuitBreakers;
+    private final ModelRoutingProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ProviderLimiter> limiters = new LinkedHashMap<>();
+
+    public AdaptiveModelRouter(
+            ModelRoutingService modelRoutingService,
+            Map<String, CircuitBreaker> providerCircuitBreakers,
+            ModelRoutingProperties properties,
+            MeterRegistry meterRegistry) {
+        this.modelRoutingService = modelRoutingService;
+        this.circuitBreakers = providerCircuitBreakers;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+
+        Arrays.stream(AiModel.values())
+                .map(AiModel::getProvider)
+                .distinct()
+                .forEach(provider -> {
+                    ProviderLimiter limiter = new ProviderLimiter(provider, properties);
+                    limiters.put(provider, limiter);
+                    Gauge.builder("ai.routing.concurrency.limit", limiter, ProviderLimiter::limit)
+                            .tag("provider", provider).register(meterRegistry);
+                    Gauge.builder("ai.routing.inflight", limiter, ProviderLimiter::inFlight)
+                            .tag("provider", provider).register(meterRegistry);
+                    Gauge.builder("ai.routing.ttft.ewma", limiter, ProviderLimiter::ttftMs)
+                            .tag("provider", provider).baseUnit("milliseconds").register(meterRegistry);
+                    Gauge.builder("ai.routing.error.rate", limiter, ProviderLimiter::errorRate)
+                            .tag("provider", provider).register(meterRegistry);
+                });
+    }
+
+    /**
+     * Picks the provider for a stream of {@code requested} in {@code mode} and admits it.
+     *
+     * @throws ProviderOverloadedException if the requested provider and every usable fallback are at their limit
+     */
+    public RoutePlan plan(AiModel requested, AiMode mode) {
+        ProviderLimiter requestedLimiter = limiters.get(requested.getProvider());
+        List<AiModel> alternatives = alternatives(requested, mode);
+
+        String reason = REQUESTED;
+        List<AiModel> order = new ArrayList<>(alternatives.size() + 1);
+        order.add(requested);
+        order.addAll(alternatives);
+        if (properties.isAllowProviderSwitch() && !alternatives.isEmpty()) {
+            String unhealthy = unhealthyReason(requestedLimiter, alternatives.getFirst());
+            if (unhealthy != null && isHealthy(alternatives.getFirst())) {
+                reason = unhealthy;
+                order.remove(requested);
+                order.add(requested);
+            }
+        }
+
+        for (AiModel candidate : order) {
+            Optional<RouteLease> lease = tryAcquire(candidate);
+            if (lease.isEmpty()) {
+                continue;
+            }
+            // Falling through to another candidate means the ones before it had no free slot.
+            String decision = candidate == requested ? REQUESTED : REQUESTED.equals(reason) ? "saturated" : reason;
+            Counter.builder("ai.routing.decisions")
+                    .tag("requested", requested.getProvider())
+                    .tag("routed", candidate.getProvider())
+                    .tag("reason", decision)
+                    .register(meterRegistry)
+                    .increment();
+            if (candidate != requested) {
+                log.info("[ModelRouting] {} routed to {} ({})", requested, candidate, decision);
+            }
+            AiModel hedge = properties.getHedge().isEnabled()
+                    ? order.stream()
+                        .filter(m -> !m.getProvider().equals(candidate.getProvider()))
+                        .filter(this::isHealthy)
+                        .filter(m -> !limiters.get(m.getProvider()).saturated())
+                        .findFirst()
+                        .orElse(null)
+                    : null;
+            return new RoutePlan(lease.get(), hedge, hedgeDelay(candidate.getProvider()), decision);
+        }
+
+        Counter.builder("ai.routing.rejected")
+                .tag("provider", requested.getProvider())
+                .register(meterRegistry)
+                .increment();
+        throw new ProviderOverloadedException(requested.getProvider());
+    }
+
+    /**
+     * Admits one stream on {@code model}'s provider if it is below its limit and its circuit is not open.
+     */
+    public Optional<RouteLease> tryAcquire(AiModel model) {
+        ProviderLimiter limiter = limiters.get(model.getProvider());
+        if (limiter == null || isCircuitOpen(model.getProvider()) || !limiter.tryAcquire()) {
+            return Optional.empty();
+        }
+        return Optional.of(new RouteLease(model, limiter, meterRegistry));
+    }
+
+    public void recordHedge(String provider, String outcome) {
+        Counter.builder("ai.routing.hedges")
+                .tag("provider", provider)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Fallback models of the other configured providers that can serve the request, best first.
+     */
+    List<AiModel> alternatives(AiModel requested, AiMode mode) {
+        return properties.getFallbackModels().entrySet().stream()
+                .filter(e -> !e.getKey().equals(requested.getProvider()))
+                .map(Map.Entry::getValue)
+                .filter(m -> m != null && limiters.containsKey(m.getProvider()))
+                .filter(m -> modelRoutingService.isConfigured(m.getProvider()))
+                .filter(m -> mode != AiMode.THINKING || m.isSupportsThinking())
+                .filter(m -> !requested.isSupportsTools() || m.isSupportsTools())
+                .sorted(Comparator.comparingDouble(m -> score(limiters.get(m.getProvider()))))
+                .toList();
+    }
+
+    private String unhealthyReason(ProviderLimiter limiter, AiModel bestAlternative) {
+        if (isCircuitOpen(limiter.provider())) {
+            return "circuit_open";
+        }
+        if (limiter.saturated()) {
+            return "saturated";
+        }
+        if (limiter.errorRate() > properties.getErrorRateThreshold()) {
+            return "errors";
+        }
+        double alternativeTtft = limiters.get(bestAlternative.getProvider()).ttftMs();
+        if (!Double.isNaN(limiter.ttftMs()) && !Double.isNaN(alternativeTtft)
+                && limiter.ttftMs() > alternativeTtft * properties.getLatencyTolerance()) {
+            return "slow";
+        }
+        return null;
+    }
+
+    private boolean isHealthy(AiModel model) {
+        ProviderLimiter limiter = limiters.get(model.getProvider());
+        return !isCircuitOpen(model.getProvider())
+                && !limiter.saturated()
+                && limiter.errorRate() <= properties.getErrorRateThreshold();
+    }
+
+    private boolean isCircuitOpen(String provider) {
+        CircuitBreaker cb = circuitBreakers.get(provider);
+        if (cb == null) {
+            return false;
+        }
+        CircuitBreaker.State state = cb.getState();
+        return state == CircuitBreaker.State.OPEN || state == CircuitBreaker.State.FORCED_OPEN;
+    }
+
+    /**
+     * Lower is better: expected TTFT, inflated by the error rate and by how close the provider is to its limit.
+     * Providers without samples are assumed to be as slow as the hedge ceiling.
+     */
+    private double score(ProviderLimiter limiter) {
+        double ttft = Double.isNaN(limiter.ttftMs())
+                ? properties.getHedge().getMaxDelay().toMillis()
+                : limiter.ttftMs();
+        return ttft * (1 + limiter.errorRate()) * (1 + limiter.utilization());
+    }
+
+    private Duration hedgeDelay(String provider) {
+        ModelRoutingProperties.Hedge hedge = properties.getHedge();
+        double ttft = limiters.get(provider).ttftMs();
+        if (Double.isNaN(ttft)) {
+            return hedge.getMaxDelay();
+        }
+        long delayMs = (long) (ttft * hedge.getTtftMultiplier());
+        return Duration.ofMillis(Math.clamp(delayMs, hedge.getMinDelay().toMillis(), hedge.getMaxDelay().toMillis()));
+    }
+}
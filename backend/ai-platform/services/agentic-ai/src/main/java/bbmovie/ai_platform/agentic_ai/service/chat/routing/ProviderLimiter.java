@@ -0,0 +1,131 @@
+package bbmovie.ai_platform.agentic_ai.service.chat.routing;
+
+import bbmovie.ai_platform.agentic_ai.config.ModelRoutingProperties;
+
+/**
+ * Live state of one provider: an AIMD concurrency limit plus smoothed time-to-first-token and error rate.
+ *
+ * <p>The limit is a double so that the additive increase can be spread over a full window: each fast success
+ * adds {@code 1 / limit}, i.e. roughly one extra slot per {@code limit} completed streams. Errors and slow first
+ * tokens multiply it by the backoff ratio, at most once per window so a burst of failures from streams started
+ * before the first decrease does not collapse the limit to the minimum.
+ *
+ * <p>The TTFT baseline is the lowest smoothed TTFT seen, drifting slowly upwards so a permanent change of the
+ * provider (new model, new hardware) eventually becomes the new normal.
+ */
+final class ProviderLimiter {
+
+    private static final double BASELINE_DRIFT = 0.01;
+
+    private final String provider;
+    private final ModelRoutingProperties properties;
+
+    private double limit;
+    private int inFlight;
+    private double ttftEwmaMs = Double.NaN;
+    private double baselineTtftMs = Double.NaN;
+    private double errorRate;
+    /** Completions left until another multiplicative decrease is allowed. */
+    private int decreaseCooldown;
+
+    ProviderLimiter(String provider, ModelRoutingProperties properties) {
+        this.provider = provider;
+        this.properties = properties;
+        this.limit = properties.getInitialLimit();
+    }
+
+    String provider() {
+        return provider;
+    }
+
+    synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    synchronized void release() {
+        inFlight = Math.max(0, inFlight - 1);
+    }
+
+    /**
+     * Records the time-to-first-token of a stream and adjusts the limit: slow is congestion, fast is room to grow.
+     */
+    synchronized void onFirstToken(long ttftMs) {
+        ttftEwmaMs = Double.isNaN(ttftEwmaMs) ? ttftMs : ewma(ttftEwmaMs, ttftMs);
+        if (Double.isNaN(baselineTtftMs) || ttftEwmaMs < baselineTtftMs) {
+            baselineTtftMs = ttftEwmaMs;
+        } else {
+            baselineTtftMs += (ttftEwmaMs - baselineTtftMs) * BASELINE_DRIFT;
+        }
+
+        if (ttftMs > baselineTtftMs * properties.getLatencyTolerance()) {
+            decrease();
+        }
+    }
+
+    /**
+     * A stream that was given up on before its first token (hedge lost, client left): the elapsed time is a
+     * lower bound of the real TTFT, so it only ever pushes the average up.
+     */
+    synchronized void onAbandoned(long elapsedMs) {
+        if (!Double.isNaN(ttftEwmaMs) && elapsedMs > ttftEwmaMs) {
+            onFirstToken(elapsedMs);
+        }
+    }
+
+    synchronized void onSuccess() {
+        errorRate = ewma(errorRate, 0);
+        if (decreaseCooldown > 0) {
+            decreaseCooldown--;
+            return;
+        }
+        limit = Math.min(properties.getMaxLimit(), limit + 1.0 / limit);
+    }
+
+    synchronized void onError() {
+        errorRate = ewma(errorRate, 1);
+        decrease();
+    }
+
+    private void decrease() {
+        if (decreaseCooldown > 0) {
+            decreaseCooldown--;
+            return;
+        }
+        limit = Math.max(properties.getMinLimit(), limit * properties.getBackoffRatio());
+        decreaseCooldown = Math.max(1, (int) limit);
+    }
+
+    private double ewma(double current, double sample) {
+        double alpha = properties.getEwmaAlpha();
+        return current + alpha * (sample - current);
+    }
+
+    synchronized double limit() {
+        return limit;
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+
+    synchronized boolean saturated() {
+        return inFlight >= (int) limit;
+    }
+
+    /** Smoothed TTFT in milliseconds, {@code NaN} until the first sample. */
+    synchronized double ttftMs() {
+        return ttftEwmaMs;
+    }
+
+    synchronized double errorRate() {
+        return errorRate;
+    }
+
+    synchronized double utilization() {
+        return inFlight / Math.max(1.0, limit);
+    }
+}
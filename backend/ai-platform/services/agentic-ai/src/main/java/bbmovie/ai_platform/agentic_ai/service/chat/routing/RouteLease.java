@@ -0,0 +1,88 @@
+package bbmovie.ai_platform.agentic_ai.service.chat.routing;
+
+import bbmovie.ai_platform.agentic_ai.entity.enums.AiModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One admitted stream on a provider. Holds a concurrency slot until {@link #complete}, {@link #fail} or
+ * {@link #cancel} is called; only the first of those counts, so it is safe to call them from every terminal
+ * signal of a stream.
+ */
+public final class RouteLease {
+
+    private final AiModel model;
+    private final ProviderLimiter limiter;
+    private final MeterRegistry meterRegistry;
+    private final long startNanos = System.nanoTime();
+    private final AtomicBoolean firstToken = new AtomicBoolean();
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    RouteLease(AiModel model, ProviderLimiter limiter, MeterRegistry meterRegistry) {
+        this.model = model;
+        this.limiter = limiter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public AiModel model() {
+        return model;
+    }
+
+    public String provider() {
+        return model.getProvider();
+    }
+
+    /**
+     * Marks the first token of the stream; later calls are ignored.
+     */
+    public void firstToken() {
+        if (released.get() || !firstToken.compareAndSet(false, true)) {
+            return;
+        }
+        long elapsed = System.nanoTime() - startNanos;
+        limiter.onFirstToken(TimeUnit.NANOSECONDS.toMillis(elapsed));
+        Timer.builder("ai.routing.ttft")
+                .description("Time from admission to the first streamed token")
+                .tag("provider", provider())
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+    }
+
+    public void complete() {
+        if (release("success")) {
+            limiter.onSuccess();
+        }
+    }
+
+    public void fail() {
+        if (release("error")) {
+            limiter.onError();
+        }
+    }
+
+    /**
+     * The stream was cancelled: a lost hedge, a failover or the client going away. Not a provider error, but a
+     * stream cancelled while still waiting for its first token says the provider was slow.
+     */
+    public void cancel() {
+        if (release("cancelled") && !firstToken.get()) {
+            limiter.onAbandoned(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+    }
+
+    private boolean release(String outcome) {
+        if (!released.compareAndSet(false, true)) {
+            return false;
+        }
+        limiter.release();
+        Timer.builder("ai.routing.stream.duration")
+                .tag("provider", provider())
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        return true;
+    }
+}
@@ -0,0 +1,17 @@
+package bbmovie.ai_platform.agentic_ai.service.chat.routing;
+
+import bbmovie.ai_platform.agentic_ai.entity.enums.AiModel;
+
+import java.time.Duration;
+
+/**
+ * Routing decision for one chat stream.
+ *
+ * @param primary    admitted stream on the chosen provider
+ * @param hedge      model on another provider to start if the primary has not produced a token after
+ *                   {@code hedgeDelay}, or {@code null} when hedging is off or no provider qualifies
+ * @param hedgeDelay how long to wait for the primary's first token before hedging
+ * @param reason     why the primary differs from the requested model ({@code "requested"} when it does not)
+ */
+public record RoutePlan(RouteLease primary, AiModel hedge, Duration hedgeDelay, String reason) {
+}
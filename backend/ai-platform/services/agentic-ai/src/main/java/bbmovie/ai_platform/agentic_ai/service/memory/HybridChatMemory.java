@@ -6,33 +6,38 @@ import io.nats.client.JetStream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.messages.*;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.node.ObjectNode;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * HybridChatMemory provides a dual-layer persistence strategy for conversation history.
- * 
- * 1. L1 (Short-term): Synchronous save to Redis for ultra-fast retrieval in the next request.
- * 2. L2 (Long-term): Asynchronous event broadcast via NATS. A background worker (MemoryWorker) 
+ *
+ * 1. L1 (Short-term): Redis list holding the last {@value #MESSAGE_FETCH_LIMIT} messages of a session,
+ *    each in the compact binary form of {@link MemoryMessageCodec}.
+ * 2. L2 (Long-term): Asynchronous event broadcast via NATS. A background worker (MemoryWorker)
  *    listens to these events and persists the messages to the primary SQL database.
- * 
- * This architecture ensures the Chat flow is never blocked by slow database I/O.
+ *
+ * The reactive methods ({@link #load}, {@link #append}, {@link #evict}) never block and are what the
+ * chat flow uses through {@code ReactiveChatMemoryAdvisor}. The synchronous {@link ChatMemory} methods
+ * remain for callers outside a reactive pipeline and simply block on them.
  */
 @Slf4j
 @RequiredArgsConstructor
 public class HybridChatMemory implements ChatMemory {
 
-    private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final ReactiveRedisTemplate<String, byte[]> redisTemplate;
     private final MessageRepository messageRepository;
     private final ObjectMapper objectMapper;
     private final JetStream jetStream;
@@ -41,145 +46,149 @@ public class HybridChatMemory implements ChatMemory {
     private String memorySubject;
 
     private static final int MESSAGE_FETCH_LIMIT = 20;
-    private static final String REDIS_CHAT_MEMORY_PREFIX = "chat:memory:";
+    private static final String REDIS_CHAT_MEMORY_PREFIX = "chat:memory:v2:";
     private static final Duration REDIS_TTL = Duration.ofHours(1);
+    private static final Duration SYNC_TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * Appends, trims and refreshes the TTL in one round trip.
+     * KEYS[1] = list key, ARGV[1] = window size, ARGV[2] = TTL seconds, ARGV[3..] = encoded messages.
+     */
+    private static final RedisScript<Long> APPEND_WINDOW_SCRIPT = RedisScript.of("""
+            redis.call('RPUSH', KEYS[1], unpack(ARGV, 3))
+            redis.call('LTRIM', KEYS[1], -tonumber(ARGV[1]), -1)
+            redis.call('EXPIRE', KEYS[1], tonumber(ARGV[2]))
+            return 1
+            """, Long.class);
+
+    /**
+     * Loads the conversation window: a single LRANGE on Redis, or the last messages from the database
+     * when the window is missing or Redis is unavailable.
+     */
+    public Mono<List<Message>> load(String conversationId) {
+        ConversationId convId;
+        try {
+            convId = ConversationId.of(conversationId);
+        } catch (Exception e) {
+            return Mono.just(List.of());
+        }
 
-    @Override
-    public void add(String conversationId, List<Message> messages) {
+        String key = REDIS_CHAT_MEMORY_PREFIX + convId.sessionId();
+        return redisTemplate.opsForList().range(key, -MESSAGE_FETCH_LIMIT, -1)
+                .map(MemoryMessageCodec::decode)
+                .collectList()
+                .onErrorResume(redisEx -> {
+                    log.warn("[Memory] Redis read failed for session {}, falling back to DB: {}",
+                            convId.sessionId(), redisEx.getMessage());
+                    return Mono.just(List.of());
+                })
+                .flatMap(cached -> {
+                    if (!cached.isEmpty()) {
+                        log.debug("[Memory] Redis HIT for session: {}", convId.sessionId());
+                        return Mono.just(cached);
+                    }
+                    log.debug("[Memory] Redis miss for {}, falling back to DB", convId.sessionId());
+                    // DB returns newest-first (DESC); reverse to restore chronological order for the context window.
+                    return messageRepository.findLastNBySessionId(convId.sessionId(), MESSAGE_FETCH_LIMIT)
+                            .map(AiMessageUtils::mapToSpringAiMessage)
+                            .collectList()
+                            .map(list -> {
+                                Collections.reverse(list);
+                                return list;
+                            });
+                });
+    }
+
+    /**
+     * Writes the messages to the Redis window and, once that has settled, publishes them for long-term
+     * persistence. A Redis failure degrades to NATS-only; the returned Mono only fails if NATS does too.
+     */
+    public Mono<Void> append(String conversationId, List<Message> messages) {
+        if (messages.isEmpty()) {
+            return Mono.empty();
+        }
         ConversationId convId;
         try {
             convId = ConversationId.of(conversationId);
         } catch (IllegalArgumentException e) {
             log.error("[Memory] Failed to parse conversationId: {}", conversationId);
-            return;
+            return Mono.empty();
         }
 
         String redisKey = REDIS_CHAT_MEMORY_PREFIX + convId.sessionId();
         log.debug("[Memory] Syncing {} messages for Session: {}", messages.size(), convId.sessionId());
 
-        // NOTE: Spring AI's ChatMemory interface is synchronous (void add()).
-        // This means this method is invoked by the MessageChatMemoryAdvisor on the event loop thread
-        // during an active request. To avoid blocking Netty's I/O threads directly, we offload all
-        // work to a boundedElastic thread via subscribeOn(), then call block() to re-synchronize.
-        //
-        // The block() call is safe ONLY because it runs on a boundedElastic worker thread,
-        // never on a Netty event loop thread. If this constraint is ever violated (e.g., by
-        // calling add() from a reactor context that lacks a scheduler), it will throw
-        // BlockingOperationNotAllowedException at runtime.
-        //
-        // A proper fix would require Spring AI to expose a reactive ChatMemory contract.
-        // Tracked as: https://github.com/spring-projects/spring-ai/issues (reactive ChatMemory)
-        Mono.fromRunnable(() -> {
-            try {
-                // 1. Serialize once
-                List<String> jsonMessages = messages.stream()
-                        .map(m -> {
-                            try {
-                                return objectMapper.writeValueAsString(m);
-                            } catch (Exception e) {
-                                throw new RuntimeException("Serialization failed", e);
-                            }
-                        })
-                        .toList();
-
-                try {
-                    // 2. Synchronous save to Redis (Short-term) for immediate consistency.
-                    // Wrapped in try-catch: if Redis is unreachable, we degrade gracefully
-                    // and rely solely on NATS → DB for persistence (step 3).
-                    redisTemplate.opsForList()
-                            .rightPushAll(redisKey, jsonMessages)
-                            .then(redisTemplate.opsForList().trim(redisKey, -MESSAGE_FETCH_LIMIT, -1))
-                            .then(redisTemplate.expire(redisKey, REDIS_TTL))
-                            .block(Duration.ofSeconds(2));
-                } catch (Exception redisEx) {
+        List<byte[]> args = new ArrayList<>(messages.size() + 2);
+        args.add(Integer.toString(MESSAGE_FETCH_LIMIT).getBytes(StandardCharsets.US_ASCII));
+        args.add(Long.toString(REDIS_TTL.toSeconds()).getBytes(StandardCharsets.US_ASCII));
+        messages.forEach(message -> args.add(MemoryMessageCodec.encode(message)));
+
+        Mono<Void> redisWrite = redisTemplate.execute(APPEND_WINDOW_SCRIPT, List.of(redisKey), args)
+                .then()
+                .onErrorResume(redisEx -> {
                     log.warn("[Memory] Redis write failed for session {}, degrading to NATS-only: {}",
                             convId.sessionId(), redisEx.getMessage());
-                    // Intentional fall-through: NATS publish below still ensures DB persistence.
-                }
-
-                // 3. Send Event via NATS JetStream (Long-term)
-                // Use JetStream for at-least-once delivery guarantees.
-                MemoryEvent event = MemoryEvent.add(convId.sessionId().toString(), convId.userId().toString(), jsonMessages);
-                jetStream.publishAsync(memorySubject, objectMapper.writeValueAsBytes(event));
-                
-            } catch (Exception e) {
-                log.error("[Memory] Memory sync failed for session {}: {}", convId.sessionId(), e.getMessage());
-            }
-        })
-        .subscribeOn(Schedulers.boundedElastic())
-        .block(Duration.ofSeconds(5)); // Safe blocking of the calling thread (not event loop)
+                    return Mono.empty();
+                });
+
+        return redisWrite
+                .then(Mono.fromFuture(() -> jetStream.publishAsync(memorySubject, objectMapper.writeValueAsBytes(
+                        MemoryEvent.add(convId.sessionId().toString(), convId.userId().toString(), toSyncJson(messages))))))
+                .doOnError(e -> log.error("[Memory] Memory sync failed for session {}: {}", convId.sessionId(), e.getMessage()))
+                .then();
     }
 
-    @Override
-    public List<Message> get(String conversationId) {
+    public Mono<Void> evict(String conversationId) {
         ConversationId convId;
         try {
             convId = ConversationId.of(conversationId);
         } catch (Exception e) {
-            return List.of();
+            log.error("[Memory] Failed to parse conversationId for clear: {}", conversationId);
+            return Mono.empty();
         }
-        
+
         String key = REDIS_CHAT_MEMORY_PREFIX + convId.sessionId();
-        
-        return Mono.fromCallable(() -> {
-            // 1. Try to fetch from Redis (fast path)
-            // Wrapped in try-catch: if Redis is unreachable, fall through to DB immediately.
-            try {
-                List<String> jsonMessages = redisTemplate.opsForList().range(key, -MESSAGE_FETCH_LIMIT, -1)
-                        .collectList()
-                        .block(Duration.ofSeconds(2));
-
-                if (jsonMessages != null && !jsonMessages.isEmpty()) {
-                    log.debug("[Memory] Redis HIT for session: {}", convId.sessionId());
-                    return jsonMessages.stream()
-                            .map(AiMessageUtils::deserializeMessage)
-                            .collect(Collectors.toList());
-                }
-            } catch (Exception redisEx) {
-                log.warn("[Memory] Redis read failed for session {}, falling back to DB: {}",
-                        convId.sessionId(), redisEx.getMessage());
-                // Intentional fall-through to DB query below.
-            }
-
-            log.debug("[Memory] Redis miss for {}, falling back to DB", convId.sessionId());
-            // Fetch only the last N messages at the DB level (LIMIT in SQL).
-            // DB returns newest-first (DESC); we reverse in memory to restore chronological
-            // order (ASC) for the AI context window. Reversing N=20 items is O(1) effectively.
-            return messageRepository.findLastNBySessionId(convId.sessionId(), MESSAGE_FETCH_LIMIT)
-                    .map(AiMessageUtils::mapToSpringAiMessage)
-                    .collectList()
-                    .map(list -> { 
-                        Collections.reverse(list); 
-                        return list; 
-                    })
-                    .block(Duration.ofSeconds(5));
-        })
-        .subscribeOn(Schedulers.boundedElastic())
-        .block(Duration.ofSeconds(10));
+        return redisTemplate.delete(key)
+                .then(Mono.fromFuture(() -> jetStream.publishAsync(memorySubject, objectMapper.writeValueAsBytes(
+                        MemoryEvent.clear(convId.sessionId().toString(), convId.userId().toString())))))
+                .doOnError(e -> log.error("[Memory] Failed to clear session: {}", convId.sessionId(), e))
+                .onErrorComplete()
+                .then();
+    }
+
+    @Override
+    public void add(String conversationId, List<Message> messages) {
+        append(conversationId, messages)
+                .onErrorComplete()
+                .block(SYNC_TIMEOUT);
+    }
+
+    @Override
+    public List<Message> get(String conversationId) {
+        return load(conversationId).block(SYNC_TIMEOUT);
     }
 
     @Override
     public void clear(String conversationId) {
-        ConversationId convId;
-        try {
-            convId = ConversationId.of(conversationId);
-        } catch (Exception e) {
-            log.error("[Memory] Failed to parse conversationId for clear: {}", conversationId);
-            return;
-        }
+        evict(conversationId).subscribe(); // Non-blocking clear is fine as it's not critical for the next request usually
+    }
 
-        String key = REDIS_CHAT_MEMORY_PREFIX + convId.sessionId();
-        
-        Mono.fromRunnable(() -> {
-            try {
-                redisTemplate.delete(key).block(Duration.ofSeconds(2));
-                MemoryEvent event = MemoryEvent.clear(convId.sessionId().toString(), convId.userId().toString());
-                jetStream.publishAsync(memorySubject, objectMapper.writeValueAsBytes(event));
-            } catch (Exception e) {
-                log.error("[Memory] Failed to clear session: {}", convId.sessionId(), e);
-            }
-        })
-        .subscribeOn(Schedulers.boundedElastic())
-        .subscribe(); // Non-blocking clear is fine as it's not critical for the next request usually
+    /**
+     * The sync event keeps the JSON shape MemoryWorker reads ({@code messageType}, {@code content},
+     * {@code metadata.think}) without serializing the full Spring AI message graph.
+     */
+    private List<String> toSyncJson(List<Message> messages) {
+        return messages.stream()
+                .map(message -> {
+                    ObjectNode node = objectMapper.createObjectNode();
+                    node.put("messageType", message.getMessageType().name());
+                    node.put("content", message.getText());
+                    Object think = message.getMetadata().get("think");
+                    if (think != null) {
+                        node.putObject("metadata").put("think", think.toString());
+                    }
+                    return node.toString();
+                })
+                .toList();
     }
 }
@@ -0,0 +1,99 @@
+package bbmovie.ai_platform.agentic_ai.service.memory;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary form of a chat message for the Redis window.
+ *
+ * Layout: {@code [version][type][content length][content UTF-8][think length][think UTF-8]}, where a
+ * think length of {@code -1} means the message carries no reasoning. Only what the next turn needs is
+ * kept: the role, the text and, for assistant messages, the extracted {@code think} metadata.
+ */
+final class MemoryMessageCodec {
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final byte USER = 'U';
+    private static final byte ASSISTANT = 'A';
+    private static final byte SYSTEM = 'S';
+
+    private MemoryMessageCodec() {
+    }
+
+    static byte[] encode(Message message) {
+        String text = message.getText() == null ? "" : message.getText();
+        Object think = message instanceof AssistantMessage ? message.getMetadata().get("think") : null;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(text.length() + 16);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeByte(typeOf(message));
+            writeString(out, text);
+            writeString(out, think == null ? null : think.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Message decode(byte[] encoded) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported memory message format: " + version);
+            }
+            byte type = in.readByte();
+            String text = readString(in);
+            String think = readString(in);
+            return switch (type) {
+                case ASSISTANT -> {
+                    AssistantMessage message = new AssistantMessage(text);
+                    if (think != null) {
+                        message.getMetadata().put("think", think);
+                    }
+                    yield message;
+                }
+                case SYSTEM -> new SystemMessage(text);
+                default -> new UserMessage(text);
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte typeOf(Message message) {
+        return switch (message.getMessageType()) {
+            case ASSISTANT -> ASSISTANT;
+            case SYSTEM -> SYSTEM;
+            default -> USER;
+        };
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = in.readNBytes(length);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
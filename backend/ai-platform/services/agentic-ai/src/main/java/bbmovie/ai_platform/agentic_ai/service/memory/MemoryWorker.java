@@ -1,54 +1,83 @@
 package bbmovie.ai_platform.agentic_ai.service.memory;
 
 import bbmovie.ai_platform.agentic_ai.entity.ChatMessage;
+import bbmovie.ai_platform.agentic_ai.repository.ChatMessageBatchRepository;
 import bbmovie.ai_platform.agentic_ai.repository.MessageRepository;
 import bbmovie.ai_platform.agentic_ai.utils.AiMessageUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.nats.client.*;
 import io.nats.client.api.AckPolicy;
 import io.nats.client.api.ConsumerConfiguration;
+import io.nats.client.api.ConsumerInfo;
 import io.nats.client.api.ReplayPolicy;
 import io.nats.client.api.StorageType;
 import io.nats.client.api.StreamConfiguration;
-import lombok.RequiredArgsConstructor;
+import io.r2dbc.spi.R2dbcTransientException;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.messages.Message;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 import tools.jackson.databind.ObjectMapper;
 
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * MemoryWorker is a background service that persists conversation history to the database.
- * 
- * It acts as a NATS JetStream consumer, pulling memory events asynchronously.
+ *
+ * It acts as a NATS JetStream consumer, pulling memory events in batches.
  * Key features:
- * - JetStream Pull Consumer: Reliable message processing with a durable consumer.
- * - Reactive Flow: Fully non-blocking processing using Project Reactor.
- * - Redis Deduplication: Uses a "Set If Not Absent" strategy in Redis to prevent duplicate messages.
+ * - JetStream Pull Consumer: A dedicated loop fetches up to {@code nats.memory.batch-size} events at a time
+ *   from a durable consumer, so the worker only pulls what it can write.
+ * - Coalescing: Events of a batch are grouped by session. A CLEAR discards the session's earlier ADDs in the
+ *   same batch, and identical messages are deduplicated in memory (within the batch and against recently
+ *   persisted ones).
+ * - Idempotent Inserts: Message ids are derived from the event's stream sequence, so a redelivery to any
+ *   instance hits the primary key and is skipped by {@code ON CONFLICT DO NOTHING}.
+ * - One Write per Batch: Deletes and a multi-row insert run in a single transaction, after which every
+ *   event of the batch is acked. If the write fails while the database is reachable, the batch is split in
+ *   halves until the failing events are isolated; only those are terminated. If the database itself is
+ *   unavailable, the batch is nak'ed as a whole.
+ * - Lag Metrics: Pending/ack-pending counts of the consumer and the event-to-commit delay are exported.
  */
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class MemoryWorker {
 
     private final MessageRepository messageRepository;
+    private final ChatMessageBatchRepository chatMessageBatchRepository;
     private final ObjectMapper objectMapper;
     private final Connection natsConnection;
-    @Qualifier("rRedisTemplate") private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final TransactionalOperator transactionalOperator;
 
     @Value("${nats.memory.subject:ai.memory.sync}")
     private String memorySubject;
@@ -56,15 +85,82 @@ public class MemoryWorker {
     @Value("${nats.memory.queue:memory-workers}")
     private String memoryQueue;
 
-    private static final String DEDUP_KEY_PREFIX = "dedup:msg:";
+    @Value("${nats.memory.batch-size:256}")
+    private int batchSize;
+
+    @Value("${nats.memory.fetch-wait-ms:500}")
+    private long fetchWaitMs;
+
     private static final Duration DEDUP_TTL = Duration.ofMinutes(5);
+    private static final int DEDUP_MAX_ENTRIES = 50_000;
+    private static final Duration WRITE_TIMEOUT = Duration.ofSeconds(20);
+    private static final Duration LAG_REFRESH_INTERVAL = Duration.ofSeconds(5);
+
+    /**
+     * Dedup keys of recently persisted messages with their expiry (epoch millis). Catches redeliveries of
+     * events whose batch was written but whose ack never reached the server.
+     */
+    private final Map<String, Long> recentlyPersisted = Collections.synchronizedMap(
+            new LinkedHashMap<>(1024, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                    return size() > DEDUP_MAX_ENTRIES;
+                }
+            });
+
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private final AtomicLong ackPendingEvents = new AtomicLong();
+    private final Timer batchWriteTimer;
+    private final Timer syncLagTimer;
+    private final Counter persistedCounter;
+    private final Counter duplicateCounter;
+    private final Counter failedBatchCounter;
+    private final Counter terminatedCounter;
+
+    private volatile boolean running;
+    private volatile Thread pollThread;
+    private long lastLagRefreshMs;
+
+    public MemoryWorker(
+            MessageRepository messageRepository,
+            ChatMessageBatchRepository chatMessageBatchRepository,
+            ObjectMapper objectMapper,
+            Connection natsConnection,
+            ReactiveTransactionManager transactionManager,
+            MeterRegistry meterRegistry
+    ) {
+        this.messageRepository = messageRepository;
+        this.chatMessageBatchRepository = chatMessageBatchRepository;
+        this.objectMapper = objectMapper;
+        this.natsConnection = natsConnection;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+
+        Gauge.builder("ai.memory.consumer.pending", pendingEvents, AtomicLong::get)
+                .description("Memory events not yet delivered to the worker")
+                .register(meterRegistry);
+        Gauge.builder("ai.memory.consumer.ack_pending", ackPendingEvents, AtomicLong::get)
+                .description("Memory events delivered but not yet acknowledged")
+                .register(meterRegistry);
+        this.batchWriteTimer = Timer.builder("ai.memory.batch.write")
+                .description("Time to persist one batch of memory events")
+                .register(meterRegistry);
+        this.syncLagTimer = Timer.builder("ai.memory.sync.lag")
+                .description("Delay between the oldest event of a batch being published and its commit")
+                .register(meterRegistry);
+        this.persistedCounter = Counter.builder("ai.memory.messages.persisted").register(meterRegistry);
+        this.duplicateCounter = Counter.builder("ai.memory.messages.duplicate").register(meterRegistry);
+        this.failedBatchCounter = Counter.builder("ai.memory.batch.failed").register(meterRegistry);
+        this.terminatedCounter = Counter.builder("ai.memory.events.terminated")
+                .description("Memory events terminated because they could not be persisted")
+                .register(meterRegistry);
+    }
 
     /**
      * Use Simplified from JetStream API (Pull Consumer)
      */
     @EventListener(ApplicationReadyEvent.class)
     public void startListening() {
-        log.info("[Worker] Initializing Simplified JetStream Pull Worker on subject: {}", memorySubject);
+        log.info("[Worker] Initializing batched JetStream Pull Worker on subject: {}", memorySubject);
         try {
             String streamName = "AI_MEMORY_STREAM";
             String durableName = "memory-persistence-worker";
@@ -95,130 +191,279 @@ public class MemoryWorker {
                     .ackWait(Duration.ofSeconds(30))
                     .replayPolicy(ReplayPolicy.Instant)
                     .build();
-            
+
             ConsumerContext consumerContext = streamContext.createOrUpdateConsumer(consumerConfig);
 
-            // 4. Start Consume (Support Async Pull)
-            // Ack is handled manually in handleAdd/handleClear
-            consumerContext.consume(msg -> {
-                try {
-                    MemoryEvent event = objectMapper.readValue(msg.getData(), MemoryEvent.class);
-                    processEvent(event, msg);
-                } catch (Exception e) {
-                    log.error("[Worker] Failed to parse MemoryEvent. Message will be terminated (poison message).", e);
-                    msg.term(); // Permanent failure, don't retry
-                }
-            });
+            // 4. Start the fetch loop on its own thread; it blocks only on NATS and on the batch write.
+            running = true;
+            pollThread = Thread.ofVirtual()
+                    .name("memory-batch-worker")
+                    .start(() -> pollLoop(consumerContext));
 
-            log.info("[Worker] Pull Consumer is now running...");
+            log.info("[Worker] Pull Consumer is now running (batch size {})...", batchSize);
 
         } catch (Exception e) {
             log.error("[Worker] Critical error starting NATS Pull listener", e);
         }
     }
 
-    private void processEvent(MemoryEvent event, io.nats.client.Message natsMsg) {
-        switch (event.type()) {
-            case ADD -> handleAdd(event, natsMsg);
-            case CLEAR -> handleClear(event, natsMsg);
-            default -> {
-                log.warn("[Worker] Unknown event type: {}", event.type());
-                natsMsg.ack(); 
+    @PreDestroy
+    public void stop() {
+        running = false;
+        Thread thread = pollThread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void pollLoop(ConsumerContext consumerContext) {
+        FetchConsumeOptions options = FetchConsumeOptions.builder()
+                .maxMessages(batchSize)
+                .expiresIn(fetchWaitMs)
+                .build();
+
+        while (running) {
+            try {
+                List<io.nats.client.Message> batch = new ArrayList<>(batchSize);
+                // The fetch ends on its own once batchSize messages arrived or fetchWaitMs elapsed.
+                FetchConsumer fetch = consumerContext.fetch(options);
+                io.nats.client.Message msg;
+                while ((msg = fetch.nextMessage()) != null) {
+                    batch.add(msg);
+                }
+                if (!batch.isEmpty()) {
+                    processBatch(batch);
+                }
+                refreshLag(consumerContext);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("[Worker] Fetch loop error, backing off", e);
+                try {
+                    Thread.sleep(fetchWaitMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    void processBatch(List<io.nats.client.Message> natsMessages) {
+        List<Fetched> fetched = new ArrayList<>(natsMessages.size());
+        for (io.nats.client.Message natsMsg : natsMessages) {
+            try {
+                MemoryEvent event = objectMapper.readValue(natsMsg.getData(), MemoryEvent.class);
+                UUID.fromString(event.sessionId());
+                UUID.fromString(event.userId());
+                fetched.add(new Fetched(natsMsg, new SequencedEvent(natsMsg.metaData().streamSequence(), event)));
+            } catch (Exception e) {
+                log.error("[Worker] Invalid MemoryEvent. Message will be terminated (poison message).", e);
+                natsMsg.term(); // Permanent failure, don't retry
             }
         }
+        if (!fetched.isEmpty()) {
+            persist(fetched);
+        }
     }
 
-    private void handleAdd(MemoryEvent event, io.nats.client.Message natsMsg) {
-        log.info("[Worker] Processing ADD event for Session: {}", event.sessionId());
-        
-        UUID sessionId;
-        UUID userId;
+    /**
+     * Writes the events as one batch. When the database rejects it, each half is retried on its own so a
+     * single bad event does not hold back (and eventually exhaust the deliveries of) the rest of the batch.
+     */
+    private void persist(List<Fetched> fetched) {
+        List<SequencedEvent> events = fetched.stream().map(Fetched::event).toList();
+        MemoryBatch batch = coalesce(events);
+        Timer.Sample sample = Timer.start();
         try {
-            sessionId = UUID.fromString(event.sessionId());
-            userId = UUID.fromString(event.userId());
-        } catch (IllegalArgumentException e) {
-            log.error("[Worker] Invalid UUID in event: {}", e.getMessage());
-            natsMsg.term();
+            write(batch).block(WRITE_TIMEOUT);
+        } catch (Exception e) {
+            failedBatchCounter.increment();
+            if (isUnavailable(e)) {
+                log.error("[Worker] DB unavailable, batch of {} events will be redelivered", fetched.size(), e);
+                fetched.forEach(f -> f.message().nak());
+            } else if (fetched.size() == 1) {
+                terminatedCounter.increment();
+                log.error("[Worker] Memory event seq {} cannot be persisted and will be terminated",
+                        events.getFirst().sequence(), e);
+                fetched.getFirst().message().term();
+            } else {
+                log.warn("[Worker] DB Sync Failed for batch of {} events, retrying in halves: {}",
+                        fetched.size(), e.getMessage());
+                int middle = fetched.size() / 2;
+                persist(fetched.subList(0, middle));
+                persist(fetched.subList(middle, fetched.size()));
+            }
             return;
         }
+        sample.stop(batchWriteTimer);
+
+        fetched.forEach(f -> f.message().ack());
+        long expiresAt = System.currentTimeMillis() + DEDUP_TTL.toMillis();
+        batch.dedupKeys().forEach(key -> recentlyPersisted.put(key, expiresAt));
+        persistedCounter.increment(batch.messages().size());
+        duplicateCounter.increment(batch.duplicates());
+        events.stream()
+                .map(e -> e.event().timestamp())
+                .filter(Objects::nonNull)
+                .min(Instant::compareTo)
+                .ifPresent(oldest -> syncLagTimer.record(Duration.between(oldest, Instant.now())));
+
+        log.info("[Worker] DB Sync Complete: {} events, {} messages, {} sessions cleared, {} duplicates skipped",
+                events.size(), batch.messages().size(), batch.clearedSessions().size(), batch.duplicates());
+    }
+
+    /**
+     * Whether the write failed because the database could not be reached rather than because of the data.
+     */
+    private static boolean isUnavailable(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof DataAccessResourceFailureException
+                    || t instanceof TransientDataAccessException
+                    || t instanceof R2dbcTransientException
+                    || t instanceof TimeoutException
+                    || (t instanceof IllegalStateException && String.valueOf(t.getMessage()).startsWith("Timeout on blocking read"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Mono<Void> write(MemoryBatch batch) {
+        Mono<Void> deletes = Flux.fromIterable(batch.clearedSessions())
+                .concatMap(messageRepository::deleteAllBySessionId)
+                .then();
+        return deletes
+                .then(chatMessageBatchRepository.insertAll(batch.messages()))
+                .as(transactionalOperator::transactional)
+                .then();
+    }
 
-        Instant now = event.timestamp();
-
-        Flux.fromIterable(event.jsonMessages())
-                .map(AiMessageUtils::deserializeMessage)
-                .flatMap(msg -> isDuplicate(sessionId, msg)
-                        .flatMap(isDup -> {
-                            if (isDup) {
-                                log.debug("[Worker] Duplicate detected for session {}, skipping message.", sessionId);
-                                return Mono.empty();
-                            }
-                            return Mono.just(mapToEntity(msg, sessionId, userId, now));
-                        })
-                )
-                .collectList()
-                .flatMap(entities -> {
-                    if (entities.isEmpty()) {
-                        log.info("[Worker] All messages in event are duplicates or empty. Skipping.");
-                        return Mono.empty();
+    /**
+     * Folds the events of one fetch into the writes they imply. Events are applied in delivery order per
+     * session, so an ADD before a CLEAR is dropped and an ADD after it survives.
+     */
+    MemoryBatch coalesce(List<SequencedEvent> events) {
+        Map<UUID, LinkedHashMap<String, ChatMessage>> pendingBySession = new LinkedHashMap<>();
+        Set<UUID> clearedSessions = new LinkedHashSet<>();
+        int duplicates = 0;
+
+        for (SequencedEvent sequenced : events) {
+            MemoryEvent event = sequenced.event();
+            UUID sessionId = UUID.fromString(event.sessionId());
+            UUID userId = UUID.fromString(event.userId());
+            LinkedHashMap<String, ChatMessage> pending = pendingBySession.computeIfAbsent(sessionId, id -> new LinkedHashMap<>());
+
+            switch (event.type()) {
+                case ADD -> {
+                    if (event.jsonMessages() == null) {
+                        continue;
+                    }
+                    Instant now = event.timestamp();
+                    for (int i = 0; i < event.jsonMessages().size(); i++) {
+                        Message msg = AiMessageUtils.deserializeMessage(event.jsonMessages().get(i));
+                        String key = dedupKey(sessionId, msg);
+                        if (pending.containsKey(key) || isRecentlyPersisted(key)) {
+                            log.debug("[Worker] Duplicate detected for session {}, skipping message.", sessionId);
+                            duplicates++;
+                            continue;
+                        }
+                        pending.put(key, mapToEntity(msg, messageId(sequenced.sequence(), i), sessionId, userId, now));
                     }
-                    return messageRepository.saveAll(entities).then();
-                })
-                .subscribeOn(Schedulers.boundedElastic())
-                .doOnSuccess(v -> {
-                    log.info("[Worker] DB Sync Complete for session: {}", sessionId);
-                    natsMsg.ack();
-                })
-                .doOnError(ex -> {
-                    log.error("[Worker] DB Sync Failed for session: {}", sessionId, ex);
-                    natsMsg.nak();
-                })
-                .subscribe();
+                }
+                case CLEAR -> {
+                    pending.clear();
+                    clearedSessions.add(sessionId);
+                    forgetSession(sessionId);
+                }
+                default -> log.warn("[Worker] Unknown event type: {}", event.type());
+            }
+        }
+
+        List<ChatMessage> messages = new ArrayList<>();
+        Set<String> dedupKeys = new LinkedHashSet<>();
+        pendingBySession.values().forEach(pending -> {
+            dedupKeys.addAll(pending.keySet());
+            messages.addAll(pending.values());
+        });
+        return new MemoryBatch(clearedSessions, messages, dedupKeys, duplicates);
+    }
+
+    private boolean isRecentlyPersisted(String key) {
+        Long expiresAt = recentlyPersisted.get(key);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt <= System.currentTimeMillis()) {
+            recentlyPersisted.remove(key, expiresAt);
+            return false;
+        }
+        return true;
+    }
+
+    private void forgetSession(UUID sessionId) {
+        String prefix = sessionId + ":";
+        synchronized (recentlyPersisted) {
+            recentlyPersisted.keySet().removeIf(key -> key.startsWith(prefix));
+        }
     }
 
     /**
-     * Checks if the message is a duplicate using Redis SET NX.
+     * Same identity as the former Redis dedup key: session, sender and a SHA-256 of the content.
      */
-    private Mono<Boolean> isDuplicate(UUID sessionId, Message msg) {
+    private String dedupKey(UUID sessionId, Message msg) {
         try {
-            String content = msg.getText();
-            String sender = msg.getMessageType().name();
-            
-            // Create a hash of the content to use in the Redis key
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(content.getBytes());
-            String hashStr = HexFormat.of().formatHex(hash);
-            
-            String dedupKey = DEDUP_KEY_PREFIX + sessionId + ":" + hashStr + ":" + sender;
-            
-            return redisTemplate.opsForValue()
-                    .setIfAbsent(dedupKey, "1", DEDUP_TTL)
-                    .map(success -> !success) // If setIfAbsent returns false, it means key already exists (it IS a duplicate)
-                    .defaultIfEmpty(false);
+            String content = msg.getText() == null ? "" : msg.getText();
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return sessionId + ":" + HexFormat.of().formatHex(hash) + ":" + msg.getMessageType().name();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Stable id of the {@code index}-th message of the event stored at {@code sequence} in the stream, so every
+     * delivery of that event produces the same primary keys.
+     */
+    private static UUID messageId(long sequence, int index) {
+        return UUID.nameUUIDFromBytes(("AI_MEMORY_STREAM:" + sequence + ":" + index).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void refreshLag(ConsumerContext consumerContext) {
+        long now = System.currentTimeMillis();
+        if (now - lastLagRefreshMs < LAG_REFRESH_INTERVAL.toMillis()) {
+            return;
+        }
+        lastLagRefreshMs = now;
+        try {
+            ConsumerInfo info = consumerContext.getConsumerInfo();
+            pendingEvents.set(info.getNumPending());
+            ackPendingEvents.set(info.getNumAckPending());
         } catch (Exception e) {
-            log.error("[Worker] Deduplication check failed", e);
-            return Mono.just(false); // Fail-open: allow saving if dedup check fails
+            log.debug("[Worker] Could not refresh consumer lag: {}", e.getMessage());
         }
     }
 
     /**
      * Maps a Spring AI Message to a ChatMessage entity.
      */
-    private ChatMessage mapToEntity(Message msg, UUID sessionId, UUID userId, Instant createdAt) {
+    private ChatMessage mapToEntity(Message msg, UUID id, UUID sessionId, UUID userId, Instant createdAt) {
         String thinking = null;
         Long promptTokens = null;
         Long completionTokens = null;
-        
+
         if (msg instanceof AssistantMessage assistantMessage) {
             Object think = assistantMessage.getMetadata().get("think");
             if (think != null) {
                 thinking = think.toString();
             }
-            
+
             Object pTokens = assistantMessage.getMetadata().get("prompt_tokens");
             if (pTokens != null) {
                 promptTokens = Long.valueOf(pTokens.toString());
             }
-            
+
             Object cTokens = assistantMessage.getMetadata().get("completion_tokens");
             if (cTokens != null) {
                 completionTokens = Long.valueOf(cTokens.toString());
@@ -226,7 +471,7 @@ public class MemoryWorker {
         }
 
         return ChatMessage.builder()
-                .id(UUID.randomUUID())
+                .id(id)
                 .sessionId(sessionId)
                 .userId(userId)
                 .content(msg.getText())
@@ -239,18 +484,15 @@ public class MemoryWorker {
                 .asNew();
     }
 
-    private void handleClear(MemoryEvent event, io.nats.client.Message natsMsg) {
-        log.info("[Worker] Clearing history for Session: {}", event.sessionId());
-        messageRepository.deleteAllBySessionId(UUID.fromString(event.sessionId()))
-                .subscribeOn(Schedulers.boundedElastic())
-                .doOnSuccess(v -> {
-                    log.info("[Worker] History cleared for session: {}", event.sessionId());
-                    natsMsg.ack();
-                })
-                .doOnError(e -> {
-                    log.error("[Worker] Failed to clear session: {}", event.sessionId(), e);
-                    natsMsg.nak();
-                })
-                .subscribe();
+    /**
+     * The writes one fetched batch resolves to.
+     */
+    record SequencedEvent(long sequence, MemoryEvent event) {
+    }
+
+    private record Fetched(io.nats.client.Message message, SequencedEvent event) {
+    }
+
+    record MemoryBatch(Set<UUID> clearedSessions, List<ChatMessage> messages, Set<String> dedupKeys, int duplicates) {
     }
 }
@@ -0,0 +1,68 @@
+package bbmovie.ai_platform.agentic_ai.service.memory;
+
+/**
+ * Coordinates the memory writes of one chat turn that may run on several providers at once (a hedged or failed
+ * over stream).
+ *
+ * <p>Every attempt goes through the memory advisor, which would normally store the full turn on completion and
+ * the user message alone when the stream is cancelled or fails. With several attempts that would store the user
+ * message once per attempt. Instead, the first attempt to complete {@link #complete() claims} the turn, and an
+ * aborted attempt only {@link #abandon registers} its user-only write, which {@link #settle()} runs when the
+ * whole turn ended without any completed attempt.
+ */
+public final class PendingTurn {
+
+    private boolean completed;
+    private boolean settled;
+    private boolean abortHandled;
+    private Runnable abortWrite;
+
+    /**
+     * Claims the turn for a completed attempt. Returns {@code false} if another attempt already did.
+     */
+    public synchronized boolean complete() {
+        if (completed) {
+            return false;
+        }
+        completed = true;
+        abortWrite = null;
+        return true;
+    }
+
+    /**
+     * Registers the write to perform if no attempt completes. Only the first registration is kept; after
+     * {@link #settle()} it runs immediately (once).
+     */
+    public void abandon(Runnable userOnlyWrite) {
+        synchronized (this) {
+            if (completed || abortHandled) {
+                return;
+            }
+            if (!settled) {
+                if (abortWrite == null) {
+                    abortWrite = userOnlyWrite;
+                }
+                return;
+            }
+            abortHandled = true;
+        }
+        userOnlyWrite.run();
+    }
+
+    /**
+     * Called once the routed stream has terminated.
+     */
+    public void settle() {
+        Runnable write;
+        synchronized (this) {
+            settled = true;
+            if (completed || abortHandled || abortWrite == null) {
+                return;
+            }
+            abortHandled = true;
+            write = abortWrite;
+            abortWrite = null;
+        }
+        write.run();
+    }
+}
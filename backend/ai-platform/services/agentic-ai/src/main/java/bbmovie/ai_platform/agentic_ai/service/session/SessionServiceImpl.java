@@ -4,11 +4,11 @@ import bbmovie.ai_platform.agentic_ai.dto.response.ChatSessionResponse;
 import bbmovie.ai_platform.agentic_ai.entity.ChatSession;
 import bbmovie.ai_platform.agentic_ai.repository.MessageRepository;
 import bbmovie.ai_platform.agentic_ai.repository.SessionRepository;
+import bbmovie.ai_platform.agentic_ai.service.memory.HybridChatMemory;
 import bbmovie.ai_platform.agentic_ai.utils.CursorPageHelper;
 import bbmovie.ai_platform.aop_policy.annotation.CheckOwnership;
 import com.bbmovie.common.dtos.CursorPageResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -23,7 +23,7 @@ public class SessionServiceImpl implements SessionService {
 
     private final SessionRepository sessionRepository;
     private final MessageRepository messageRepository;
-    private final ChatMemory chatMemory;
+    private final HybridChatMemory chatMemory;
 
     @Override
     public Mono<CursorPageResponse<ChatSessionResponse>> activeSessionsWithCursor(UUID userId, String cursor, int size) {
@@ -55,7 +55,7 @@ public class SessionServiceImpl implements SessionService {
     @CheckOwnership(expression = "#sessionId", entityType = "SESSION")
     public Mono<Void> deleteSession(UUID sessionId, UUID userId) {
         return messageRepository.deleteAllBySessionId(sessionId)
-                .then(Mono.fromRunnable(() -> chatMemory.clear(userId.toString() + ":" + sessionId.toString())))
+                .then(chatMemory.evict(userId.toString() + ":" + sessionId.toString()))
                 .then(sessionRepository.deleteById(sessionId));
     }
 
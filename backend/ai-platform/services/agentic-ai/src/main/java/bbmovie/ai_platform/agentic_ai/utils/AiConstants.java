@@ -13,7 +13,7 @@ public final class AiConstants {
     // --- Spring AI ChatMemory Advisor Keys ---
 
     /**
-     * The key used by {@link org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor}
+     * The key used by {@link bbmovie.ai_platform.agentic_ai.service.chat.advisors.ReactiveChatMemoryAdvisor}
      * to store and retrieve the active conversation ID in the advisor context.
      *
      * Format: "userId:sessionId" (see {@link bbmovie.ai_platform.agentic_ai.dto.ConversationId})
@@ -21,11 +21,18 @@ public final class AiConstants {
     public static final String CHAT_MEMORY_CONVERSATION_ID_KEY = "chat_memory_conversation_id";
 
     /**
-     * The key used by {@link org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor}
+     * The key used by {@link bbmovie.ai_platform.agentic_ai.service.chat.advisors.ReactiveChatMemoryAdvisor}
      * to control the number of past messages to retrieve from memory.
      */
     public static final String CHAT_MEMORY_RETRIEVE_SIZE_KEY = "chat_memory_retrieve_size";
 
+    /**
+     * The key under which a routed chat passes its {@link bbmovie.ai_platform.agentic_ai.service.memory.PendingTurn}
+     * to {@link bbmovie.ai_platform.agentic_ai.service.chat.advisors.ReactiveChatMemoryAdvisor}, so that a hedged
+     * turn is stored once.
+     */
+    public static final String CHAT_MEMORY_PENDING_TURN_KEY = "chat_memory_pending_turn";
+
     /**
      * Default number of past messages to include in each AI request.
      */
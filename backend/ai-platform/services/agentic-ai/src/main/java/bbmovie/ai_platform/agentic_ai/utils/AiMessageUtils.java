@@ -26,7 +26,14 @@ public class AiMessageUtils {
             
             return switch (type) {
                 case "USER" -> new UserMessage(content);
-                case "ASSISTANT" -> new AssistantMessage(content);
+                case "ASSISTANT" -> {
+                    AssistantMessage msg = new AssistantMessage(content);
+                    JsonNode think = node.path("metadata").path("think");
+                    if (think.isString()) {
+                        msg.getMetadata().put("think", think.asString());
+                    }
+                    yield msg;
+                }
                 case "SYSTEM" -> new SystemMessage(content);
                 default -> new UserMessage(content);
             };
@@ -0,0 +1,108 @@
+package bbmovie.ai_platform.agentic_ai.service.chat;
+
+import bbmovie.ai_platform.agentic_ai.config.AiTimeoutProperties;
+import bbmovie.ai_platform.agentic_ai.config.ModelRoutingProperties;
+import bbmovie.ai_platform.agentic_ai.entity.enums.AiMode;
+import bbmovie.ai_platform.agentic_ai.entity.enums.AiModel;
+import bbmovie.ai_platform.agentic_ai.service.chat.routing.AdaptiveModelRouter;
+import bbmovie.ai_platform.agentic_ai.service.message.MessageService;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChatServiceImplTest {
+
+    private static final Duration HEDGE_DELAY = Duration.ofMillis(50);
+
+    private ChatRequestFactory requestFactory;
+    private ChatServiceImpl chatService;
+
+    @BeforeEach
+    void setUp() {
+        ModelRoutingProperties properties = new ModelRoutingProperties();
+        properties.getHedge().setMinDelay(HEDGE_DELAY);
+        properties.getHedge().setMaxDelay(HEDGE_DELAY);
+
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.ofDefaults();
+        Map<String, CircuitBreaker> circuitBreakers = Map.of(
+                "ollama", registry.circuitBreaker("ollama"),
+                "google", registry.circuitBreaker("google"),
+                "groq", registry.circuitBreaker("groq"));
+        ModelRoutingService modelRoutingService = mock(ModelRoutingService.class);
+        when(modelRoutingService.isConfigured(anyString())).thenReturn(true);
+        AdaptiveModelRouter router = new AdaptiveModelRouter(
+                modelRoutingService, circuitBreakers, properties, new SimpleMeterRegistry());
+
+        AiTimeoutProperties timeoutProperties = mock(AiTimeoutProperties.class);
+        when(timeoutProperties.getTimeoutForMode(any())).thenReturn(Duration.ofSeconds(5));
+
+        requestFactory = mock(ChatRequestFactory.class);
+        chatService = new ChatServiceImpl(
+                mock(MessageService.class), requestFactory, router, timeoutProperties, circuitBreakers);
+    }
+
+    @Test
+    void should_not_hedge_a_primary_that_is_executing_tools() {
+        // The primary runs a tool right away and only streams its answer well after the hedge delay.
+        stubAttempts(onToolCall -> Flux.defer(() -> {
+            onToolCall.run();
+            return Flux.just("answer").delayElements(HEDGE_DELAY.multipliedBy(6));
+        }));
+
+        List<String> tokens = chat();
+
+        assertEquals(List.of("answer"), tokens);
+        verify(requestFactory, times(1)).createRequest(any(), any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void should_hedge_a_primary_that_stays_silent() {
+        stubAttempts(onToolCall -> onToolCall != null ? Flux.never() : Flux.just("hedged"));
+
+        List<String> tokens = chat();
+
+        assertEquals(List.of("hedged"), tokens);
+        verify(requestFactory, times(2)).createRequest(any(), any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
+    /**
+     * Only the primary attempt gets a tool-call listener, which tells the two attempts apart.
+     */
+    private void stubAttempts(Function<Runnable, Flux<String>> content) {
+        when(requestFactory.createRequest(any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    Runnable onToolCall = invocation.getArgument(8);
+                    ChatClient.StreamResponseSpec stream = mock(ChatClient.StreamResponseSpec.class);
+                    when(stream.content()).thenReturn(content.apply(onToolCall));
+                    ChatClient.ChatClientRequestSpec spec = mock(ChatClient.ChatClientRequestSpec.class);
+                    when(spec.stream()).thenReturn(stream);
+                    return Mono.just(spec);
+                });
+    }
+
+    private List<String> chat() {
+        return chatService.chat(UUID.randomUUID(), UUID.randomUUID(), "save that I like noir", null, null,
+                        AiMode.NORMAL, AiModel.QWEN_TINY, "USER")
+                .collectList()
+                .block(Duration.ofSeconds(5));
+    }
+}
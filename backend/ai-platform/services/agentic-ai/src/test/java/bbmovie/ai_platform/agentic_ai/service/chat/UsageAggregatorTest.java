@@ -0,0 +1,102 @@
+package bbmovie.ai_platform.agentic_ai.service.chat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nats.client.JetStream;
+import io.nats.client.PublishOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UsageAggregatorTest {
+
+    private static final UUID USER = UUID.randomUUID();
+    private static final Instant MINUTE = Instant.parse("2026-01-01T10:15:00Z");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private JetStream jetStream;
+    private UsageAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        jetStream = mock(JetStream.class);
+        aggregator = new UsageAggregator(jetStream, objectMapper, new SimpleMeterRegistry(), 64, 60_000);
+        aggregator.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        aggregator.stop();
+    }
+
+    @Test
+    void should_sum_usage_per_user_model_and_minute() {
+        List<UsageEvent> buckets = UsageEvent.aggregate(List.of(
+                call(UUID.randomUUID(), "qwen", MINUTE.plusSeconds(5), 100, 20),
+                call(UUID.randomUUID(), "qwen", MINUTE.plusSeconds(50), 300, 40),
+                call(UUID.randomUUID(), "llama", MINUTE.plusSeconds(10), 10, 1),
+                call(UUID.randomUUID(), "qwen", MINUTE.plusSeconds(65), 7, 3)
+        ));
+
+        assertEquals(3, buckets.size());
+        UsageEvent qwen = buckets.getFirst();
+        assertEquals(new UsageEvent.Key(USER, "qwen", MINUTE), qwen.key());
+        assertEquals(2, qwen.requests());
+        assertEquals(400, qwen.promptTokens());
+        assertEquals(60, qwen.completionTokens());
+        assertEquals(460, qwen.totalTokens());
+        assertEquals(MINUTE, qwen.timestamp());
+        assertNull(qwen.sessionId());
+        assertEquals(MINUTE.plusSeconds(60), buckets.get(2).timestamp());
+    }
+
+    @Test
+    void should_retry_failed_buckets_under_their_original_message_id() throws Exception {
+        when(jetStream.publish(anyString(), any(byte[].class), any(PublishOptions.class)))
+                .thenThrow(new IOException("nats unavailable"))
+                .thenReturn(null);
+
+        aggregator.record(call(UUID.randomUUID(), "qwen", MINUTE, 100, 20));
+        aggregator.flush();
+        aggregator.record(call(UUID.randomUUID(), "qwen", MINUTE.plusSeconds(30), 50, 5));
+        aggregator.flush();
+
+        ArgumentCaptor<byte[]> payloads = ArgumentCaptor.forClass(byte[].class);
+        ArgumentCaptor<PublishOptions> options = ArgumentCaptor.forClass(PublishOptions.class);
+        verify(jetStream, times(3)).publish(anyString(), payloads.capture(), options.capture());
+        List<String> messageIds = options.getAllValues().stream().map(PublishOptions::getMessageId).toList();
+
+        // The retry is the failed bucket unchanged, under the id of the failed attempt.
+        assertEquals(messageIds.get(0), messageIds.get(1));
+        UsageEvent retried = objectMapper.readValue(payloads.getAllValues().get(1), UsageEvent.class);
+        assertEquals(1, retried.requests());
+        assertEquals(100, retried.promptTokens());
+
+        // Events that arrived since are a bucket of their own.
+        assertNotEquals(messageIds.get(0), messageIds.get(2));
+        UsageEvent next = objectMapper.readValue(payloads.getAllValues().get(2), UsageEvent.class);
+        assertEquals(1, next.requests());
+        assertEquals(50, next.promptTokens());
+        assertEquals(5, next.completionTokens());
+    }
+
+    private static UsageEvent call(UUID sessionId, String model, Instant at, long prompt, long completion) {
+        return new UsageEvent(USER, sessionId, model, prompt, completion, prompt + completion, at, 1);
+    }
+}
@@ -0,0 +1,95 @@
+package bbmovie.ai_platform.agentic_ai.service.chat;
+
+import bbmovie.ai_platform.agentic_ai.repository.TokenUsageBatchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nats.client.Connection;
+import io.nats.client.Message;
+import io.nats.client.impl.Headers;
+import io.nats.client.impl.NatsJetStreamMetaData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.ReactiveTransactionManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UsageWorkerTest {
+
+    private static final UUID USER = UUID.randomUUID();
+    private static final Instant MINUTE = Instant.parse("2026-01-01T10:15:00Z");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private TokenUsageBatchRepository usageRepository;
+    private UsageWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        usageRepository = mock(TokenUsageBatchRepository.class);
+        when(usageRepository.upsertAll(anyList())).thenAnswer(invocation -> Mono.just((long) ((List<?>) invocation.getArgument(0)).size()));
+        ReactiveTransactionManager transactionManager = mock(ReactiveTransactionManager.class);
+        when(transactionManager.getReactiveTransaction(any())).thenReturn(Mono.just(mock(ReactiveTransaction.class)));
+        when(transactionManager.commit(any())).thenReturn(Mono.empty());
+        when(transactionManager.rollback(any())).thenReturn(Mono.empty());
+        worker = new UsageWorker(mock(Connection.class), objectMapper, usageRepository, transactionManager,
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void should_only_add_events_whose_message_id_was_not_claimed_before() throws Exception {
+        // "node-1:1:a" was persisted before a crash or by another instance; only its ack was lost.
+        when(usageRepository.claimMessageIds(List.of("node-1:1:a", "node-1:1:b"))).thenReturn(Flux.just("node-1:1:b"));
+        Message redelivered = natsMessage("node-1:1:a", 100, 1);
+        Message fresh = natsMessage("node-1:1:b", 40, 1);
+
+        worker.processBatch(List.of(redelivered, fresh));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<UsageEvent>> buckets = ArgumentCaptor.forClass(List.class);
+        verify(usageRepository).upsertAll(buckets.capture());
+        assertEquals(1, buckets.getValue().size());
+        assertEquals(40, buckets.getValue().getFirst().promptTokens());
+        verify(redelivered).ack();
+        verify(fresh).ack();
+    }
+
+    @Test
+    void should_nak_with_a_growing_delay_while_the_database_is_down() throws Exception {
+        when(usageRepository.claimMessageIds(anyList()))
+                .thenReturn(Flux.error(new DataAccessResourceFailureException("connection refused")));
+        Message message = natsMessage("node-1:1:a", 100, 3);
+
+        worker.processBatch(List.of(message));
+
+        verify(message).nakWithDelay(Duration.ofSeconds(20));
+        verify(message, never()).ack();
+        verify(usageRepository, never()).upsertAll(anyList());
+    }
+
+    private Message natsMessage(String messageId, long promptTokens, long deliveries) throws Exception {
+        UsageEvent event = new UsageEvent(USER, null, "qwen", promptTokens, 0, promptTokens, MINUTE, 1);
+        NatsJetStreamMetaData metaData = mock(NatsJetStreamMetaData.class);
+        when(metaData.deliveredCount()).thenReturn(deliveries);
+        Headers headers = new Headers().add("Nats-Msg-Id", messageId);
+        Message message = mock(Message.class);
+        when(message.getData()).thenReturn(objectMapper.writeValueAsBytes(event));
+        when(message.getHeaders()).thenReturn(headers);
+        when(message.metaData()).thenReturn(metaData);
+        return message;
+    }
+}
@@ -0,0 +1,129 @@
+package bbmovie.ai_platform.agentic_ai.service.chat.advisors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares {@link ThinkTagParser} with the former regex-and-replace extraction on reasoning transcripts of
+ * realistic size: tens of KB of thinking (with stray {@code <} from code and comparisons) followed by the answer,
+ * split into token-sized chunks for the streaming case.
+ *
+ * <p>Not part of the unit test run (no {@code @Test}); run {@link #main} with the test classpath, e.g. from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThinkTagParserBenchmark {
+
+    private static final List<String> OPEN_TAGS = List.of("<think>", "<thinking>");
+    private static final List<String> CLOSE_TAGS = List.of("</think>", "</thinking>");
+    private static final Pattern LEGACY_PATTERN =
+            Pattern.compile("(?:<think>|<thinking>)(.*?)(?:</think>|</thinking>)", Pattern.DOTALL);
+
+    @Param({"8192", "32768", "65536"})
+    private int thinkingChars;
+
+    private ThinkTagParser parser;
+    private String transcript;
+    private List<String> chunks;
+
+    @Setup
+    public void setUp() {
+        parser = new ThinkTagParser(OPEN_TAGS, CLOSE_TAGS);
+        Random random = new Random(42);
+        String[] sentences = {
+                "Let me reconsider the user's constraints before answering. ",
+                "If rating < 7 and year >= 2010 the candidate should be dropped. ",
+                "The snippet `List<Movie> result = new ArrayList<>();` is irrelevant here. ",
+                "Comparing genres: thriller, noir, neo-noir; overlap is 2 of 3. ",
+                "Step 4: rank by similarity, then break ties on release date. "
+        };
+        StringBuilder sb = new StringBuilder("<think>");
+        while (sb.length() < thinkingChars) {
+            sb.append(sentences[random.nextInt(sentences.length)]);
+        }
+        sb.append("</think>");
+        for (int i = 0; i < 40; i++) {
+            sb.append("Here is recommendation ").append(i).append(" with a short reason. ");
+        }
+        transcript = sb.toString();
+
+        chunks = new ArrayList<>();
+        for (int i = 0; i < transcript.length(); ) {
+            int size = 3 + random.nextInt(6);
+            chunks.add(transcript.substring(i, Math.min(transcript.length(), i + size)));
+            i += size;
+        }
+    }
+
+    @Benchmark
+    public void unaryParser(Blackhole bh) {
+        ThinkTagParser.Session session = parser.newSession();
+        StringBuilder content = new StringBuilder(transcript.length());
+        session.feed(transcript, content);
+        session.finish(content);
+        bh.consume(content.toString().trim());
+        bh.consume(session.thinking());
+    }
+
+    @Benchmark
+    public void unaryLegacyRegex(Blackhole bh) {
+        boolean hasAnyTag = OPEN_TAGS.stream().anyMatch(transcript::contains);
+        if (!hasAnyTag) {
+            bh.consume(transcript);
+            return;
+        }
+        Matcher matcher = LEGACY_PATTERN.matcher(transcript);
+        StringBuilder thinking = new StringBuilder();
+        String cleaned = transcript;
+        while (matcher.find()) {
+            thinking.append(matcher.group(1)).append("\n");
+            cleaned = cleaned.replace(matcher.group(0), "");
+        }
+        bh.consume(cleaned.trim());
+        bh.consume(thinking.toString().trim());
+    }
+
+    @Benchmark
+    public void streamingParser(Blackhole bh) {
+        ThinkTagParser.Session session = parser.newSession();
+        for (String chunk : chunks) {
+            StringBuilder out = new StringBuilder(chunk.length());
+            session.feed(chunk, out);
+            bh.consume(out.toString());
+        }
+        StringBuilder tail = new StringBuilder();
+        session.finish(tail);
+        bh.consume(tail.toString());
+        bh.consume(session.thinking());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ThinkTagParserBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,67 @@
+package bbmovie.ai_platform.agentic_ai.service.chat.advisors;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ThinkTagParserTest {
+
+    private final ThinkTagParser parser = new ThinkTagParser(
+            List.of("<think>", "<thinking>"), List.of("</think>", "</thinking>"));
+
+    @Test
+    void should_extract_blocks_in_one_pass() {
+        ThinkTagParser.Session session = parser.newSession();
+        StringBuilder content = new StringBuilder();
+
+        session.feed("<think>first</think>Answer if a < b <b>bold</b><thinking>second</thinking> done", content);
+        session.finish(content);
+
+        assertEquals("Answer if a < b <b>bold</b> done", content.toString());
+        assertEquals("first\nsecond", session.thinking());
+        assertTrue(session.sawTag());
+    }
+
+    @Test
+    void should_handle_tags_split_across_chunks() {
+        ThinkTagParser.Session session = parser.newSession();
+        StringBuilder content = new StringBuilder();
+
+        for (String chunk : List.of("Hi <thi", "nk>rea", "soning</th", "ink", "> visible <", "3")) {
+            session.feed(chunk, content);
+        }
+        session.finish(content);
+
+        assertEquals("Hi  visible <3", content.toString());
+        assertEquals("reasoning", session.thinking());
+        assertFalse(session.inside());
+    }
+
+    @Test
+    void should_only_close_with_paired_tag() {
+        ThinkTagParser.Session session = parser.newSession();
+        StringBuilder content = new StringBuilder();
+
+        session.feed("<thinking>a</think>b</thinking>c", content);
+        session.finish(content);
+
+        assertEquals("c", content.toString());
+        assertEquals("a</think>b", session.thinking());
+    }
+
+    @Test
+    void should_pass_through_text_without_tags() {
+        ThinkTagParser.Session session = parser.newSession();
+        StringBuilder content = new StringBuilder();
+
+        session.feed("plain answer <", content);
+        session.finish(content);
+
+        assertEquals("plain answer <", content.toString());
+        assertFalse(session.sawTag());
+    }
+}
@@ -0,0 +1,83 @@
+package bbmovie.ai_platform.agentic_ai.service.chat.advisors;
+
+import bbmovie.ai_platform.agentic_ai.config.ThinkingAdvisorProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatGenerationMetadata;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ThinkingAdvisorTest {
+
+    private ThinkingAdvisor advisor;
+
+    @BeforeEach
+    void setUp() {
+        advisor = new ThinkingAdvisor(new ThinkingAdvisorProperties());
+        advisor.init();
+    }
+
+    @Test
+    void should_not_finish_the_session_on_an_empty_finish_reason() {
+        // OpenAI-compatible models put "" as finish reason on every intermediate chunk.
+        List<ChatClientResponse> out = stream(
+                chunk("Hi <thi", ""),
+                chunk("nk>reasoning</th", ""),
+                chunk("ink> visible <", ""),
+                chunk("3", "STOP"));
+
+        String visible = out.stream().map(ThinkingAdvisorTest::text).collect(Collectors.joining());
+        assertEquals("Hi  visible <3", visible);
+        List<Object> thinks = out.stream()
+                .map(response -> response.chatResponse().getResult().getOutput().getMetadata().get("think"))
+                .filter(Objects::nonNull)
+                .toList();
+        assertEquals(List.of("reasoning"), thinks);
+    }
+
+    @Test
+    void should_flush_held_back_text_and_unclosed_reasoning_on_completion() {
+        List<ChatClientResponse> out = stream(
+                chunk("answer <", ""),
+                chunk("think>still going", "STOP"));
+
+        assertEquals("answer ", out.stream().map(ThinkingAdvisorTest::text).collect(Collectors.joining()));
+        assertEquals("still going", out.getLast().chatResponse().getResult().getOutput().getMetadata().get("think"));
+    }
+
+    private List<ChatClientResponse> stream(ChatClientResponse... chunks) {
+        StreamAdvisorChain chain = mock(StreamAdvisorChain.class);
+        when(chain.nextStream(any())).thenReturn(Flux.just(chunks));
+        return advisor.adviseStream(mock(ChatClientRequest.class), chain)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+    }
+
+    private static ChatClientResponse chunk(String text, String finishReason) {
+        ChatGenerationMetadata metadata = ChatGenerationMetadata.builder().finishReason(finishReason).build();
+        ChatResponse response = ChatResponse.builder()
+                .generations(List.of(new Generation(new AssistantMessage(text), metadata)))
+                .build();
+        return ChatClientResponse.builder().chatResponse(response).context(Map.of()).build();
+    }
+
+    private static String text(ChatClientResponse response) {
+        return response.chatResponse().getResult().getOutput().getText();
+    }
+}
@@ -0,0 +1,106 @@
+package bbmovie.ai_platform.agentic_ai.service.chat.routing;
+
+import bbmovie.ai_platform.agentic_ai.config.ModelRoutingProperties;
+import bbmovie.ai_platform.agentic_ai.entity.enums.AiMode;
+import bbmovie.ai_platform.agentic_ai.entity.enums.AiModel;
+import bbmovie.ai_platform.agentic_ai.exception.ProviderOverloadedException;
+import bbmovie.ai_platform.agentic_ai.service.chat.ModelRoutingService;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AdaptiveModelRouterTest {
+
+    private ModelRoutingProperties properties;
+    private Map<String, CircuitBreaker> circuitBreakers;
+    private AdaptiveModelRouter router;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ModelRoutingProperties();
+        properties.setInitialLimit(1);
+        properties.getHedge().setEnabled(false);
+
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.ofDefaults();
+        circuitBreakers = Map.of(
+                "ollama", registry.circuitBreaker("ollama"),
+                "google", registry.circuitBreaker("google"),
+                "groq", registry.circuitBreaker("groq"));
+
+        ModelRoutingService modelRoutingService = mock(ModelRoutingService.class);
+        when(modelRoutingService.isConfigured(anyString())).thenReturn(true);
+        router = new AdaptiveModelRouter(modelRoutingService, circuitBreakers, properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void should_shift_to_a_fallback_provider_when_the_requested_one_is_saturated() {
+        RoutePlan first = router.plan(AiModel.QWEN_TINY, AiMode.NORMAL);
+        RoutePlan second = router.plan(AiModel.QWEN_TINY, AiMode.NORMAL);
+
+        assertEquals(AiModel.QWEN_TINY, first.primary().model());
+        assertEquals(AdaptiveModelRouter.REQUESTED, first.reason());
+        assertEquals("saturated", second.reason());
+        assertTrue(second.primary().model().isSupportsTools());
+        assertNotEquals("ollama", second.primary().provider());
+
+        first.primary().complete();
+        assertEquals(AiModel.QWEN_TINY, router.plan(AiModel.QWEN_TINY, AiMode.NORMAL).primary().model());
+    }
+
+    @Test
+    void should_keep_thinking_requests_on_providers_that_support_thinking() {
+        router.plan(AiModel.DEEPSEEK_R1, AiMode.THINKING);
+
+        assertThrows(ProviderOverloadedException.class, () -> router.plan(AiModel.DEEPSEEK_R1, AiMode.THINKING));
+    }
+
+    @Test
+    void should_route_around_an_open_circuit_and_hedge_on_another_provider() {
+        properties.getHedge().setEnabled(true);
+        circuitBreakers.get("google").transitionToOpenState();
+
+        RoutePlan plan = router.plan(AiModel.GEMINI_1_5_FLASH, AiMode.NORMAL);
+
+        assertEquals("circuit_open", plan.reason());
+        assertNotEquals("google", plan.primary().provider());
+        assertNotEquals(plan.primary().provider(), plan.hedge().getProvider());
+        assertNotEquals("google", plan.hedge().getProvider());
+        assertEquals(properties.getHedge().getMaxDelay(), plan.hedgeDelay());
+    }
+
+    @Test
+    void should_shrink_the_limit_multiplicatively_on_errors_and_grow_it_additively() {
+        properties.setInitialLimit(10);
+        ProviderLimiter limiter = new ProviderLimiter("groq", properties);
+
+        limiter.onError();
+        assertEquals(7.0, limiter.limit(), 1e-9);
+
+        // Failures of streams started before the decrease do not shrink it again.
+        for (int i = 0; i < 7; i++) {
+            limiter.onError();
+        }
+        assertEquals(7.0, limiter.limit(), 1e-9);
+
+        limiter.onSuccess();
+        assertEquals(7.0 + 1.0 / 7.0, limiter.limit(), 1e-9);
+    }
+
+    @Test
+    void should_not_plan_a_hedge_when_hedging_is_disabled() {
+        assertNull(router.plan(AiModel.GROQ_LLAMA_3_70B, AiMode.NORMAL).hedge());
+    }
+}
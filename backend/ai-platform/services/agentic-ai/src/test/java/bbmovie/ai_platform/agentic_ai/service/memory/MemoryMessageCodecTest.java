@@ -0,0 +1,43 @@
+package bbmovie.ai_platform.agentic_ai.service.memory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MemoryMessageCodecTest {
+
+    @Test
+    void should_round_trip_assistant_message_with_think_metadata() {
+        AssistantMessage original = new AssistantMessage("Xin chào — here is the answer");
+        original.getMetadata().put("think", "reasoning steps");
+
+        Message decoded = MemoryMessageCodec.decode(MemoryMessageCodec.encode(original));
+
+        assertEquals(MessageType.ASSISTANT, decoded.getMessageType());
+        assertEquals("Xin chào — here is the answer", decoded.getText());
+        assertEquals("reasoning steps", decoded.getMetadata().get("think"));
+    }
+
+    @Test
+    void should_round_trip_user_message_without_metadata() {
+        Message decoded = MemoryMessageCodec.decode(MemoryMessageCodec.encode(new UserMessage("recommend a movie")));
+
+        assertEquals(MessageType.USER, decoded.getMessageType());
+        assertEquals("recommend a movie", decoded.getText());
+        assertFalse(decoded.getMetadata().containsKey("think"));
+    }
+
+    @Test
+    void should_reject_unknown_format_version() {
+        byte[] encoded = MemoryMessageCodec.encode(new UserMessage("hi"));
+        encoded[0] = 9;
+
+        assertThrows(IllegalArgumentException.class, () -> MemoryMessageCodec.decode(encoded));
+    }
+}
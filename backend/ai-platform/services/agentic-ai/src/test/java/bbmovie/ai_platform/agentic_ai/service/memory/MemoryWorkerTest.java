@@ -0,0 +1,141 @@
+package bbmovie.ai_platform.agentic_ai.service.memory;
+
+import bbmovie.ai_platform.agentic_ai.entity.ChatMessage;
+import bbmovie.ai_platform.agentic_ai.repository.ChatMessageBatchRepository;
+import bbmovie.ai_platform.agentic_ai.repository.MessageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nats.client.Connection;
+import io.nats.client.Message;
+import io.nats.client.impl.NatsJetStreamMetaData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.ReactiveTransactionManager;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MemoryWorkerTest {
+
+    private static final String SESSION_A = UUID.randomUUID().toString();
+    private static final String SESSION_B = UUID.randomUUID().toString();
+    private static final String USER = UUID.randomUUID().toString();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong sequence = new AtomicLong();
+    private ChatMessageBatchRepository batchRepository;
+    private MemoryWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        batchRepository = mock(ChatMessageBatchRepository.class);
+        ReactiveTransactionManager transactionManager = mock(ReactiveTransactionManager.class);
+        when(transactionManager.getReactiveTransaction(any())).thenReturn(Mono.just(mock(ReactiveTransaction.class)));
+        when(transactionManager.commit(any())).thenReturn(Mono.empty());
+        when(transactionManager.rollback(any())).thenReturn(Mono.empty());
+        worker = new MemoryWorker(
+                mock(MessageRepository.class),
+                batchRepository,
+                objectMapper,
+                mock(Connection.class),
+                transactionManager,
+                new SimpleMeterRegistry()
+        );
+    }
+
+    @Test
+    void should_merge_events_of_a_session_and_drop_duplicates() {
+        MemoryWorker.MemoryBatch batch = worker.coalesce(List.of(
+                sequenced(add(SESSION_A, user("hello"), assistant("hi there"))),
+                sequenced(add(SESSION_A, user("hello"))),
+                sequenced(add(SESSION_B, user("recommend a movie")))
+        ));
+
+        assertEquals(3, batch.messages().size());
+        assertEquals(1, batch.duplicates());
+        assertEquals(List.of("hello", "hi there", "recommend a movie"),
+                batch.messages().stream().map(ChatMessage::getContent).toList());
+    }
+
+    @Test
+    void should_discard_adds_before_clear_and_keep_adds_after_it() {
+        MemoryWorker.MemoryBatch batch = worker.coalesce(List.of(
+                sequenced(add(SESSION_A, user("old question"))),
+                sequenced(new MemoryEvent(MemoryEvent.EventType.CLEAR, SESSION_A, USER, null, Instant.now(), null)),
+                sequenced(add(SESSION_A, user("new question")))
+        ));
+
+        assertEquals(Set.of(UUID.fromString(SESSION_A)), batch.clearedSessions());
+        assertEquals(List.of("new question"), batch.messages().stream().map(ChatMessage::getContent).toList());
+    }
+
+    @Test
+    void should_derive_the_same_message_ids_for_a_redelivered_event() {
+        MemoryWorker.SequencedEvent event = new MemoryWorker.SequencedEvent(42, add(SESSION_A, user("hello")));
+
+        UUID first = worker.coalesce(List.of(event)).messages().getFirst().getId();
+        UUID redelivered = worker.coalesce(List.of(event)).messages().getFirst().getId();
+
+        assertEquals(first, redelivered);
+    }
+
+    @Test
+    void should_terminate_only_the_event_that_fails_on_its_own() throws Exception {
+        when(batchRepository.insertAll(anyList())).thenAnswer(invocation -> {
+            List<ChatMessage> rows = invocation.getArgument(0);
+            boolean poisoned = rows.stream().anyMatch(row -> row.getContent().equals("poison"));
+            return poisoned ? Mono.error(new DataIntegrityViolationException("value too long")) : Mono.just((long) rows.size());
+        });
+        Message healthyA = natsMessage(add(SESSION_A, user("hello")));
+        Message poison = natsMessage(add(SESSION_A, user("poison")));
+        Message healthyB = natsMessage(add(SESSION_B, user("recommend a movie")));
+
+        worker.processBatch(List.of(healthyA, poison, healthyB));
+
+        verify(healthyA).ack();
+        verify(healthyB).ack();
+        verify(poison).term();
+        verify(poison, never()).ack();
+        verify(healthyA, never()).nak();
+        verify(healthyB, never()).nak();
+    }
+
+    private MemoryWorker.SequencedEvent sequenced(MemoryEvent event) {
+        return new MemoryWorker.SequencedEvent(sequence.incrementAndGet(), event);
+    }
+
+    private Message natsMessage(MemoryEvent event) throws Exception {
+        NatsJetStreamMetaData metaData = mock(NatsJetStreamMetaData.class);
+        when(metaData.streamSequence()).thenReturn(sequence.incrementAndGet());
+        Message message = mock(Message.class);
+        when(message.getData()).thenReturn(objectMapper.writeValueAsBytes(event));
+        when(message.metaData()).thenReturn(metaData);
+        return message;
+    }
+
+    private static MemoryEvent add(String sessionId, String... jsonMessages) {
+        return new MemoryEvent(MemoryEvent.EventType.ADD, sessionId, USER, List.of(jsonMessages), Instant.now(), null);
+    }
+
+    private static String user(String content) {
+        return "{\"messageType\":\"USER\",\"content\":\"" + content + "\"}";
+    }
+
+    private static String assistant(String content) {
+        return "{\"messageType\":\"ASSISTANT\",\"content\":\"" + content + "\"}";
+    }
+}
@@ -0,0 +1,31 @@
+package bbmovie.ai_platform.ai_assets.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+
+import java.time.Duration;
+
+import static io.netty.channel.ChannelOption.CONNECT_TIMEOUT_MILLIS;
+
+@Configuration
+public class RefineryClientConfig {
+
+    @Value("${refinery.url:http://localhost:8686}")
+    private String refineryUrl;
+
+    @Bean("refineryWebClient")
+    public WebClient refineryWebClient(WebClient.Builder builder) {
+        HttpClient httpClient = HttpClient.create()
+                .responseTimeout(Duration.ofMinutes(10)) // a batch runs its files one after another
+                .option(CONNECT_TIMEOUT_MILLIS, 30000);
+
+        return builder
+                .baseUrl(refineryUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
@@ -1,119 +1,179 @@
 package bbmovie.ai_platform.ai_assets.listener;
 
-import bbmovie.ai_platform.ai_assets.entity.Asset;
-import bbmovie.ai_platform.ai_assets.repository.AssetRepository;
-import bbmovie.ai_platform.ai_assets.service.NatsService;
-import bbmovie.ai_platform.ai_common.dto.AssetEvent;
+import bbmovie.ai_platform.ai_assets.service.ingestion.AssetIngestionPipeline;
 import bbmovie.ai_platform.ai_common.dto.MinioEvent;
-import bbmovie.ai_platform.ai_common.enums.AssetStatus;
 import bbmovie.ai_platform.ai_common.constants.NatsConstants;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.nats.client.Connection;
-import io.nats.client.Dispatcher;
-import jakarta.annotation.PostConstruct;
+import io.nats.client.ConsumerContext;
+import io.nats.client.FetchConsumeOptions;
+import io.nats.client.FetchConsumer;
+import io.nats.client.JetStreamManagement;
+import io.nats.client.Message;
+import io.nats.client.api.AckPolicy;
+import io.nats.client.api.ConsumerConfiguration;
+import io.nats.client.api.ReplayPolicy;
+import io.nats.client.api.StorageType;
+import io.nats.client.api.StreamConfiguration;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
-
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
-import io.minio.MinioClient;
-import io.minio.GetObjectArgs;
-import org.apache.tika.Tika;
-import java.io.InputStream;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
+/**
+ * Receives MinIO upload notifications and hands each uploaded object to the {@link AssetIngestionPipeline}.
+ *
+ * <p>Notifications are pulled from a durable JetStream consumer, never more than the pipeline has free slots
+ * for, so a burst of uploads stays in the stream instead of the client's heap. A notification is acked once
+ * all of its objects have left the pipeline; if the service dies before that, it is redelivered.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class MinioEventSubscriber {
 
+    private static final String STREAM_NAME = "MINIO_AI_ASSETS_STREAM";
+    private static final String DURABLE_NAME = "ai-assets-ingestion";
+    private static final Duration SLOT_WAIT = Duration.ofMillis(100);
+
     private final Connection natsConnection;
     private final ObjectMapper objectMapper;
-    private final AssetRepository assetRepository;
-    private final NatsService natsService;
-    private final MinioClient minioClient;
-    private final Tika tika = new Tika();
+    private final AssetIngestionPipeline ingestionPipeline;
+
+    @Value("${ai-assets.ingestion.fetch-wait-ms:1000}")
+    private long fetchWaitMs;
 
-    @PostConstruct
+    @Value("${ai-assets.ingestion.ack-wait-seconds:600}")
+    private long ackWaitSeconds;
+
+    private volatile boolean running;
+    private volatile Thread pollThread;
+
+    @EventListener(ApplicationReadyEvent.class)
     public void subscribe() {
-        log.info("[MinioEventSubscriber] Subscribing to: {}", NatsConstants.MINIO_AI_ASSETS_SUBJECT);
-        
-        Dispatcher dispatcher = natsConnection.createDispatcher(msg -> {
+        log.info("[MinioEventSubscriber] Pulling from: {}", NatsConstants.MINIO_AI_ASSETS_SUBJECT);
+        try {
+            JetStreamManagement jsm = natsConnection.jetStreamManagement();
             try {
-                String payload = new String(msg.getData());
-                log.debug("[MinioEventSubscriber] Received MinIO Event: {}", payload);
-                
-                MinioEvent event = objectMapper.readValue(payload, MinioEvent.class);
-                if (event.getRecords() != null) {
-                    for (MinioEvent.MinioRecord record : event.getRecords()) {
-                        handleRecord(record);
-                    }
+                jsm.getStreamInfo(STREAM_NAME);
+            } catch (Exception e) {
+                log.info("[MinioEventSubscriber] Creating Stream: {}", STREAM_NAME);
+                jsm.addStream(StreamConfiguration.builder()
+                        .name(STREAM_NAME)
+                        .subjects(NatsConstants.MINIO_AI_ASSETS_SUBJECT)
+                        .storageType(StorageType.File)
+                        .build());
+            }
+
+            // ackWait covers the whole stay in the pipeline, including a refinery batch.
+            ConsumerContext consumerContext = natsConnection.getStreamContext(STREAM_NAME)
+                    .createOrUpdateConsumer(ConsumerConfiguration.builder()
+                            .durable(DURABLE_NAME)
+                            .filterSubject(NatsConstants.MINIO_AI_ASSETS_SUBJECT)
+                            .ackPolicy(AckPolicy.Explicit)
+                            .maxDeliver(5)
+                            .ackWait(Duration.ofSeconds(ackWaitSeconds))
+                            .replayPolicy(ReplayPolicy.Instant)
+                            .build());
+
+            running = true;
+            pollThread = Thread.ofVirtual()
+                    .name("minio-event-puller")
+                    .start(() -> pollLoop(consumerContext));
+        } catch (Exception e) {
+            log.error("[MinioEventSubscriber] Critical error starting NATS Pull listener", e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        Thread thread = pollThread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void pollLoop(ConsumerContext consumerContext) {
+        while (running) {
+            try {
+                int free = ingestionPipeline.availableSlots();
+                if (free == 0) {
+                    Thread.sleep(SLOT_WAIT);
+                    continue;
                 }
+                FetchConsumer fetch = consumerContext.fetch(FetchConsumeOptions.builder()
+                        .maxMessages(free)
+                        .expiresIn(fetchWaitMs)
+                        .build());
+                Message msg;
+                while ((msg = fetch.nextMessage()) != null) {
+                    handleMessage(msg);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
             } catch (Exception e) {
-                log.error("[MinioEventSubscriber] Error processing MinIO event: {}", e.getMessage());
+                log.error("[MinioEventSubscriber] Fetch loop error, backing off", e);
+                try {
+                    Thread.sleep(fetchWaitMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
             }
-        });
+        }
+    }
+
+    private void handleMessage(Message msg) {
+        MinioEvent event;
+        try {
+            event = objectMapper.readValue(msg.getData(), MinioEvent.class);
+        } catch (Exception e) {
+            log.error("[MinioEventSubscriber] Invalid MinIO event. Message will be terminated.", e);
+            msg.term();
+            return;
+        }
 
-        dispatcher.subscribe(NatsConstants.MINIO_AI_ASSETS_SUBJECT);
+        List<Mono<Void>> done = new ArrayList<>();
+        if (event.getRecords() != null) {
+            for (MinioEvent.MinioRecord record : event.getRecords()) {
+                Mono<Void> recordDone = handleRecord(record);
+                if (recordDone != null) {
+                    done.add(recordDone);
+                }
+            }
+        }
+        Mono.when(done)
+                .doFinally(s -> msg.ack())
+                .subscribe(v -> {}, e -> log.error("[MinioEventSubscriber] Ingestion signal failed: {}", e.getMessage()));
     }
 
-    private void handleRecord(MinioEvent.MinioRecord record) {
-        String objectKey = record.getS3().getObject().getKey();
+    private Mono<Void> handleRecord(MinioEvent.MinioRecord record) {
+        MinioEvent.ObjectInfo object = record.getS3().getObject();
+        String objectKey = object.getKey();
         log.info("[MinioEventSubscriber] Processing upload for object: {}", objectKey);
 
         // Parse assetId from key: userId/assetId/filename
         String[] parts = objectKey.split("/");
-        if (parts.length < 3) return;
-        
+        if (parts.length < 3) return null;
+
         try {
             UUID assetId = UUID.fromString(parts[1]);
-            
-            assetRepository.findById(assetId)
-                .flatMap(asset -> {
-                    // Detect real MIME type from MinIO
-                    return detectMimeType(asset)
-                        .map(realMimeType -> {
-                            log.info("[MinioEventSubscriber] Detected MIME: {} for asset: {}", realMimeType, assetId);
-                            asset.setContentType(realMimeType);
-                            asset.setStatus(AssetStatus.UPLOADED);
-                            asset.setSize(record.getS3().getObject().getSize());
-                            return asset;
-                        })
-                        .flatMap(assetRepository::save);
-                })
-                .flatMap(asset -> {
-                    // Trigger Ingestion
-                    AssetEvent trigger = AssetEvent.builder()
-                        .assetId(asset.getId())
-                        .userId(asset.getUserId())
-                        .bucket(asset.getBucketName())
-                        .objectKey(asset.getObjectKey())
-                        .status(AssetStatus.UPLOADED)
-                        .build();
-                        
-                    return natsService.publishAssetEvent(NatsConstants.ASSET_PROCESS_TRIGGER, trigger);
-                })
-                .subscribe(
-                    v -> log.info("[MinioEventSubscriber] Successfully updated status and triggered ingestion for asset: {}", assetId),
-                    err -> log.error("[MinioEventSubscriber] Failed to handle asset {}: {}", assetId, err.getMessage())
-                );
-                
+            long size = object.getSize() != null ? object.getSize() : 0L;
+            return ingestionPipeline.submit(assetId, size, object.getETag());
         } catch (IllegalArgumentException e) {
             log.warn("[MinioEventSubscriber] Invalid assetId in key: {}", objectKey);
+            return null;
         }
     }
-
-    private Mono<String> detectMimeType(Asset asset) {
-        return Mono.fromCallable(() -> {
-            try (InputStream stream = minioClient.getObject(
-                    GetObjectArgs.builder()
-                            .bucket(asset.getBucketName())
-                            .object(asset.getObjectKey())
-                            .build())) {
-                return tika.detect(stream);
-            }
-        }).subscribeOn(Schedulers.boundedElastic());
-    }
 }
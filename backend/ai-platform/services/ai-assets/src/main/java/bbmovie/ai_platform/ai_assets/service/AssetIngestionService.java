@@ -0,0 +1,62 @@
+package bbmovie.ai_platform.ai_assets.service;
+
+import bbmovie.ai_platform.ai_assets.entity.IngestedContent;
+import bbmovie.ai_platform.ai_assets.repository.AssetRepository;
+import bbmovie.ai_platform.ai_assets.repository.IngestedContentRepository;
+import bbmovie.ai_platform.ai_common.enums.AssetStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Records the outcome of an asset's ingestion.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AssetIngestionService {
+
+    private final AssetRepository assetRepository;
+    private final IngestedContentRepository contentRepository;
+
+    /**
+     * Marks the asset INGESTED and stores its extracted content, unless content was already stored for it.
+     */
+    public Mono<Void> complete(UUID assetId, String content) {
+        Mono<Void> updateStatus = setStatus(assetId, AssetStatus.INGESTED);
+        if (content == null) {
+            return updateStatus;
+        }
+
+        IngestedContent ingested = IngestedContent.builder()
+                .id(UUID.randomUUID())
+                .assetId(assetId)
+                .content(content)
+                .wordCount(content.split("\\s+").length)
+                .createdAt(LocalDateTime.now())
+                .build();
+
+        return updateStatus.then(contentRepository.findByAssetId(assetId)
+                .switchIfEmpty(contentRepository.save(ingested))
+                .then());
+    }
+
+    public Mono<Void> fail(UUID assetId, String reason) {
+        log.warn("[AssetIngestionService] Ingestion failed for asset {}: {}", assetId, reason);
+        return setStatus(assetId, AssetStatus.FAILED);
+    }
+
+    public Mono<Void> setStatus(UUID assetId, AssetStatus status) {
+        return assetRepository.findById(assetId)
+                .flatMap(asset -> {
+                    asset.setStatus(status);
+                    asset.setUpdatedAt(LocalDateTime.now());
+                    return assetRepository.save(asset);
+                })
+                .then();
+    }
+}
@@ -0,0 +1,71 @@
+package bbmovie.ai_platform.ai_assets.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Client of the Rust context refinery's batch endpoint. The refinery downloads each file from its URL itself, so
+ * no file content passes through this service.
+ */
+@Slf4j
+@Service
+public class RefineryClient {
+
+    private final WebClient webClient;
+
+    public RefineryClient(@Qualifier("refineryWebClient") WebClient webClient) {
+        this.webClient = webClient;
+    }
+
+    /**
+     * Processes {@code requests} in one refinery call. Results are matched to requests by filename; a file that
+     * failed has an {@code error} instead of a {@code result}.
+     */
+    public Mono<List<Result>> processBatch(List<Request> requests) {
+        return webClient.post()
+                .uri("/api/process-batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new BatchRequest(requests))
+                .retrieve()
+                // 422 means every file failed; the body still carries the per-file errors.
+                .onStatus(status -> status.value() == HttpStatus.UNPROCESSABLE_ENTITY.value(), response -> Mono.empty())
+                .bodyToMono(BatchResponse.class)
+                .map(response -> response.data() != null ? response.data() : List.<Result>of())
+                .doOnError(e -> log.error("[Refinery] Batch of {} failed: {}", requests.size(), e.getMessage()));
+    }
+
+    public record Request(String file_url, String filename) {
+    }
+
+    public record Result(String filename, Map<String, Object> result, String error) {
+
+        /**
+         * Extracted text: the transcript or document text, or OCR text plus the image description.
+         */
+        public String text() {
+            if (result == null) {
+                return null;
+            }
+            if (result.get("text") instanceof String text) {
+                return text;
+            }
+            String ocr = result.get("ocr_text") instanceof String s ? s : "";
+            String vision = result.get("vision_description") instanceof String s ? s : "";
+            return (ocr + "\n\n" + vision).strip();
+        }
+    }
+
+    private record BatchRequest(List<Request> requests) {
+    }
+
+    private record BatchResponse(boolean success, List<Result> data, String message) {
+    }
+}
@@ -0,0 +1,421 @@
+package bbmovie.ai_platform.ai_assets.service.ingestion;
+
+import bbmovie.ai_platform.ai_assets.entity.Asset;
+import bbmovie.ai_platform.ai_assets.entity.IngestedContent;
+import bbmovie.ai_platform.ai_assets.repository.AssetRepository;
+import bbmovie.ai_platform.ai_assets.repository.IngestedContentRepository;
+import bbmovie.ai_platform.ai_assets.service.AssetIngestionService;
+import bbmovie.ai_platform.ai_assets.service.RefineryClient;
+import bbmovie.ai_platform.ai_assets.service.ingestion.IngestionStats.Stage;
+import bbmovie.ai_platform.ai_common.enums.AssetStatus;
+import io.minio.GetObjectArgs;
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.MinioClient;
+import io.minio.http.Method;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tika.Tika;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Ingests uploaded assets: MIME detection, content deduplication and extraction by the Rust refinery.
+ *
+ * <p>Uploads flow through a single reactive pipeline instead of one subscription per event:
+ * <ol>
+ *   <li><b>prepare</b> ({@code ai-assets.ingestion.concurrency} at a time): load the asset, sniff its MIME type
+ *       from a ranged read of the first {@code sniff-bytes}, and derive a content hash;</li>
+ *   <li><b>deduplicate</b>: an upload whose content is already being ingested, or was recently, reuses that
+ *       result instead of being processed again;</li>
+ *   <li><b>batch</b>: files up to {@code small-file-bytes} are grouped, up to {@code batch-size} per refinery
+ *       call or whatever arrived within {@code batch-window-ms}; larger files get a call of their own;</li>
+ *   <li><b>dispatch</b> ({@code refinery-concurrency} calls at a time): the refinery gets presigned URLs and
+ *       streams each object from MinIO itself, so file content never enters this JVM.</li>
+ * </ol>
+ * At most {@code max-in-flight} uploads are in the pipeline. The JetStream consumer only fetches as many events
+ * as there are {@link #availableSlots() free slots} and acks each one when the Mono returned by {@link #submit}
+ * completes, i.e. once its upload left the pipeline on any path.
+ *
+ * <p>The content hash is MinIO's ETag plus the size: the MD5 of the object, or for multipart uploads the MD5 of
+ * the part MD5s, which is stable for identical files uploaded by the same client. Objects without an ETag are
+ * hashed with SHA-256 while streaming them once in chunks. The hash also becomes the file name sent to the
+ * refinery, whose result cache is keyed by file name. Known hashes are kept in memory only, bounded by
+ * {@code dedup-entries}.
+ */
+@Slf4j
+@Component
+public class AssetIngestionPipeline {
+
+    private final AssetRepository assetRepository;
+    private final IngestedContentRepository contentRepository;
+    private final AssetIngestionService ingestionService;
+    private final RefineryClient refineryClient;
+    private final MinioClient minioClient;
+    private final Tika tika = new Tika();
+
+    private final int concurrency;
+    private final int maxInFlight;
+    private final long smallFileBytes;
+    private final int batchSize;
+    private final Duration batchWindow;
+    private final int refineryConcurrency;
+    private final long sniffBytes;
+    private final Duration statsInterval;
+
+    private final Sinks.Many<Upload> uploads = Sinks.many().unicast().onBackpressureBuffer();
+    private final Semaphore slots;
+    private final IngestionStats stats;
+    /** Content hash -> result of the upload currently ingesting that content. */
+    private final ConcurrentMap<String, Sinks.One<String>> inFlightByHash = new ConcurrentHashMap<>();
+    /** Content hash -> asset whose extracted content can be reused. */
+    private final Map<String, UUID> ingestedByHash;
+
+    private Disposable pipeline;
+    private Disposable reporting;
+
+    public AssetIngestionPipeline(
+            AssetRepository assetRepository,
+            IngestedContentRepository contentRepository,
+            AssetIngestionService ingestionService,
+            RefineryClient refineryClient,
+            MinioClient minioClient,
+            @Value("${ai-assets.ingestion.concurrency:8}") int concurrency,
+            @Value("${ai-assets.ingestion.max-in-flight:256}") int maxInFlight,
+            @Value("${ai-assets.ingestion.small-file-bytes:1048576}") long smallFileBytes,
+            @Value("${ai-assets.ingestion.batch-size:16}") int batchSize,
+            @Value("${ai-assets.ingestion.batch-window-ms:500}") long batchWindowMs,
+            @Value("${ai-assets.ingestion.refinery-concurrency:2}") int refineryConcurrency,
+            @Value("${ai-assets.ingestion.sniff-bytes:65536}") long sniffBytes,
+            @Value("${ai-assets.ingestion.dedup-entries:10000}") int dedupEntries,
+            @Value("${ai-assets.ingestion.stats-interval-seconds:60}") long statsIntervalSeconds
+    ) {
+        this.assetRepository = assetRepository;
+        this.contentRepository = contentRepository;
+        this.ingestionService = ingestionService;
+        this.refineryClient = refineryClient;
+        this.minioClient = minioClient;
+        this.concurrency = concurrency;
+        this.maxInFlight = maxInFlight;
+        this.smallFileBytes = smallFileBytes;
+        this.batchSize = batchSize;
+        this.batchWindow = Duration.ofMillis(batchWindowMs);
+        this.refineryConcurrency = refineryConcurrency;
+        this.sniffBytes = sniffBytes;
+        this.statsInterval = Duration.ofSeconds(Math.max(1, statsIntervalSeconds));
+
+        this.slots = new Semaphore(maxInFlight);
+        this.stats = new IngestionStats(() -> maxInFlight - slots.availablePermits());
+        this.ingestedByHash = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, UUID> eldest) {
+                return size() > dedupEntries;
+            }
+        });
+    }
+
+    @PostConstruct
+    void start() {
+        pipeline = uploads.asFlux()
+                .flatMap(this::prepare, concurrency)
+                .publish(shared -> Flux.merge(
+                        shared.filter(candidate -> !isSmall(candidate)).map(List::of),
+                        shared.filter(this::isSmall).bufferTimeout(batchSize, batchWindow, true)))
+                .flatMap(this::dispatch, refineryConcurrency)
+                .subscribe(
+                        v -> {},
+                        e -> log.error("[Ingestion] Pipeline terminated: {}", e.getMessage(), e));
+
+        reporting = Flux.interval(statsInterval, statsInterval)
+                .subscribe(tick -> stats.report(statsInterval));
+    }
+
+    @PreDestroy
+    void stop() {
+        uploads.tryEmitComplete();
+        if (reporting != null) {
+            reporting.dispose();
+        }
+        if (pipeline != null) {
+            pipeline.dispose();
+        }
+    }
+
+    /**
+     * Queues an uploaded object for ingestion, blocking while {@code max-in-flight} uploads are in progress.
+     *
+     * @return completes once the upload has left the pipeline (ingested, failed or skipped) and its slot is free
+     */
+    public Mono<Void> submit(UUID assetId, long size, String eTag) {
+        Sinks.Empty<Void> done = Sinks.empty();
+        try {
+            if (!slots.tryAcquire()) {
+                log.debug("[Ingestion] {} uploads in flight, waiting for a slot", maxInFlight);
+                slots.acquire();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stats.record(Stage.FAILED);
+            ingestionService.fail(assetId, "interrupted while waiting for an ingestion slot")
+                    .onErrorResume(ex -> Mono.empty())
+                    .doFinally(s -> done.tryEmitEmpty())
+                    .subscribe();
+            return done.asMono();
+        }
+        stats.record(Stage.RECEIVED);
+        uploads.emitNext(new Upload(assetId, size, eTag, done), Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+        return done.asMono();
+    }
+
+    /**
+     * Uploads that can be submitted right now without blocking.
+     */
+    public int availableSlots() {
+        return slots.availablePermits();
+    }
+
+    private void release(Sinks.Empty<Void> done) {
+        slots.release();
+        done.tryEmitEmpty();
+    }
+
+    // --- prepare ---
+
+    private Mono<Candidate> prepare(Upload upload) {
+        return assetRepository.findById(upload.assetId())
+                .flatMap(asset -> sniff(asset, upload)
+                        .flatMap(sniffed -> {
+                            log.info("[Ingestion] Detected MIME: {} for asset: {}", sniffed.mimeType(), asset.getId());
+                            asset.setContentType(sniffed.mimeType());
+                            asset.setSize(upload.size());
+                            asset.setStatus(AssetStatus.UPLOADED);
+                            asset.setUpdatedAt(LocalDateTime.now());
+                            stats.record(Stage.PREPARED);
+                            stats.recordBytes(upload.size());
+                            return assetRepository.save(asset)
+                                    .map(saved -> new Candidate(saved, sniffed.contentHash(), null, upload.done()));
+                        }))
+                .switchIfEmpty(Mono.fromRunnable(() -> {
+                    log.warn("[Ingestion] No asset {} for uploaded object", upload.assetId());
+                    release(upload.done());
+                }))
+                // Duplicates complete empty here but keep their slot until the original's result arrives.
+                .flatMap(this::deduplicate)
+                .onErrorResume(e -> {
+                    log.error("[Ingestion] Failed to prepare asset {}: {}", upload.assetId(), e.getMessage());
+                    stats.record(Stage.FAILED);
+                    return ingestionService.fail(upload.assetId(), e.getMessage())
+                            .onErrorResume(ex -> Mono.empty())
+                            .doFinally(s -> release(upload.done()))
+                            .then(Mono.empty());
+                });
+    }
+
+    /**
+     * Detects the MIME type from the first bytes only. Without an ETag to use as content hash, streams the whole
+     * object once through a SHA-256 digest instead, in fixed-size chunks.
+     */
+    private Mono<Sniffed> sniff(Asset asset, Upload upload) {
+        String filename = filename(asset.getObjectKey());
+        boolean hasETag = upload.eTag() != null && !upload.eTag().isBlank();
+        return Mono.fromCallable(() -> {
+            GetObjectArgs.Builder args = GetObjectArgs.builder()
+                    .bucket(asset.getBucketName())
+                    .object(asset.getObjectKey());
+            if (hasETag) {
+                args.offset(0L).length(sniffBytes);
+            }
+            MessageDigest digest = hasETag ? null : MessageDigest.getInstance("SHA-256");
+            try (InputStream object = minioClient.getObject(args.build());
+                 InputStream stream = new BufferedInputStream(digest == null ? object : new DigestInputStream(object, digest))) {
+                String mimeType = tika.detect(stream, filename);
+                if (digest == null) {
+                    String eTag = upload.eTag().replace("\"", "");
+                    return new Sniffed(mimeType, "etag-" + eTag + "-" + upload.size());
+                }
+                stream.transferTo(OutputStream.nullOutputStream());
+                return new Sniffed(mimeType, "sha256-" + HexFormat.of().formatHex(digest.digest()));
+            }
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // --- deduplicate ---
+
+    /**
+     * Returns the candidate if it has to be processed, or completes empty if its content is already known or
+     * being processed, in which case the asset is completed from that result.
+     */
+    private Mono<Candidate> deduplicate(Candidate candidate) {
+        String hash = candidate.contentHash();
+        Sinks.One<String> result = Sinks.one();
+        Sinks.One<String> leader = inFlightByHash.putIfAbsent(hash, result);
+        if (leader != null) {
+            follow(candidate, leader.asMono());
+            return Mono.empty();
+        }
+
+        UUID ingested = ingestedByHash.get(hash);
+        if (ingested == null || ingested.equals(candidate.asset().getId())) {
+            return Mono.just(candidate.withResult(result));
+        }
+        return contentRepository.findByAssetId(ingested)
+                .map(IngestedContent::getContent)
+                .flatMap(content -> {
+                    inFlightByHash.remove(hash, result);
+                    result.tryEmitValue(content);
+                    follow(candidate, Mono.just(content));
+                    return Mono.<Candidate>empty();
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    ingestedByHash.remove(hash, ingested);
+                    return candidate.withResult(result);
+                }))
+                .doOnError(e -> {
+                    inFlightByHash.remove(hash, result);
+                    result.tryEmitError(e);
+                });
+    }
+
+    /**
+     * Completes a duplicate upload with the content extracted for the original.
+     */
+    private void follow(Candidate candidate, Mono<String> content) {
+        UUID assetId = candidate.asset().getId();
+        stats.record(Stage.DEDUPLICATED);
+        log.info("[Ingestion] Asset {} has the same content as an earlier upload, reusing its result", assetId);
+        content.flatMap(text -> ingestionService.complete(assetId, text))
+                .doOnSuccess(v -> stats.record(Stage.COMPLETED))
+                .onErrorResume(e -> {
+                    stats.record(Stage.FAILED);
+                    return ingestionService.fail(assetId, e.getMessage());
+                })
+                .doFinally(s -> release(candidate.done()))
+                .subscribe(v -> {}, e -> log.error("[Ingestion] Failed to record asset {}: {}", assetId, e.getMessage()));
+    }
+
+    // --- dispatch ---
+
+    private Mono<Void> dispatch(List<Candidate> batch) {
+        stats.record(Stage.BATCHES);
+        stats.record(Stage.DISPATCHED, batch.size());
+
+        return Flux.fromIterable(batch)
+                .concatMap(candidate -> ingestionService.setStatus(candidate.asset().getId(), AssetStatus.INGESTING))
+                .then(Mono.fromCallable(() -> batch.stream().map(this::toRequest).toList())
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .flatMap(refineryClient::processBatch)
+                .flatMapMany(results -> {
+                    Map<String, RefineryClient.Result> byFilename = results.stream()
+                            .filter(r -> r.filename() != null)
+                            .collect(Collectors.toMap(RefineryClient.Result::filename, Function.identity(), (a, b) -> a));
+                    return Flux.fromIterable(batch)
+                            .concatMap(candidate -> record(candidate, byFilename.get(refineryFilename(candidate))));
+                })
+                .onErrorResume(e -> Flux.fromIterable(batch).concatMap(candidate -> record(candidate, e.getMessage())))
+                .doFinally(s -> batch.forEach(candidate -> release(candidate.done())))
+                .then();
+    }
+
+    private Mono<Void> record(Candidate candidate, RefineryClient.Result result) {
+        if (result == null) {
+            return record(candidate, "no result from refinery");
+        }
+        String text = result.text();
+        if (result.error() != null || text == null) {
+            return record(candidate, result.error() != null ? result.error() : "empty result");
+        }
+        UUID assetId = candidate.asset().getId();
+        return ingestionService.complete(assetId, text)
+                // Publish the hash only once the content is stored, so a later duplicate can read it back.
+                .then(Mono.fromRunnable(() -> {
+                    ingestedByHash.put(candidate.contentHash(), assetId);
+                    inFlightByHash.remove(candidate.contentHash(), candidate.result());
+                    candidate.result().tryEmitValue(text);
+                    stats.record(Stage.COMPLETED);
+                }))
+                .onErrorResume(e -> {
+                    log.error("[Ingestion] Failed to store content of asset {}: {}", assetId, e.getMessage());
+                    return record(candidate, "failed to store content: " + e.getMessage());
+                });
+    }
+
+    private Mono<Void> record(Candidate candidate, String error) {
+        inFlightByHash.remove(candidate.contentHash(), candidate.result());
+        candidate.result().tryEmitError(new IllegalStateException(error));
+        stats.record(Stage.FAILED);
+        return ingestionService.fail(candidate.asset().getId(), error)
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    private RefineryClient.Request toRequest(Candidate candidate) {
+        Asset asset = candidate.asset();
+        try {
+            String url = minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                    .method(Method.GET)
+                    .bucket(asset.getBucketName())
+                    .object(asset.getObjectKey())
+                    .expiry(1, TimeUnit.HOURS)
+                    .build());
+            return new RefineryClient.Request(url, refineryFilename(candidate));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to presign " + asset.getObjectKey(), e);
+        }
+    }
+
+    private boolean isSmall(Candidate candidate) {
+        Long size = candidate.asset().getSize();
+        return size != null && size <= smallFileBytes;
+    }
+
+    /**
+     * The refinery picks the extractor by extension and caches results by file name, so the name is the content
+     * hash plus the original extension.
+     */
+    private static String refineryFilename(Candidate candidate) {
+        String name = filename(candidate.asset().getObjectKey());
+        int dot = name.lastIndexOf('.');
+        return candidate.contentHash() + (dot >= 0 ? name.substring(dot).toLowerCase() : "");
+    }
+
+    private static String filename(String objectKey) {
+        return objectKey.substring(objectKey.lastIndexOf('/') + 1);
+    }
+
+    private record Upload(UUID assetId, long size, String eTag, Sinks.Empty<Void> done) {
+    }
+
+    private record Sniffed(String mimeType, String contentHash) {
+    }
+
+    private record Candidate(Asset asset, String contentHash, Sinks.One<String> result, Sinks.Empty<Void> done) {
+
+        Candidate withResult(Sinks.One<String> result) {
+            return new Candidate(asset, contentHash, result, done);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package bbmovie.ai_platform.ai_assets.service.ingestion;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Per-stage counters of the ingestion pipeline, logged as rates once per interval.
+ */
+@Slf4j
+class IngestionStats {
+
+    enum Stage {
+        /** Upload events accepted from MinIO. */
+        RECEIVED,
+        /** Assets sniffed, hashed and saved as UPLOADED. */
+        PREPARED,
+        /** Uploads answered from another asset with the same content. */
+        DEDUPLICATED,
+        /** Refinery calls made. */
+        BATCHES,
+        /** Assets sent to the refinery. */
+        DISPATCHED,
+        COMPLETED,
+        FAILED
+    }
+
+    private final Map<Stage, LongAdder> counters = new EnumMap<>(Stage.class);
+    private final LongAdder preparedBytes = new LongAdder();
+    private final IntSupplier inFlight;
+
+    IngestionStats(IntSupplier inFlight) {
+        this.inFlight = inFlight;
+        for (Stage stage : Stage.values()) {
+            counters.put(stage, new LongAdder());
+        }
+    }
+
+    void record(Stage stage) {
+        counters.get(stage).increment();
+    }
+
+    void record(Stage stage, long count) {
+        counters.get(stage).add(count);
+    }
+
+    void recordBytes(long bytes) {
+        preparedBytes.add(bytes);
+    }
+
+    /**
+     * Logs and resets the counters accumulated over the last {@code interval}; silent when nothing happened.
+     */
+    void report(Duration interval) {
+        Map<Stage, Long> counts = new EnumMap<>(Stage.class);
+        long total = 0;
+        for (Map.Entry<Stage, LongAdder> entry : counters.entrySet()) {
+            long count = entry.getValue().sumThenReset();
+            counts.put(entry.getKey(), count);
+            total += count;
+        }
+        long bytes = preparedBytes.sumThenReset();
+        if (total == 0) {
+            return;
+        }
+        double seconds = Math.max(1, interval.toSeconds());
+        log.info("[Ingestion] last {}s: received {}/s, prepared {}/s ({} MB/s), deduplicated {}, batches {} "
+                        + "({} assets), completed {}/s, failed {}, in flight {}",
+                interval.toSeconds(),
+                rate(counts.get(Stage.RECEIVED), seconds),
+                rate(counts.get(Stage.PREPARED), seconds),
+                rate(bytes / 1_048_576.0, seconds),
+                counts.get(Stage.DEDUPLICATED),
+                counts.get(Stage.BATCHES),
+                counts.get(Stage.DISPATCHED),
+                rate(counts.get(Stage.COMPLETED), seconds),
+                counts.get(Stage.FAILED),
+                inFlight.getAsInt());
+    }
+
+    private static String rate(double count, double seconds) {
+        return String.format("%.2f", count / seconds);
+    }
+}
@@ -0,0 +1,191 @@
+package bbmovie.ai_platform.ai_assets.service.ingestion;
+
+import bbmovie.ai_platform.ai_assets.entity.Asset;
+import bbmovie.ai_platform.ai_assets.repository.AssetRepository;
+import bbmovie.ai_platform.ai_assets.repository.IngestedContentRepository;
+import bbmovie.ai_platform.ai_assets.service.AssetIngestionService;
+import bbmovie.ai_platform.ai_assets.service.RefineryClient;
+import bbmovie.ai_platform.ai_common.enums.AssetStatus;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.MinioClient;
+import okhttp3.Headers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AssetIngestionPipelineTest {
+
+    private static final int MAX_IN_FLIGHT = 4;
+    private static final String BUCKET = "ai-platform-assets";
+    private static final Duration WAIT = Duration.ofSeconds(5);
+
+    private AssetRepository assetRepository;
+    private AssetIngestionService ingestionService;
+    private RefineryClient refineryClient;
+    private MinioClient minioClient;
+    private AssetIngestionPipeline pipeline;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        assetRepository = mock(AssetRepository.class);
+        ingestionService = mock(AssetIngestionService.class);
+        refineryClient = mock(RefineryClient.class);
+        minioClient = mock(MinioClient.class);
+
+        when(assetRepository.save(any(Asset.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(ingestionService.complete(any(), anyString())).thenReturn(Mono.empty());
+        when(ingestionService.fail(any(), any())).thenReturn(Mono.empty());
+        when(ingestionService.setStatus(any(), any())).thenReturn(Mono.empty());
+        when(minioClient.getObject(any(GetObjectArgs.class))).thenAnswer(invocation -> new GetObjectResponse(
+                Headers.of(), BUCKET, null, "key", new ByteArrayInputStream("plain text".getBytes(StandardCharsets.UTF_8))));
+        when(minioClient.getPresignedObjectUrl(any(GetPresignedObjectUrlArgs.class))).thenReturn("http://minio/presigned");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    void should_refine_identical_uploads_once_and_complete_both() {
+        start(MAX_IN_FLIGHT);
+        UUID leader = asset();
+        UUID follower = asset();
+        when(refineryClient.processBatch(anyList())).thenAnswer(invocation -> {
+            List<RefineryClient.Request> requests = invocation.getArgument(0);
+            return Mono.delay(Duration.ofMillis(200)).thenReturn(requests.stream()
+                    .map(r -> new RefineryClient.Result(r.filename(), Map.of("text", "extracted"), null))
+                    .toList());
+        });
+
+        Mono<Void> leaderDone = pipeline.submit(leader, 10, "\"same-etag\"");
+        Mono<Void> followerDone = pipeline.submit(follower, 10, "\"same-etag\"");
+        Mono.when(leaderDone, followerDone).block(WAIT);
+
+        verify(refineryClient, times(1)).processBatch(anyList());
+        verify(ingestionService).complete(leader, "extracted");
+        verify(ingestionService).complete(follower, "extracted");
+        verify(ingestionService, never()).fail(any(), any());
+        assertEquals(MAX_IN_FLIGHT, pipeline.availableSlots());
+    }
+
+    @Test
+    void should_release_the_slot_of_an_unknown_asset() {
+        start(MAX_IN_FLIGHT);
+        UUID missing = UUID.randomUUID();
+        when(assetRepository.findById(missing)).thenReturn(Mono.empty());
+
+        pipeline.submit(missing, 10, "etag").block(WAIT);
+
+        verify(ingestionService, never()).fail(any(), any());
+        assertEquals(MAX_IN_FLIGHT, pipeline.availableSlots());
+    }
+
+    @Test
+    void should_fail_and_release_when_the_object_cannot_be_read() throws Exception {
+        start(MAX_IN_FLIGHT);
+        UUID assetId = asset();
+        when(minioClient.getObject(any(GetObjectArgs.class))).thenThrow(new IOException("minio unavailable"));
+
+        pipeline.submit(assetId, 10, "etag").block(WAIT);
+
+        verify(ingestionService).fail(eq(assetId), any());
+        verify(refineryClient, never()).processBatch(anyList());
+        assertEquals(MAX_IN_FLIGHT, pipeline.availableSlots());
+    }
+
+    @Test
+    void should_fail_and_release_when_the_refinery_call_fails() {
+        start(MAX_IN_FLIGHT);
+        UUID assetId = asset();
+        when(refineryClient.processBatch(anyList())).thenReturn(Mono.error(new IllegalStateException("refinery down")));
+
+        pipeline.submit(assetId, 10, "etag").block(WAIT);
+
+        verify(ingestionService).setStatus(assetId, AssetStatus.INGESTING);
+        verify(ingestionService).fail(assetId, "refinery down");
+        assertEquals(MAX_IN_FLIGHT, pipeline.availableSlots());
+    }
+
+    @Test
+    void should_fail_the_asset_and_its_followers_when_the_content_cannot_be_stored() {
+        start(MAX_IN_FLIGHT);
+        UUID leader = asset();
+        UUID follower = asset();
+        when(refineryClient.processBatch(anyList())).thenAnswer(invocation -> {
+            List<RefineryClient.Request> requests = invocation.getArgument(0);
+            return Mono.delay(Duration.ofMillis(200)).thenReturn(requests.stream()
+                    .map(r -> new RefineryClient.Result(r.filename(), Map.of("text", "extracted"), null))
+                    .toList());
+        });
+        when(ingestionService.complete(leader, "extracted")).thenReturn(Mono.error(new IllegalStateException("db down")));
+
+        Mono<Void> leaderDone = pipeline.submit(leader, 10, "\"same-etag\"");
+        Mono<Void> followerDone = pipeline.submit(follower, 10, "\"same-etag\"");
+        Mono.when(leaderDone, followerDone).block(WAIT);
+
+        verify(ingestionService).fail(leader, "failed to store content: db down");
+        verify(ingestionService).fail(eq(follower), any());
+        verify(ingestionService, never()).complete(eq(follower), anyString());
+        assertEquals(MAX_IN_FLIGHT, pipeline.availableSlots());
+    }
+
+    @Test
+    void should_fail_an_upload_interrupted_while_waiting_for_a_slot() {
+        start(1);
+        when(refineryClient.processBatch(anyList())).thenReturn(Mono.never());
+        pipeline.submit(asset(), 10, "first");
+
+        UUID waiting = asset();
+        Thread.currentThread().interrupt();
+        Mono<Void> done = pipeline.submit(waiting, 10, "second");
+        Thread.interrupted();
+
+        done.block(WAIT);
+        verify(ingestionService).fail(eq(waiting), any());
+        assertEquals(0, pipeline.availableSlots());
+    }
+
+    private void start(int maxInFlight) {
+        pipeline = new AssetIngestionPipeline(assetRepository, mock(IngestedContentRepository.class), ingestionService,
+                refineryClient, minioClient, 4, maxInFlight, 1024, 16, 20, 2, 64, 100, 60);
+        pipeline.start();
+    }
+
+    private UUID asset() {
+        UUID id = UUID.randomUUID();
+        Asset asset = Asset.builder()
+                .id(id)
+                .userId(UUID.randomUUID())
+                .bucketName(BUCKET)
+                .objectKey("user/" + id + "/notes.txt")
+                .status(AssetStatus.UPLOADING)
+                .build();
+        when(assetRepository.findById(id)).thenReturn(Mono.just(asset));
+        return id;
+    }
+}
@@ -2,7 +2,4 @@ package bbmovie.ai_platform.ai_common.constants;
 
 public class NatsConstants {
     public static final String MINIO_AI_ASSETS_SUBJECT = "minio.ai.assets.*";
-    // Unified subjects for all AI processing
-    public static final String ASSET_PROCESS_TRIGGER = "asset.process.trigger";
-    public static final String ASSET_PROCESS_COMPLETED = "asset.process.completed";
 }
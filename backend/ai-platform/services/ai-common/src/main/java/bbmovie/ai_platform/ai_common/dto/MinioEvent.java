@@ -1,6 +1,7 @@
 package bbmovie.ai_platform.ai_common.dto;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 import java.util.List;
 
@@ -35,5 +36,7 @@ public class MinioEvent {
         private String key;
         private Long size;
         private String contentType;
+        @JsonProperty("eTag")
+        private String eTag;
     }
 }
@@ -9,6 +9,8 @@ import com.bbmovie.ai_assistant_service.handler.ChatResponseHandlerFactory;
 import com.bbmovie.ai_assistant_service.service.impl.AuditServiceImpl;
 import com.bbmovie.ai_assistant_service.service.impl.MessageServiceImpl;
 import com.bbmovie.ai_assistant_service.service.RagService;
+import com.bbmovie.ai_assistant_service.service.impl.cache.SemanticResponseCache;
+import com.bbmovie.ai_assistant_service.service.impl.context.ContextPacker;
 import com.bbmovie.ai_assistant_service.config.tool.ToolsRegistry;
 import dev.langchain4j.memory.chat.ChatMemoryProvider;
 import dev.langchain4j.model.chat.StreamingChatModel;
@@ -30,7 +32,9 @@ public class AnonymousAssistant extends BaseAssistant {
             MessageServiceImpl chatMessageService,
             AuditServiceImpl auditService,
             ModelSelector aiSelector,
-            RagService ragService) {
+            RagService ragService,
+            SemanticResponseCache semanticCache,
+            ContextPacker contextPacker) {
         super(
                 modelFactory,
                 chatMemoryProvider,
@@ -39,7 +43,9 @@ public class AnonymousAssistant extends BaseAssistant {
                 toolRegistry,
                 aiSelector.getSystemPrompt(null),
                 buildMetadata(modelFactory.getModel(AiMode.THINKING), toolRegistry),
-                ragService
+                ragService,
+                semanticCache,
+                contextPacker
         );
         this.handlerFactory = handlerFactory;
     }
@@ -6,6 +6,7 @@ import com.bbmovie.ai_assistant_service.dto.ChatContext;
 import com.bbmovie.ai_assistant_service.dto.FileContentInfo;
 import com.bbmovie.ai_assistant_service.dto.response.ChatStreamChunk;
 import com.bbmovie.ai_assistant_service.dto.Metrics;
+import com.bbmovie.ai_assistant_service.dto.response.RagMovieDto;
 import com.bbmovie.ai_assistant_service.entity.model.AiMode;
 import com.bbmovie.ai_assistant_service.entity.model.AssistantMetadata;
 import com.bbmovie.ai_assistant_service.entity.model.InteractionType;
@@ -13,13 +14,18 @@ import com.bbmovie.ai_assistant_service.handler.ChatResponseHandlerFactory;
 import com.bbmovie.ai_assistant_service.service.AuditService;
 import com.bbmovie.ai_assistant_service.service.MessageService;
 import com.bbmovie.ai_assistant_service.service.RagService;
+import com.bbmovie.ai_assistant_service.service.impl.cache.SemanticResponseCache;
+import com.bbmovie.ai_assistant_service.service.impl.context.ContextPacker;
 import com.bbmovie.ai_assistant_service.config.tool.ToolsRegistry;
 import com.bbmovie.ai_assistant_service.utils.FileTypeUtils;
 import com.bbmovie.ai_assistant_service.utils.MetricsUtil;
 import com.bbmovie.ai_assistant_service.utils.log.RgbLogger;
 import com.bbmovie.ai_assistant_service.utils.log.RgbLoggerFactory;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
 import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.memory.ChatMemory;
 import dev.langchain4j.memory.chat.ChatMemoryProvider;
@@ -38,14 +44,17 @@ import reactor.core.scheduler.Schedulers;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Getter(AccessLevel.PROTECTED)
 @RequiredArgsConstructor(access = AccessLevel.PROTECTED)
 public abstract class BaseAssistant implements Assistant {
 
     private static final RgbLogger log = RgbLoggerFactory.getLogger(BaseAssistant.class);
+    private static final int REPLAY_CHUNK_CHARS = 48;
 
     private final ModelFactory modelFactory;
     private final ChatMemoryProvider chatMemoryProvider;
@@ -55,6 +64,8 @@ public abstract class BaseAssistant implements Assistant {
     private final SystemMessage systemPrompt;
     private final AssistantMetadata metadata;
     private final RagService ragService;
+    private final SemanticResponseCache semanticCache;
+    private final ContextPacker contextPacker;
 
     protected abstract ChatResponseHandlerFactory getHandlerFactory();
 
@@ -101,8 +112,10 @@ public abstract class BaseAssistant implements Assistant {
                             .messageId(String.valueOf(savedMessage.getId()))
                             .build();
 
-                    return prepareChatRequest(sessionId, updatedContext)
-                            .flatMapMany(chatRequest -> processChatStream(chatRequest, sessionId, aiMode, updatedContext));
+                    return probeSemanticCache(sessionId, updatedContext)
+                            .flatMapMany(probe -> probe.hit() != null
+                                    ? replayCachedAnswer(sessionId, updatedContext, probe.hit(), startTime)
+                                    : generate(sessionId, aiMode, updatedContext, probe));
                 })
                 .onErrorResume(ex -> {
                     log.error("[streaming] Error in chat pipeline for session={}: {}", sessionId, ex.getMessage(), ex);
@@ -114,6 +127,207 @@ public abstract class BaseAssistant implements Assistant {
                 .doOnError(ex -> log.error("[streaming] Unhandled error in stream for session={}: {}", sessionId, ex.getMessage()));
     }
 
+    private Flux<ChatStreamChunk> generate(UUID sessionId, AiMode aiMode, ChatContext context, CacheProbe probe) {
+        Flux<ChatStreamChunk> stream = prepareChatRequest(sessionId, context)
+                .flatMapMany(chatRequest -> processChatStream(chatRequest, sessionId, aiMode, context));
+        return probe.scope() == null ? stream : captureForSemanticCache(stream, sessionId, context, probe);
+    }
+
+    // --- Semantic response cache ---
+
+    /**
+     * Embeds the prompt and looks it up in the semantic cache when this turn may be answered from it: a
+     * cache-enabled assistant, no attachments or pending approval, and (by default) the first turn of the session,
+     * since later turns depend on the conversation. Any failure just means "not cached".
+     */
+    private Mono<CacheProbe> probeSemanticCache(UUID sessionId, ChatContext context) {
+        if (!isSemanticCacheable(context)) {
+            return Mono.just(CacheProbe.NONE);
+        }
+        SemanticResponseCache.Scope scope = SemanticResponseCache.Scope.of(getType(), context.getUserRole(), context.getAiMode());
+        long generation = semanticCache.generation();
+
+        Mono<Boolean> firstTurn = semanticCache.isFirstTurnOnly()
+                ? Mono.fromCallable(() -> chatMemoryProvider.get(sessionId.toString()).messages().isEmpty())
+                        .subscribeOn(Schedulers.boundedElastic())
+                : Mono.just(true);
+
+        return firstTurn
+                .flatMap(first -> !first
+                        ? Mono.just(CacheProbe.NONE)
+                        : ragService.embedQuery(sessionId, context.getMessage())
+                                .map(vector -> new CacheProbe(scope, vector, generation,
+                                        semanticCache.lookup(scope, vector).orElse(null))))
+                .defaultIfEmpty(CacheProbe.NONE)
+                .onErrorResume(e -> {
+                    log.warn("[semantic-cache] Lookup failed for session={}: {}", sessionId, e.getMessage());
+                    return Mono.just(CacheProbe.NONE);
+                });
+    }
+
+    private boolean isSemanticCacheable(ChatContext context) {
+        return semanticCache != null
+                && semanticCache.isEnabledFor(getType())
+                && context.getMessage() != null && !context.getMessage().isBlank()
+                && (context.getFileReferences() == null || context.getFileReferences().isEmpty())
+                && (context.getExtractedFileContent() == null || context.getExtractedFileContent().isBlank())
+                && context.getInternalApprovalToken() == null;
+    }
+
+    /**
+     * Streams a cached answer as if it were generated, then records the turn like a model answer would be: chat
+     * memory, message history, audit and the RAG conversation index.
+     */
+    private Flux<ChatStreamChunk> replayCachedAnswer(
+            UUID sessionId, ChatContext context, SemanticResponseCache.Hit hit, long startTime) {
+        log.debug("[semantic-cache] Hit for session={} (similarity={}, cached prompt='{}')",
+                sessionId, hit.similarity(), hit.prompt());
+
+        Flux<ChatStreamChunk> chunks = Flux.fromIterable(replayPieces(hit.answer()))
+                .map(piece -> {
+                    ChatStreamChunk chunk = ChatStreamChunk.assistant(piece);
+                    chunk.getMetadata().put("source", "semantic_cache");
+                    return chunk;
+                });
+        if (!hit.ragResults().isEmpty()) {
+            chunks = chunks.concatWithValues(ChatStreamChunk.ragResult(hit.ragResults()));
+        }
+
+        Mono<Void> remember = Mono.fromRunnable(() -> {
+                    String userText = buildEnhancedMessage(context.getMessage(), null, null, context.getUserRole(), sessionId);
+                    ChatMemory chatMemory = chatMemoryProvider.get(sessionId.toString());
+                    chatMemory.add(UserMessage.from(userText));
+                    chatMemory.add(AiMessage.from(hit.answer()));
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(e -> {
+                    log.error("Failed to add cached answer to chat memory: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+
+        Metrics metrics = MetricsUtil.get(System.currentTimeMillis() - startTime, null, metadata.getModelName(), "semantic-cache");
+        AuditRecord auditRecord = AuditRecord.builder()
+                .sessionId(sessionId)
+                .type(InteractionType.AI_COMPLETE_RESULT)
+                .details(Map.of(
+                        "text", hit.answer(),
+                        "semanticCache", true,
+                        "similarity", hit.similarity(),
+                        "cachedPrompt", hit.prompt()
+                ))
+                .metrics(metrics)
+                .build();
+
+        Mono<Void> record = Mono.when(
+                remember,
+                messageService.saveAiResponse(sessionId, hit.answer()).then(),
+                auditService.recordInteraction(auditRecord).onErrorResume(e -> Mono.empty()),
+                ragService.indexConversationFragment(sessionId, hit.answer(), hit.ragResults())
+                        .onErrorResume(e -> Mono.empty())
+        );
+        return chunks.concatWith(record.then(Mono.empty()));
+    }
+
+    /**
+     * Collects what the client was sent and stores it once the stream completes cleanly. Streams with approvals,
+     * system messages or user-specific tool calls are never stored.
+     */
+    private Flux<ChatStreamChunk> captureForSemanticCache(
+            Flux<ChatStreamChunk> stream, UUID sessionId, ChatContext context, CacheProbe probe) {
+        StringBuilder answer = new StringBuilder();
+        List<RagMovieDto> ragResults = new ArrayList<>();
+        AtomicBoolean storable = new AtomicBoolean(true);
+
+        return stream
+                .doOnNext(chunk -> {
+                    if (chunk.isPermissionRequired()) {
+                        storable.set(false);
+                    } else if ("assistant".equals(chunk.getType())) {
+                        if (chunk.getContent() != null) {
+                            answer.append(chunk.getContent());
+                        }
+                    } else if ("rag_result".equals(chunk.getType())) {
+                        if (chunk.getRagResults() != null) {
+                            ragResults.addAll(chunk.getRagResults());
+                        }
+                    } else {
+                        storable.set(false);
+                    }
+                })
+                .doOnComplete(() -> {
+                    if (!storable.get() || answer.isEmpty()) {
+                        return;
+                    }
+                    Mono.fromCallable(() -> usedOnlyCacheableTools(chatMemoryProvider.get(sessionId.toString()).messages()))
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .filter(Boolean::booleanValue)
+                            .subscribe(
+                                    ok -> semanticCache.store(probe.scope(), probe.generation(), context.getMessage(),
+                                            probe.vector(), answer.toString(), ragResults),
+                                    e -> log.warn("[semantic-cache] Could not store answer for session={}: {}",
+                                            sessionId, e.getMessage())
+                            );
+                });
+    }
+
+    /**
+     * Checks the tool calls made since the last user message: an answer built from user-specific tools (watchlist,
+     * reviews, ...) must not be served to anyone else.
+     */
+    private boolean usedOnlyCacheableTools(List<ChatMessage> messages) {
+        int lastUser = -1;
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i) instanceof UserMessage) {
+                lastUser = i;
+                break;
+            }
+        }
+        if (lastUser < 0) {
+            return false;
+        }
+        for (ChatMessage message : messages.subList(lastUser + 1, messages.size())) {
+            if (message instanceof ToolExecutionResultMessage result && !semanticCache.isCacheableTool(result.toolName())) {
+                return false;
+            }
+            if (message instanceof AiMessage ai && ai.hasToolExecutionRequests()
+                    && ai.toolExecutionRequests().stream().anyMatch(r -> !semanticCache.isCacheableTool(r.name()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Splits a cached answer at word boundaries into pieces of roughly {@link #REPLAY_CHUNK_CHARS}, so clients
+     * render it the same way as a model stream.
+     */
+    private static List<String> replayPieces(String text) {
+        List<String> pieces = new ArrayList<>(text.length() / REPLAY_CHUNK_CHARS + 1);
+        int start = 0;
+        while (start < text.length()) {
+            int end = Math.min(text.length(), start + REPLAY_CHUNK_CHARS);
+            if (end < text.length()) {
+                int space = text.lastIndexOf(' ', end);
+                if (space > start) {
+                    end = space + 1;
+                }
+            }
+            pieces.add(text.substring(start, end));
+            start = end;
+        }
+        return pieces;
+    }
+
+    /**
+     * Outcome of the semantic cache lookup. {@code scope == null} means the turn is not cacheable at all;
+     * {@code hit == null} with a scope means a miss whose answer may be stored.
+     */
+    private record CacheProbe(SemanticResponseCache.Scope scope, float[] vector, long generation,
+                              SemanticResponseCache.Hit hit) {
+        static final CacheProbe NONE = new CacheProbe(null, null, 0, null);
+    }
+
     private Flux<ChatStreamChunk> processChatStream(ChatRequest chatRequest, UUID sessionId, AiMode aiMode, ChatContext context) {
         return Flux.<ChatStreamChunk>create(sink ->
                         processChatRecursive(sessionId, aiMode, chatRequest, sink, context)
@@ -168,18 +382,15 @@ public abstract class BaseAssistant implements Assistant {
                                 .build();
                     }
 
-                    List<ChatMessage> passConversation = chatMemory.messages();
-                    List<ChatMessage> messages = new ArrayList<>();
-
-                    messages.add(systemPrompt);
-                    messages.addAll(passConversation);
-                    messages.add(userMessage);
+                    List<ChatMessage> conversation = new ArrayList<>(chatMemory.messages());
+                    conversation.add(userMessage);
 
+                    List<ToolSpecification> tools = toolRegistry != null ? toolRegistry.getToolSpecifications() : null;
                     ChatRequest.Builder messagesBuilder = ChatRequest.builder()
-                            .messages(messages);
+                            .messages(contextPacker.pack(systemPrompt, tools, conversation));
 
-                    if (toolRegistry != null) {
-                        messagesBuilder.toolSpecifications(toolRegistry.getToolSpecifications());
+                    if (tools != null) {
+                        messagesBuilder.toolSpecifications(tools);
                     }
 
                     chatMemory.add(userMessage); // Add to the chat memory
@@ -9,6 +9,8 @@ import com.bbmovie.ai_assistant_service.handler.ChatResponseHandlerFactory;
 import com.bbmovie.ai_assistant_service.service.impl.AuditServiceImpl;
 import com.bbmovie.ai_assistant_service.service.impl.MessageServiceImpl;
 import com.bbmovie.ai_assistant_service.service.RagService;
+import com.bbmovie.ai_assistant_service.service.impl.cache.SemanticResponseCache;
+import com.bbmovie.ai_assistant_service.service.impl.context.ContextPacker;
 import com.bbmovie.ai_assistant_service.config.tool.ToolsRegistry;
 import dev.langchain4j.memory.chat.ChatMemoryProvider;
 import dev.langchain4j.model.chat.StreamingChatModel;
@@ -28,7 +30,9 @@ public class UserAssistant extends BaseAssistant {
             @Qualifier("userToolRegistry") ToolsRegistry toolRegistry,
             @Qualifier("userHandlerFactory") ChatResponseHandlerFactory handlerFactory,
             MessageServiceImpl chatMessageService, AuditServiceImpl auditService,
-            ModelSelector aiSelector, RagService ragService) {
+            ModelSelector aiSelector, RagService ragService,
+            SemanticResponseCache semanticCache,
+            ContextPacker contextPacker) {
         super(
                 modelFactory,
                 chatMemoryProvider,
@@ -37,7 +41,9 @@ public class UserAssistant extends BaseAssistant {
                 toolRegistry,
                 aiSelector.getSystemPrompt(null),
                 buildMetadata(modelFactory.getModel(AiMode.THINKING), toolRegistry),
-                ragService
+                ragService,
+                semanticCache,
+                contextPacker
         );
         this.handlerFactory = handlerFactory;
     }
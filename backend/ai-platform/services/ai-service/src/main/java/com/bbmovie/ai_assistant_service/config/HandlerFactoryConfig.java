@@ -9,7 +9,6 @@ import com.bbmovie.ai_assistant_service.handler.processor.ToolResponseProcessor;
 import com.bbmovie.ai_assistant_service.service.AuditService;
 import com.bbmovie.ai_assistant_service.service.MessageService;
 import com.bbmovie.ai_assistant_service.service.impl.facade.ToolWorkflow;
-import com.bbmovie.ai_assistant_service.utils.PromptLoader;
 import dev.langchain4j.data.message.SystemMessage;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
@@ -32,8 +31,7 @@ public class HandlerFactoryConfig {
                 toolWorkflowFacade,
                 modelSelector,
                 toolRegistry,
-                ragService,
-                true
+                ragService
         );
     }
 
@@ -51,8 +49,7 @@ public class HandlerFactoryConfig {
                 toolWorkflowFacade,
                 modelSelector,
                 toolRegistry,
-                ragService,
-                true
+                ragService
         );
     }
 
@@ -70,8 +67,7 @@ public class HandlerFactoryConfig {
                 toolWorkflowFacade,
                 modelSelector,
                 toolRegistry,
-                ragService,
-                true
+                ragService
         );
     }
 
@@ -87,18 +83,17 @@ public class HandlerFactoryConfig {
                 toolWorkflowFacade,
                 modelSelector,
                 null,
-                ragService,
-                false
+                ragService
         );
     }
 
     private ChatResponseHandlerFactory createHandlerFactory(
             AuditService auditService, MessageService messageService, ToolWorkflow toolWorkflowFacade,
             ModelSelector modelSelector, ToolsRegistry toolRegistry,
-            com.bbmovie.ai_assistant_service.service.RagService ragService, boolean enablePersona) {
+            com.bbmovie.ai_assistant_service.service.RagService ragService) {
 
-        SystemMessage systemPrompt = PromptLoader.loadSystemPrompt(
-                enablePersona, modelSelector.getActiveModel(), null);
+        // Same instance as the assistants' initial request: tool follow-ups must keep the prompt prefix identical.
+        SystemMessage systemPrompt = modelSelector.getSystemPrompt(null);
 
         return (sessionId, chatMemory, sink, monoSink, aiMode, chatContext) -> {
             long requestStartTime = System.currentTimeMillis();
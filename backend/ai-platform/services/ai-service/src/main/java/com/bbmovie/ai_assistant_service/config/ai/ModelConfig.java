@@ -175,6 +175,9 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ModelConfig {
 
+    /** Upper bound of generated tokens per response; the prompt budget leaves room for it. */
+    public static final int MAX_OUTPUT_TOKENS = 1024;
+
     private final ModelSelector aiSelector;
 
     @Value("${ai.ollama.url}")
@@ -205,8 +208,8 @@ public class ModelConfig {
                 .topK(40)
                 .topP(0.9)
                 .minP(0.05)
-                .numCtx(32768) // maximum context size
-                .numPredict(1024)
+                .numCtx(aiSelector.getActiveModel().getContextWindow()) // maximum context size
+                .numPredict(MAX_OUTPUT_TOKENS)
                 .seed(2004)
                 .responseFormat(ResponseFormat.TEXT) // Can be customized
                 .timeout(Duration.ofMinutes(1))
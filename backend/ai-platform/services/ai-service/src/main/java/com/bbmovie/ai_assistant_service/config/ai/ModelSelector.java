@@ -12,6 +12,7 @@ import java.util.Map;
 public class ModelSelector {
 
     private final ModelProperties aiProperties;
+    private volatile SystemMessage defaultSystemPrompt;
 
     @Autowired
     public ModelSelector(ModelProperties aiProperties) {
@@ -26,9 +27,22 @@ public class ModelSelector {
     }
 
     /**
-     * Builds the system prompt based on the current configuration.
+     * Builds the system prompt based on the current configuration. Without variables the prompt is built once and
+     * the same instance is shared by every assistant and tool round-trip, so the prompt prefix never changes.
      */
     public SystemMessage getSystemPrompt(@Nullable Map<String, Object> vars) {
+        if (vars == null || vars.isEmpty()) {
+            SystemMessage prompt = defaultSystemPrompt;
+            if (prompt == null) {
+                prompt = loadSystemPrompt(null);
+                defaultSystemPrompt = prompt;
+            }
+            return prompt;
+        }
+        return loadSystemPrompt(vars);
+    }
+
+    private SystemMessage loadSystemPrompt(@Nullable Map<String, Object> vars) {
         return PromptLoader.loadSystemPrompt(
                 aiProperties.isEnablePersona(),
                 getActiveModel(),
@@ -13,6 +13,7 @@ import org.springframework.aop.support.AopUtils;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,17 +27,20 @@ public class ToolsRegistry {
 
     public ToolsRegistry(AssistantType assistantType, List<AiTools> tools) {
         this.executors = new HashMap<>();
-        this.specifications = new ArrayList<>();
-        discoverTools(assistantType, tools);
+        List<ToolSpecification> discovered = new ArrayList<>();
+        discoverTools(assistantType, tools, discovered);
+        // Reflection returns methods in no particular order; a fixed order keeps the tool block of the prompt stable.
+        discovered.sort(Comparator.comparing(ToolSpecification::name));
+        this.specifications = List.copyOf(discovered);
     }
 
-    private void discoverTools(AssistantType assistantType, List<AiTools> toolBeans) {
+    private void discoverTools(AssistantType assistantType, List<AiTools> toolBeans, List<ToolSpecification> specifications) {
         for (Object toolBean : toolBeans) {
             Class<?> toolClass = AopUtils.getTargetClass(toolBean);
             for (Method method : toolClass.getDeclaredMethods()) {
                 if (method.isAnnotationPresent(Tool.class)) {
                     ToolSpecification spec = ToolSpecifications.toolSpecificationFrom(method);
-                    this.specifications.add(spec);
+                    specifications.add(spec);
 
                     ToolExecutor executor = new DefaultToolExecutor(toolBean, method);
                     this.executors.put(spec.name(), executor);
@@ -9,6 +9,7 @@ import com.bbmovie.common.dtos.ApiResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -41,4 +42,10 @@ public class AdminController implements AdminControllerOpenApi {
         return adminService.getAuditTrail(interactionType, sessionId, startDate, endDate)
                 .map(ApiResponse::success);
     }
+
+    @PostMapping("/semantic-cache/invalidate")
+    public Mono<ApiResponse<Void>> invalidateSemanticCache() {
+        return adminService.invalidateSemanticCache()
+                .then(Mono.just(ApiResponse.success("Semantic response cache invalidated")));
+    }
 }
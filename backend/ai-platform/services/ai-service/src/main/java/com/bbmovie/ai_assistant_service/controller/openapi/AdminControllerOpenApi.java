@@ -26,5 +26,8 @@ public interface AdminControllerOpenApi {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant endDate
     );
+
+    @Operation(summary = "Invalidate semantic cache", description = "Drop all cached assistant answers, e.g. after a bulk catalog import")
+    Mono<ApiResponse<Void>> invalidateSemanticCache();
 }
 
@@ -2,6 +2,7 @@ package com.bbmovie.ai_assistant_service.repository;
 
 import com.bbmovie.ai_assistant_service.entity.AiInteractionAudit;
 import com.bbmovie.ai_assistant_service.entity.model.InteractionType;
+import com.bbmovie.ai_assistant_service.repository.custom.AiInteractionAuditCustomRepository;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
@@ -12,7 +13,7 @@ import java.time.Instant;
 import java.util.UUID;
 
 @Repository
-public interface AiInteractionAuditRepository extends ReactiveCrudRepository<AiInteractionAudit, Long> {
+public interface AiInteractionAuditRepository extends AiInteractionAuditCustomRepository, ReactiveCrudRepository<AiInteractionAudit, Long> {
 
     @Query("""
         SELECT * FROM ai_interaction_audit WHERE 
@@ -0,0 +1,14 @@
+package com.bbmovie.ai_assistant_service.repository.custom;
+
+import com.bbmovie.ai_assistant_service.entity.AiInteractionAudit;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface AiInteractionAuditCustomRepository {
+
+    /**
+     * Inserts all audits with multi-row INSERT statements and emits the number of rows written.
+     */
+    Mono<Long> insertAll(List<AiInteractionAudit> audits);
+}
@@ -0,0 +1,67 @@
+package com.bbmovie.ai_assistant_service.repository.impl;
+
+import com.bbmovie.ai_assistant_service.entity.AiInteractionAudit;
+import com.bbmovie.ai_assistant_service.repository.custom.AiInteractionAuditCustomRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.IntStream;
+
+@Repository
+@RequiredArgsConstructor
+public class AiInteractionAuditRepositoryImpl implements AiInteractionAuditCustomRepository {
+
+    /** 8 placeholders per row; keeps a statement well inside MySQL's prepared statement limits. */
+    private static final int MAX_ROWS_PER_STATEMENT = 500;
+    private static final int COLUMNS = 8;
+
+    private static final String INSERT_PREFIX = "INSERT INTO ai_interaction_audit "
+            + "(session_id, interaction_type, timestamp, model_name, latency_ms, prompt_tokens, response_tokens, details) VALUES ";
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Mono<Long> insertAll(List<AiInteractionAudit> audits) {
+        if (audits.isEmpty()) {
+            return Mono.just(0L);
+        }
+        int size = audits.size();
+        return Flux.range(0, (size + MAX_ROWS_PER_STATEMENT - 1) / MAX_ROWS_PER_STATEMENT)
+                .map(c -> audits.subList(c * MAX_ROWS_PER_STATEMENT, Math.min(size, (c + 1) * MAX_ROWS_PER_STATEMENT)))
+                .concatMap(this::insertChunk)
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> insertChunk(List<AiInteractionAudit> chunk) {
+        String sql = INSERT_PREFIX + String.join(", ",
+                IntStream.range(0, chunk.size()).mapToObj(i -> "(?, ?, ?, ?, ?, ?, ?, ?)").toList());
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql);
+        for (int i = 0; i < chunk.size(); i++) {
+            AiInteractionAudit audit = chunk.get(i);
+            int p = i * COLUMNS;
+            String sessionId = audit.getSessionId() != null ? audit.getSessionId().toString() : null;
+            String type = audit.getInteractionType() != null ? audit.getInteractionType().name() : null;
+            spec = bindNullable(spec, p, sessionId, String.class);
+            spec = bindNullable(spec, p + 1, type, String.class);
+            spec = spec.bind(p + 2, LocalDateTime.ofInstant(audit.getTimestamp(), ZoneOffset.UTC));
+            spec = bindNullable(spec, p + 3, audit.getModelName(), String.class);
+            spec = bindNullable(spec, p + 4, audit.getLatencyMs(), Long.class);
+            spec = bindNullable(spec, p + 5, audit.getPromptTokens(), Integer.class);
+            spec = bindNullable(spec, p + 6, audit.getResponseTokens(), Integer.class);
+            spec = bindNullable(spec, p + 7, audit.getDetails(), String.class);
+        }
+        return spec.fetch().rowsUpdated();
+    }
+
+    private static <T> DatabaseClient.GenericExecuteSpec bindNullable(
+            DatabaseClient.GenericExecuteSpec spec, int index, T value, Class<T> type) {
+        return value == null ? spec.bindNull(index, type) : spec.bind(index, value);
+    }
+}
@@ -59,6 +59,7 @@ public class SecurityConfig {
             .csrf(ServerHttpSecurity.CsrfSpec::disable)
             .authorizeExchange(exchanges -> exchanges
                 .pathMatchers("/admin/**").hasAnyRole("ROLE_ADMIN", "ADMIN")
+                .pathMatchers("/api/v1/admin/**").hasAnyRole("ROLE_ADMIN", "ADMIN")
                 .pathMatchers("/api/v1/**").authenticated() // Allow access to the new API
                 .anyExchange().authenticated()
             )
@@ -20,4 +20,6 @@ public interface AdminService {
             Instant endDate
     );
 
+    Mono<Void> invalidateSemanticCache();
+
 }
@@ -13,4 +13,5 @@ public interface RagService {
     Mono<Void> indexConversationFragment(UUID sessionId, String text, List<RagMovieDto> pastResults);
     Mono<Void> indexMessageWithFiles(UUID sessionId, String text, List<String> fileReferences, String extractedContent);
     Mono<Void> indexMessageWithFileContentInfo(UUID sessionId, String text, FileContentInfo fileContentInfo);
+    Mono<float[]> embedQuery(UUID sessionId, String text);
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import com.bbmovie.ai_assistant_service.entity.AiInteractionAudit;
 import com.bbmovie.ai_assistant_service.entity.model.InteractionType;
 import com.bbmovie.ai_assistant_service.repository.AiInteractionAuditRepository;
 import com.bbmovie.ai_assistant_service.service.AdminService;
+import com.bbmovie.ai_assistant_service.service.impl.cache.SemanticResponseCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
@@ -18,6 +19,7 @@ import java.util.UUID;
 public class AdminServiceImpl implements AdminService {
 
     private final AiInteractionAuditRepository auditRepository;
+    private final SemanticResponseCache semanticResponseCache;
 
     @Override
     public Mono<TokenUsageResponse> getTokenUsageDashboard() {
@@ -45,4 +47,9 @@ public class AdminServiceImpl implements AdminService {
     ) {
         return auditRepository.findByCriteria(interactionType, sessionId, startDate, endDate);
     }
+
+    @Override
+    public Mono<Void> invalidateSemanticCache() {
+        return Mono.fromRunnable(() -> semanticResponseCache.invalidateAll("admin request"));
+    }
 }
@@ -5,8 +5,8 @@ import com.bbmovie.ai_assistant_service.dto.AuditRecord;
 import com.bbmovie.ai_assistant_service.dto.Metrics;
 import com.bbmovie.ai_assistant_service.entity.AiInteractionAudit;
 import com.bbmovie.ai_assistant_service.entity.model.InteractionType;
-import com.bbmovie.ai_assistant_service.repository.AiInteractionAuditRepository;
 import com.bbmovie.ai_assistant_service.service.AuditService;
+import com.bbmovie.ai_assistant_service.service.impl.audit.AuditBatchWriter;
 import com.bbmovie.ai_assistant_service.utils.log.RgbLogger;
 import com.bbmovie.ai_assistant_service.utils.log.RgbLoggerFactory;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -14,18 +14,21 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 import java.time.Instant;
 import java.util.UUID;
 
+/**
+ * Builds audit rows and hands them to {@link AuditBatchWriter}; the returned Mono completes as soon as the row is
+ * buffered, so callers at the tail of a streamed response do not wait for the database.
+ */
 @Service
 @RequiredArgsConstructor
 public class AuditServiceImpl implements AuditService {
 
     private static final RgbLogger log = RgbLoggerFactory.getLogger(AuditServiceImpl.class);
 
-    private final AiInteractionAuditRepository repository;
+    private final AuditBatchWriter batchWriter;
     private final ModelSelector modelSelector;
     private final ObjectMapper objectMapper;
 
@@ -64,17 +67,11 @@ public class AuditServiceImpl implements AuditService {
                                 .build();
                     }
         })
-        .subscribeOn(Schedulers.boundedElastic())
-        .flatMap(repository::save)
-        .doOnSuccess(saved ->
-                log.debug("Audit saved: type={}, session={}, id={}", type, sessionId, saved.getId()))
+        .flatMap(batchWriter::enqueue)
         .doOnError(e ->
-                log.error("Failed to save audit: type={}, session={}", type, sessionId, e))
-        .onErrorResume(e -> {
-            // Don't fail the main flow if audit fails
-            log.error("Swallowing audit error to prevent flow disruption", e);
-            return Mono.empty();
-        })
+                log.error("Failed to record audit: type={}, session={}", type, sessionId, e))
+        // Don't fail the main flow if audit fails
+        .onErrorResume(e -> Mono.empty())
         .then();
     }
 }
\ No newline at end of file
@@ -19,8 +19,8 @@ import com.bbmovie.ai_assistant_service.entity.model.AssistantType;
 import com.bbmovie.ai_assistant_service.service.ChatService;
 import com.bbmovie.ai_assistant_service.service.FileProcessingService;
 import com.bbmovie.ai_assistant_service.service.FileProcessingService.FileProcessingResult;
-import com.bbmovie.ai_assistant_service.service.FileProcessingService.ProcessedFileContent;
 import com.bbmovie.ai_assistant_service.service.SessionService;
+import com.bbmovie.ai_assistant_service.service.impl.context.ContextPacker;
 import com.bbmovie.ai_assistant_service.utils.log.RgbLogger;
 import com.bbmovie.ai_assistant_service.utils.log.RgbLoggerFactory;
 import static com.bbmovie.common.entity.JoseConstraint.JosePayload.ROLE;
@@ -40,12 +40,14 @@ public class ChatServiceImpl implements ChatService {
     private final Map<AssistantType, Assistant> assistants;
     private final SessionService sessionService;
     private final FileProcessingService fileProcessingService;
+    private final ContextPacker contextPacker;
 
     @Autowired
     public ChatServiceImpl(
             List<Assistant> assistantList,
             SessionService sessionService,
-            FileProcessingService fileProcessingService) {
+            FileProcessingService fileProcessingService,
+            ContextPacker contextPacker) {
         this.assistants = assistantList.stream()
                 .collect(Collectors.toUnmodifiableMap(
                         Assistant::getType,
@@ -53,6 +55,7 @@ public class ChatServiceImpl implements ChatService {
                 );
         this.sessionService = sessionService;
         this.fileProcessingService = fileProcessingService;
+        this.contextPacker = contextPacker;
         log.info("Initialized ChatService with assistants: {}", this.assistants.keySet());
     }
 
@@ -69,7 +72,7 @@ public class ChatServiceImpl implements ChatService {
                 .flatMapMany(session -> fileProcessingMono
                         .flatMapMany(fileResult -> {
                             
-                            String contentStr = formatExtractedContent(fileResult.processedFiles());
+                            String contentStr = contextPacker.packFiles(request.getMessage(), fileResult.processedFiles());
 
                             // Pass approval token from request to context
                             AiMode aiMode = request.getAiMode();
@@ -104,24 +107,6 @@ public class ChatServiceImpl implements ChatService {
         return assistant.processMessage(chatContext);
     }
 
-    private String formatExtractedContent(List<ProcessedFileContent> processedFiles) {
-        if (processedFiles == null || processedFiles.isEmpty()) {
-            return "";
-        }
-
-        StringBuilder content = new StringBuilder();
-        for (ProcessedFileContent file : processedFiles) {
-            content.append("=== File: ").append(file.filename()).append(" ===\n");
-            content.append("Type: ").append(file.fileType()).append("\n");
-            
-            if (file.extractedText() != null && !file.extractedText().isBlank()) {
-                content.append("Content:\n").append(file.extractedText()).append("\n");
-            }
-            content.append("\n");
-        }
-        return content.toString();
-    }
-
     private void logFileProcessingResult(UUID sessionId, FileProcessingResult result) {
         log.debug("Session {}: Processed {} files, {} with extracted content, {} references",
                 sessionId,
@@ -1,9 +1,5 @@
 package com.bbmovie.ai_assistant_service.service.impl;
 
-import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
-import co.elastic.clients.elasticsearch._types.KnnSearch;
-import co.elastic.clients.elasticsearch.core.IndexRequest;
-import co.elastic.clients.elasticsearch.core.SearchRequest;
 import com.bbmovie.ai_assistant_service.config.embedding.EmbeddingSelector;
 import com.bbmovie.ai_assistant_service.dto.AuditRecord;
 import com.bbmovie.ai_assistant_service.dto.FileContentInfo;
@@ -13,10 +9,12 @@ import com.bbmovie.ai_assistant_service.dto.response.RagRetrievalResult;
 import com.bbmovie.ai_assistant_service.entity.model.InteractionType;
 import com.bbmovie.ai_assistant_service.service.AuditService;
 import com.bbmovie.ai_assistant_service.service.RagService;
+import com.bbmovie.ai_assistant_service.service.impl.rag.EmbeddingCache;
+import com.bbmovie.ai_assistant_service.service.impl.rag.HybridMovieRetriever;
+import com.bbmovie.ai_assistant_service.service.impl.rag.RagBulkIndexer;
 import com.bbmovie.ai_assistant_service.utils.MetricsUtil;
 import com.bbmovie.ai_assistant_service.utils.log.RgbLogger;
 import com.bbmovie.ai_assistant_service.utils.log.RgbLoggerFactory;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.f4b6a3.uuid.UuidCreator;
 import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.model.output.TokenUsage;
@@ -44,16 +42,16 @@ public class RagServiceImpl implements RagService {
     private static final int MAX_RETRIEVAL_CONTEXT_CHARS = 6_000;
 
     @Qualifier("embeddingModel") private final EmbeddingModel embeddingModel;
-    @Qualifier("elasticsearchAsyncClient") private final ElasticsearchAsyncClient esClient;
     private final EmbeddingSelector embeddingSelector;
+    private final EmbeddingCache embeddingCache;
+    private final RagBulkIndexer ragBulkIndexer;
+    private final HybridMovieRetriever hybridMovieRetriever;
     private final AuditService auditService;
-    private final ObjectMapper objectMapper;
 
     // Hybrid Movie Context Retrieval
     @Override
     public Mono<RagRetrievalResult> retrieveMovieContext(UUID sessionId, String query, int topK) {
-        return embedText(sessionId, query)
-                .flatMap(vector -> hybridSearch(sessionId, vector, topK))
+        return hybridSearch(sessionId, query, topK)
                 .map(movies -> {
                     if (movies.isEmpty()) {
                         return new RagRetrievalResult("", List.of());
@@ -101,13 +99,8 @@ public class RagServiceImpl implements RagService {
                             embeddingSelector.getEmbeddingField(), vector
                     );
 
-                    IndexRequest<Map<String, Object>> request = IndexRequest.of(i -> i
-                            .index(embeddingSelector.getRagIndex())
-                            .document(doc)
-                    );
-
-                    return Mono.fromFuture(esClient.index(request))
-                            .doOnSuccess(r -> {
+                    return ragBulkIndexer.index(embeddingSelector.getRagIndex(), doc)
+                            .doOnSuccess(v -> {
                                 String ragIndex = embeddingSelector.getRagIndex();
                                 log.debug("[rag] Indexed chat fragment into '{}'", ragIndex);
                             })
@@ -153,13 +146,8 @@ public class RagServiceImpl implements RagService {
                             embeddingSelector.getEmbeddingField(), vector
                     );
 
-                    IndexRequest<Map<String, Object>> request = IndexRequest.of(i -> i
-                            .index(embeddingSelector.getRagIndex())
-                            .document(doc)
-                    );
-
-                    return Mono.fromFuture(esClient.index(request))
-                            .doOnSuccess(r -> {
+                    return ragBulkIndexer.index(embeddingSelector.getRagIndex(), doc)
+                            .doOnSuccess(v -> {
                                 String ragIndex = embeddingSelector.getRagIndex();
                                 log.debug("[rag] Indexed message with files into '{}'", ragIndex);
                             })
@@ -194,13 +182,17 @@ public class RagServiceImpl implements RagService {
         );
     }
 
-    // Hybrid Search — combines movies and memory indices (not memory rn)
-    private Mono<List<RagMovieDto>> hybridSearch(UUID sessionId, float[] embedding, int topK) {
+    @Override
+    public Mono<float[]> embedQuery(UUID sessionId, String text) {
+        return embedText(sessionId, text);
+    }
+
+    // Hybrid Search — BM25 + kNN over the movie index, fused and reranked by HybridMovieRetriever
+    private Mono<List<RagMovieDto>> hybridSearch(UUID sessionId, String query, int topK) {
         long start = System.currentTimeMillis();
 
-        // Only search the movie index now using native KNN
-        return nativeKnn(sessionId, embedding, topK, embeddingSelector.getMovieIndex(), "movies")
-                .flatMap(results -> {
+        return hybridMovieRetriever.retrieve(sessionId, query, topK, () -> embedText(sessionId, query))
+                .flatMap(result -> {
                     long latency = System.currentTimeMillis() - start;
 
                     Metrics metrics = MetricsUtil.get(latency, null,
@@ -212,77 +204,30 @@ public class RagServiceImpl implements RagService {
                             .details(Map.of(
                                     "index", embeddingSelector.getMovieIndex(),
                                     "topK", topK,
-                                    "results", results.size(),
-                                    "search_type", "knn"
+                                    "results", result.movies().size(),
+                                    "lexicalHits", result.lexicalHits(),
+                                    "knnHits", result.knnHits(),
+                                    "cached", result.cached(),
+                                    "search_type", "hybrid"
                             ))
                             .metrics(metrics)
                             .build();
                     return auditService.recordInteraction(auditRecord)
-                            .thenReturn(results);
+                            .thenReturn(result.movies());
                 })
                 .doOnSuccess(results -> log.debug("[rag] Movie retrieval completed."))
                 .doOnError(e -> log.error("[rag] Error during movie search: {}", e.getMessage(), e));
     }
 
-    // Perform a native KNN vector search on a specific index
-    @SuppressWarnings("SameParameterValue")
-    private Mono<List<RagMovieDto>> nativeKnn(UUID sessionId, float[] embedding, int topK, String index, String label) {
-        long start = System.currentTimeMillis();
-
-        List<Float> vector = new ArrayList<>();
-        for (float f : embedding) {
-            vector.add(f);
-        }
-
-        KnnSearch knn = KnnSearch.of(k -> k
-                .field(embeddingSelector.getEmbeddingField())
-                .queryVector(vector)
-                .k(topK)
-                .numCandidates(topK * 10)
-        );
-
-        SearchRequest request = SearchRequest.of(s -> s
-                .index(index)
-                .knn(List.of(knn))
-                .size(topK)
-        );
-
-        return Mono.fromFuture(esClient.search(request, Map.class))
-                .map(resp -> resp.hits().hits().stream()
-                        .map(hit -> {
-                            @SuppressWarnings("unchecked")
-                            Map<String, Object> source = hit.source();
-                            return toRagMovieDto(source);
-                        })
-                        .filter(Objects::nonNull)
-                        .toList())
-                .flatMap(results -> {
-                    long latency = System.currentTimeMillis() - start;
-                    Metrics metrics = MetricsUtil.get(latency, null,
-                            embeddingSelector.getModelName(), "rag-knn-search-" + label);
-
-                    AuditRecord auditRecord = AuditRecord.builder()
-                            .sessionId(sessionId)
-                            .type(InteractionType.RETRIEVAL)
-                            .details(Map.of(
-                                    "index", index,
-                                    "hits", results.size(),
-                                    "search_type", "knn"
-                            ))
-                            .metrics(metrics)
-                            .build();
-                    return auditService.recordInteraction(auditRecord)
-                            .thenReturn(results);
-                })
-                .doOnSuccess(list -> log.debug("[rag] [{}] Native KNN found {} hits", label, list.size()))
-                .doOnError(e -> log.error("[rag] [{}] Native KNN search failed: {}", label, e.getMessage()));
-    }
-
     //   Embedding helper — clean separation
     private Mono<float[]> embedText(UUID sessionId, String text) {
-        long start = System.currentTimeMillis();
-
         final String safeText = truncateForEmbedding(text);
+        // Repeated texts are answered from the cache; identical concurrent ones share a single model call.
+        return embeddingCache.get(safeText, normalized -> embedUncached(sessionId, text, normalized));
+    }
+
+    private Mono<float[]> embedUncached(UUID sessionId, String text, String safeText) {
+        long start = System.currentTimeMillis();
 
         return Mono.fromCallable(() -> embeddingModel.embed(safeText))
                 .subscribeOn(Schedulers.boundedElastic())
@@ -362,13 +307,4 @@ public class RagServiceImpl implements RagService {
                 m.getId()
         );
     }
-
-    private RagMovieDto toRagMovieDto(Map<String, Object> source) {
-        try {
-            return objectMapper.convertValue(source, RagMovieDto.class);
-        } catch (Exception e) {
-            log.warn("[rag] Failed to map document to _RagMovieDto: {}", e.getMessage());
-            return null;
-        }
-    }
 }
@@ -0,0 +1,175 @@
+package com.bbmovie.ai_assistant_service.service.impl.audit;
+
+import com.bbmovie.ai_assistant_service.entity.AiInteractionAudit;
+import com.bbmovie.ai_assistant_service.repository.AiInteractionAuditRepository;
+import com.bbmovie.ai_assistant_service.utils.log.RgbLogger;
+import com.bbmovie.ai_assistant_service.utils.log.RgbLoggerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers {@link AiInteractionAudit} rows in a bounded ring buffer and writes them with multi-row inserts, so
+ * recording an interaction no longer adds a database round trip to the chat flow.
+ *
+ * <p>A batch is written once it holds {@code ai.audit.batch-size} rows or {@code ai.audit.flush-interval-ms}
+ * after its first row, whichever comes first. Nothing is discarded on purpose: when the buffer is full the row
+ * is written inline by the caller instead, a failed batch is retried and then written row by row, and the buffer
+ * is drained on shutdown. Only rows whose own insert fails are counted as dropped.
+ */
+@Component
+public class AuditBatchWriter {
+
+    private static final RgbLogger log = RgbLoggerFactory.getLogger(AuditBatchWriter.class);
+    private static final Duration WRITE_TIMEOUT = Duration.ofSeconds(20);
+    private static final int WRITE_RETRIES = 3;
+
+    private final AiInteractionAuditRepository repository;
+    private final BlockingQueue<AiInteractionAudit> buffer;
+    private final int batchSize;
+    private final Duration flushInterval;
+
+    private final Counter persisted;
+    private final Counter overflow;
+    private final Counter dropped;
+    private final DistributionSummary batchSizes;
+
+    private volatile boolean running;
+    private volatile Thread flushThread;
+
+    public AuditBatchWriter(
+            AiInteractionAuditRepository repository,
+            MeterRegistry meterRegistry,
+            @Value("${ai.audit.buffer-capacity:8192}") int bufferCapacity,
+            @Value("${ai.audit.batch-size:200}") int batchSize,
+            @Value("${ai.audit.flush-interval-ms:1000}") long flushIntervalMs
+    ) {
+        this.repository = repository;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.batchSize = batchSize;
+        this.flushInterval = Duration.ofMillis(flushIntervalMs);
+        this.persisted = Counter.builder("ai.audit.persisted").register(meterRegistry);
+        this.overflow = Counter.builder("ai.audit.overflow")
+                .description("Audits written inline because the buffer was full")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("ai.audit.dropped")
+                .description("Audits that could not be written")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("ai.audit.batch.size").register(meterRegistry);
+        Gauge.builder("ai.audit.queue.depth", buffer, BlockingQueue::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        flushThread = Thread.ofVirtual().name("audit-batch-writer").start(this::flushLoop);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        Thread thread = flushThread;
+        if (thread != null) {
+            // The loop drains the buffer before it exits.
+            thread.join(WRITE_TIMEOUT.plus(flushInterval).toMillis());
+        }
+        if (!buffer.isEmpty()) {
+            log.warn("[audit] {} audits still buffered at shutdown", buffer.size());
+        }
+    }
+
+    /**
+     * Queues {@code audit} for the next batch. The returned Mono is empty unless the buffer is full, in which
+     * case it writes the row itself.
+     */
+    public Mono<Void> enqueue(AiInteractionAudit audit) {
+        if (running && buffer.offer(audit)) {
+            return Mono.empty();
+        }
+        overflow.increment();
+        return writeOne(audit);
+    }
+
+    private void flushLoop() {
+        List<AiInteractionAudit> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                AiInteractionAudit first = buffer.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fill(batch);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("[audit] Flush loop error: {}", e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Tops {@code batch} up to {@code batchSize}, waiting at most one flush interval for more rows.
+     */
+    private void fill(List<AiInteractionAudit> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + flushInterval.toNanos();
+        while (batch.size() < batchSize) {
+            buffer.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                return;
+            }
+            AiInteractionAudit next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void write(List<AiInteractionAudit> batch) {
+        batchSizes.record(batch.size());
+        try {
+            repository.insertAll(batch)
+                    .retryWhen(Retry.backoff(WRITE_RETRIES, Duration.ofMillis(200)))
+                    .block(WRITE_TIMEOUT);
+            persisted.increment(batch.size());
+            log.debug("[audit] Wrote batch of {} audits", batch.size());
+        } catch (Exception e) {
+            log.error("[audit] Batch of {} audits failed, writing rows individually: {}", batch.size(), e.getMessage());
+            for (AiInteractionAudit audit : batch) {
+                writeOne(audit).block(WRITE_TIMEOUT);
+            }
+        }
+    }
+
+    private Mono<Void> writeOne(AiInteractionAudit audit) {
+        return repository.insertAll(List.of(audit))
+                .doOnSuccess(rows -> persisted.increment())
+                .onErrorResume(e -> {
+                    dropped.increment();
+                    log.error("[audit] Dropped audit: type={}, session={}: {}",
+                            audit.getInteractionType(), audit.getSessionId(), e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+}
@@ -0,0 +1,86 @@
+package com.bbmovie.ai_assistant_service.service.impl.cache;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch.indices.stats.IndexingStats;
+import com.bbmovie.ai_assistant_service.config.embedding.EmbeddingSelector;
+import com.bbmovie.ai_assistant_service.utils.log.RgbLogger;
+import com.bbmovie.ai_assistant_service.utils.log.RgbLoggerFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Invalidates the {@link SemanticResponseCache} when the movie catalog changes.
+ *
+ * <p>The catalog is written by other services straight into the movie index, so there is no event to listen to.
+ * Instead, the primaries' indexing and delete totals of the index are polled every
+ * {@code ai.semantic-cache.catalog-poll-seconds}; they only grow while documents are written, so any difference
+ * from the previous poll means cached answers may mention stale movies.
+ */
+@Component
+public class CatalogChangeWatcher {
+
+    private static final RgbLogger log = RgbLoggerFactory.getLogger(CatalogChangeWatcher.class);
+
+    private final ElasticsearchAsyncClient esClient;
+    private final EmbeddingSelector embeddingSelector;
+    private final SemanticResponseCache semanticResponseCache;
+    private final Duration pollInterval;
+
+    private volatile long lastFingerprint = -1;
+    private Disposable polling;
+
+    public CatalogChangeWatcher(
+            @Qualifier("elasticsearchAsyncClient") ElasticsearchAsyncClient esClient,
+            EmbeddingSelector embeddingSelector,
+            SemanticResponseCache semanticResponseCache,
+            @Value("${ai.semantic-cache.catalog-poll-seconds:60}") long pollSeconds
+    ) {
+        this.esClient = esClient;
+        this.embeddingSelector = embeddingSelector;
+        this.semanticResponseCache = semanticResponseCache;
+        this.pollInterval = Duration.ofSeconds(Math.max(1, pollSeconds));
+    }
+
+    @PostConstruct
+    void start() {
+        polling = Flux.interval(Duration.ZERO, pollInterval)
+                .concatMap(tick -> fingerprint()
+                        .onErrorResume(e -> {
+                            log.debug("[semantic-cache] Could not read movie index stats: {}", e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe(this::onFingerprint);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (polling != null) {
+            polling.dispose();
+        }
+    }
+
+    private Mono<Long> fingerprint() {
+        String index = embeddingSelector.getMovieIndex();
+        return Mono.fromFuture(() -> esClient.indices().stats(s -> s.index(index).metric("indexing")))
+                .mapNotNull(response -> {
+                    IndexingStats indexing = response.all().primaries().indexing();
+                    return indexing == null ? null : indexing.indexTotal() + indexing.deleteTotal();
+                });
+    }
+
+    private void onFingerprint(long fingerprint) {
+        long previous = lastFingerprint;
+        lastFingerprint = fingerprint;
+        if (previous >= 0 && previous != fingerprint) {
+            semanticResponseCache.invalidateAll("movie index changed (" + (fingerprint - previous) + " writes)");
+        }
+    }
+}
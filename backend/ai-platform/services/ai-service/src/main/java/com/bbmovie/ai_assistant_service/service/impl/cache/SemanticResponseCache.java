@@ -0,0 +1,268 @@
+package com.bbmovie.ai_assistant_service.service.impl.cache;
+
+import com.bbmovie.ai_assistant_service.dto.response.RagMovieDto;
+import com.bbmovie.ai_assistant_service.entity.model.AiMode;
+import com.bbmovie.ai_assistant_service.entity.model.AssistantType;
+import com.bbmovie.ai_assistant_service.utils.log.RgbLogger;
+import com.bbmovie.ai_assistant_service.utils.log.RgbLoggerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Semantic cache of recent assistant answers, so frequent catalog questions ("what's new this week", "movies like
+ * Inception") are answered without calling the model.
+ *
+ * <p>Entries are (prompt, answer, RAG results) keyed by the prompt embedding and partitioned by {@link Scope}:
+ * assistant type, user tier and AI mode, so an answer is never reused across roles. A lookup is a brute-force
+ * cosine scan over the scope's unit vectors, bounded by {@code ai.semantic-cache.max-entries-per-scope}; at a few
+ * thousand entries that is well under a millisecond, cheaper than running a remote vector index for data that
+ * lives only {@code ai.semantic-cache.ttl-seconds}.
+ *
+ * <p>{@link #invalidateAll} drops everything and bumps a generation counter, so an answer that was being generated
+ * while the catalog changed is not stored afterwards. {@link CatalogChangeWatcher} calls it when the movie index
+ * changes.
+ */
+@Component
+public class SemanticResponseCache {
+
+    private static final RgbLogger log = RgbLoggerFactory.getLogger(SemanticResponseCache.class);
+
+    private final boolean enabled;
+    private final Set<AssistantType> assistantTypes;
+    private final Set<String> cacheableTools;
+    private final boolean firstTurnOnly;
+    private final double similarityThreshold;
+    private final long ttlMs;
+    private final int maxEntriesPerScope;
+    private final int maxAnswerChars;
+
+    private final ConcurrentMap<Scope, ScopeIndex> scopes = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter stores;
+    private final Counter invalidations;
+
+    public SemanticResponseCache(
+            MeterRegistry meterRegistry,
+            @Value("${ai.semantic-cache.enabled:true}") boolean enabled,
+            @Value("${ai.semantic-cache.assistant-types:anonymous}") List<String> assistantTypes,
+            @Value("${ai.semantic-cache.cacheable-tools:retrieve_rag_movies}") List<String> cacheableTools,
+            @Value("${ai.semantic-cache.first-turn-only:true}") boolean firstTurnOnly,
+            @Value("${ai.semantic-cache.similarity-threshold:0.92}") double similarityThreshold,
+            @Value("${ai.semantic-cache.ttl-seconds:900}") long ttlSeconds,
+            @Value("${ai.semantic-cache.max-entries-per-scope:2000}") int maxEntriesPerScope,
+            @Value("${ai.semantic-cache.max-answer-chars:8000}") int maxAnswerChars
+    ) {
+        this.enabled = enabled;
+        this.assistantTypes = assistantTypes.stream()
+                .filter(code -> !code.isBlank())
+                .map(code -> AssistantType.fromCode(code.trim()))
+                .collect(Collectors.toUnmodifiableSet());
+        this.cacheableTools = Set.copyOf(cacheableTools);
+        this.firstTurnOnly = firstTurnOnly;
+        this.similarityThreshold = similarityThreshold;
+        this.ttlMs = ttlSeconds * 1000;
+        this.maxEntriesPerScope = maxEntriesPerScope;
+        this.maxAnswerChars = maxAnswerChars;
+
+        this.hits = Counter.builder("ai.semantic_cache.hits").register(meterRegistry);
+        this.misses = Counter.builder("ai.semantic_cache.misses").register(meterRegistry);
+        this.stores = Counter.builder("ai.semantic_cache.stores").register(meterRegistry);
+        this.invalidations = Counter.builder("ai.semantic_cache.invalidations").register(meterRegistry);
+        Gauge.builder("ai.semantic_cache.entries", this, SemanticResponseCache::size).register(meterRegistry);
+
+        log.info("[semantic-cache] enabled={}, assistants={}, threshold={}, ttl={}s",
+                enabled, this.assistantTypes, similarityThreshold, ttlSeconds);
+    }
+
+    public boolean isEnabledFor(AssistantType type) {
+        return enabled && assistantTypes.contains(type);
+    }
+
+    /**
+     * Whether only the first turn of a session may be answered from the cache. Later turns usually depend on the
+     * conversation ("and the second one?"), which the cache key does not capture.
+     */
+    public boolean isFirstTurnOnly() {
+        return firstTurnOnly;
+    }
+
+    /**
+     * Tools whose results do not depend on who asked; an answer that used any other tool is not stored.
+     */
+    public boolean isCacheableTool(String toolName) {
+        return cacheableTools.contains(toolName);
+    }
+
+    /**
+     * Token to pass to {@link #store}; answers generated across an invalidation are discarded.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Returns the closest fresh entry of {@code scope} if its cosine similarity to {@code vector} reaches the
+     * threshold.
+     */
+    public Optional<Hit> lookup(Scope scope, float[] vector) {
+        ScopeIndex index = scopes.get(scope);
+        float[] query = unit(vector);
+        Optional<Hit> hit = index == null || query == null
+                ? Optional.empty()
+                : index.nearest(query, similarityThreshold, System.currentTimeMillis());
+        (hit.isPresent() ? hits : misses).increment();
+        return hit;
+    }
+
+    public void store(Scope scope, long generationToken, String prompt, float[] vector,
+                      String answer, List<RagMovieDto> ragResults) {
+        float[] unit = unit(vector);
+        if (unit == null || answer == null || answer.isBlank() || answer.length() > maxAnswerChars) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Entry entry = new Entry(prompt, unit, answer, ragResults == null ? List.of() : List.copyOf(ragResults),
+                now + ttlMs);
+        ScopeIndex index = scopes.computeIfAbsent(scope, s -> new ScopeIndex(maxEntriesPerScope));
+        if (generationToken == generation.get() && index.add(entry, similarityThreshold, now)) {
+            stores.increment();
+            log.debug("[semantic-cache] Stored answer for '{}' in {}", prompt, scope);
+        }
+    }
+
+    public void invalidateAll(String reason) {
+        generation.incrementAndGet();
+        scopes.clear();
+        invalidations.increment();
+        log.info("[semantic-cache] Invalidated all entries: {}", reason);
+    }
+
+    private int size() {
+        return scopes.values().stream().mapToInt(ScopeIndex::size).sum();
+    }
+
+    private static float[] unit(float[] vector) {
+        if (vector == null || vector.length == 0) {
+            return null;
+        }
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm == 0) {
+            return null;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        float[] unit = Arrays.copyOf(vector, vector.length);
+        for (int i = 0; i < unit.length; i++) {
+            unit[i] *= scale;
+        }
+        return unit;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        if (a.length != b.length) {
+            return -1;
+        }
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Cache partition: an answer is only reused for the same assistant, the same user tier and the same mode.
+     */
+    public record Scope(AssistantType assistantType, String userTier, AiMode aiMode) {
+
+        public static Scope of(AssistantType assistantType, String userRole, AiMode aiMode) {
+            String tier = userRole == null || userRole.isBlank()
+                    ? "ANONYMOUS"
+                    : userRole.trim().toUpperCase(Locale.ROOT).replaceFirst("^ROLE_", "");
+            return new Scope(assistantType, tier, aiMode);
+        }
+    }
+
+    public record Hit(String prompt, String answer, List<RagMovieDto> ragResults, double similarity) {
+    }
+
+    private record Entry(String prompt, float[] vector, String answer, List<RagMovieDto> ragResults,
+                         long expiresAtMs) {
+    }
+
+    /**
+     * Entries of one scope in insertion order. With a fixed TTL that is also expiry order, so expired entries are
+     * always at the head.
+     */
+    private static final class ScopeIndex {
+
+        private final int capacity;
+        private final Deque<Entry> entries = new ArrayDeque<>();
+
+        private ScopeIndex(int capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized Optional<Hit> nearest(float[] query, double threshold, long now) {
+            expire(now);
+            Entry best = null;
+            double bestScore = threshold;
+            for (Entry entry : entries) {
+                double score = dot(query, entry.vector());
+                if (score >= bestScore) {
+                    best = entry;
+                    bestScore = score;
+                }
+            }
+            return best == null
+                    ? Optional.empty()
+                    : Optional.of(new Hit(best.prompt(), best.answer(), best.ragResults(), bestScore));
+        }
+
+        /**
+         * Adds {@code entry} unless a near-identical prompt is already cached (concurrent misses of one question).
+         */
+        synchronized boolean add(Entry entry, double threshold, long now) {
+            expire(now);
+            for (Entry existing : entries) {
+                if (dot(entry.vector(), existing.vector()) >= threshold) {
+                    return false;
+                }
+            }
+            if (entries.size() >= capacity) {
+                entries.pollFirst();
+            }
+            entries.addLast(entry);
+            return true;
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        private void expire(long now) {
+            while (!entries.isEmpty() && entries.peekFirst().expiresAtMs() <= now) {
+                entries.pollFirst();
+            }
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.bbmovie.ai_assistant_service.service.impl.context;
+
+import com.bbmovie.ai_assistant_service.config.ai.ModelConfig;
+import com.bbmovie.ai_assistant_service.config.ai.ModelSelector;
+import com.bbmovie.ai_assistant_service.dto.response.RagRetrievalResult;
+import com.bbmovie.ai_assistant_service.service.FileProcessingService.ProcessedFileContent;
+import com.bbmovie.ai_assistant_service.utils.AiModel;
+import com.bbmovie.ai_assistant_service.utils.TokenEstimator;
+import com.bbmovie.ai_assistant_service.utils.log.RgbLogger;
+import com.bbmovie.ai_assistant_service.utils.log.RgbLoggerFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Fits what we send to the model into a token budget for the active model.
+ *
+ * <p>The budget is {@code ai.context.max-prompt-tokens}, capped by the model's context window minus the tokens
+ * reserved for the answer. Within it the prompt is packed in this order:
+ * <ol>
+ *   <li>the system prompt and tool specifications, never touched, so the prompt prefix stays byte-identical
+ *       across turns and across the tool round-trips of one turn and the model server can reuse its cached
+ *       prefix;</li>
+ *   <li>tool results, always compacted: RAG results are reduced to their ranked text summary and cut after the
+ *       last whole movie that fits, other results are truncated. Results of earlier turns get a much smaller cap
+ *       than those of the current turn;</li>
+ *   <li>the conversation, dropping whole turns from the oldest while over budget;</li>
+ *   <li>the current user message, truncated only if it alone still does not fit.</li>
+ * </ol>
+ * Attached file contents are budgeted earlier, by {@link #packFiles}, which ranks files by overlap with the question.
+ *
+ * <p>Token counts come from {@link TokenEstimator}. Metrics: {@code ai.context.prompt.tokens} (estimated prompt
+ * size after packing) and {@code ai.context.turns.dropped}.
+ */
+@Component
+public class ContextPacker {
+
+    private static final RgbLogger log = RgbLoggerFactory.getLogger(ContextPacker.class);
+    private static final String RAG_TOOL = "retrieve_rag_movies";
+    private static final String TRUNCATED = " ...[truncated]";
+    /** Below this, a truncated file or message carries too little to be worth including. */
+    private static final int MIN_USEFUL_TOKENS = 64;
+
+    private final ObjectMapper objectMapper;
+    private final int promptBudget;
+    private final int maxFileTokens;
+    private final int maxToolResultTokens;
+    private final int maxHistoryToolResultTokens;
+
+    private final DistributionSummary promptTokens;
+    private final Counter turnsDropped;
+
+    public ContextPacker(
+            ObjectMapper objectMapper,
+            ModelSelector modelSelector,
+            MeterRegistry meterRegistry,
+            @Value("${ai.context.max-prompt-tokens:8192}") int maxPromptTokens,
+            @Value("${ai.context.max-file-tokens:3072}") int maxFileTokens,
+            @Value("${ai.context.max-tool-result-tokens:1536}") int maxToolResultTokens,
+            @Value("${ai.context.max-history-tool-result-tokens:256}") int maxHistoryToolResultTokens
+    ) {
+        this.objectMapper = objectMapper;
+        AiModel model = modelSelector.getActiveModel();
+        this.promptBudget = Math.min(maxPromptTokens, model.getContextWindow() - ModelConfig.MAX_OUTPUT_TOKENS);
+        this.maxFileTokens = Math.min(maxFileTokens, promptBudget / 2);
+        this.maxToolResultTokens = maxToolResultTokens;
+        this.maxHistoryToolResultTokens = maxHistoryToolResultTokens;
+
+        this.promptTokens = DistributionSummary.builder("ai.context.prompt.tokens")
+                .baseUnit("tokens")
+                .register(meterRegistry);
+        this.turnsDropped = Counter.builder("ai.context.turns.dropped").register(meterRegistry);
+
+        log.info("[context] Prompt budget for {}: {} tokens (files: {}, tool results: {}/{})",
+                model, promptBudget, this.maxFileTokens, maxToolResultTokens, maxHistoryToolResultTokens);
+    }
+
+    /**
+     * Builds the request messages: the system prompt (if any) followed by {@code conversation}, packed into the
+     * budget. The last turn of {@code conversation}, starting at its last {@link UserMessage}, is the current one.
+     */
+    public List<ChatMessage> pack(SystemMessage systemPrompt, List<ToolSpecification> tools, List<ChatMessage> conversation) {
+        int prefixTokens = systemPrompt == null ? 0 : TokenEstimator.estimate(systemPrompt);
+        if (tools != null) {
+            for (ToolSpecification tool : tools) {
+                prefixTokens += TokenEstimator.estimate(tool);
+            }
+        }
+        int budget = promptBudget - prefixTokens;
+
+        List<List<ChatMessage>> turns = splitTurns(conversation);
+        for (int i = 0; i < turns.size(); i++) {
+            int cap = i == turns.size() - 1 ? maxToolResultTokens : maxHistoryToolResultTokens;
+            turns.get(i).replaceAll(message -> message instanceof ToolExecutionResultMessage result
+                    ? compactToolResult(result, cap)
+                    : message);
+        }
+
+        int total = turns.stream().mapToInt(ContextPacker::tokens).sum();
+        int dropped = 0;
+        while (total > budget && turns.size() > 1) {
+            total -= tokens(turns.removeFirst());
+            dropped++;
+        }
+        if (total > budget && !turns.isEmpty()) {
+            total = fitCurrentTurn(turns.getFirst(), total, budget);
+        }
+        if (dropped > 0) {
+            turnsDropped.increment(dropped);
+            log.debug("[context] Dropped {} oldest turn(s) to fit {} tokens", dropped, budget);
+        }
+        promptTokens.record(prefixTokens + total);
+
+        List<ChatMessage> messages = new ArrayList<>(conversation.size() + 1);
+        if (systemPrompt != null) {
+            messages.add(systemPrompt);
+        }
+        turns.forEach(messages::addAll);
+        return messages;
+    }
+
+    /**
+     * Renders extracted file contents for the prompt within {@code ai.context.max-file-tokens}. Files sharing the
+     * most terms with {@code message} come first; the first file that does not fit is truncated and the rest are
+     * listed without content.
+     */
+    public String packFiles(String message, List<ProcessedFileContent> processedFiles) {
+        if (processedFiles == null || processedFiles.isEmpty()) {
+            return "";
+        }
+        Set<String> queryTerms = terms(message);
+        List<ProcessedFileContent> ranked = processedFiles.stream()
+                .sorted(Comparator.comparingLong((ProcessedFileContent f) -> overlap(queryTerms, f)).reversed())
+                .toList();
+
+        StringBuilder content = new StringBuilder();
+        int remaining = maxFileTokens;
+        for (ProcessedFileContent file : ranked) {
+            content.append("=== File: ").append(file.filename()).append(" ===\n");
+            content.append("Type: ").append(file.fileType()).append("\n");
+
+            String text = file.extractedText();
+            if (text != null && !text.isBlank()) {
+                int tokens = TokenEstimator.estimate(text);
+                if (tokens <= remaining) {
+                    content.append("Content:\n").append(text).append("\n");
+                    remaining -= tokens;
+                } else if (remaining >= MIN_USEFUL_TOKENS) {
+                    content.append("Content:\n").append(truncate(text, remaining)).append("\n");
+                    remaining = 0;
+                } else {
+                    content.append("Content: (omitted, context budget exhausted)\n");
+                }
+            }
+            content.append("\n");
+        }
+        return content.toString();
+    }
+
+    private ToolExecutionResultMessage compactToolResult(ToolExecutionResultMessage result, int maxTokens) {
+        String text = result.text();
+        String compacted = RAG_TOOL.equals(result.toolName()) ? compactRagResult(text, maxTokens) : null;
+        if (compacted == null) {
+            compacted = TokenEstimator.estimate(text) <= maxTokens ? text : truncate(text, maxTokens);
+        }
+        return compacted.equals(text) ? result : ToolExecutionResultMessage.from(result.id(), result.toolName(), compacted);
+    }
+
+    /**
+     * Replaces the RAG tool's JSON (text summary plus the same movies as structured documents) with the summary
+     * alone, keeping movies in their retrieval rank until the budget is used. Returns {@code null} if the result
+     * is not a {@link RagRetrievalResult}.
+     */
+    private String compactRagResult(String json, int maxTokens) {
+        RagRetrievalResult rag;
+        try {
+            rag = objectMapper.readValue(json, RagRetrievalResult.class);
+        } catch (Exception e) {
+            return null;
+        }
+        if (rag.summaryText() == null || rag.summaryText().isBlank()) {
+            return "No relevant movies found.";
+        }
+        String[] movies = rag.summaryText().split("\n\n");
+        StringBuilder summary = new StringBuilder();
+        int remaining = maxTokens;
+        int kept = 0;
+        for (String movie : movies) {
+            int tokens = TokenEstimator.estimate(movie) + 1;
+            if (tokens > remaining) {
+                break;
+            }
+            if (kept > 0) {
+                summary.append("\n\n");
+            }
+            summary.append(movie);
+            remaining -= tokens;
+            kept++;
+        }
+        if (kept == 0) {
+            return truncate(movies[0], maxTokens);
+        }
+        if (kept < movies.length) {
+            summary.append("\n\n[").append(movies.length - kept).append(" lower-ranked result(s) omitted]");
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Truncates the current turn's user message so the turn fits; returns the new total.
+     */
+    private int fitCurrentTurn(List<ChatMessage> turn, int total, int budget) {
+        if (!(turn.getFirst() instanceof UserMessage user) || !user.hasSingleText()) {
+            return total;
+        }
+        int userTokens = TokenEstimator.estimate(user);
+        int allowed = Math.max(MIN_USEFUL_TOKENS, userTokens - (total - budget));
+        if (allowed >= userTokens) {
+            return total;
+        }
+        UserMessage truncated = UserMessage.from(truncate(user.singleText(), allowed - TokenEstimator.MESSAGE_OVERHEAD));
+        turn.set(0, truncated);
+        log.warn("[context] Current message truncated from {} to {} tokens", userTokens, allowed);
+        return total - userTokens + TokenEstimator.estimate(truncated);
+    }
+
+    /**
+     * Groups messages into turns, each starting at a {@link UserMessage}. Messages before the first user message
+     * (left over when the memory window cut a turn in half) form a turn of their own, the first to be dropped.
+     */
+    private static List<List<ChatMessage>> splitTurns(List<ChatMessage> conversation) {
+        List<List<ChatMessage>> turns = new ArrayList<>();
+        List<ChatMessage> current = null;
+        for (ChatMessage message : conversation) {
+            if (current == null || message instanceof UserMessage) {
+                current = new ArrayList<>();
+                turns.add(current);
+            }
+            current.add(message);
+        }
+        return turns;
+    }
+
+    private static int tokens(List<ChatMessage> turn) {
+        int sum = 0;
+        for (ChatMessage message : turn) {
+            sum += TokenEstimator.estimate(message);
+        }
+        return sum;
+    }
+
+    /**
+     * Cuts {@code text} at a whitespace boundary so that it fits in about {@code maxTokens}.
+     */
+    private static String truncate(String text, int maxTokens) {
+        int tokens = TokenEstimator.estimate(text);
+        if (tokens <= maxTokens) {
+            return text;
+        }
+        int end = (int) ((long) text.length() * Math.max(0, maxTokens) / tokens);
+        while (end > 0 && TokenEstimator.estimate(text.substring(0, end)) > maxTokens) {
+            end = end * 9 / 10;
+        }
+        int space = text.lastIndexOf(' ', end);
+        if (space > end / 2) {
+            end = space;
+        }
+        return text.substring(0, end) + TRUNCATED;
+    }
+
+    private static long overlap(Set<String> queryTerms, ProcessedFileContent file) {
+        if (queryTerms.isEmpty()) {
+            return 0;
+        }
+        Set<String> fileTerms = terms(file.filename() + " " + file.extractedText());
+        return queryTerms.stream().filter(fileTerms::contains).count();
+    }
+
+    private static Set<String> terms(String text) {
+        if (text == null) {
+            return Set.of();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(t -> t.length() > 2)
+                .collect(Collectors.toSet());
+    }
+}
@@ -15,11 +15,13 @@ import com.bbmovie.ai_assistant_service.service.AuditService;
 import com.bbmovie.ai_assistant_service.service.MessageService;
 import com.bbmovie.ai_assistant_service.service.RagService;
 import com.bbmovie.ai_assistant_service.service.ToolExecutionService;
+import com.bbmovie.ai_assistant_service.service.impl.context.ContextPacker;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.bbmovie.ai_assistant_service.utils.MetricsUtil;
 import com.bbmovie.ai_assistant_service.utils.log.RgbLogger;
 import com.bbmovie.ai_assistant_service.utils.log.RgbLoggerFactory;
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
 import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.data.message.SystemMessage;
 import dev.langchain4j.data.message.ToolExecutionResultMessage;
@@ -45,6 +47,7 @@ public class ToolWorkflow {
     private final MessageService messageService;
     private final RagService ragService;
     private final ObjectMapper objectMapper;
+    private final ContextPacker contextPacker;
 
     public Mono<Void> execute(ToolExecutionContext context) {
         // Add the AI message (with tool requests) to memory
@@ -99,17 +102,19 @@ public class ToolWorkflow {
     }
 
     private Mono<Void> callModelAfterToolRequest(ToolExecutionContext context, List<RagMovieDto> ragResults) {
-        List<ChatMessage> newMessages = new ArrayList<>();
-        if (context.getChatMemory().messages().stream().noneMatch(m -> m instanceof SystemMessage)) {
-            newMessages.add(context.getSystemPrompt());
-        }
-        newMessages.addAll(context.getChatMemory().messages());
+        List<ChatMessage> conversation = context.getChatMemory().messages();
+        SystemMessage systemPrompt = conversation.stream().noneMatch(m -> m instanceof SystemMessage)
+                ? context.getSystemPrompt()
+                : null;
+        List<ToolSpecification> tools = context.getToolRegistry() != null
+                ? context.getToolRegistry().getToolSpecifications()
+                : null;
 
         ChatRequest.Builder builder = ChatRequest.builder()
-                .messages(newMessages);
+                .messages(contextPacker.pack(systemPrompt, tools, conversation));
 
-        if (context.getToolRegistry() != null) {
-            builder.toolSpecifications(context.getToolRegistry().getToolSpecifications());
+        if (tools != null) {
+            builder.toolSpecifications(tools);
         }
 
         ChatRequest afterToolRequest = builder.build();
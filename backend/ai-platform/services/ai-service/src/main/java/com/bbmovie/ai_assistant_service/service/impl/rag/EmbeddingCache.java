@@ -0,0 +1,175 @@
+package com.bbmovie.ai_assistant_service.service.impl.rag;
+
+import com.bbmovie.ai_assistant_service.config.embedding.EmbeddingSelector;
+import com.bbmovie.ai_assistant_service.utils.log.RgbLogger;
+import com.bbmovie.ai_assistant_service.utils.log.RgbLoggerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Content-hashed cache in front of the embedding model.
+ *
+ * <p>Texts are normalized (Unicode NFC, collapsed whitespace, trimmed) and keyed by the SHA-256 of model name and
+ * text, so repeated and whitespace-only variants of a prompt share one vector. Vectors live in a single direct
+ * buffer of {@code max-entries x dimension} floats, which keeps them out of the Java heap; an access-ordered map
+ * assigns slots and recycles the least recently used one when full.
+ *
+ * <p>Concurrent requests for the same key are coalesced: the first caller runs the embedding, the rest subscribe
+ * to its result.
+ */
+@Component
+public class EmbeddingCache {
+
+    private static final RgbLogger log = RgbLoggerFactory.getLogger(EmbeddingCache.class);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final String modelName;
+    private final int dimension;
+    private final boolean enabled;
+    private final FloatBuffer slab;
+    private final LinkedHashMap<String, Integer> slots;
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final ConcurrentMap<String, Mono<float[]>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+
+    public EmbeddingCache(
+            EmbeddingSelector embeddingSelector,
+            MeterRegistry meterRegistry,
+            @Value("${ai.embedding.cache.enabled:true}") boolean enabled,
+            @Value("${ai.embedding.cache.max-entries:10000}") int maxEntries
+    ) {
+        this.modelName = String.valueOf(embeddingSelector.getModelName());
+        this.dimension = embeddingSelector.getDimension();
+        this.enabled = enabled && dimension > 0 && maxEntries > 0;
+
+        int capacity = this.enabled ? maxEntries : 0;
+        // A direct buffer is int-indexed, so the slab holds at most Integer.MAX_VALUE bytes.
+        int maxCapacity = this.enabled ? Integer.MAX_VALUE / (dimension * Float.BYTES) : 0;
+        if (capacity > maxCapacity) {
+            log.warn("[embedding-cache] max-entries={} x dimension={} exceeds the {} byte buffer limit, capping at {} entries",
+                    maxEntries, dimension, Integer.MAX_VALUE, maxCapacity);
+            capacity = maxCapacity;
+        }
+        this.slab = ByteBuffer.allocateDirect(Math.toIntExact((long) capacity * dimension * Float.BYTES))
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+        for (int i = 0; i < capacity; i++) {
+            freeSlots.add(i);
+        }
+        this.slots = new LinkedHashMap<>(Math.max(16, capacity * 4 / 3), 0.75f, true);
+
+        this.hits = Counter.builder("ai.embedding.cache.hits").register(meterRegistry);
+        this.misses = Counter.builder("ai.embedding.cache.misses").register(meterRegistry);
+        this.coalesced = Counter.builder("ai.embedding.cache.coalesced")
+                .description("Embedding requests served by an identical in-flight request")
+                .register(meterRegistry);
+        Gauge.builder("ai.embedding.cache.size", this, EmbeddingCache::size).register(meterRegistry);
+
+        log.info("[embedding-cache] enabled={}, entries={}, dimension={}, off-heap bytes={}",
+                this.enabled, capacity, dimension, (long) capacity * dimension * Float.BYTES);
+    }
+
+    /**
+     * Returns the cached vector for {@code text}, or subscribes to {@code loader} (at most once per key at a
+     * time) and caches its result.
+     *
+     * @param text   the text to embed, already truncated to the model limit
+     * @param loader embeds the normalized text passed to it
+     */
+    public Mono<float[]> get(String text, Function<String, Mono<float[]>> loader) {
+        String normalized = normalize(text);
+        if (!enabled) {
+            return loader.apply(normalized);
+        }
+
+        String key = key(normalized);
+        return Mono.defer(() -> {
+            float[] cached = read(key);
+            if (cached != null) {
+                hits.increment();
+                return Mono.just(cached);
+            }
+            return inFlight.compute(key, (k, running) -> {
+                if (running != null) {
+                    coalesced.increment();
+                    return running;
+                }
+                misses.increment();
+                return loader.apply(normalized)
+                        .doOnNext(vector -> write(k, vector))
+                        .doFinally(signal -> inFlight.remove(k))
+                        .cache();
+            });
+        });
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFC)).replaceAll(" ").trim();
+    }
+
+    private String key(String normalized) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(modelName.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(normalized.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private synchronized float[] read(String key) {
+        Integer slot = slots.get(key);
+        if (slot == null) {
+            return null;
+        }
+        float[] vector = new float[dimension];
+        slab.get(slot * dimension, vector);
+        return vector;
+    }
+
+    private synchronized void write(String key, float[] vector) {
+        if (vector.length != dimension || slots.containsKey(key)) {
+            return;
+        }
+        Integer slot = freeSlots.poll();
+        if (slot == null) {
+            // Full: recycle the slot of the least recently used entry.
+            String eldest = slots.keySet().iterator().next();
+            slot = slots.remove(eldest);
+        }
+        slab.put(slot * dimension, vector);
+        slots.put(key, slot);
+    }
+
+    private synchronized int size() {
+        return slots.size();
+    }
+}
@@ -0,0 +1,314 @@
+package com.bbmovie.ai_assistant_service.service.impl.rag;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import com.bbmovie.ai_assistant_service.config.embedding.EmbeddingSelector;
+import com.bbmovie.ai_assistant_service.dto.response.RagMovieDto;
+import com.bbmovie.ai_assistant_service.utils.log.RgbLogger;
+import com.bbmovie.ai_assistant_service.utils.log.RgbLoggerFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Movie retrieval that actually is hybrid: a BM25 {@code multi_match} and a native kNN query run concurrently
+ * against the movie index, and their rankings are merged with reciprocal-rank fusion (RRF).
+ *
+ * <p>When {@code ai.rag.hybrid.rerank.enabled} is set, the fused candidates are reranked in-process by how many
+ * query terms each movie's title, genres, people and description contain.
+ *
+ * <p>The fused candidates of a session's last search are cached for {@code ai.rag.hybrid.cache-ttl-seconds}. A
+ * follow-up turn reuses them without embedding or searching: a repeated query gets the same ranking, a different
+ * one re-ranks the cached candidates against its own terms with {@code ai.rag.hybrid.session.rerank-weight}. If
+ * no cached candidate covers at least {@code ai.rag.hybrid.session.min-coverage} of the new query, the turn is
+ * treated as a new topic and searches again.
+ */
+@Component
+public class HybridMovieRetriever {
+
+    private static final RgbLogger log = RgbLoggerFactory.getLogger(HybridMovieRetriever.class);
+
+    /** Standard RRF damping constant; ranks below ~60 contribute almost equally. */
+    private static final int RRF_K = 60;
+    private static final String[] LEXICAL_FIELDS = {"title^3", "genres^2", "directors^2", "actors^1.5", "description"};
+
+    private final ElasticsearchAsyncClient esClient;
+    private final EmbeddingSelector embeddingSelector;
+    private final ObjectMapper objectMapper;
+    private final int candidateMultiplier;
+    private final boolean rerankEnabled;
+    private final double rerankWeight;
+    private final double sessionRerankWeight;
+    private final double sessionMinCoverage;
+    private final long cacheTtlMs;
+    private final Map<UUID, CachedPool> sessionCache;
+
+    public HybridMovieRetriever(
+            @Qualifier("elasticsearchAsyncClient") ElasticsearchAsyncClient esClient,
+            EmbeddingSelector embeddingSelector,
+            ObjectMapper objectMapper,
+            @Value("${ai.rag.hybrid.candidate-multiplier:4}") int candidateMultiplier,
+            @Value("${ai.rag.hybrid.rerank.enabled:true}") boolean rerankEnabled,
+            @Value("${ai.rag.hybrid.rerank.weight:0.3}") double rerankWeight,
+            @Value("${ai.rag.hybrid.session.rerank-weight:0.6}") double sessionRerankWeight,
+            @Value("${ai.rag.hybrid.session.min-coverage:0.25}") double sessionMinCoverage,
+            @Value("${ai.rag.hybrid.cache-ttl-seconds:120}") long cacheTtlSeconds,
+            @Value("${ai.rag.hybrid.cache-max-entries:2000}") int cacheMaxEntries
+    ) {
+        this.esClient = esClient;
+        this.embeddingSelector = embeddingSelector;
+        this.objectMapper = objectMapper;
+        this.candidateMultiplier = Math.max(1, candidateMultiplier);
+        this.rerankEnabled = rerankEnabled;
+        this.rerankWeight = rerankWeight;
+        this.sessionRerankWeight = sessionRerankWeight;
+        this.sessionMinCoverage = sessionMinCoverage;
+        this.cacheTtlMs = cacheTtlSeconds * 1000;
+        this.sessionCache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, CachedPool> eldest) {
+                return size() > cacheMaxEntries;
+            }
+        });
+    }
+
+    /**
+     * Returns the {@code topK} best movies for {@code query}. {@code embedding} is only subscribed to when the
+     * session's cached candidates cannot answer this query.
+     */
+    public Mono<HybridResult> retrieve(UUID sessionId, String query, int topK, Supplier<Mono<float[]>> embedding) {
+        String normalized = EmbeddingCache.normalize(query).toLowerCase(Locale.ROOT);
+        CachedPool cached = sessionCache.get(sessionId);
+        if (cached != null && cached.expiresAtMs() > System.currentTimeMillis() && cached.fused().size() >= topK) {
+            List<RagMovieDto> reused = reuse(cached, normalized, query);
+            if (reused != null) {
+                log.debug("[rag] Reusing {} cached candidates for session {}", cached.fused().size(), sessionId);
+                return Mono.just(new HybridResult(head(reused, topK), cached.lexicalHits(), cached.knnHits(), true));
+            }
+        }
+
+        int candidates = topK * candidateMultiplier;
+        Mono<List<RagMovieDto>> lexical = lexicalSearch(query, candidates)
+                .onErrorResume(e -> {
+                    log.warn("[rag] Lexical search failed, continuing with kNN only: {}", e.getMessage());
+                    return Mono.just(List.of());
+                });
+        Mono<List<RagMovieDto>> knn = embedding.get()
+                .flatMap(vector -> knnSearch(vector, candidates))
+                .onErrorResume(e -> {
+                    log.warn("[rag] kNN search failed, continuing with lexical only: {}", e.getMessage());
+                    return Mono.just(List.of());
+                });
+
+        return Mono.zip(lexical, knn)
+                .map(tuple -> {
+                    List<RagMovieDto> fused = fuse(List.of(tuple.getT1(), tuple.getT2()));
+                    List<RagMovieDto> pool = rerankEnabled ? rerank(query, fused, rerankWeight) : fused;
+                    int lexicalHits = tuple.getT1().size();
+                    int knnHits = tuple.getT2().size();
+                    if (!pool.isEmpty()) {
+                        sessionCache.put(sessionId, new CachedPool(normalized, fused, pool, lexicalHits, knnHits,
+                                System.currentTimeMillis() + cacheTtlMs));
+                    }
+                    return new HybridResult(head(pool, topK), lexicalHits, knnHits, false);
+                });
+    }
+
+    /**
+     * Ranks the session's cached candidates for a follow-up query, or returns {@code null} if they do not cover it.
+     */
+    private List<RagMovieDto> reuse(CachedPool cached, String normalized, String query) {
+        if (cached.query().equals(normalized)) {
+            return cached.ranked();
+        }
+        Set<String> terms = terms(query);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        double best = cached.fused().stream().mapToDouble(movie -> coverage(terms, movie)).max().orElse(0);
+        if (best < sessionMinCoverage) {
+            return null;
+        }
+        return rerank(query, cached.fused(), sessionRerankWeight);
+    }
+
+    private Mono<List<RagMovieDto>> lexicalSearch(String query, int size) {
+        SearchRequest request = SearchRequest.of(s -> s
+                .index(embeddingSelector.getMovieIndex())
+                .size(size)
+                .source(src -> src.filter(f -> f.excludes(embeddingSelector.getEmbeddingField())))
+                .query(q -> q.multiMatch(m -> m
+                        .query(query)
+                        .fields(List.of(LEXICAL_FIELDS))
+                        .type(TextQueryType.BestFields)))
+        );
+        return search(request);
+    }
+
+    private Mono<List<RagMovieDto>> knnSearch(float[] vector, int size) {
+        SearchRequest request = SearchRequest.of(s -> s
+                .index(embeddingSelector.getMovieIndex())
+                .size(size)
+                .source(src -> src.filter(f -> f.excludes(embeddingSelector.getEmbeddingField())))
+                .knn(k -> k
+                        .field(embeddingSelector.getEmbeddingField())
+                        .queryVector(new FloatArrayView(vector))
+                        .k(size)
+                        .numCandidates(size * 10))
+        );
+        return search(request);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Mono<List<RagMovieDto>> search(SearchRequest request) {
+        return Mono.fromFuture(() -> esClient.search(request, Map.class))
+                .map(resp -> {
+                    List<RagMovieDto> movies = new ArrayList<>(resp.hits().hits().size());
+                    for (Hit<Map> hit : resp.hits().hits()) {
+                        RagMovieDto dto = toRagMovieDto(hit.source(), hit.id());
+                        if (dto != null) {
+                            movies.add(dto);
+                        }
+                    }
+                    return movies;
+                });
+    }
+
+    /**
+     * Reciprocal-rank fusion: each list contributes {@code 1 / (RRF_K + rank)} per movie, so a movie ranked well by
+     * both retrievers beats one ranked first by only one of them.
+     */
+    static List<RagMovieDto> fuse(List<List<RagMovieDto>> rankings) {
+        Map<String, RagMovieDto> byId = new LinkedHashMap<>();
+        Map<String, Double> scores = new HashMap<>();
+        for (List<RagMovieDto> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                RagMovieDto movie = ranking.get(rank);
+                byId.putIfAbsent(movie.getId(), movie);
+                scores.merge(movie.getId(), 1.0 / (RRF_K + rank + 1), Double::sum);
+            }
+        }
+        return byId.values().stream()
+                .sorted(Comparator.comparingDouble((RagMovieDto m) -> scores.get(m.getId())).reversed())
+                .toList();
+    }
+
+    /**
+     * Blends the fused order with query-term coverage of the movie's text fields. The fused order is turned into
+     * a score by position so the two parts share a 0..1 scale.
+     */
+    static List<RagMovieDto> rerank(String query, List<RagMovieDto> fused, double weight) {
+        Set<String> terms = terms(query);
+        if (terms.isEmpty() || fused.size() < 2) {
+            return fused;
+        }
+        Map<String, Double> scores = new HashMap<>();
+        for (int i = 0; i < fused.size(); i++) {
+            RagMovieDto movie = fused.get(i);
+            double positional = 1.0 - (double) i / fused.size();
+            scores.put(movie.getId(), (1 - weight) * positional + weight * coverage(terms, movie));
+        }
+        return fused.stream()
+                .sorted(Comparator.comparingDouble((RagMovieDto m) -> scores.get(m.getId())).reversed())
+                .toList();
+    }
+
+    private static double coverage(Set<String> terms, RagMovieDto movie) {
+        double score = 3 * fieldCoverage(terms, movie.getTitle())
+                + 2 * fieldCoverage(terms, join(movie.getGenres()))
+                + 1.5 * fieldCoverage(terms, join(movie.getDirectors()) + " " + join(movie.getActors()))
+                + fieldCoverage(terms, movie.getDescription());
+        return score / 7.5;
+    }
+
+    private static double fieldCoverage(Set<String> queryTerms, String text) {
+        if (text == null || text.isBlank()) {
+            return 0;
+        }
+        Set<String> fieldTerms = terms(text);
+        long matched = queryTerms.stream().filter(fieldTerms::contains).count();
+        return (double) matched / queryTerms.size();
+    }
+
+    private static Set<String> terms(String text) {
+        if (text == null) {
+            return Set.of();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(t -> t.length() > 1)
+                .collect(Collectors.toSet());
+    }
+
+    private static String join(List<String> values) {
+        return values == null ? "" : String.join(" ", values);
+    }
+
+    private static List<RagMovieDto> head(List<RagMovieDto> pool, int topK) {
+        return pool.size() <= topK ? pool : pool.subList(0, topK);
+    }
+
+    private RagMovieDto toRagMovieDto(Map<String, Object> source, String hitId) {
+        if (source == null) {
+            return null;
+        }
+        try {
+            RagMovieDto dto = objectMapper.convertValue(source, RagMovieDto.class);
+            if (dto.getId() == null) {
+                dto.setId(hitId);
+            }
+            return dto;
+        } catch (Exception e) {
+            log.warn("[rag] Failed to map document to _RagMovieDto: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    public record HybridResult(List<RagMovieDto> movies, int lexicalHits, int knnHits, boolean cached) {
+    }
+
+    private record CachedPool(String query, List<RagMovieDto> fused, List<RagMovieDto> ranked,
+                              int lexicalHits, int knnHits, long expiresAtMs) {
+    }
+
+    /**
+     * Read-only {@code List<Float>} over the embedding, so the query vector is boxed lazily while the request is
+     * serialized instead of being copied into a new list first.
+     */
+    private static final class FloatArrayView extends AbstractList<Float> implements RandomAccess {
+        private final float[] values;
+
+        private FloatArrayView(float[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public Float get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+    }
+}
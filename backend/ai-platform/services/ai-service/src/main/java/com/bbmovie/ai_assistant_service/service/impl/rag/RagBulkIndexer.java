@@ -0,0 +1,167 @@
+package com.bbmovie.ai_assistant_service.service.impl.rag;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import com.bbmovie.ai_assistant_service.utils.log.RgbLogger;
+import com.bbmovie.ai_assistant_service.utils.log.RgbLoggerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects RAG documents (conversation fragments, messages with file content) and writes them to Elasticsearch
+ * with one {@code _bulk} request per batch instead of one {@code _index} call per document.
+ *
+ * <p>A batch is flushed when it reaches {@code ai.rag.bulk.max-actions} documents or
+ * {@code ai.rag.bulk.flush-interval-ms} after its first document, whichever comes first. The {@link Mono}
+ * returned by {@link #index} completes once the document's bulk item succeeded, so callers keep their
+ * "indexed, then audit" ordering.
+ *
+ * <p>Batches are only cut as fast as Elasticsearch drains them, and a failing batch only fails its own documents.
+ * Should the pipeline still terminate, it is started again on a fresh queue and the documents it still held are
+ * failed.
+ */
+@Component
+public class RagBulkIndexer {
+
+    private static final RgbLogger log = RgbLoggerFactory.getLogger(RagBulkIndexer.class);
+    private static final Duration EMIT_RETRY = Duration.ofMillis(200);
+
+    private final ElasticsearchAsyncClient esClient;
+    private final int maxActions;
+    private final Duration flushInterval;
+    private volatile Pipeline pipeline;
+    private volatile boolean stopping;
+
+    private final Counter indexed;
+    private final Counter failed;
+    private final DistributionSummary batchSize;
+
+    public RagBulkIndexer(
+            @Qualifier("elasticsearchAsyncClient") ElasticsearchAsyncClient esClient,
+            MeterRegistry meterRegistry,
+            @Value("${ai.rag.bulk.max-actions:200}") int maxActions,
+            @Value("${ai.rag.bulk.flush-interval-ms:500}") long flushIntervalMs
+    ) {
+        this.esClient = esClient;
+        this.maxActions = maxActions;
+        this.flushInterval = Duration.ofMillis(flushIntervalMs);
+        this.indexed = Counter.builder("ai.rag.bulk.indexed").register(meterRegistry);
+        this.failed = Counter.builder("ai.rag.bulk.failed").register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("ai.rag.bulk.batch.size").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        Pipeline started = new Pipeline(Sinks.many().unicast().onBackpressureBuffer(), ConcurrentHashMap.newKeySet());
+        pipeline = started;
+        started.queue().asFlux()
+                .bufferTimeout(maxActions, flushInterval, true)
+                .concatMap(this::flush)
+                .subscribe(null, error -> restart(started, error));
+    }
+
+    private void restart(Pipeline dead, Throwable error) {
+        if (!stopping) {
+            log.error("[rag] Bulk indexing pipeline terminated, restarting: {}", error.getMessage());
+            start();
+        }
+        // Documents buffered or in flight in the dead pipeline are never flushed; fail them so callers don't hang.
+        IllegalStateException lost = new IllegalStateException("Bulk indexing pipeline terminated", error);
+        int failedCount = 0;
+        for (Sinks.One<Void> done : dead.pending()) {
+            if (done.tryEmitError(lost).isSuccess()) {
+                failedCount++;
+            }
+        }
+        if (failedCount > 0) {
+            failed.increment(failedCount);
+            log.error("[rag] Failed {} documents of the terminated pipeline", failedCount);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        stopping = true;
+        // Completing the sink flushes whatever is still buffered before the pipeline ends.
+        pipeline.queue().emitComplete(Sinks.EmitFailureHandler.busyLooping(EMIT_RETRY));
+    }
+
+    /**
+     * Queues {@code document} for {@code index}. The returned Mono completes when it has been written.
+     */
+    public Mono<Void> index(String index, Map<String, Object> document) {
+        return Mono.defer(() -> {
+            Pipeline current = pipeline;
+            Sinks.One<Void> done = Sinks.one();
+            current.pending().add(done);
+            current.queue().emitNext(new PendingDocument(index, document, done), Sinks.EmitFailureHandler.busyLooping(EMIT_RETRY));
+            return done.asMono().doFinally(s -> current.pending().remove(done));
+        });
+    }
+
+    private Mono<Void> flush(List<PendingDocument> batch) {
+        if (batch.isEmpty()) {
+            return Mono.empty();
+        }
+        batchSize.record(batch.size());
+
+        // Deferred so that a document the client cannot serialize fails this batch, not the pipeline.
+        return Mono.defer(() -> {
+                    BulkRequest.Builder request = new BulkRequest.Builder();
+                    for (PendingDocument pending : batch) {
+                        request.operations(op -> op.index(idx -> idx
+                                .index(pending.index())
+                                .document(pending.document())));
+                    }
+                    BulkRequest bulk = request.build();
+                    return Mono.fromFuture(() -> esClient.bulk(bulk));
+                })
+                .doOnNext(response -> {
+                    List<BulkResponseItem> items = response.items();
+                    for (int i = 0; i < batch.size(); i++) {
+                        PendingDocument pending = batch.get(i);
+                        BulkResponseItem item = i < items.size() ? items.get(i) : null;
+                        if (item != null && item.error() == null) {
+                            indexed.increment();
+                            pending.done().tryEmitEmpty();
+                        } else {
+                            failed.increment();
+                            String reason = item == null ? "missing bulk item" : item.error().reason();
+                            pending.done().tryEmitError(new IllegalStateException("Bulk index failed: " + reason));
+                        }
+                    }
+                    log.debug("[rag] Bulk indexed {} documents (errors={})", batch.size(), response.errors());
+                })
+                .onErrorResume(e -> {
+                    log.error("[rag] Bulk request of {} documents failed: {}", batch.size(), e.getMessage());
+                    failed.increment(batch.size());
+                    batch.forEach(pending -> pending.done().tryEmitError(e));
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * A queue with its running flush loop, and the completion sinks of the documents it has not answered yet.
+     */
+    private record Pipeline(Sinks.Many<PendingDocument> queue, Set<Sinks.One<Void>> pending) {
+    }
+
+    private record PendingDocument(String index, Map<String, Object> document, Sinks.One<Void> done) {
+    }
+}
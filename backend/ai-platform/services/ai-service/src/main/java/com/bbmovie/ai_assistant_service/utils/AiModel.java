@@ -78,17 +78,20 @@ import lombok.Getter;
  */
 @Getter
 public enum AiModel {
-    QWEN3_MINI("qwen3:0.6b", "qwen_mini.txt"),
-    QWEN3("qwen3:1.7b", "qwen.txt"),
-    LLAMA3("llama3.2b:","llama.txt"),
-    HERMES("hermes3:3b", "hermes.txt"),
-    NEMOTRON_MINI("nemotron_mini:4b", "nemotron.txt");
+    QWEN3_MINI("qwen3:0.6b", "qwen_mini.txt", 32_768),
+    QWEN3("qwen3:1.7b", "qwen.txt", 32_768),
+    LLAMA3("llama3.2b:","llama.txt", 32_768),
+    HERMES("hermes3:3b", "hermes.txt", 32_768),
+    NEMOTRON_MINI("nemotron_mini:4b", "nemotron.txt", 4_096);
 
     private final String modelName;
     private final String personaPromptPath;
+    /** Context window (input + output tokens) we run the model with; capped at what fits in VRAM. */
+    private final int contextWindow;
 
-    AiModel(String modelName, String personaPromptPath) {
+    AiModel(String modelName, String personaPromptPath, int contextWindow) {
         this.modelName = modelName;
         this.personaPromptPath = personaPromptPath;
+        this.contextWindow = contextWindow;
     }
 }
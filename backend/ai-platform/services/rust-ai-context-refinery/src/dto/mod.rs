@@ -1,4 +1,3 @@
 pub mod response;
 pub mod request;
 pub mod batch_result;
-pub mod event;
@@ -14,6 +14,5 @@ pub mod text;
 pub mod vision;
 pub mod redis;
 pub mod nats;
-pub mod processor;
 
 
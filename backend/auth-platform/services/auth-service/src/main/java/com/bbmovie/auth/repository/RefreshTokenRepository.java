@@ -1,7 +1,9 @@
 package com.bbmovie.auth.repository;
 
+import com.bbmovie.auth.dto.DeviceInfo;
 import com.bbmovie.auth.entity.jose.RefreshToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -12,13 +14,30 @@ import java.util.UUID;
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
     void deleteAllByEmail(String email);
 
+    /**
+     * Single-statement delete; the derived {@link #deleteAllByEmail} loads and removes rows one by one.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("DELETE FROM RefreshToken r WHERE r.email = :email")
+    int bulkDeleteAllByEmail(@Param("email") String email);
+
     Optional<RefreshToken> findByEmailAndDeviceName(String email, String deviceName);
 
     List<RefreshToken> findAllByEmail(String email);
 
+    @Query("SELECT r.sid FROM RefreshToken r WHERE r.email = :email")
+    List<String> findAllSidsByEmail(@Param("email") String email);
+
     @Query("SELECT r FROM RefreshToken r WHERE r.email = :email AND r.revoked = false AND r.expiryDate > CURRENT_TIMESTAMP")
     List<RefreshToken> findAllValidByEmail(@Param("email") String email);
 
+    @Query("""
+            SELECT DISTINCT new com.bbmovie.auth.dto.DeviceInfo(r.deviceName, r.deviceIpAddress)
+            FROM RefreshToken r
+            WHERE r.email = :email AND r.revoked = false AND r.expiryDate > CURRENT_TIMESTAMP
+            """)
+    List<DeviceInfo> findAllValidDevicesByEmail(@Param("email") String email);
+
     RefreshToken findBySid(String sid);
 
     void deleteBySid(String sid);
@@ -5,6 +5,7 @@ import com.bbmovie.auth.security.jose.dto.TokenPair;
 import com.bbmovie.common.entity.JoseConstraint.JwtType;
 import org.springframework.security.core.Authentication;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -50,6 +51,8 @@ public interface JoseProvider {
 
     void addTokenToLogoutBlacklist(String sid);
 
+    void addTokensToLogoutBlacklist(Collection<String> sids);
+
     void removeFromLogoutBlacklist(String sid);
 
     boolean isTokenInABACBlacklist(String sid);
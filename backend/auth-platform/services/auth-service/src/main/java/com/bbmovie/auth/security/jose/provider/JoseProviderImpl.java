@@ -17,7 +17,10 @@ import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.lang.NonNull;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -422,6 +425,27 @@ public class JoseProviderImpl implements JoseProvider {
         redisTemplate.opsForValue().set(key, "", 15, TimeUnit.MINUTES);
     }
 
+    /**
+     * Blacklists many sessions in a single pipelined round trip, e.g. for "sign out everywhere".
+     */
+    @Override
+    public void addTokensToLogoutBlacklist(Collection<String> sids) {
+        if (sids.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined(new SessionCallback<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(@NonNull RedisOperations<K, V> operations) {
+                RedisOperations<Object, Object> ops = (RedisOperations<Object, Object>) operations;
+                for (String sid : sids) {
+                    ops.opsForValue().set(JWT_LOGOUT_BLACKLIST_PREFIX + sid, "", 15, TimeUnit.MINUTES);
+                }
+                return null;
+            }
+        });
+    }
+
     @Override
     public void removeFromLogoutBlacklist(String sid) {
         String key = JWT_LOGOUT_BLACKLIST_PREFIX + sid;
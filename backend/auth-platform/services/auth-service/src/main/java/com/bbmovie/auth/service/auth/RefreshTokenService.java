@@ -1,5 +1,6 @@
 package com.bbmovie.auth.service.auth;
 
+import com.bbmovie.auth.dto.DeviceInfo;
 import com.bbmovie.auth.entity.User;
 import com.bbmovie.auth.entity.jose.RefreshToken;
 import com.bbmovie.auth.exception.BlacklistedJwtTokenException;
@@ -8,6 +9,7 @@ import com.bbmovie.auth.exception.NoRefreshTokenException;
 import com.bbmovie.auth.exception.UserNotFoundException;
 import com.bbmovie.auth.repository.RefreshTokenRepository;
 import com.bbmovie.auth.security.jose.provider.JoseProvider;
+import com.bbmovie.auth.service.auth.session.SessionIndexService;
 import com.bbmovie.auth.service.auth.user.UserService;
 import jakarta.transaction.Transactional;
 import lombok.extern.log4j.Log4j2;
@@ -34,6 +36,7 @@ public class RefreshTokenService {
     private final JoseProvider joseProvider;
     private final RefreshTokenRepository refreshTokenRepository;
     private final UserService userService;
+    private final SessionIndexService sessionIndexService;
     private final RefreshTokenService selfProxy; // spring should solve this proxied self-reference instance
 
     @Autowired
@@ -41,22 +44,46 @@ public class RefreshTokenService {
             JoseProvider joseProvider,
             RefreshTokenRepository refreshTokenRepository,
             UserService userService,
+            SessionIndexService sessionIndexService,
             @Lazy RefreshTokenService selfProxy
     ) {
         this.joseProvider = joseProvider;
         this.refreshTokenRepository = refreshTokenRepository;
         this.userService = userService;
+        this.sessionIndexService = sessionIndexService;
         this.selfProxy = selfProxy;
     }
 
     @Transactional
     public void deleteByEmailAndSid(String email, String sid) {
         refreshTokenRepository.deleteByEmailAndSid(email, sid);
+        sessionIndexService.unregister(email, sid);
     }
 
     @Transactional
     public void deleteAllRefreshTokenByEmail(String email) {
-        refreshTokenRepository.deleteAllByEmail(email);
+        refreshTokenRepository.bulkDeleteAllByEmail(email);
+        sessionIndexService.clear(email);
+    }
+
+    /**
+     * Revokes every session of a user in one pass: the sids from the Redis session index and from the
+     * refresh-token table are merged, blacklisted in a single pipelined round trip, and the refresh tokens
+     * are removed with one bulk delete.
+     *
+     * @return the revoked session ids, so callers can propagate the logout
+     */
+    @Transactional
+    public Set<String> revokeAllSessions(String email) {
+        Set<String> sids = new HashSet<>(sessionIndexService.members(email));
+        sids.addAll(refreshTokenRepository.findAllSidsByEmail(email));
+        if (!sids.isEmpty()) {
+            joseProvider.addTokensToLogoutBlacklist(sids);
+        }
+        int deleted = refreshTokenRepository.bulkDeleteAllByEmail(email);
+        sessionIndexService.clear(email);
+        log.info("Revoked {} sessions ({} refresh tokens) for user {}", sids.size(), deleted, email);
+        return sids;
     }
 
     public String refreshAccessToken(String oldAccessToken) {
@@ -179,20 +206,18 @@ public class RefreshTokenService {
         );
 
         refreshTokenRepository.save(token);
+        sessionIndexService.register(email, sid);
     }
 
     public List<RefreshToken> findAllValidByEmail(String email) {
         return refreshTokenRepository.findAllValidByEmail(email);
     }
 
-    public void deleteRefreshToken(String sid) {
-        refreshTokenRepository.deleteBySid(sid);
+    public List<DeviceInfo> findAllValidDevicesByEmail(String email) {
+        return refreshTokenRepository.findAllValidDevicesByEmail(email);
     }
 
-    public List<String> getAllSessionsByEmail(String email) {
-        return refreshTokenRepository.findAllByEmail(email)
-                .stream()
-                .map(RefreshToken::getSid)
-                .toList();
+    public void deleteRefreshToken(String sid) {
+        refreshTokenRepository.deleteBySid(sid);
     }
 }
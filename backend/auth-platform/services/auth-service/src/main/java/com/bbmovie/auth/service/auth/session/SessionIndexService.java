@@ -0,0 +1,73 @@
+package com.bbmovie.auth.service.auth.session;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Per-user index of issued session ids ({@code sid}), kept as a Redis set under {@code auth:sessions:<email>}.
+ * <p>
+ * It lets "sign out everywhere" find every sid without scanning refresh-token rows, including sids whose
+ * refresh token was already rotated away. Entries may outlive their session; blacklisting a stale sid is harmless.
+ * Index failures are logged and never fail a login or logout.
+ */
+@Log4j2
+@Service
+public class SessionIndexService {
+
+    private static final String SESSION_INDEX_PREFIX = "auth:sessions:";
+
+    private final RedisTemplate<Object, Object> redisTemplate;
+    private final Duration ttl;
+
+    public SessionIndexService(
+            RedisTemplate<Object, Object> redisTemplate,
+            @Value("${app.jose.expiration.refresh-token}") long refreshTokenExpirationInMs) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = Duration.ofMillis(refreshTokenExpirationInMs);
+    }
+
+    public void register(String email, String sid) {
+        try {
+            String key = SESSION_INDEX_PREFIX + email;
+            redisTemplate.opsForSet().add(key, sid);
+            redisTemplate.expire(key, ttl);
+        } catch (Exception e) {
+            log.warn("Failed to index session {} for user {}: {}", sid, email, e.getMessage());
+        }
+    }
+
+    public void unregister(String email, String sid) {
+        try {
+            redisTemplate.opsForSet().remove(SESSION_INDEX_PREFIX + email, sid);
+        } catch (Exception e) {
+            log.warn("Failed to remove session {} from index of user {}: {}", sid, email, e.getMessage());
+        }
+    }
+
+    public Set<String> members(String email) {
+        try {
+            Set<Object> members = redisTemplate.opsForSet().members(SESSION_INDEX_PREFIX + email);
+            if (members == null) {
+                return Set.of();
+            }
+            return members.stream().map(Object::toString).collect(Collectors.toSet());
+        } catch (Exception e) {
+            log.warn("Failed to read session index of user {}: {}", email, e.getMessage());
+            return Set.of();
+        }
+    }
+
+    public void clear(String email) {
+        try {
+            redisTemplate.delete(SESSION_INDEX_PREFIX + email);
+        } catch (Exception e) {
+            log.warn("Failed to clear session index of user {}: {}", email, e.getMessage());
+        }
+    }
+}
@@ -24,7 +24,6 @@ import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.log4j.Log4j2;
-import nl.basjes.parse.useragent.UserAgent;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -231,8 +230,7 @@ public class SessionServiceImpl implements SessionService {
     @Override
     public List<LoggedInDeviceResponse> getAllLoggedInDevices(String accessToken, HttpServletRequest request) {
         String userAgentString = request.getHeader("User-Agent");
-        UserAgent currentAgent = userAgentAnalyzer.parse(userAgentString);
-        String currentDeviceName = currentAgent.getValue("DeviceName");
+        String currentDeviceName = userAgentAnalyzer.parseCached(userAgentString).deviceName();
         String currentIp = IpAddressUtils.getClientIp(request);
 
         String email = joseProvider.getUsernameFromToken(accessToken);
@@ -368,18 +366,17 @@ public class SessionServiceImpl implements SessionService {
      * <b>WARNING: </b> Potential for incorrect session revocation or security risks (e.g., revoking another user’s session).
      * <p>
      * Revokes all active tokens associated with a specific user's email address across all devices.
-     * This process includes deleting all refresh tokens for the user and blacklisting associated session tokens.
-     * Additionally, an event is produced to notify that the tokens have been invalidated.
+     * All session ids are blacklisted in one pipelined batch and the refresh tokens are removed with a single
+     * bulk delete; the logout events are then published together.
      *
      * @param email the email address of the user whose tokens need to be revoked
      */
     private void revokeAllTokensFromAllDevices(String email) {
-        List<String> allSessions = refreshTokenService.getAllSessionsByEmail(email);
-        refreshTokenService.deleteAllRefreshTokenByEmail(email);
-        for (String sid : allSessions) {
-            joseProvider.addTokenToLogoutBlacklist(sid);
-            logoutEventProducer.send(JWT_LOGOUT_BLACKLIST_PREFIX + sid);
-        }
+        Set<String> allSessions = refreshTokenService.revokeAllSessions(email);
+        List<String> logoutKeys = allSessions.stream()
+                .map(sid -> JWT_LOGOUT_BLACKLIST_PREFIX + sid)
+                .toList();
+        logoutEventProducer.sendAll(logoutKeys);
     }
 
     /**
@@ -399,11 +396,7 @@ public class SessionServiceImpl implements SessionService {
      * @return A list of {@code DeviceInfo} objects representing the user's logged-in devices.
      */
     private List<DeviceInfo> getAllLoggedInDevicesRaw(String email) {
-        List<RefreshToken> tokens = refreshTokenService.findAllValidByEmail(email);
-        return tokens.stream()
-                .map(token -> new DeviceInfo(token.getDeviceName(), token.getDeviceIpAddress()))
-                .distinct()
-                .toList();
+        return refreshTokenService.findAllValidDevicesByEmail(email);
     }
 
     /**
@@ -1,15 +1,23 @@
 package com.bbmovie.auth.service.nats;
 
 import io.nats.client.JetStream;
+import io.nats.client.api.PublishAck;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @Log4j2
 @Service
 public class LogoutEventProducer extends AbstractNatsJetStreamService {
 
+    private static final long BATCH_ACK_TIMEOUT_SECONDS = 5;
+
     public void send(String key) {
         JetStream jetStream = getJetStream();
         if (jetStream == null) {
@@ -24,4 +32,37 @@ public class LogoutEventProducer extends AbstractNatsJetStreamService {
             log.error("Failed to publish logout event with key: {}", key, e);
         }
     }
+
+    /**
+     * Publishes a batch of logout keys asynchronously and waits once for all acks,
+     * instead of one blocking round trip per key.
+     */
+    public void sendAll(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        JetStream jetStream = getJetStream();
+        if (jetStream == null) {
+            log.warn("NATS JetStream not available. Skipping {} logout event publications", keys.size());
+            return;
+        }
+        List<CompletableFuture<PublishAck>> acks = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            try {
+                acks.add(jetStream.publishAsync("auth.logout", key.getBytes(StandardCharsets.UTF_8)));
+            } catch (Exception e) {
+                log.error("Failed to publish logout event with key: {}", key, e);
+            }
+        }
+        try {
+            CompletableFuture.allOf(acks.toArray(CompletableFuture[]::new))
+                    .get(BATCH_ACK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            log.info("Published {} logout events to auth.logout", acks.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while waiting for logout event acks", e);
+        } catch (Exception e) {
+            log.error("Failed to confirm {} logout events", acks.size(), e);
+        }
+    }
 }
@@ -2,7 +2,6 @@ package com.bbmovie.auth.utils;
 
 import com.bbmovie.auth.dto.response.UserAgentResponse;
 import jakarta.servlet.http.HttpServletRequest;
-import nl.basjes.parse.useragent.UserAgent;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -16,14 +15,12 @@ public class DeviceInfoUtils {
 
     public UserAgentResponse extractUserAgentInfo(HttpServletRequest request) {
         String userAgentString = request.getHeader("User-Agent");
-        UserAgent agent = userAgentAnalyzer.parse(userAgentString);
+        ParsedUserAgent agent = userAgentAnalyzer.parseCached(userAgentString);
 
-        String deviceName = agent.getValue("DeviceName");
         String deviceIpAddress = IpAddressUtils.getClientIp(request);
-        String deviceOs = agent.getValue("OperatingSystemName");
-        String browser = agent.getValue("AgentName");
-        String browserVersion = agent.getValue("AgentVersion");
 
-        return new UserAgentResponse(deviceName, deviceIpAddress, deviceOs, browser, browserVersion);
+        return new UserAgentResponse(
+                agent.deviceName(), deviceIpAddress, agent.deviceOs(), agent.browser(), agent.browserVersion()
+        );
     }
 }
@@ -0,0 +1,11 @@
+package com.bbmovie.auth.utils;
+
+/**
+ * The handful of user-agent fields the auth service needs, extracted once per distinct UA string.
+ */
+public record ParsedUserAgent(
+        String deviceName,
+        String deviceOs,
+        String browser,
+        String browserVersion
+) {}
@@ -2,17 +2,25 @@ package com.bbmovie.auth.utils;
 
 import nl.basjes.parse.useragent.UserAgent;
 import nl.basjes.parse.useragent.UserAgentAnalyzer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @Component
 public class UserAgentAnalyzerUtils {
 
+    private static final String UNKNOWN_USER_AGENT = "";
+
     private final UserAgentAnalyzer analyzer;
+    private final Map<String, ParsedUserAgent> parsedCache;
 
-    public UserAgentAnalyzerUtils() {
+    public UserAgentAnalyzerUtils(@Value("${app.user-agent.cache-size:10000}") int cacheSize) {
         this.analyzer = UserAgentAnalyzer.newBuilder()
                 .hideMatcherLoadStats()
-                .withCache(10000)
+                .withCache(cacheSize)
                 .withField("DeviceName")
                 .withField("DeviceBrand")
                 .withField("OperatingSystemName")
@@ -20,10 +28,36 @@ public class UserAgentAnalyzerUtils {
                 .withField("AgentName")
                 .withField("AgentVersion")
                 .build();
+        this.parsedCache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ParsedUserAgent> eldest) {
+                return size() > cacheSize;
+            }
+        });
     }
 
     public UserAgent parse(String userAgent) {
         return analyzer.parse(userAgent);
     }
-}
 
+    /**
+     * Returns the extracted device/browser fields for a UA string, parsing each distinct string only once
+     * while it stays in the bounded LRU cache.
+     */
+    public ParsedUserAgent parseCached(String userAgent) {
+        String key = userAgent != null ? userAgent : UNKNOWN_USER_AGENT;
+        ParsedUserAgent cached = parsedCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        UserAgent agent = analyzer.parse(userAgent);
+        ParsedUserAgent parsed = new ParsedUserAgent(
+                agent.getValue("DeviceName"),
+                agent.getValue("OperatingSystemName"),
+                agent.getValue("AgentName"),
+                agent.getValue("AgentVersion")
+        );
+        parsedCache.put(key, parsed);
+        return parsed;
+    }
+}
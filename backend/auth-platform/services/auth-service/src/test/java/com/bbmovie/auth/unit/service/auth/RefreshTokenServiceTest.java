@@ -0,0 +1,90 @@
+package com.bbmovie.auth.unit.service.auth;
+
+import com.bbmovie.auth.repository.RefreshTokenRepository;
+import com.bbmovie.auth.security.jose.provider.JoseProvider;
+import com.bbmovie.auth.service.auth.RefreshTokenService;
+import com.bbmovie.auth.service.auth.session.SessionIndexService;
+import com.bbmovie.auth.service.auth.user.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    private static final String EMAIL = "test@example.com";
+
+    @Mock
+    private JoseProvider joseProvider;
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private SessionIndexService sessionIndexService;
+
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenService = new RefreshTokenService(
+                joseProvider,
+                refreshTokenRepository,
+                userService,
+                sessionIndexService,
+                null
+        );
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void revokeAllSessions_ShouldBlacklistSidsFromIndexAndTableInOneCall() {
+        // Given: one sid only in the Redis index (its refresh token was rotated away), one only in the table
+        when(sessionIndexService.members(EMAIL)).thenReturn(Set.of("sid-rotated", "sid-shared"));
+        when(refreshTokenRepository.findAllSidsByEmail(EMAIL)).thenReturn(List.of("sid-shared", "sid-db-only"));
+        when(refreshTokenRepository.bulkDeleteAllByEmail(EMAIL)).thenReturn(2);
+
+        // When
+        Set<String> revoked = refreshTokenService.revokeAllSessions(EMAIL);
+
+        // Then
+        assertEquals(Set.of("sid-rotated", "sid-shared", "sid-db-only"), revoked);
+        ArgumentCaptor<Collection<String>> blacklisted = ArgumentCaptor.forClass(Collection.class);
+        verify(joseProvider, times(1)).addTokensToLogoutBlacklist(blacklisted.capture());
+        assertEquals(revoked, Set.copyOf(blacklisted.getValue()));
+        verify(joseProvider, never()).addTokenToLogoutBlacklist(any());
+        verify(refreshTokenRepository).bulkDeleteAllByEmail(EMAIL);
+        verify(sessionIndexService).clear(EMAIL);
+    }
+
+    @Test
+    void revokeAllSessions_WhenNoSessions_ShouldSkipBlacklist() {
+        // Given
+        when(sessionIndexService.members(EMAIL)).thenReturn(Set.of());
+        when(refreshTokenRepository.findAllSidsByEmail(EMAIL)).thenReturn(List.of());
+
+        // When
+        Set<String> revoked = refreshTokenService.revokeAllSessions(EMAIL);
+
+        // Then
+        assertTrue(revoked.isEmpty());
+        verify(joseProvider, never()).addTokensToLogoutBlacklist(any());
+        verify(refreshTokenRepository).bulkDeleteAllByEmail(EMAIL);
+        verify(sessionIndexService).clear(EMAIL);
+    }
+}
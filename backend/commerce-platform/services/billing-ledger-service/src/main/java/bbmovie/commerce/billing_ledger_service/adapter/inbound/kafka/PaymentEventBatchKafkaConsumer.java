@@ -0,0 +1,87 @@
+package bbmovie.commerce.billing_ledger_service.adapter.inbound.kafka;
+
+import bbmovie.commerce.billing_ledger_service.application.dto.InboundPaymentEvent;
+import bbmovie.commerce.billing_ledger_service.application.dto.PaymentEventEnvelope;
+import bbmovie.commerce.billing_ledger_service.application.service.PaymentLedgerIngestionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batch variant of {@link PaymentEventKafkaConsumer}: one poll is recorded in a single transaction.
+ * If the batch transaction fails, records are replayed one by one so the error handler can commit
+ * everything before the offending record and retry or dead-letter only that one.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.kafka.consumer.batch-enabled", havingValue = "true", matchIfMissing = true)
+public class PaymentEventBatchKafkaConsumer {
+
+    private final PaymentLedgerIngestionService ingestionService;
+    private final ObjectMapper objectMapper;
+
+    @KafkaListener(
+            topics = "${app.kafka.topic.payment-events}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "batchKafkaListenerContainerFactory"
+    )
+    public void consume(List<ConsumerRecord<String, String>> records) {
+        List<InboundPaymentEvent> events = new ArrayList<>(records.size());
+        RuntimeException parseFailure = null;
+        for (ConsumerRecord<String, String> record : records) {
+            try {
+                PaymentEventEnvelope envelope = objectMapper.readValue(record.value(), PaymentEventEnvelope.class);
+                String eventId = PaymentEventKafkaConsumer.resolveEventId(
+                        header(record, "eventId"), header(record, "ce_id"), record.value());
+                events.add(new InboundPaymentEvent(eventId, envelope));
+            } catch (Exception ex) {
+                log.error("Unreadable payment event: key={}, offset={}", record.key(), record.offset(), ex);
+                parseFailure = new BatchListenerFailedException("Unable to read payment event", ex, events.size());
+                break;
+            }
+        }
+
+        ingest(events, records);
+        if (parseFailure != null) {
+            throw parseFailure;
+        }
+    }
+
+    private void ingest(List<InboundPaymentEvent> events, List<ConsumerRecord<String, String>> records) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            int recorded = ingestionService.ingestBatch(events);
+            log.info("Payment event batch ingested: records={}, recorded={}, lastOffset={}",
+                    events.size(), recorded, records.get(events.size() - 1).offset());
+        } catch (Exception batchEx) {
+            log.warn("Payment event batch failed, falling back to per-record ingestion: records={}",
+                    events.size(), batchEx);
+            for (int i = 0; i < events.size(); i++) {
+                InboundPaymentEvent event = events.get(i);
+                try {
+                    ingestionService.ingest(event.eventId(), event.envelope());
+                } catch (Exception ex) {
+                    throw new BatchListenerFailedException("Unable to process payment event", ex, i);
+                }
+            }
+        }
+    }
+
+    private String header(ConsumerRecord<String, String> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+}
@@ -5,6 +5,7 @@ import bbmovie.commerce.billing_ledger_service.application.service.PaymentLedger
 import bbmovie.commerce.commerce_common.crypto.Sha256Hasher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
@@ -14,6 +15,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 @Slf4j
 @Component
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.kafka.consumer.batch-enabled", havingValue = "false")
 public class PaymentEventKafkaConsumer {
 
     private final PaymentLedgerIngestionService ingestionService;
@@ -48,7 +50,7 @@ public class PaymentEventKafkaConsumer {
         }
     }
 
-    private String resolveEventId(String eventIdHeader, String cloudEventId, String rawEvent) {
+    static String resolveEventId(String eventIdHeader, String cloudEventId, String rawEvent) {
         if (eventIdHeader != null && !eventIdHeader.isBlank()) {
             return eventIdHeader;
         }
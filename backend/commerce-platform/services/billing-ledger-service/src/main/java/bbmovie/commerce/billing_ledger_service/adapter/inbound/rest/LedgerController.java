@@ -19,6 +19,12 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.security.access.prepost.PreAuthorize;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.YearMonth;
@@ -30,6 +36,8 @@ import java.util.List;
 @RequestMapping("/api/v1/ledger")
 public class LedgerController {
 
+    private static final int CSV_BUFFER_SIZE = 64 * 1024;
+
     private final LedgerQueryService ledgerQueryService;
     private final SimpleLedgerPdfGenerator pdfGenerator;
 
@@ -66,14 +74,22 @@ public class LedgerController {
 
     @GetMapping("/user/{userId}")
     @PreAuthorize("hasAnyRole('ADMIN','SUPPORT')")
-    public LedgerEntriesResponse getByUserId(@PathVariable String userId) {
-        return ledgerQueryService.getByUserId(userId);
+    public LedgerEntriesResponse getByUserId(
+            @PathVariable String userId,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "100") int limit
+    ) {
+        return ledgerQueryService.getByUserId(userId, cursor, limit);
     }
 
     @GetMapping("/subscription/{subscriptionId}")
     @PreAuthorize("hasAnyRole('ADMIN','SUPPORT')")
-    public LedgerEntriesResponse getBySubscriptionId(@PathVariable String subscriptionId) {
-        return ledgerQueryService.getBySubscriptionId(subscriptionId);
+    public LedgerEntriesResponse getBySubscriptionId(
+            @PathVariable String subscriptionId,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "100") int limit
+    ) {
+        return ledgerQueryService.getBySubscriptionId(subscriptionId, cursor, limit);
     }
 
     @GetMapping("/search")
@@ -98,8 +114,7 @@ public class LedgerController {
             @RequestParam(name = "month") String month
     ) {
         YearMonth yearMonth = parseYearMonth(month);
-        List<LedgerEntryResponse> entries = ledgerQueryService.getEntriesForMonth(yearMonth);
-        StreamingResponseBody body = outputStream -> writeCsv(entries, outputStream);
+        StreamingResponseBody body = outputStream -> writeCsv(yearMonth, outputStream);
         return ResponseEntity.ok()
                 .header(
                         HttpHeaders.CONTENT_DISPOSITION,
@@ -112,6 +127,25 @@ public class LedgerController {
                 .body(body);
     }
 
+    @GetMapping("/export/pdf")
+    @PreAuthorize("hasAnyRole('ADMIN','FINANCE')")
+    public ResponseEntity<StreamingResponseBody> exportPdf(
+            @RequestParam(name = "month") String month
+    ) {
+        YearMonth yearMonth = parseYearMonth(month);
+        StreamingResponseBody body = outputStream -> writePdf(yearMonth, outputStream);
+        return ResponseEntity.ok()
+                .header(
+                        HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment()
+                                .filename("ledger-" + month + ".pdf")
+                                .build()
+                                .toString()
+                )
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(body);
+    }
+
     private Instant parseInstantOrNull(String value, String fieldName) {
         if (value == null || value.isBlank()) {
             return null;
@@ -131,9 +165,10 @@ public class LedgerController {
         }
     }
 
-    private void writeCsv(List<LedgerEntryResponse> entries, java.io.OutputStream outputStream) throws java.io.IOException {
-        outputStream.write("id,paymentId,eventId,entryType,provider,status,amount,currency,externalReferenceId,userId,userEmail,purpose,subscriptionId,subscriptionCampaignId,occurredAt\n".getBytes(StandardCharsets.UTF_8));
-        for (LedgerEntryResponse entry : entries) {
+    private void writeCsv(YearMonth month, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), CSV_BUFFER_SIZE);
+        writer.write("id,paymentId,eventId,entryType,provider,status,amount,currency,externalReferenceId,userId,userEmail,purpose,subscriptionId,subscriptionCampaignId,occurredAt\n");
+        ledgerQueryService.streamEntriesForMonth(month, entry -> {
             String line = csv(entry.id())
                     + "," + csv(entry.paymentId())
                     + "," + csv(entry.eventId())
@@ -150,7 +185,26 @@ public class LedgerController {
                     + "," + csv(entry.subscriptionCampaignId())
                     + "," + csv(entry.occurredAt())
                     + "\n";
-            outputStream.write(line.getBytes(StandardCharsets.UTF_8));
+            try {
+                writer.write(line);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        writer.flush();
+    }
+
+    private void writePdf(YearMonth month, OutputStream outputStream) throws IOException {
+        try (SimpleLedgerPdfGenerator.LedgerPdfWriter writer = pdfGenerator.openMonthReport(month)) {
+            ledgerQueryService.streamEntriesForMonth(month, entry -> {
+                try {
+                    writer.writeEntry(entry);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            writer.writeLine("Total entries: " + writer.entries());
+            writer.saveTo(outputStream);
         }
         outputStream.flush();
     }
@@ -5,6 +5,7 @@ import java.util.List;
 public record LedgerEntriesResponse(
         String query,
         int totalEntries,
-        List<LedgerEntryResponse> entries
+        List<LedgerEntryResponse> entries,
+        String nextCursor
 ) {
 }
@@ -0,0 +1,7 @@
+package bbmovie.commerce.billing_ledger_service.application.dto;
+
+public record InboundPaymentEvent(
+        String eventId,
+        PaymentEventEnvelope envelope
+) {
+}
@@ -0,0 +1,33 @@
+package bbmovie.commerce.billing_ledger_service.application.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Keyset position in a ledger listing ordered by {@code (occurredAt desc, id desc)}: the next page starts
+ * strictly after this entry. Clients only see the opaque URL-safe token.
+ */
+public record LedgerCursor(Instant occurredAt, long id) {
+
+    public String encode() {
+        String raw = occurredAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns {@code null} for a missing token, i.e. the first page.
+     */
+    public static LedgerCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new LedgerCursor(Instant.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid cursor token.");
+        }
+    }
+}
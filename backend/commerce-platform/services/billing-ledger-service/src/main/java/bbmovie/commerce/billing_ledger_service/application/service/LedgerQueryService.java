@@ -4,19 +4,24 @@ import bbmovie.commerce.billing_ledger_service.adapter.inbound.rest.dto.Dashboar
 import bbmovie.commerce.billing_ledger_service.adapter.inbound.rest.dto.LedgerEntriesResponse;
 import bbmovie.commerce.billing_ledger_service.adapter.inbound.rest.dto.LedgerEntryResponse;
 import bbmovie.commerce.billing_ledger_service.adapter.inbound.rest.dto.LedgerTimelineResponse;
+import bbmovie.commerce.billing_ledger_service.application.dto.LedgerCursor;
 import bbmovie.commerce.billing_ledger_service.infrastructure.persistence.entity.LedgerEntryEntity;
+import bbmovie.commerce.billing_ledger_service.infrastructure.persistence.jdbc.LedgerExportReader;
 import bbmovie.commerce.billing_ledger_service.infrastructure.persistence.repo.LedgerEntryRepository;
 import bbmovie.commerce.billing_ledger_service.infrastructure.persistence.repo.PaymentEventInboxRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.time.YearMonth;
+import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -24,6 +29,7 @@ public class LedgerQueryService {
 
     private final LedgerEntryRepository ledgerEntryRepository;
     private final PaymentEventInboxRepository paymentEventInboxRepository;
+    private final LedgerExportReader ledgerExportReader;
 
     public LedgerTimelineResponse getTimeline(String paymentId) {
         List<LedgerEntryResponse> entries = ledgerEntryRepository.findByPaymentIdOrderByOccurredAtAscIdAsc(paymentId)
@@ -59,20 +65,24 @@ public class LedgerQueryService {
                 .toList();
     }
 
-    public LedgerEntriesResponse getByUserId(String userId) {
-        List<LedgerEntryResponse> entries = ledgerEntryRepository.findByUserIdOrderByOccurredAtDescIdDesc(userId)
-                .stream()
-                .map(this::toResponse)
-                .toList();
-        return new LedgerEntriesResponse("userId=" + userId, entries.size(), entries);
+    public LedgerEntriesResponse getByUserId(String userId, String cursor, int limit) {
+        int safeLimit = pageLimit(limit);
+        LedgerCursor after = LedgerCursor.decode(cursor);
+        Pageable page = PageRequest.of(0, safeLimit + 1);
+        List<LedgerEntryEntity> rows = after == null
+                ? ledgerEntryRepository.findByUserIdOrderByOccurredAtDescIdDesc(userId, page)
+                : ledgerEntryRepository.findUserPageAfter(userId, after.occurredAt(), after.id(), page);
+        return toPage("userId=" + userId, rows, safeLimit);
     }
 
-    public LedgerEntriesResponse getBySubscriptionId(String subscriptionId) {
-        List<LedgerEntryResponse> entries = ledgerEntryRepository.findBySubscriptionIdOrderByOccurredAtDescIdDesc(subscriptionId)
-                .stream()
-                .map(this::toResponse)
-                .toList();
-        return new LedgerEntriesResponse("subscriptionId=" + subscriptionId, entries.size(), entries);
+    public LedgerEntriesResponse getBySubscriptionId(String subscriptionId, String cursor, int limit) {
+        int safeLimit = pageLimit(limit);
+        LedgerCursor after = LedgerCursor.decode(cursor);
+        Pageable page = PageRequest.of(0, safeLimit + 1);
+        List<LedgerEntryEntity> rows = after == null
+                ? ledgerEntryRepository.findBySubscriptionIdOrderByOccurredAtDescIdDesc(subscriptionId, page)
+                : ledgerEntryRepository.findSubscriptionPageAfter(subscriptionId, after.occurredAt(), after.id(), page);
+        return toPage("subscriptionId=" + subscriptionId, rows, safeLimit);
     }
 
     public LedgerEntriesResponse search(
@@ -84,7 +94,7 @@ public class LedgerQueryService {
             Instant to,
             int limit
     ) {
-        int safeLimit = Math.max(1, Math.min(limit, 500));
+        int safeLimit = pageLimit(limit);
         List<LedgerEntryResponse> entries = ledgerEntryRepository.search(
                         blankToNull(provider),
                         blankToNull(status),
@@ -101,16 +111,35 @@ public class LedgerQueryService {
         String query = "provider=%s,status=%s,userId=%s,subscriptionId=%s,from=%s,to=%s,limit=%d".formatted(
                 provider, status, userId, subscriptionId, from, to, safeLimit
         );
-        return new LedgerEntriesResponse(query, entries.size(), entries);
+        return new LedgerEntriesResponse(query, entries.size(), entries, null);
     }
 
-    public List<LedgerEntryResponse> getEntriesForMonth(YearMonth month) {
-        Instant from = month.atDay(1).atStartOfDay().toInstant(java.time.ZoneOffset.UTC);
-        Instant to = month.plusMonths(1).atDay(1).atStartOfDay().toInstant(java.time.ZoneOffset.UTC).minusMillis(1);
-        return ledgerEntryRepository.findByOccurredAtBetweenOrderByOccurredAtAscIdAsc(from, to)
-                .stream()
+    /**
+     * Streams the month's entries in {@code (occurredAt, id)} order straight from a database cursor;
+     * nothing is collected, so the sink should write each entry out as it arrives.
+     */
+    public void streamEntriesForMonth(YearMonth month, Consumer<LedgerEntryResponse> sink) {
+        Instant from = month.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        Instant to = month.plusMonths(1).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        ledgerExportReader.streamRange(from, to, entity -> sink.accept(toResponse(entity)));
+    }
+
+    private LedgerEntriesResponse toPage(String query, List<LedgerEntryEntity> rows, int limit) {
+        boolean hasMore = rows.size() > limit;
+        List<LedgerEntryEntity> pageRows = hasMore ? rows.subList(0, limit) : rows;
+        List<LedgerEntryResponse> entries = pageRows.stream()
                 .map(this::toResponse)
                 .toList();
+        String nextCursor = null;
+        if (hasMore) {
+            LedgerEntryEntity last = pageRows.getLast();
+            nextCursor = new LedgerCursor(last.getOccurredAt(), last.getId()).encode();
+        }
+        return new LedgerEntriesResponse(query, entries.size(), entries, nextCursor);
+    }
+
+    private int pageLimit(int limit) {
+        return Math.max(1, Math.min(limit, 500));
     }
 
     private LedgerEntryResponse toResponse(LedgerEntryEntity entity) {
@@ -1,9 +1,11 @@
 package bbmovie.commerce.billing_ledger_service.application.service;
 
+import bbmovie.commerce.billing_ledger_service.application.dto.InboundPaymentEvent;
 import bbmovie.commerce.billing_ledger_service.application.dto.PaymentEventEnvelope;
 import bbmovie.commerce.billing_ledger_service.domain.LedgerEntryType;
 import bbmovie.commerce.billing_ledger_service.infrastructure.persistence.entity.LedgerEntryEntity;
 import bbmovie.commerce.billing_ledger_service.infrastructure.persistence.entity.PaymentEventInboxEntity;
+import bbmovie.commerce.billing_ledger_service.infrastructure.persistence.jdbc.LedgerBatchWriter;
 import bbmovie.commerce.billing_ledger_service.infrastructure.persistence.repo.LedgerEntryRepository;
 import bbmovie.commerce.billing_ledger_service.infrastructure.persistence.repo.PaymentEventInboxRepository;
 import bbmovie.commerce.commerce_contracts.contracts.payment.PaymentEventTypes;
@@ -15,7 +17,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -24,21 +31,61 @@ public class PaymentLedgerIngestionService {
 
     private final PaymentEventInboxRepository inboxRepository;
     private final LedgerEntryRepository ledgerEntryRepository;
+    private final LedgerBatchWriter ledgerBatchWriter;
     private final ObjectMapper objectMapper;
 
     @Transactional
     public void ingest(String eventId, PaymentEventEnvelope envelope) {
+        validate(eventId, envelope);
+        if (inboxRepository.existsByEventId(eventId)) {
+            log.info("Skipping duplicated payment event: eventId={}", eventId);
+            return;
+        }
+
+        ledgerEntryRepository.save(toLedgerEntry(eventId, envelope));
+        inboxRepository.save(toInbox(eventId, envelope));
+    }
+
+    /**
+     * Records a poll's worth of events in one transaction: one inbox {@code IN} lookup for deduplication
+     * (duplicates inside the batch are dropped too), then ledger entries and inbox rows as two JDBC batches.
+     *
+     * @return the number of events recorded
+     */
+    @Transactional
+    public int ingestBatch(List<InboundPaymentEvent> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        events.forEach(event -> validate(event.eventId(), event.envelope()));
+
+        Set<String> eventIds = events.stream().map(InboundPaymentEvent::eventId).collect(Collectors.toSet());
+        Set<String> seen = new HashSet<>(inboxRepository.findExistingEventIds(eventIds));
+        List<LedgerEntryEntity> entries = new ArrayList<>(events.size());
+        List<PaymentEventInboxEntity> inboxRows = new ArrayList<>(events.size());
+        for (InboundPaymentEvent event : events) {
+            if (!seen.add(event.eventId())) {
+                log.debug("Skipping duplicated payment event in batch: eventId={}", event.eventId());
+                continue;
+            }
+            entries.add(toLedgerEntry(event.eventId(), event.envelope()));
+            inboxRows.add(toInbox(event.eventId(), event.envelope()));
+        }
+        ledgerBatchWriter.insertEntries(entries);
+        ledgerBatchWriter.insertInbox(inboxRows);
+        return entries.size();
+    }
+
+    private void validate(String eventId, PaymentEventEnvelope envelope) {
         if (eventId == null || eventId.isBlank()) {
             throw new IllegalArgumentException("eventId is required");
         }
         if (envelope == null || envelope.eventType() == null || envelope.paymentId() == null) {
             throw new IllegalArgumentException("event payload is invalid");
         }
-        if (inboxRepository.existsByEventId(eventId)) {
-            log.info("Skipping duplicated payment event: eventId={}", eventId);
-            return;
-        }
+    }
 
+    private LedgerEntryEntity toLedgerEntry(String eventId, PaymentEventEnvelope envelope) {
         Map<String, Object> payload = envelope.payload() == null ? Map.of() : envelope.payload();
         LedgerEntryEntity entry = new LedgerEntryEntity();
         entry.setEventId(eventId);
@@ -77,14 +124,16 @@ public class PaymentLedgerIngestionService {
         ));
         entry.setOccurredAt(resolveOccurredAt(payload));
         entry.setPayloadJson(writePayload(payload));
-        ledgerEntryRepository.save(entry);
+        return entry;
+    }
 
+    private PaymentEventInboxEntity toInbox(String eventId, PaymentEventEnvelope envelope) {
         PaymentEventInboxEntity inboxEntity = new PaymentEventInboxEntity();
         inboxEntity.setEventId(eventId);
         inboxEntity.setEventType(envelope.eventType());
         inboxEntity.setPaymentId(envelope.paymentId());
         inboxEntity.setProcessedAt(Instant.now());
-        inboxRepository.save(inboxEntity);
+        return inboxEntity;
     }
 
     private LedgerEntryType toEntryType(String eventType) {
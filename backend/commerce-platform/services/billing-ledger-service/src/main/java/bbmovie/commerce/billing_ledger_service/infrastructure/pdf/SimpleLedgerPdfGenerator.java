@@ -1,6 +1,7 @@
 package bbmovie.commerce.billing_ledger_service.infrastructure.pdf;
 
 import bbmovie.commerce.billing_ledger_service.adapter.inbound.rest.dto.LedgerEntryResponse;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
@@ -9,9 +10,11 @@ import org.apache.pdfbox.pdmodel.font.PDType1Font;
 import org.springframework.stereotype.Component;
 
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.Instant;
-import java.util.ArrayList;
+import java.time.YearMonth;
 import java.util.List;
 
 @Component
@@ -21,74 +24,123 @@ public class SimpleLedgerPdfGenerator {
     private static final float LEADING = 13f;
 
     public byte[] generate(String paymentId, List<LedgerEntryResponse> entries) {
-        List<String> lines = new ArrayList<>();
-        lines.add("Billing Ledger Report");
-        lines.add("Payment ID: " + paymentId);
-        lines.add("Generated at: " + Instant.now());
-        lines.add("Total entries: " + entries.size());
-        lines.add("------------------------------------------------------------");
-        for (LedgerEntryResponse e : entries) {
-            lines.add(
-                    String.format(
-                            "#%d | %s | %s | provider=%s | status=%s | sub=%s | campaign=%s",
-                            e.id(),
-                            e.occurredAt(),
-                            e.entryType(),
-                            nullSafe(e.provider()),
-                            nullSafe(e.status()),
-                            nullSafe(e.subscriptionId()),
-                            nullSafe(e.subscriptionCampaignId())
-                    )
-            );
+        try (LedgerPdfWriter writer = open(
+                "Billing Ledger Report",
+                "Payment ID: " + paymentId,
+                "Total entries: " + entries.size());
+             ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            for (LedgerEntryResponse entry : entries) {
+                writer.writeEntry(entry);
+            }
+            writer.saveTo(outputStream);
+            return outputStream.toByteArray();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to generate ledger PDF", ex);
         }
-        return buildPdf(lines);
     }
 
-    private byte[] buildPdf(List<String> lines) {
-        try (PDDocument document = new PDDocument();
-             ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+    /**
+     * Starts a month report. Entries are appended as they are read; the total is written as the last line
+     * because it is only known once the cursor is exhausted.
+     */
+    public LedgerPdfWriter openMonthReport(YearMonth month) throws IOException {
+        return open("Billing Ledger Report", "Month: " + month);
+    }
+
+    private LedgerPdfWriter open(String... headerLines) throws IOException {
+        LedgerPdfWriter writer = new LedgerPdfWriter();
+        try {
+            for (String line : headerLines) {
+                writer.writeLine(line);
+            }
+            writer.writeLine("Generated at: " + Instant.now());
+            writer.writeLine("------------------------------------------------------------");
+            return writer;
+        } catch (IOException ex) {
+            writer.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Appends lines page by page. Finished pages are kept in a scratch file rather than on the heap, so
+     * large reports do not grow memory with their page count.
+     */
+    public static final class LedgerPdfWriter implements Closeable {
+        private final PDDocument document;
+        private PDPageContentStream contentStream;
+        private float cursorY;
+        private long entries;
+
+        private LedgerPdfWriter() throws IOException {
+            this.document = new PDDocument(MemoryUsageSetting.setupTempFileOnly());
+            newPage();
+        }
+
+        public void writeEntry(LedgerEntryResponse e) throws IOException {
+            writeLine(String.format(
+                    "#%d | %s | %s | provider=%s | status=%s | sub=%s | campaign=%s",
+                    e.id(),
+                    e.occurredAt(),
+                    e.entryType(),
+                    nullSafe(e.provider()),
+                    nullSafe(e.status()),
+                    nullSafe(e.subscriptionId()),
+                    nullSafe(e.subscriptionCampaignId())
+            ));
+            entries++;
+        }
+
+        public long entries() {
+            return entries;
+        }
+
+        public void writeLine(String line) throws IOException {
+            if (cursorY <= MARGIN) {
+                closePage();
+                newPage();
+            }
+            contentStream.showText(sanitizeLine(line));
+            contentStream.newLineAtOffset(0, -LEADING);
+            cursorY -= LEADING;
+        }
+
+        public void saveTo(OutputStream outputStream) throws IOException {
+            closePage();
+            document.save(outputStream);
+        }
+
+        @Override
+        public void close() throws IOException {
+            document.close();
+        }
+
+        private void newPage() throws IOException {
             PDPage page = new PDPage(PDRectangle.LETTER);
             document.addPage(page);
-
-            PDPageContentStream contentStream = new PDPageContentStream(document, page);
+            contentStream = new PDPageContentStream(document, page);
             contentStream.setFont(PDType1Font.HELVETICA, FONT_SIZE);
             contentStream.beginText();
             contentStream.newLineAtOffset(MARGIN, page.getMediaBox().getHeight() - MARGIN);
+            cursorY = page.getMediaBox().getHeight() - MARGIN;
+        }
 
-            float cursorY = page.getMediaBox().getHeight() - MARGIN;
-            for (String line : lines) {
-                if (cursorY <= MARGIN) {
-                    contentStream.endText();
-                    contentStream.close();
-
-                    page = new PDPage(PDRectangle.LETTER);
-                    document.addPage(page);
-                    contentStream = new PDPageContentStream(document, page);
-                    contentStream.setFont(PDType1Font.HELVETICA, FONT_SIZE);
-                    contentStream.beginText();
-                    contentStream.newLineAtOffset(MARGIN, page.getMediaBox().getHeight() - MARGIN);
-                    cursorY = page.getMediaBox().getHeight() - MARGIN;
-                }
-                contentStream.showText(sanitizeLine(line));
-                contentStream.newLineAtOffset(0, -LEADING);
-                cursorY -= LEADING;
+        private void closePage() throws IOException {
+            if (contentStream == null) {
+                return;
             }
-
             contentStream.endText();
             contentStream.close();
-            document.save(outputStream);
-            return outputStream.toByteArray();
-        } catch (IOException ex) {
-            throw new IllegalStateException("Failed to generate ledger PDF", ex);
+            contentStream = null;
         }
-    }
 
-    private String sanitizeLine(String text) {
-        String safe = text == null ? "" : text;
-        return safe.replace('\t', ' ');
-    }
+        private static String sanitizeLine(String text) {
+            String safe = text == null ? "" : text;
+            return safe.replace('\t', ' ');
+        }
 
-    private String nullSafe(String value) {
-        return value == null ? "N/A" : value;
+        private static String nullSafe(String value) {
+            return value == null ? "N/A" : value;
+        }
     }
 }
@@ -8,6 +8,7 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Lob;
 import jakarta.persistence.Table;
 import lombok.Getter;
@@ -19,7 +20,15 @@ import java.time.Instant;
 @Getter
 @Setter
 @Entity
-@Table(name = "ledger_entries")
+@Table(
+        name = "ledger_entries",
+        indexes = {
+                @Index(name = "idx_ledger_entries_payment_occurred", columnList = "payment_id, occurred_at, id"),
+                @Index(name = "idx_ledger_entries_user_occurred", columnList = "user_id, occurred_at, id"),
+                @Index(name = "idx_ledger_entries_subscription_occurred", columnList = "subscription_id, occurred_at, id"),
+                @Index(name = "idx_ledger_entries_occurred", columnList = "occurred_at, id")
+        }
+)
 public class LedgerEntryEntity {
 
     @Id
@@ -0,0 +1,74 @@
+package bbmovie.commerce.billing_ledger_service.infrastructure.persistence.jdbc;
+
+import bbmovie.commerce.billing_ledger_service.infrastructure.persistence.entity.LedgerEntryEntity;
+import bbmovie.commerce.billing_ledger_service.infrastructure.persistence.entity.PaymentEventInboxEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Writes ledger entries and inbox rows as JDBC batches. Both tables use {@code IDENTITY} keys, which
+ * makes Hibernate fall back to one round trip per insert, so batch ingestion bypasses JPA here.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LedgerBatchWriter {
+    private static final String INSERT_LEDGER_ENTRY_SQL = """
+            INSERT INTO ledger_entries (
+                payment_id, event_id, entry_type, provider, status, amount, currency, external_reference_id,
+                user_id, user_email, purpose, subscription_id, subscription_campaign_id, payload_json, occurred_at
+            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+    private static final String INSERT_INBOX_SQL = """
+            INSERT INTO payment_event_inbox (event_id, event_type, payment_id, processed_at)
+            VALUES (?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertEntries(List<LedgerEntryEntity> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Calendar utc = utc();
+        jdbcTemplate.batchUpdate(INSERT_LEDGER_ENTRY_SQL, entries, entries.size(), (ps, entry) -> {
+            ps.setString(1, entry.getPaymentId());
+            ps.setString(2, entry.getEventId());
+            ps.setString(3, entry.getEntryType().name());
+            ps.setString(4, entry.getProvider());
+            ps.setString(5, entry.getStatus());
+            ps.setBigDecimal(6, entry.getAmount());
+            ps.setString(7, entry.getCurrency());
+            ps.setString(8, entry.getExternalReferenceId());
+            ps.setString(9, entry.getUserId());
+            ps.setString(10, entry.getUserEmail());
+            ps.setString(11, entry.getPurpose());
+            ps.setString(12, entry.getSubscriptionId());
+            ps.setString(13, entry.getSubscriptionCampaignId());
+            ps.setString(14, entry.getPayloadJson());
+            ps.setTimestamp(15, Timestamp.from(entry.getOccurredAt()), utc);
+        });
+    }
+
+    public void insertInbox(List<PaymentEventInboxEntity> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Calendar utc = utc();
+        jdbcTemplate.batchUpdate(INSERT_INBOX_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.getEventId());
+            ps.setString(2, row.getEventType());
+            ps.setString(3, row.getPaymentId());
+            ps.setTimestamp(4, Timestamp.from(row.getProcessedAt()), utc);
+        });
+    }
+
+    private Calendar utc() {
+        return Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+    }
+}
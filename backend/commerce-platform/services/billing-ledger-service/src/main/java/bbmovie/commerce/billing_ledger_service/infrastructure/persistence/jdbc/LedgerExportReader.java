@@ -0,0 +1,67 @@
+package bbmovie.commerce.billing_ledger_service.infrastructure.persistence.jdbc;
+
+import bbmovie.commerce.billing_ledger_service.domain.LedgerEntryType;
+import bbmovie.commerce.billing_ledger_service.infrastructure.persistence.entity.LedgerEntryEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.function.Consumer;
+
+/**
+ * Reads ledger entries for exports as a forward-only cursor. With a fetch size of
+ * {@link Integer#MIN_VALUE} the MySQL driver streams rows one at a time instead of buffering the whole
+ * result set, so an export of any size runs in constant memory. {@code payload_json} is not selected
+ * because no export format includes it.
+ */
+@Repository
+public class LedgerExportReader {
+    private static final String SELECT_RANGE_SQL = """
+            SELECT id, payment_id, event_id, entry_type, provider, status, amount, currency, external_reference_id,
+                   user_id, user_email, purpose, subscription_id, subscription_campaign_id, occurred_at
+            FROM ledger_entries
+            WHERE occurred_at >= ? AND occurred_at < ?
+            ORDER BY occurred_at, id
+            """;
+
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    public LedgerExportReader(DataSource dataSource) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    /**
+     * Hands every entry with {@code from <= occurredAt < to} to {@code sink} in {@code (occurredAt, id)}
+     * order while the cursor is open. The connection is held until the sink has seen the last row.
+     */
+    public void streamRange(Instant from, Instant to, Consumer<LedgerEntryEntity> sink) {
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        streamingJdbcTemplate.query(SELECT_RANGE_SQL, ps -> {
+            ps.setTimestamp(1, Timestamp.from(from), utc);
+            ps.setTimestamp(2, Timestamp.from(to), utc);
+        }, rs -> {
+            LedgerEntryEntity entry = new LedgerEntryEntity();
+            entry.setId(rs.getLong("id"));
+            entry.setPaymentId(rs.getString("payment_id"));
+            entry.setEventId(rs.getString("event_id"));
+            entry.setEntryType(LedgerEntryType.valueOf(rs.getString("entry_type")));
+            entry.setProvider(rs.getString("provider"));
+            entry.setStatus(rs.getString("status"));
+            entry.setAmount(rs.getBigDecimal("amount"));
+            entry.setCurrency(rs.getString("currency"));
+            entry.setExternalReferenceId(rs.getString("external_reference_id"));
+            entry.setUserId(rs.getString("user_id"));
+            entry.setUserEmail(rs.getString("user_email"));
+            entry.setPurpose(rs.getString("purpose"));
+            entry.setSubscriptionId(rs.getString("subscription_id"));
+            entry.setSubscriptionCampaignId(rs.getString("subscription_campaign_id"));
+            entry.setOccurredAt(rs.getTimestamp("occurred_at", utc).toInstant());
+            sink.accept(entry);
+        });
+    }
+}
@@ -12,9 +12,37 @@ import java.util.List;
 public interface LedgerEntryRepository extends JpaRepository<LedgerEntryEntity, Long> {
     List<LedgerEntryEntity> findByPaymentIdOrderByOccurredAtAscIdAsc(String paymentId);
 
-    List<LedgerEntryEntity> findByUserIdOrderByOccurredAtDescIdDesc(String userId);
+    List<LedgerEntryEntity> findByUserIdOrderByOccurredAtDescIdDesc(String userId, Pageable pageable);
 
-    List<LedgerEntryEntity> findBySubscriptionIdOrderByOccurredAtDescIdDesc(String subscriptionId);
+    @Query("""
+        select le
+        from LedgerEntryEntity le
+        where le.userId = :userId
+          and (le.occurredAt < :occurredAt or (le.occurredAt = :occurredAt and le.id < :id))
+        order by le.occurredAt desc, le.id desc
+    """)
+    List<LedgerEntryEntity> findUserPageAfter(
+            @Param("userId") String userId,
+            @Param("occurredAt") Instant occurredAt,
+            @Param("id") long id,
+            Pageable pageable
+    );
+
+    List<LedgerEntryEntity> findBySubscriptionIdOrderByOccurredAtDescIdDesc(String subscriptionId, Pageable pageable);
+
+    @Query("""
+        select le
+        from LedgerEntryEntity le
+        where le.subscriptionId = :subscriptionId
+          and (le.occurredAt < :occurredAt or (le.occurredAt = :occurredAt and le.id < :id))
+        order by le.occurredAt desc, le.id desc
+    """)
+    List<LedgerEntryEntity> findSubscriptionPageAfter(
+            @Param("subscriptionId") String subscriptionId,
+            @Param("occurredAt") Instant occurredAt,
+            @Param("id") long id,
+            Pageable pageable
+    );
 
     List<LedgerEntryEntity> findAllByOrderByOccurredAtDescIdDesc(Pageable pageable);
 
@@ -39,8 +67,6 @@ public interface LedgerEntryRepository extends JpaRepository<LedgerEntryEntity,
             Pageable pageable
     );
 
-    List<LedgerEntryEntity> findByOccurredAtBetweenOrderByOccurredAtAscIdAsc(Instant from, Instant to);
-
     long countByOccurredAtAfter(Instant since);
 
     @Query("""
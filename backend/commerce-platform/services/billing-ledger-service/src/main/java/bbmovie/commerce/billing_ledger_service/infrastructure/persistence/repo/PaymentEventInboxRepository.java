@@ -2,7 +2,15 @@ package bbmovie.commerce.billing_ledger_service.infrastructure.persistence.repo;
 
 import bbmovie.commerce.billing_ledger_service.infrastructure.persistence.entity.PaymentEventInboxEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Set;
 
 public interface PaymentEventInboxRepository extends JpaRepository<PaymentEventInboxEntity, Long> {
     boolean existsByEventId(String eventId);
+
+    @Query("select i.eventId from PaymentEventInboxEntity i where i.eventId in :eventIds")
+    Set<String> findExistingEventIds(@Param("eventIds") Collection<String> eventIds);
 }
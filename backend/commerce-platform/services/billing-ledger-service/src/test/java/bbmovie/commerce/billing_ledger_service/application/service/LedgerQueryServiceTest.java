@@ -0,0 +1,80 @@
+package bbmovie.commerce.billing_ledger_service.application.service;
+
+import bbmovie.commerce.billing_ledger_service.adapter.inbound.rest.dto.LedgerEntriesResponse;
+import bbmovie.commerce.billing_ledger_service.application.dto.LedgerCursor;
+import bbmovie.commerce.billing_ledger_service.domain.LedgerEntryType;
+import bbmovie.commerce.billing_ledger_service.infrastructure.persistence.entity.LedgerEntryEntity;
+import bbmovie.commerce.billing_ledger_service.infrastructure.persistence.jdbc.LedgerExportReader;
+import bbmovie.commerce.billing_ledger_service.infrastructure.persistence.repo.LedgerEntryRepository;
+import bbmovie.commerce.billing_ledger_service.infrastructure.persistence.repo.PaymentEventInboxRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerQueryServiceTest {
+
+    private static final Instant T0 = Instant.parse("2026-04-01T10:00:00Z");
+
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+    @Mock
+    private PaymentEventInboxRepository paymentEventInboxRepository;
+    @Mock
+    private LedgerExportReader ledgerExportReader;
+
+    @InjectMocks
+    private LedgerQueryService ledgerQueryService;
+
+    @Test
+    void should_return_cursor_pointing_after_last_entry_when_more_rows_exist() {
+        when(ledgerEntryRepository.findByUserIdOrderByOccurredAtDescIdDesc("user-1", PageRequest.of(0, 3)))
+                .thenReturn(List.of(entry(30, T0.plusSeconds(3)), entry(20, T0.plusSeconds(2)), entry(10, T0.plusSeconds(1))));
+
+        LedgerEntriesResponse page = ledgerQueryService.getByUserId("user-1", null, 2);
+
+        assertEquals(2, page.totalEntries());
+        assertEquals(new LedgerCursor(T0.plusSeconds(2), 20), LedgerCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    void should_seek_past_cursor_and_end_listing_on_short_page() {
+        String cursor = new LedgerCursor(T0.plusSeconds(2), 20).encode();
+        when(ledgerEntryRepository.findUserPageAfter("user-1", T0.plusSeconds(2), 20, PageRequest.of(0, 3)))
+                .thenReturn(List.of(entry(10, T0.plusSeconds(1))));
+
+        LedgerEntriesResponse page = ledgerQueryService.getByUserId("user-1", cursor, 2);
+
+        assertEquals(1, page.totalEntries());
+        assertEquals(10L, page.entries().getFirst().id());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void should_reject_malformed_cursor() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ledgerQueryService.getBySubscriptionId("sub-1", "not-a-cursor", 10));
+    }
+
+    private LedgerEntryEntity entry(long id, Instant occurredAt) {
+        LedgerEntryEntity entity = new LedgerEntryEntity();
+        entity.setId(id);
+        entity.setPaymentId("pay-" + id);
+        entity.setEventId("ev-" + id);
+        entity.setEntryType(LedgerEntryType.PAYMENT_SUCCEEDED);
+        entity.setUserId("user-1");
+        entity.setOccurredAt(occurredAt);
+        return entity;
+    }
+}
@@ -5,6 +5,7 @@ import bbmovie.commerce.entitlement_service.application.dto.PaymentEventEnvelope
 import bbmovie.commerce.entitlement_service.application.service.EntitlementProjectionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
@@ -14,6 +15,7 @@ import tools.jackson.databind.ObjectMapper;
 @Slf4j
 @Component
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.kafka.consumer.batch-enabled", havingValue = "false")
 public class PaymentEventKafkaConsumer {
 
     private final EntitlementProjectionService projectionService;
@@ -44,7 +46,7 @@ public class PaymentEventKafkaConsumer {
         }
     }
 
-    private String resolveEventId(String eventIdHeader, String cloudEventId, String rawEvent) {
+    static String resolveEventId(String eventIdHeader, String cloudEventId, String rawEvent) {
         if (eventIdHeader != null && !eventIdHeader.isBlank()) {
             return eventIdHeader;
         }
@@ -6,12 +6,16 @@ import bbmovie.commerce.entitlement_service.adapter.inbound.rest.dto.Entitlement
 import bbmovie.commerce.entitlement_service.adapter.inbound.rest.dto.EntitlementDecisionResponse;
 import bbmovie.commerce.entitlement_service.adapter.inbound.rest.dto.EntitlementExplainResponse;
 import bbmovie.commerce.entitlement_service.adapter.inbound.rest.dto.EntitlementOverrideRequest;
+import bbmovie.commerce.entitlement_service.adapter.inbound.rest.dto.EntitlementResourceBatchRequest;
+import bbmovie.commerce.entitlement_service.adapter.inbound.rest.dto.EntitlementResourceBatchResponse;
 import bbmovie.commerce.entitlement_service.adapter.inbound.rest.dto.UserEntitlementsResponse;
+import bbmovie.commerce.entitlement_service.application.dto.EntitlementReplayReport;
 import bbmovie.commerce.entitlement_service.application.service.EntitlementDecisionService;
 import bbmovie.commerce.entitlement_service.application.service.EntitlementReplayService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -19,11 +23,14 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.security.core.Authentication;
 
+import java.time.Instant;
+
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/v1/entitlements")
@@ -45,10 +52,16 @@ public class EntitlementController {
     @PostMapping("/check-batch")
     @PreAuthorize("hasAnyRole('ADMIN','USER','SUPPORT')")
     public EntitlementBatchCheckResponse checkBatch(@Valid @RequestBody EntitlementBatchCheckRequest request) {
-        var decisions = request.items().stream().map(decisionService::check).toList();
+        var decisions = decisionService.checkBatch(request.items());
         return new EntitlementBatchCheckResponse(decisions.size(), decisions);
     }
 
+    @PostMapping("/check-resources")
+    @PreAuthorize("hasAnyRole('ADMIN','USER','SUPPORT')")
+    public EntitlementResourceBatchResponse checkResources(@Valid @RequestBody EntitlementResourceBatchRequest request) {
+        return decisionService.checkResources(request);
+    }
+
     @GetMapping("/user/{userId}")
     @PreAuthorize("hasAnyRole('ADMIN','SUPPORT')")
     public UserEntitlementsResponse getByUserId(@PathVariable String userId) {
@@ -57,9 +70,16 @@ public class EntitlementController {
 
     @PostMapping("/admin/replay")
     @PreAuthorize("hasRole('ADMIN')")
-    public String replayLastHour() {
-        int replayed = replayService.replayRange(java.time.Instant.now().minusSeconds(3600), java.time.Instant.now());
-        return "Replayed " + replayed + " events";
+    public EntitlementReplayReport replay(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String replayId
+    ) {
+        Instant windowTo = to == null ? Instant.now() : to;
+        Instant windowFrom = from == null ? windowTo.minusSeconds(3600) : from;
+        return replayId == null || replayId.isBlank()
+                ? replayService.replayRange(windowFrom, windowTo)
+                : replayService.replay(replayId, windowFrom, windowTo);
     }
 
     @PostMapping("/explain")
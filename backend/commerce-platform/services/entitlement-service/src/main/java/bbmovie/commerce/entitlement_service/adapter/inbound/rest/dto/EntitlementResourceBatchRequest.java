@@ -0,0 +1,20 @@
+package bbmovie.commerce.entitlement_service.adapter.inbound.rest.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record EntitlementResourceBatchRequest(
+        @NotBlank String userId,
+        @NotBlank String action,
+        @NotEmpty @Size(max = 500) List<@Valid Resource> resources
+) {
+    public record Resource(
+            @NotBlank String resourceId,
+            String contentPackage
+    ) {
+    }
+}
@@ -0,0 +1,20 @@
+package bbmovie.commerce.entitlement_service.adapter.inbound.rest.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record EntitlementResourceBatchResponse(
+        String userId,
+        String planId,
+        String tier,
+        Instant expiresAt,
+        Instant decisionTs,
+        List<ResourceDecision> decisions
+) {
+    public record ResourceDecision(
+            String resourceId,
+            boolean allowed,
+            String reasonCode
+    ) {
+    }
+}
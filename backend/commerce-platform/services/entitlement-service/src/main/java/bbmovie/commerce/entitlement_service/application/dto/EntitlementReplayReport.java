@@ -0,0 +1,24 @@
+package bbmovie.commerce.entitlement_service.application.dto;
+
+import bbmovie.commerce.entitlement_service.domain.ReplayStatus;
+
+import java.time.Instant;
+
+/**
+ * Outcome of a replay run. Counters are cumulative across resumed runs of the same {@code replayId};
+ * {@code elapsedMs} and {@code eventsPerSecond} describe the current run only.
+ */
+public record EntitlementReplayReport(
+        String replayId,
+        ReplayStatus status,
+        Instant from,
+        Instant to,
+        boolean resumed,
+        long scanned,
+        long replayed,
+        long failed,
+        long chunks,
+        long elapsedMs,
+        double eventsPerSecond
+) {
+}
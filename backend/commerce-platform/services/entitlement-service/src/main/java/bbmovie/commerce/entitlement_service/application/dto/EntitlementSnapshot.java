@@ -0,0 +1,33 @@
+package bbmovie.commerce.entitlement_service.application.dto;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Compiled per-user entitlement state: the active record (if any) plus the content packages its plan allows.
+ * Decisions for any resource are evaluated from this snapshot in-process. {@code version} is the user's
+ * snapshot version at build time; a snapshot is only valid while it matches the current version.
+ */
+public record EntitlementSnapshot(
+        String userId,
+        long version,
+        String entitlementId,
+        String planId,
+        String tier,
+        Instant expiresAt,
+        Set<String> contentPackages,
+        Instant builtAt
+) {
+    public static EntitlementSnapshot empty(String userId, long version, Instant builtAt) {
+        return new EntitlementSnapshot(userId, version, null, null, null, null, Set.of(), builtAt);
+    }
+
+    public boolean activeAt(Instant now) {
+        return entitlementId != null && expiresAt != null && expiresAt.isAfter(now);
+    }
+
+    public boolean allowsPackage(String contentPackage) {
+        return contentPackages != null && contentPackages.contains(contentPackage.toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,7 @@
+package bbmovie.commerce.entitlement_service.application.dto;
+
+public record InboundPaymentEvent(
+        String eventId,
+        PaymentEventEnvelope envelope
+) {
+}
@@ -6,7 +6,7 @@ import org.springframework.stereotype.Component;
 public class ActiveEntitlementRule implements DecisionRule {
     @Override
     public DecisionRuleResult evaluate(DecisionContext context) {
-        if (context.activeRecord() == null) {
+        if (!context.hasActiveEntitlement()) {
             return DecisionRuleResult.deny("NO_ACTIVE_ENTITLEMENT");
         }
         return DecisionRuleResult.pass();
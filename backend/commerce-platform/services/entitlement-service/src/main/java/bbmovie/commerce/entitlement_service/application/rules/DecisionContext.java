@@ -1,13 +1,16 @@
 package bbmovie.commerce.entitlement_service.application.rules;
 
 import bbmovie.commerce.entitlement_service.adapter.inbound.rest.dto.EntitlementCheckRequest;
-import bbmovie.commerce.entitlement_service.infrastructure.persistence.entity.EntitlementRecordEntity;
+import bbmovie.commerce.entitlement_service.application.dto.EntitlementSnapshot;
 
 import java.time.Instant;
 
 public record DecisionContext(
         EntitlementCheckRequest request,
-        EntitlementRecordEntity activeRecord,
+        EntitlementSnapshot snapshot,
         Instant now
 ) {
+    public boolean hasActiveEntitlement() {
+        return snapshot != null && snapshot.activeAt(now);
+    }
 }
@@ -1,23 +1,19 @@
 package bbmovie.commerce.entitlement_service.application.rules;
 
-import bbmovie.commerce.entitlement_service.infrastructure.persistence.repo.PlanContentPolicyRepository;
-import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 @Component
-@RequiredArgsConstructor
 public class PackagePolicyRule implements DecisionRule {
-    private final PlanContentPolicyRepository policyRepository;
 
     @Override
     public DecisionRuleResult evaluate(DecisionContext context) {
         String requestedPackage = context.request().contentPackage();
-        if (requestedPackage == null || requestedPackage.isBlank() || context.activeRecord() == null) {
+        if (requestedPackage == null || requestedPackage.isBlank() || !context.hasActiveEntitlement()) {
             return DecisionRuleResult.pass();
         }
-        boolean allowed = policyRepository.findByPlanIdAndEnabledTrue(context.activeRecord().getPlanId())
-                .stream()
-                .anyMatch(policy -> requestedPackage.equalsIgnoreCase(policy.getContentPackage()));
-        return allowed ? DecisionRuleResult.pass() : DecisionRuleResult.deny("PLAN_PACKAGE_MISMATCH");
+        // Plan packages are compiled into the snapshot, so no policy lookup happens per decision.
+        return context.snapshot().allowsPackage(requestedPackage)
+                ? DecisionRuleResult.pass()
+                : DecisionRuleResult.deny("PLAN_PACKAGE_MISMATCH");
     }
 }
@@ -5,11 +5,14 @@ import bbmovie.commerce.entitlement_service.adapter.inbound.rest.dto.Entitlement
 import bbmovie.commerce.entitlement_service.adapter.inbound.rest.dto.EntitlementExplainResponse;
 import bbmovie.commerce.entitlement_service.adapter.inbound.rest.dto.EntitlementOverrideRequest;
 import bbmovie.commerce.entitlement_service.adapter.inbound.rest.dto.EntitlementRecordResponse;
+import bbmovie.commerce.entitlement_service.adapter.inbound.rest.dto.EntitlementResourceBatchRequest;
+import bbmovie.commerce.entitlement_service.adapter.inbound.rest.dto.EntitlementResourceBatchResponse;
+import bbmovie.commerce.entitlement_service.adapter.inbound.rest.dto.EntitlementResourceBatchResponse.ResourceDecision;
 import bbmovie.commerce.entitlement_service.adapter.inbound.rest.dto.UserEntitlementsResponse;
+import bbmovie.commerce.entitlement_service.application.dto.EntitlementSnapshot;
 import bbmovie.commerce.entitlement_service.application.rules.DecisionContext;
 import bbmovie.commerce.entitlement_service.application.rules.DecisionRule;
 import bbmovie.commerce.entitlement_service.domain.EntitlementStatus;
-import bbmovie.commerce.entitlement_service.infrastructure.cache.EntitlementDecisionCacheRepository;
 import bbmovie.commerce.entitlement_service.infrastructure.persistence.entity.EntitlementOverrideAuditEntity;
 import bbmovie.commerce.entitlement_service.infrastructure.persistence.entity.EntitlementRecordEntity;
 import bbmovie.commerce.entitlement_service.infrastructure.persistence.repo.EntitlementOverrideAuditRepository;
@@ -18,61 +21,89 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class EntitlementDecisionService {
 
     private final EntitlementRecordRepository recordRepository;
-    private final EntitlementDecisionCacheRepository cacheRepository;
+    private final EntitlementSnapshotService snapshotService;
     private final List<DecisionRule> rules;
     private final EntitlementOverrideAuditRepository overrideAuditRepository;
 
     public EntitlementDecisionResponse check(EntitlementCheckRequest request) {
-        String cacheKey = "entitlement:decision:" + request.userId() + ":" + request.resourceId() + ":" + request.action()
-                + ":" + (request.contentPackage() != null ? request.contentPackage() : "");
-        var cached = cacheRepository.get(cacheKey);
-        if (cached.isPresent()) {
-            return cached.get();
-        }
+        return decide(request, snapshotService.snapshotFor(request.userId()), Instant.now());
+    }
 
+    /**
+     * Evaluates many checks with one snapshot resolution per distinct user.
+     */
+    public List<EntitlementDecisionResponse> checkBatch(List<EntitlementCheckRequest> requests) {
         Instant now = Instant.now();
-        EntitlementRecordEntity active = recordRepository
-                .findFirstByUserIdAndStatusAndEndsAtAfterOrderByEndsAtDesc(
-                        request.userId(),
-                        EntitlementStatus.ACTIVE,
+        Map<String, EntitlementSnapshot> snapshots = new HashMap<>();
+        return requests.stream()
+                .map(request -> decide(
+                        request,
+                        snapshots.computeIfAbsent(request.userId(), snapshotService::snapshotFor),
                         now
-                )
-                .orElse(null);
+                ))
+                .toList();
+    }
+
+    /**
+     * Evaluates one action for many resources of a single user, e.g. lock badges for a catalog row.
+     * The user's snapshot is resolved once and the rule chain runs in-process for every resource.
+     */
+    public EntitlementResourceBatchResponse checkResources(EntitlementResourceBatchRequest request) {
+        Instant now = Instant.now();
+        EntitlementSnapshot snapshot = snapshotService.snapshotFor(request.userId());
+        List<ResourceDecision> decisions = new ArrayList<>(request.resources().size());
+        for (EntitlementResourceBatchRequest.Resource resource : request.resources()) {
+            EntitlementCheckRequest check = new EntitlementCheckRequest(
+                    request.userId(), resource.resourceId(), request.action(), resource.contentPackage());
+            EntitlementDecisionResponse decision = decide(check, snapshot, now);
+            decisions.add(new ResourceDecision(resource.resourceId(), decision.allowed(), decision.reasonCode()));
+        }
+        boolean active = snapshot.activeAt(now);
+        return new EntitlementResourceBatchResponse(
+                request.userId(),
+                active ? snapshot.planId() : null,
+                active ? snapshot.tier() : null,
+                active ? snapshot.expiresAt() : null,
+                now,
+                decisions
+        );
+    }
 
-        DecisionContext context = new DecisionContext(request, active, now);
+    private EntitlementDecisionResponse decide(EntitlementCheckRequest request, EntitlementSnapshot snapshot, Instant now) {
+        DecisionContext context = new DecisionContext(request, snapshot, now);
+        boolean active = context.hasActiveEntitlement();
         for (DecisionRule rule : rules) {
             var result = rule.evaluate(context);
             if (!result.passed()) {
-                EntitlementDecisionResponse denied = new EntitlementDecisionResponse(
+                return new EntitlementDecisionResponse(
                         false,
                         result.reasonCode(),
-                        active == null ? null : active.getPlanId(),
-                        active == null ? null : active.getTier(),
-                        active == null ? null : active.getEndsAt(),
+                        active ? snapshot.planId() : null,
+                        active ? snapshot.tier() : null,
+                        active ? snapshot.expiresAt() : null,
                         now
                 );
-                cacheRepository.put(cacheKey, denied);
-                return denied;
             }
         }
 
-        EntitlementDecisionResponse response = new EntitlementDecisionResponse(
+        return new EntitlementDecisionResponse(
             true,
             "ACTIVE_ENTITLEMENT",
-            active.getPlanId(),
-            active.getTier(),
-            active.getEndsAt(),
+            snapshot.planId(),
+            snapshot.tier(),
+            snapshot.expiresAt(),
             now
         );
-        cacheRepository.put(cacheKey, response);
-        return response;
     }
 
     public UserEntitlementsResponse getUserEntitlements(String userId) {
@@ -99,7 +130,7 @@ public class EntitlementDecisionService {
     }
 
     public void evictUserCache(String userId) {
-        cacheRepository.evictPrefix("entitlement:decision:" + userId + ":");
+        snapshotService.invalidate(userId);
     }
 
     public EntitlementExplainResponse explain(EntitlementCheckRequest request) {
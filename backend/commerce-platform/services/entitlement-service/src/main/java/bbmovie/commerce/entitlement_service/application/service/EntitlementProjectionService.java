@@ -1,10 +1,12 @@
 package bbmovie.commerce.entitlement_service.application.service;
 
 import bbmovie.commerce.commerce_contracts.contracts.payment.PaymentEventTypes;
+import bbmovie.commerce.entitlement_service.application.dto.InboundPaymentEvent;
 import bbmovie.commerce.entitlement_service.application.dto.PaymentEventEnvelope;
 import bbmovie.commerce.entitlement_service.domain.EntitlementStatus;
 import bbmovie.commerce.entitlement_service.infrastructure.persistence.entity.EntitlementEventInboxEntity;
 import bbmovie.commerce.entitlement_service.infrastructure.persistence.entity.EntitlementRecordEntity;
+import bbmovie.commerce.entitlement_service.infrastructure.persistence.jdbc.EntitlementInboxBatchWriter;
 import bbmovie.commerce.entitlement_service.infrastructure.persistence.repo.EntitlementEventInboxRepository;
 import bbmovie.commerce.entitlement_service.infrastructure.persistence.repo.EntitlementRecordRepository;
 import tools.jackson.databind.ObjectMapper;
@@ -15,7 +17,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -26,6 +33,7 @@ public class EntitlementProjectionService {
     private final EntitlementRecordRepository recordRepository;
     private final ObjectMapper objectMapper;
     private final EntitlementDecisionService decisionService;
+    private final EntitlementInboxBatchWriter inboxBatchWriter;
     @Value("${entitlement.duration.default-days:30}")
     private long defaultEntitlementDays;
 
@@ -36,17 +44,97 @@ public class EntitlementProjectionService {
 
     @Transactional
     public void ingest(String eventId, PaymentEventEnvelope envelope, boolean replayMode) {
+        validate(eventId, envelope);
+        if (!replayMode && inboxRepository.existsByEventId(eventId)) {
+            log.info("Skipping duplicate entitlement event: eventId={}", eventId);
+            return;
+        }
+
+        apply(envelope);
+
+        if (!replayMode) {
+            inboxRepository.save(toInbox(eventId, envelope));
+        }
+    }
+
+    /**
+     * Projects a poll's worth of events in one transaction. Duplicates are filtered with a single inbox
+     * {@code IN} query (and within the batch itself), events are applied in the given order so per-payment
+     * ordering from the partition is kept, and inbox rows are written as one JDBC batch.
+     *
+     * @return the number of events applied
+     */
+    @Transactional
+    public int ingestBatch(List<InboundPaymentEvent> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        events.forEach(event -> validate(event.eventId(), event.envelope()));
+
+        Set<String> eventIds = events.stream().map(InboundPaymentEvent::eventId).collect(Collectors.toSet());
+        Set<String> seen = new HashSet<>(inboxRepository.findExistingEventIds(eventIds));
+        List<EntitlementEventInboxEntity> inboxRows = new ArrayList<>(events.size());
+        for (InboundPaymentEvent event : events) {
+            if (!seen.add(event.eventId())) {
+                log.debug("Skipping duplicate entitlement event in batch: eventId={}", event.eventId());
+                continue;
+            }
+            apply(event.envelope());
+            inboxRows.add(toInbox(event.eventId(), event.envelope()));
+        }
+        inboxBatchWriter.insertAll(inboxRows);
+        return inboxRows.size();
+    }
+
+    /**
+     * Re-applies already recorded events in one transaction without touching the inbox. Events with an
+     * invalid payload are skipped and counted as not applied; any other failure rolls the whole call back
+     * so the caller can retry the events individually.
+     *
+     * @return the number of events applied
+     */
+    @Transactional
+    public int replay(List<InboundPaymentEvent> events) {
+        int applied = 0;
+        for (InboundPaymentEvent event : events) {
+            try {
+                validate(event.eventId(), event.envelope());
+                apply(event.envelope());
+                applied++;
+            } catch (IllegalArgumentException ex) {
+                log.warn("Skipping invalid entitlement event during replay: eventId={}, reason={}",
+                        event.eventId(), ex.getMessage());
+            }
+        }
+        return applied;
+    }
+
+    public String userIdOf(PaymentEventEnvelope envelope) {
+        return extractFromPayloadOrMetadata(safePayload(envelope.payload()), "userId", "user_id");
+    }
+
+    /**
+     * Owner of the entitlement granted by {@code paymentId}, or {@code null} when none was projected.
+     */
+    public String userIdOfPayment(String paymentId) {
+        if (paymentId == null) {
+            return null;
+        }
+        return recordRepository.findFirstBySourcePaymentIdOrderByUpdatedAtDesc(paymentId)
+                .map(EntitlementRecordEntity::getUserId)
+                .orElse(null);
+    }
+
+    private void validate(String eventId, PaymentEventEnvelope envelope) {
         if (eventId == null || eventId.isBlank()) {
             throw new IllegalArgumentException("eventId is required");
         }
         if (envelope == null || envelope.eventType() == null || envelope.paymentId() == null) {
             throw new IllegalArgumentException("event payload is invalid");
         }
-        if (!replayMode && inboxRepository.existsByEventId(eventId)) {
-            log.info("Skipping duplicate entitlement event: eventId={}", eventId);
-            return;
-        }
+    }
 
+    private void apply(PaymentEventEnvelope envelope) {
         Map<String, Object> payload = safePayload(envelope.payload());
         Instant occurredAt = resolveOccurredAt(payload);
 
@@ -56,16 +144,16 @@ public class EntitlementProjectionService {
             case PaymentEventTypes.PAYMENT_STATUS_UPDATED_V1 -> onPaymentStatusUpdated(envelope, payload, occurredAt);
             default -> log.debug("Ignoring event type for entitlement projection: {}", envelope.eventType());
         }
+    }
 
-        if (!replayMode) {
-            EntitlementEventInboxEntity inbox = new EntitlementEventInboxEntity();
-            inbox.setEventId(eventId);
-            inbox.setEventType(envelope.eventType());
-            inbox.setPaymentId(envelope.paymentId());
-            inbox.setRawEventJson(serializeEnvelope(envelope));
-            inbox.setProcessedAt(Instant.now());
-            inboxRepository.save(inbox);
-        }
+    private EntitlementEventInboxEntity toInbox(String eventId, PaymentEventEnvelope envelope) {
+        EntitlementEventInboxEntity inbox = new EntitlementEventInboxEntity();
+        inbox.setEventId(eventId);
+        inbox.setEventType(envelope.eventType());
+        inbox.setPaymentId(envelope.paymentId());
+        inbox.setRawEventJson(serializeEnvelope(envelope));
+        inbox.setProcessedAt(Instant.now());
+        return inbox;
     }
 
     private void onPaymentSucceeded(PaymentEventEnvelope envelope, Map<String, Object> payload, Instant occurredAt) {
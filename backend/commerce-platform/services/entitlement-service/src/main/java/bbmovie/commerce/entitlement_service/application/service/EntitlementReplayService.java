@@ -1,44 +1,136 @@
 package bbmovie.commerce.entitlement_service.application.service;
 
+import bbmovie.commerce.entitlement_service.application.dto.EntitlementReplayReport;
+import bbmovie.commerce.entitlement_service.application.dto.InboundPaymentEvent;
 import bbmovie.commerce.entitlement_service.application.dto.PaymentEventEnvelope;
-import bbmovie.commerce.entitlement_service.infrastructure.persistence.entity.EntitlementEventInboxEntity;
+import bbmovie.commerce.entitlement_service.domain.ReplayStatus;
+import bbmovie.commerce.entitlement_service.infrastructure.persistence.entity.EntitlementReplayCheckpointEntity;
 import bbmovie.commerce.entitlement_service.infrastructure.persistence.repo.EntitlementEventInboxRepository;
-import tools.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import bbmovie.commerce.entitlement_service.infrastructure.persistence.repo.EntitlementInboxReplayRow;
+import bbmovie.commerce.entitlement_service.infrastructure.persistence.repo.EntitlementReplayCheckpointRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Replays recorded inbox events into the entitlement projection.
+ * <p>
+ * The window is streamed by a {@code (processedAt, eventId)} keyset cursor in chunks of
+ * {@code entitlement.replay.chunk-size}. Each chunk is split into {@code entitlement.replay.workers}
+ * partitions by user, and every partition is applied in order in one transaction, so snapshot
+ * invalidations are coalesced to one version bump per user and partition. Chunks run one after another,
+ * which keeps per-user ordering across chunk boundaries. After each chunk the cursor is checkpointed;
+ * calling {@link #replay} again with the same {@code replayId} resumes an interrupted run.
+ * <p>
+ * A running checkpoint is leased to the instance running it and the lease is renewed with every chunk, so
+ * other instances only take over a run whose owner stopped renewing. Completed checkpoints are purged after
+ * {@code entitlement.replay.retention-hours}.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class EntitlementReplayService {
 
+    private static final String SCHEDULED_PREFIX = "scheduled-";
+
     private final EntitlementEventInboxRepository inboxRepository;
+    private final EntitlementReplayCheckpointRepository checkpointRepository;
     private final EntitlementProjectionService projectionService;
     private final ObjectMapper objectMapper;
+    private final ExecutorService replayExecutor;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final String instanceId = UUID.randomUUID().toString();
 
     @Value("${entitlement.replay.enabled:false}")
     private boolean replayEnabled;
 
-    public int replayRange(Instant from, Instant to) {
-        List<EntitlementEventInboxEntity> rows = inboxRepository.findByProcessedAtBetweenOrderByProcessedAtAsc(from, to);
-        int replayed = 0;
-        for (EntitlementEventInboxEntity row : rows) {
-            try {
-                PaymentEventEnvelope envelope = objectMapper.readValue(row.getRawEventJson(), PaymentEventEnvelope.class);
-                projectionService.ingest("replay-" + row.getEventId(), envelope, true);
-                replayed++;
-            } catch (Exception ex) {
-                log.warn("Failed replay for eventId={}", row.getEventId(), ex);
+    @Value("${entitlement.replay.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${entitlement.replay.workers:4}")
+    private int workers;
+
+    @Value("${entitlement.replay.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${entitlement.replay.retention-hours:24}")
+    private long retentionHours;
+
+    public EntitlementReplayService(
+            EntitlementEventInboxRepository inboxRepository,
+            EntitlementReplayCheckpointRepository checkpointRepository,
+            EntitlementProjectionService projectionService,
+            ObjectMapper objectMapper,
+            @Qualifier("entitlementReplayExecutor") ExecutorService replayExecutor
+    ) {
+        this.inboxRepository = inboxRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.projectionService = projectionService;
+        this.objectMapper = objectMapper;
+        this.replayExecutor = replayExecutor;
+    }
+
+    public EntitlementReplayReport replayRange(Instant from, Instant to) {
+        return replay(UUID.randomUUID().toString(), from, to);
+    }
+
+    /**
+     * Replays {@code [from, to]} under {@code replayId}. An unfinished checkpoint with that id is resumed
+     * from its cursor (its stored window wins); a completed one is reported without replaying again.
+     * Only one replay runs per instance at a time, and a checkpoint leased by another live instance is left
+     * alone; both cases are answered with {@link ReplayStatus#REJECTED}.
+     */
+    public EntitlementReplayReport replay(String replayId, Instant from, Instant to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("replay window is empty");
+        }
+        if (!running.compareAndSet(false, true)) {
+            log.info("Entitlement replay {} rejected: another replay is running", replayId);
+            return rejected(replayId, from, to);
+        }
+        try {
+            Optional<EntitlementReplayCheckpointEntity> existing = checkpointRepository.findById(replayId);
+            if (existing.isEmpty()) {
+                Optional<EntitlementReplayCheckpointEntity> created = create(replayId, from, to);
+                if (created.isPresent()) {
+                    return run(created.get(), false);
+                }
+                // Another instance created it first; fall through to the takeover rules.
+                existing = checkpointRepository.findById(replayId);
+                if (existing.isEmpty()) {
+                    return rejected(replayId, from, to);
+                }
+            }
+            if (existing.get().getStatus() == ReplayStatus.COMPLETED) {
+                return toReport(existing.get(), false, 0, 0);
             }
+            Instant now = Instant.now();
+            if (checkpointRepository.claim(replayId, instanceId, now, now.plusSeconds(leaseSeconds)) == 0) {
+                log.info("Entitlement replay {} rejected: leased by another instance until {}",
+                        replayId, existing.get().getLeaseUntil());
+                return rejected(replayId, from, to);
+            }
+            EntitlementReplayCheckpointEntity checkpoint = checkpointRepository.findById(replayId).orElseThrow();
+            return run(checkpoint, true);
+        } finally {
+            running.set(false);
         }
-        return replayed;
     }
 
     @Scheduled(cron = "0 */30 * * * *")
@@ -46,11 +138,231 @@ public class EntitlementReplayService {
         if (!replayEnabled) {
             return;
         }
-        Instant to = Instant.now();
+        // A run cut short by a restart is finished first; its window precedes the new one. Runs still leased
+        // by a live instance are not candidates.
+        checkpointRepository.findFirstResumable(Instant.now())
+                .ifPresent(unfinished -> replay(unfinished.getReplayId(), unfinished.getWindowFrom(), unfinished.getWindowTo()));
+
+        Instant to = Instant.now().truncatedTo(ChronoUnit.MINUTES);
         Instant from = to.minus(60, ChronoUnit.MINUTES);
-        int replayed = replayRange(from, to);
-        if (replayed > 0) {
-            log.info("Scheduled replay processed {} entitlement events", replayed);
+        EntitlementReplayReport report = replay(SCHEDULED_PREFIX + to.getEpochSecond(), from, to);
+        if (report.scanned() > 0) {
+            log.info("Scheduled replay processed {} entitlement events ({} failed, {}/s)",
+                    report.replayed(), report.failed(), Math.round(report.eventsPerSecond()));
+        }
+
+        int purged = checkpointRepository.deleteByStatusAndUpdatedAtBefore(
+                ReplayStatus.COMPLETED, Instant.now().minus(retentionHours, ChronoUnit.HOURS));
+        if (purged > 0) {
+            log.info("Purged {} completed entitlement replay checkpoints", purged);
+        }
+    }
+
+    private EntitlementReplayReport run(EntitlementReplayCheckpointEntity checkpoint, boolean resumed) {
+        long startedAt = System.nanoTime();
+        long scannedThisRun = 0;
+        checkpoint.setStatus(ReplayStatus.RUNNING);
+        saveCheckpoint(checkpoint);
+        try {
+            while (true) {
+                List<EntitlementInboxReplayRow> rows = inboxRepository.findReplayChunk(
+                        checkpoint.getCursorProcessedAt(),
+                        checkpoint.getCursorEventId(),
+                        checkpoint.getWindowTo(),
+                        PageRequest.of(0, chunkSize)
+                );
+                if (rows.isEmpty()) {
+                    complete(checkpoint);
+                    break;
+                }
+                int replayed = replayChunk(rows);
+                EntitlementInboxReplayRow last = rows.getLast();
+                checkpoint.setCursorProcessedAt(last.processedAt());
+                checkpoint.setCursorEventId(last.eventId());
+                checkpoint.setScanned(checkpoint.getScanned() + rows.size());
+                checkpoint.setReplayed(checkpoint.getReplayed() + replayed);
+                checkpoint.setFailed(checkpoint.getFailed() + rows.size() - replayed);
+                checkpoint.setChunks(checkpoint.getChunks() + 1);
+                saveCheckpoint(checkpoint);
+                scannedThisRun += rows.size();
+                if (rows.size() < chunkSize) {
+                    complete(checkpoint);
+                    break;
+                }
+            }
+        } catch (RuntimeException ex) {
+            checkpoint.setStatus(ReplayStatus.INTERRUPTED);
+            // Released right away, so the next scheduled run or any instance can resume it.
+            checkpoint.setLeaseUntil(null);
+            checkpoint.setOwnerId(null);
+            log.warn("Entitlement replay {} interrupted at cursor ({}, {})",
+                    checkpoint.getReplayId(), checkpoint.getCursorProcessedAt(), checkpoint.getCursorEventId(), ex);
+        }
+        saveCheckpoint(checkpoint);
+
+        long elapsedNanos = System.nanoTime() - startedAt;
+        EntitlementReplayReport report = toReport(checkpoint, resumed, scannedThisRun, elapsedNanos);
+        log.info("Entitlement replay {} {}: scanned={}, replayed={}, failed={}, chunks={}, elapsedMs={}, eventsPerSecond={}",
+                report.replayId(), report.status(), report.scanned(), report.replayed(), report.failed(),
+                report.chunks(), report.elapsedMs(), Math.round(report.eventsPerSecond()));
+        return report;
+    }
+
+    private int replayChunk(List<EntitlementInboxReplayRow> rows) {
+        List<InboundPaymentEvent> unresolved = new ArrayList<>();
+        List<List<InboundPaymentEvent>> partitions = partition(rows, unresolved);
+        List<CompletableFuture<Integer>> results = new ArrayList<>(partitions.size());
+        for (List<InboundPaymentEvent> events : partitions) {
+            if (!events.isEmpty()) {
+                results.add(CompletableFuture.supplyAsync(() -> replayPartition(events), replayExecutor));
+            }
+        }
+        int replayed = results.stream().mapToInt(CompletableFuture::join).sum();
+        if (!unresolved.isEmpty()) {
+            // Their user is unknown, so they may touch any partition; they run alone, after all of them.
+            log.info("Replaying {} events without a resolvable user serially", unresolved.size());
+            replayed += replayPartition(unresolved);
+        }
+        return replayed;
+    }
+
+    /**
+     * Groups a chunk by user, keeping cursor order inside each group. Events without a user id (revocations)
+     * follow the user of another event in the chunk for the same payment, or else the owner of the stored
+     * entitlement for that payment. Events whose user cannot be resolved go to {@code unresolved}.
+     */
+    private List<List<InboundPaymentEvent>> partition(
+            List<EntitlementInboxReplayRow> rows,
+            List<InboundPaymentEvent> unresolved
+    ) {
+        List<List<InboundPaymentEvent>> partitions = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        List<InboundPaymentEvent> events = new ArrayList<>(rows.size());
+        Map<String, String> userByPayment = new HashMap<>();
+        for (EntitlementInboxReplayRow row : rows) {
+            PaymentEventEnvelope envelope = parse(row);
+            if (envelope == null) {
+                continue;
+            }
+            events.add(new InboundPaymentEvent("replay-" + row.eventId(), envelope));
+            String userId = projectionService.userIdOf(envelope);
+            if (userId != null && envelope.paymentId() != null) {
+                userByPayment.putIfAbsent(envelope.paymentId(), userId);
+            }
+        }
+        for (InboundPaymentEvent event : events) {
+            PaymentEventEnvelope envelope = event.envelope();
+            String userId = projectionService.userIdOf(envelope);
+            if (userId == null && envelope.paymentId() != null) {
+                userId = userByPayment.computeIfAbsent(envelope.paymentId(), projectionService::userIdOfPayment);
+            }
+            if (userId == null) {
+                unresolved.add(event);
+            } else {
+                partitions.get(Math.floorMod(userId.hashCode(), workers)).add(event);
+            }
+        }
+        return partitions;
+    }
+
+    private int replayPartition(List<InboundPaymentEvent> events) {
+        try {
+            return projectionService.replay(events);
+        } catch (Exception ex) {
+            log.warn("Replay partition of {} events failed, retrying events individually", events.size(), ex);
         }
+        int replayed = 0;
+        for (InboundPaymentEvent event : events) {
+            try {
+                projectionService.ingest(event.eventId(), event.envelope(), true);
+                replayed++;
+            } catch (Exception ex) {
+                log.warn("Failed replay for eventId={}", event.eventId(), ex);
+            }
+        }
+        return replayed;
+    }
+
+    private PaymentEventEnvelope parse(EntitlementInboxReplayRow row) {
+        try {
+            return objectMapper.readValue(row.rawEventJson(), PaymentEventEnvelope.class);
+        } catch (Exception ex) {
+            log.warn("Failed replay for eventId={}: unreadable payload", row.eventId(), ex);
+            return null;
+        }
+    }
+
+    private void complete(EntitlementReplayCheckpointEntity checkpoint) {
+        checkpoint.setStatus(ReplayStatus.COMPLETED);
+        checkpoint.setOwnerId(null);
+        checkpoint.setLeaseUntil(null);
+    }
+
+    /**
+     * Inserts a new checkpoint leased to this instance; empty when another instance inserted the same id first.
+     */
+    private Optional<EntitlementReplayCheckpointEntity> create(String replayId, Instant from, Instant to) {
+        EntitlementReplayCheckpointEntity checkpoint = newCheckpoint(replayId, from, to);
+        checkpoint.setStatus(ReplayStatus.RUNNING);
+        try {
+            saveCheckpoint(checkpoint);
+            return Optional.of(checkpoint);
+        } catch (DataIntegrityViolationException ex) {
+            log.info("Entitlement replay checkpoint {} was created concurrently", replayId);
+            return Optional.empty();
+        }
+    }
+
+    private EntitlementReplayReport rejected(String replayId, Instant from, Instant to) {
+        return new EntitlementReplayReport(replayId, ReplayStatus.REJECTED, from, to, false, 0, 0, 0, 0, 0, 0);
+    }
+
+    private EntitlementReplayCheckpointEntity newCheckpoint(String replayId, Instant from, Instant to) {
+        EntitlementReplayCheckpointEntity checkpoint = new EntitlementReplayCheckpointEntity();
+        checkpoint.setReplayId(replayId);
+        checkpoint.setWindowFrom(from);
+        checkpoint.setWindowTo(to);
+        // Empty event id sorts before every real id, so rows stamped exactly at 'from' are included.
+        checkpoint.setCursorProcessedAt(from);
+        checkpoint.setCursorEventId("");
+        checkpoint.setStartedAt(Instant.now());
+        checkpoint.setOwnerId(instanceId);
+        return checkpoint;
+    }
+
+    private void saveCheckpoint(EntitlementReplayCheckpointEntity checkpoint) {
+        Instant now = Instant.now();
+        checkpoint.setUpdatedAt(now);
+        if (checkpoint.getStatus() == ReplayStatus.RUNNING) {
+            // Renewed with every chunk; a chunk must finish well within entitlement.replay.lease-seconds.
+            checkpoint.setOwnerId(instanceId);
+            checkpoint.setLeaseUntil(now.plusSeconds(leaseSeconds));
+        }
+        checkpointRepository.save(checkpoint);
+    }
+
+    private EntitlementReplayReport toReport(
+            EntitlementReplayCheckpointEntity checkpoint,
+            boolean resumed,
+            long scannedThisRun,
+            long elapsedNanos
+    ) {
+        long elapsedMs = elapsedNanos / 1_000_000;
+        double eventsPerSecond = elapsedNanos == 0 ? 0 : scannedThisRun * 1_000_000_000.0 / elapsedNanos;
+        return new EntitlementReplayReport(
+                checkpoint.getReplayId(),
+                checkpoint.getStatus(),
+                checkpoint.getWindowFrom(),
+                checkpoint.getWindowTo(),
+                resumed,
+                checkpoint.getScanned(),
+                checkpoint.getReplayed(),
+                checkpoint.getFailed(),
+                checkpoint.getChunks(),
+                elapsedMs,
+                eventsPerSecond
+        );
     }
 }
@@ -0,0 +1,150 @@
+package bbmovie.commerce.entitlement_service.application.service;
+
+import bbmovie.commerce.entitlement_service.application.dto.EntitlementSnapshot;
+import bbmovie.commerce.entitlement_service.domain.EntitlementStatus;
+import bbmovie.commerce.entitlement_service.infrastructure.cache.EntitlementSnapshotCacheRepository;
+import bbmovie.commerce.entitlement_service.infrastructure.cache.EntitlementSnapshotCacheRepository.VersionedSnapshot;
+import bbmovie.commerce.entitlement_service.infrastructure.persistence.entity.EntitlementRecordEntity;
+import bbmovie.commerce.entitlement_service.infrastructure.persistence.repo.EntitlementRecordRepository;
+import bbmovie.commerce.entitlement_service.infrastructure.persistence.repo.PlanContentPolicyRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves compiled {@link EntitlementSnapshot}s: in-process near-cache first, then Redis, then the database.
+ * <p>
+ * Near-cache entries are trusted for {@code entitlement.snapshot.near-cache-ttl-ms}; after that they are
+ * revalidated against the user's version counter, which is a single small read. Invalidation bumps the
+ * counter after the surrounding transaction commits, so a snapshot built from uncommitted data can never
+ * be tagged with the new version.
+ */
+@Service
+public class EntitlementSnapshotService {
+
+    private static final Object PENDING_INVALIDATIONS_KEY = new Object();
+
+    private final EntitlementRecordRepository recordRepository;
+    private final PlanContentPolicyRepository policyRepository;
+    private final EntitlementSnapshotCacheRepository cacheRepository;
+    private final long nearCacheTtlMs;
+    private final Map<String, NearCacheEntry> nearCache;
+
+    public EntitlementSnapshotService(
+            EntitlementRecordRepository recordRepository,
+            PlanContentPolicyRepository policyRepository,
+            EntitlementSnapshotCacheRepository cacheRepository,
+            @Value("${entitlement.snapshot.near-cache-ttl-ms:2000}") long nearCacheTtlMs,
+            @Value("${entitlement.snapshot.near-cache-size:50000}") int nearCacheSize
+    ) {
+        this.recordRepository = recordRepository;
+        this.policyRepository = policyRepository;
+        this.cacheRepository = cacheRepository;
+        this.nearCacheTtlMs = nearCacheTtlMs;
+        this.nearCache = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, NearCacheEntry> eldest) {
+                return size() > nearCacheSize;
+            }
+        });
+    }
+
+    public EntitlementSnapshot snapshotFor(String userId) {
+        long nowMs = System.currentTimeMillis();
+        NearCacheEntry near = nearCache.get(userId);
+        if (near != null && nowMs - near.validatedAtMs() < nearCacheTtlMs) {
+            return near.snapshot();
+        }
+
+        VersionedSnapshot stored = cacheRepository.read(userId);
+        if (stored.isCurrent()) {
+            nearCache.put(userId, new NearCacheEntry(stored.snapshot(), nowMs));
+            return stored.snapshot();
+        }
+        if (near != null && stored.version() != EntitlementSnapshotCacheRepository.UNAVAILABLE
+                && near.snapshot().version() == stored.version()) {
+            // Redis lost the snapshot body but the version is unchanged: the local copy is still valid.
+            cacheRepository.write(near.snapshot());
+            nearCache.put(userId, new NearCacheEntry(near.snapshot(), nowMs));
+            return near.snapshot();
+        }
+
+        EntitlementSnapshot built = build(userId, stored.version());
+        if (stored.version() != EntitlementSnapshotCacheRepository.UNAVAILABLE) {
+            cacheRepository.write(built);
+            nearCache.put(userId, new NearCacheEntry(built, nowMs));
+        }
+        return built;
+    }
+
+    public void invalidate(String userId) {
+        nearCache.remove(userId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bumpVersion(userId);
+            return;
+        }
+        // Coalesce: a batch touching the same user many times bumps its version once, after commit.
+        @SuppressWarnings("unchecked")
+        Set<String> pending = (Set<String>) TransactionSynchronizationManager.getResource(PENDING_INVALIDATIONS_KEY);
+        if (pending == null) {
+            Set<String> users = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(PENDING_INVALIDATIONS_KEY, users);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    users.forEach(EntitlementSnapshotService.this::bumpVersion);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_INVALIDATIONS_KEY);
+                }
+            });
+            pending = users;
+        }
+        pending.add(userId);
+    }
+
+    private void bumpVersion(String userId) {
+        cacheRepository.bumpVersion(userId);
+        nearCache.remove(userId);
+    }
+
+    private EntitlementSnapshot build(String userId, long version) {
+        Instant now = Instant.now();
+        EntitlementRecordEntity active = recordRepository
+                .findFirstByUserIdAndStatusAndEndsAtAfterOrderByEndsAtDesc(userId, EntitlementStatus.ACTIVE, now)
+                .orElse(null);
+        if (active == null) {
+            return EntitlementSnapshot.empty(userId, version, now);
+        }
+        Set<String> packages = active.getPlanId() == null
+                ? Set.of()
+                : policyRepository.findByPlanIdAndEnabledTrue(active.getPlanId()).stream()
+                        .map(policy -> policy.getContentPackage().toLowerCase(Locale.ROOT))
+                        .collect(Collectors.toUnmodifiableSet());
+        return new EntitlementSnapshot(
+                userId,
+                version,
+                active.getEntitlementId(),
+                active.getPlanId(),
+                active.getTier(),
+                active.getEndsAt(),
+                packages,
+                now
+        );
+    }
+
+    private record NearCacheEntry(EntitlementSnapshot snapshot, long validatedAtMs) {
+    }
+}
@@ -0,0 +1,8 @@
+package bbmovie.commerce.entitlement_service.domain;
+
+public enum ReplayStatus {
+    RUNNING,
+    COMPLETED,
+    INTERRUPTED,
+    REJECTED
+}
@@ -0,0 +1,82 @@
+package bbmovie.commerce.entitlement_service.infrastructure.cache;
+
+import bbmovie.commerce.entitlement_service.application.dto.EntitlementSnapshot;
+import tools.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Redis storage for per-user entitlement snapshots.
+ * <p>
+ * Each user has one snapshot key and one version counter. Invalidation is a single {@code INCR} of the counter;
+ * a stored snapshot whose version differs from the counter is ignored and rebuilt. The counter outlives
+ * snapshots so an expired counter can never resurrect an old snapshot version.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class EntitlementSnapshotCacheRepository {
+    public static final long UNAVAILABLE = -1L;
+
+    private static final String SNAPSHOT_PREFIX = "entitlement:snapshot:";
+    private static final String VERSION_PREFIX = "entitlement:snapshot-version:";
+    private static final Duration SNAPSHOT_TTL = Duration.ofMinutes(30);
+    private static final Duration VERSION_TTL = Duration.ofDays(2);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Reads the version counter and the stored snapshot in one round trip.
+     * The version is {@link #UNAVAILABLE} when Redis cannot be reached.
+     */
+    public VersionedSnapshot read(String userId) {
+        try {
+            List<String> values = redisTemplate.opsForValue().multiGet(List.of(VERSION_PREFIX + userId, SNAPSHOT_PREFIX + userId));
+            if (values == null) {
+                return new VersionedSnapshot(UNAVAILABLE, null);
+            }
+            long version = parseVersion(values.get(0));
+            String raw = values.get(1);
+            EntitlementSnapshot snapshot = raw == null ? null : objectMapper.readValue(raw, EntitlementSnapshot.class);
+            return new VersionedSnapshot(version, snapshot);
+        } catch (Exception ex) {
+            log.debug("Failed reading entitlement snapshot userId={}", userId, ex);
+            return new VersionedSnapshot(UNAVAILABLE, null);
+        }
+    }
+
+    public void write(EntitlementSnapshot snapshot) {
+        try {
+            String raw = objectMapper.writeValueAsString(snapshot);
+            redisTemplate.opsForValue().set(SNAPSHOT_PREFIX + snapshot.userId(), raw, SNAPSHOT_TTL);
+        } catch (Exception ex) {
+            log.debug("Failed writing entitlement snapshot userId={}", snapshot.userId(), ex);
+        }
+    }
+
+    public void bumpVersion(String userId) {
+        try {
+            String key = VERSION_PREFIX + userId;
+            redisTemplate.opsForValue().increment(key);
+            redisTemplate.expire(key, VERSION_TTL);
+        } catch (Exception ex) {
+            log.warn("Failed bumping entitlement snapshot version userId={}", userId, ex);
+        }
+    }
+
+    private long parseVersion(String raw) {
+        return raw == null ? 0L : Long.parseLong(raw);
+    }
+
+    public record VersionedSnapshot(long version, EntitlementSnapshot snapshot) {
+        public boolean isCurrent() {
+            return version != UNAVAILABLE && snapshot != null && snapshot.version() == version;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package bbmovie.commerce.entitlement_service.infrastructure.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class ReplayExecutorConfig {
+
+    @Bean(name = "entitlementReplayExecutor", destroyMethod = "shutdown")
+    public ExecutorService entitlementReplayExecutor(@Value("${entitlement.replay.workers:4}") int workers) {
+        return Executors.newFixedThreadPool(
+                workers,
+                Thread.ofPlatform().name("entitlement-replay-", 0).daemon(true).factory()
+        );
+    }
+}
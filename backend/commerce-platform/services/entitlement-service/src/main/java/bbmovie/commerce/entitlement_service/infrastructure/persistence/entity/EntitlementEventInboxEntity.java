@@ -3,6 +3,7 @@ package bbmovie.commerce.entitlement_service.infrastructure.persistence.entity;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Lob;
 import jakarta.persistence.Table;
 import lombok.Getter;
@@ -13,7 +14,10 @@ import java.time.Instant;
 @Getter
 @Setter
 @Entity
-@Table(name = "entitlement_event_inbox")
+@Table(
+        name = "entitlement_event_inbox",
+        indexes = @Index(name = "idx_entitlement_inbox_processed_at", columnList = "processed_at, event_id")
+)
 public class EntitlementEventInboxEntity {
 
     @Id
@@ -0,0 +1,65 @@
+package bbmovie.commerce.entitlement_service.infrastructure.persistence.entity;
+
+import bbmovie.commerce.entitlement_service.domain.ReplayStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "entitlement_replay_checkpoints")
+public class EntitlementReplayCheckpointEntity {
+
+    @Id
+    @Column(name = "replay_id", nullable = false, length = 128)
+    private String replayId;
+
+    @Column(name = "window_from", nullable = false)
+    private Instant windowFrom;
+
+    @Column(name = "window_to", nullable = false)
+    private Instant windowTo;
+
+    @Column(name = "cursor_processed_at", nullable = false)
+    private Instant cursorProcessedAt;
+
+    @Column(name = "cursor_event_id", nullable = false, length = 128)
+    private String cursorEventId;
+
+    @Column(name = "scanned", nullable = false)
+    private long scanned;
+
+    @Column(name = "replayed", nullable = false)
+    private long replayed;
+
+    @Column(name = "failed", nullable = false)
+    private long failed;
+
+    @Column(name = "chunks", nullable = false)
+    private long chunks;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 32)
+    private ReplayStatus status;
+
+    /** Instance running this replay; together with {@code leaseUntil} it keeps other instances off a live run. */
+    @Column(name = "owner_id", length = 64)
+    private String ownerId;
+
+    @Column(name = "lease_until")
+    private Instant leaseUntil;
+
+    @Column(name = "started_at", nullable = false)
+    private Instant startedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -1,15 +1,41 @@
 package bbmovie.commerce.entitlement_service.infrastructure.persistence.repo;
 
 import bbmovie.commerce.entitlement_service.infrastructure.persistence.entity.EntitlementEventInboxEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 @Repository
 public interface EntitlementEventInboxRepository extends JpaRepository<EntitlementEventInboxEntity, String> {
     boolean existsByEventId(String eventId);
 
-    List<EntitlementEventInboxEntity> findByProcessedAtBetweenOrderByProcessedAtAsc(Instant from, Instant to);
+    @Query("select i.eventId from EntitlementEventInboxEntity i where i.eventId in :eventIds")
+    Set<String> findExistingEventIds(@Param("eventIds") Collection<String> eventIds);
+
+    /**
+     * Keyset page of the replay window: rows strictly after the {@code (processedAt, eventId)} cursor and
+     * up to {@code to}, in cursor order.
+     */
+    @Query("""
+            select new bbmovie.commerce.entitlement_service.infrastructure.persistence.repo.EntitlementInboxReplayRow(
+                i.eventId, i.processedAt, i.rawEventJson)
+            from EntitlementEventInboxEntity i
+            where i.processedAt <= :to
+              and (i.processedAt > :afterProcessedAt
+                   or (i.processedAt = :afterProcessedAt and i.eventId > :afterEventId))
+            order by i.processedAt asc, i.eventId asc
+            """)
+    List<EntitlementInboxReplayRow> findReplayChunk(
+            @Param("afterProcessedAt") Instant afterProcessedAt,
+            @Param("afterEventId") String afterEventId,
+            @Param("to") Instant to,
+            Pageable pageable
+    );
 }
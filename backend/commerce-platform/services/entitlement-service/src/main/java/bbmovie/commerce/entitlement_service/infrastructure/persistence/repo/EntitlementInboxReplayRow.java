@@ -0,0 +1,13 @@
+package bbmovie.commerce.entitlement_service.infrastructure.persistence.repo;
+
+import java.time.Instant;
+
+/**
+ * Unmanaged projection of an inbox row for replay, so scanning large windows never grows a persistence context.
+ */
+public record EntitlementInboxReplayRow(
+        String eventId,
+        Instant processedAt,
+        String rawEventJson
+) {
+}
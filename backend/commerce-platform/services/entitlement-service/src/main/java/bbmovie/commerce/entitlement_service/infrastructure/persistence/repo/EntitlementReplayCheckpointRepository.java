@@ -0,0 +1,52 @@
+package bbmovie.commerce.entitlement_service.infrastructure.persistence.repo;
+
+import bbmovie.commerce.entitlement_service.domain.ReplayStatus;
+import bbmovie.commerce.entitlement_service.infrastructure.persistence.entity.EntitlementReplayCheckpointEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface EntitlementReplayCheckpointRepository extends JpaRepository<EntitlementReplayCheckpointEntity, String> {
+
+    /**
+     * Oldest unfinished run that no live instance holds: interrupted, or running under an expired lease.
+     */
+    @Query("""
+            SELECT c FROM EntitlementReplayCheckpointEntity c
+            WHERE c.status IN (bbmovie.commerce.entitlement_service.domain.ReplayStatus.RUNNING,
+                               bbmovie.commerce.entitlement_service.domain.ReplayStatus.INTERRUPTED)
+              AND (c.leaseUntil IS NULL OR c.leaseUntil < :now)
+            ORDER BY c.startedAt ASC
+            LIMIT 1
+            """)
+    Optional<EntitlementReplayCheckpointEntity> findFirstResumable(@Param("now") Instant now);
+
+    /**
+     * Takes over an unfinished run unless another instance holds a live lease on it.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+            UPDATE EntitlementReplayCheckpointEntity c
+            SET c.ownerId = :ownerId, c.leaseUntil = :leaseUntil
+            WHERE c.replayId = :replayId
+              AND c.status <> bbmovie.commerce.entitlement_service.domain.ReplayStatus.COMPLETED
+              AND (c.ownerId IS NULL OR c.ownerId = :ownerId OR c.leaseUntil IS NULL OR c.leaseUntil < :now)
+            """)
+    int claim(@Param("replayId") String replayId,
+              @Param("ownerId") String ownerId,
+              @Param("now") Instant now,
+              @Param("leaseUntil") Instant leaseUntil);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM EntitlementReplayCheckpointEntity c WHERE c.status = :status AND c.updatedAt < :before")
+    int deleteByStatusAndUpdatedAtBefore(@Param("status") ReplayStatus status, @Param("before") Instant before);
+}
@@ -1,10 +1,13 @@
 package bbmovie.commerce.entitlement_service.application.service;
 
 import bbmovie.commerce.entitlement_service.adapter.inbound.rest.dto.EntitlementCheckRequest;
+import bbmovie.commerce.entitlement_service.adapter.inbound.rest.dto.EntitlementResourceBatchRequest;
 import bbmovie.commerce.entitlement_service.application.rules.ActiveEntitlementRule;
 import bbmovie.commerce.entitlement_service.application.rules.PackagePolicyRule;
 import bbmovie.commerce.entitlement_service.domain.EntitlementStatus;
-import bbmovie.commerce.entitlement_service.infrastructure.cache.EntitlementDecisionCacheRepository;
+import bbmovie.commerce.entitlement_service.infrastructure.cache.EntitlementSnapshotCacheRepository;
+import bbmovie.commerce.entitlement_service.infrastructure.cache.EntitlementSnapshotCacheRepository.VersionedSnapshot;
+import bbmovie.commerce.entitlement_service.infrastructure.persistence.entity.PlanContentPolicyEntity;
 import bbmovie.commerce.entitlement_service.infrastructure.persistence.entity.EntitlementRecordEntity;
 import bbmovie.commerce.entitlement_service.infrastructure.persistence.repo.EntitlementOverrideAuditRepository;
 import bbmovie.commerce.entitlement_service.infrastructure.persistence.repo.PlanContentPolicyRepository;
@@ -23,6 +26,9 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,7 +37,7 @@ class EntitlementDecisionServiceTest {
     @Mock
     private EntitlementRecordRepository recordRepository;
     @Mock
-    private EntitlementDecisionCacheRepository cacheRepository;
+    private EntitlementSnapshotCacheRepository cacheRepository;
     @Mock
     private PlanContentPolicyRepository policyRepository;
     @Mock
@@ -41,10 +47,11 @@ class EntitlementDecisionServiceTest {
 
     @org.junit.jupiter.api.BeforeEach
     void setup() {
+        lenient().when(cacheRepository.read(any())).thenReturn(new VersionedSnapshot(0, null));
         decisionService = new EntitlementDecisionService(
                 recordRepository,
-                cacheRepository,
-                List.of(new ActiveEntitlementRule(), new PackagePolicyRule(policyRepository)),
+                new EntitlementSnapshotService(recordRepository, policyRepository, cacheRepository, 2000, 100),
+                List.of(new ActiveEntitlementRule(), new PackagePolicyRule()),
                 overrideAuditRepository
         );
     }
@@ -84,6 +91,73 @@ class EntitlementDecisionServiceTest {
         assertEquals("NO_ACTIVE_ENTITLEMENT", decision.reasonCode());
     }
 
+    @Test
+    void should_evaluate_package_policy_from_snapshot_without_extra_lookups() {
+        EntitlementRecordEntity entity = new EntitlementRecordEntity();
+        entity.setEntitlementId("ent-3");
+        entity.setUserId("user-3");
+        entity.setPlanId("basic");
+        entity.setTier("BASIC");
+        entity.setStatus(EntitlementStatus.ACTIVE);
+        entity.setEndsAt(Instant.now().plusSeconds(3600));
+        PlanContentPolicyEntity policy = new PlanContentPolicyEntity();
+        policy.setPlanId("basic");
+        policy.setContentPackage("SD");
+
+        when(recordRepository.findFirstByUserIdAndStatusAndEndsAtAfterOrderByEndsAtDesc(
+                eq("user-3"),
+                eq(EntitlementStatus.ACTIVE),
+                any(Instant.class)
+        )).thenReturn(Optional.of(entity));
+        when(policyRepository.findByPlanIdAndEnabledTrue("basic")).thenReturn(List.of(policy));
+
+        var allowed = decisionService.check(new EntitlementCheckRequest("user-3", "movie-1", "STREAM", "sd"));
+        var denied = decisionService.check(new EntitlementCheckRequest("user-3", "movie-2", "STREAM", "UHD"));
+
+        assertTrue(allowed.allowed());
+        assertFalse(denied.allowed());
+        assertEquals("PLAN_PACKAGE_MISMATCH", denied.reasonCode());
+        assertEquals("BASIC", denied.tier());
+        verify(recordRepository, times(1)).findFirstByUserIdAndStatusAndEndsAtAfterOrderByEndsAtDesc(
+                eq("user-3"), eq(EntitlementStatus.ACTIVE), any(Instant.class));
+        verify(cacheRepository, times(1)).write(any());
+    }
+
+    @Test
+    void should_check_many_resources_with_single_entitlement_lookup() {
+        EntitlementRecordEntity entity = new EntitlementRecordEntity();
+        entity.setEntitlementId("ent-4");
+        entity.setUserId("user-4");
+        entity.setPlanId("basic");
+        entity.setTier("BASIC");
+        entity.setStatus(EntitlementStatus.ACTIVE);
+        entity.setEndsAt(Instant.now().plusSeconds(3600));
+        PlanContentPolicyEntity policy = new PlanContentPolicyEntity();
+        policy.setPlanId("basic");
+        policy.setContentPackage("SD");
+
+        when(recordRepository.findFirstByUserIdAndStatusAndEndsAtAfterOrderByEndsAtDesc(
+                eq("user-4"),
+                eq(EntitlementStatus.ACTIVE),
+                any(Instant.class)
+        )).thenReturn(Optional.of(entity));
+        when(policyRepository.findByPlanIdAndEnabledTrue("basic")).thenReturn(List.of(policy));
+
+        var response = decisionService.checkResources(new EntitlementResourceBatchRequest("user-4", "STREAM", List.of(
+                new EntitlementResourceBatchRequest.Resource("movie-1", "SD"),
+                new EntitlementResourceBatchRequest.Resource("movie-2", "UHD"),
+                new EntitlementResourceBatchRequest.Resource("movie-3", null)
+        )));
+
+        assertEquals("BASIC", response.tier());
+        assertEquals(3, response.decisions().size());
+        assertTrue(response.decisions().get(0).allowed());
+        assertEquals("PLAN_PACKAGE_MISMATCH", response.decisions().get(1).reasonCode());
+        assertTrue(response.decisions().get(2).allowed());
+        verify(recordRepository, times(1)).findFirstByUserIdAndStatusAndEndsAtAfterOrderByEndsAtDesc(
+                eq("user-4"), eq(EntitlementStatus.ACTIVE), any(Instant.class));
+    }
+
     @Test
     void should_return_user_entitlements() {
         EntitlementRecordEntity entity = new EntitlementRecordEntity();
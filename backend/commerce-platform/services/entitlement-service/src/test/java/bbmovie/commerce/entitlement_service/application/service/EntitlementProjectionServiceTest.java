@@ -1,10 +1,12 @@
 package bbmovie.commerce.entitlement_service.application.service;
 
 import bbmovie.commerce.commerce_contracts.contracts.payment.PaymentEventTypes;
+import bbmovie.commerce.entitlement_service.application.dto.InboundPaymentEvent;
 import bbmovie.commerce.entitlement_service.application.dto.PaymentEventEnvelope;
 import bbmovie.commerce.entitlement_service.domain.EntitlementStatus;
 import bbmovie.commerce.entitlement_service.infrastructure.persistence.entity.EntitlementEventInboxEntity;
 import bbmovie.commerce.entitlement_service.infrastructure.persistence.entity.EntitlementRecordEntity;
+import bbmovie.commerce.entitlement_service.infrastructure.persistence.jdbc.EntitlementInboxBatchWriter;
 import bbmovie.commerce.entitlement_service.infrastructure.persistence.repo.EntitlementEventInboxRepository;
 import bbmovie.commerce.entitlement_service.infrastructure.persistence.repo.EntitlementRecordRepository;
 import tools.jackson.databind.ObjectMapper;
@@ -16,14 +18,18 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -38,6 +44,8 @@ class EntitlementProjectionServiceTest {
     private EntitlementDecisionService decisionService;
     @Mock
     private ObjectMapper objectMapper;
+    @Mock
+    private EntitlementInboxBatchWriter inboxBatchWriter;
 
     @InjectMocks
     private EntitlementProjectionService projectionService;
@@ -95,4 +103,28 @@ class EntitlementProjectionServiceTest {
 
         assertThrows(IllegalArgumentException.class, () -> projectionService.ingest("ev-2", envelope));
     }
+
+    @Test
+    void should_skip_known_and_in_batch_duplicates_with_single_inbox_lookup() {
+        when(inboxRepository.findExistingEventIds(anyCollection())).thenReturn(Set.of("ev-old"));
+        PaymentEventEnvelope envelope = new PaymentEventEnvelope(
+                PaymentEventTypes.PAYMENT_SUCCEEDED_V1,
+                "pay-1",
+                Map.of("userId", "user-1", "planId", "premium_monthly")
+        );
+
+        int applied = projectionService.ingestBatch(List.of(
+                new InboundPaymentEvent("ev-old", envelope),
+                new InboundPaymentEvent("ev-new", envelope),
+                new InboundPaymentEvent("ev-new", envelope)
+        ));
+
+        assertEquals(1, applied);
+        verify(recordRepository, times(1)).save(any(EntitlementRecordEntity.class));
+        verify(inboxRepository, never()).existsByEventId(any());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<EntitlementEventInboxEntity>> captor = ArgumentCaptor.forClass(List.class);
+        verify(inboxBatchWriter).insertAll(captor.capture());
+        assertEquals("ev-new", captor.getValue().getFirst().getEventId());
+    }
 }
@@ -0,0 +1,195 @@
+package bbmovie.commerce.entitlement_service.application.service;
+
+import bbmovie.commerce.commerce_contracts.contracts.payment.PaymentEventTypes;
+import bbmovie.commerce.entitlement_service.application.dto.EntitlementReplayReport;
+import bbmovie.commerce.entitlement_service.application.dto.InboundPaymentEvent;
+import bbmovie.commerce.entitlement_service.application.dto.PaymentEventEnvelope;
+import bbmovie.commerce.entitlement_service.domain.ReplayStatus;
+import bbmovie.commerce.entitlement_service.infrastructure.persistence.entity.EntitlementReplayCheckpointEntity;
+import bbmovie.commerce.entitlement_service.infrastructure.persistence.repo.EntitlementEventInboxRepository;
+import bbmovie.commerce.entitlement_service.infrastructure.persistence.repo.EntitlementInboxReplayRow;
+import bbmovie.commerce.entitlement_service.infrastructure.persistence.repo.EntitlementReplayCheckpointRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EntitlementReplayServiceTest {
+
+    private static final Instant FROM = Instant.parse("2026-01-01T00:00:00Z");
+    private static final Instant TO = Instant.parse("2026-01-01T01:00:00Z");
+
+    @Mock
+    private EntitlementEventInboxRepository inboxRepository;
+    @Mock
+    private EntitlementReplayCheckpointRepository checkpointRepository;
+    @Mock
+    private EntitlementProjectionService projectionService;
+    @Mock
+    private ObjectMapper objectMapper;
+
+    private ExecutorService executor;
+    private EntitlementReplayService replayService;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+        replayService = new EntitlementReplayService(
+                inboxRepository, checkpointRepository, projectionService, objectMapper, executor);
+        ReflectionTestUtils.setField(replayService, "chunkSize", 2);
+        ReflectionTestUtils.setField(replayService, "workers", 2);
+        ReflectionTestUtils.setField(replayService, "leaseSeconds", 300L);
+        ReflectionTestUtils.setField(replayService, "retentionHours", 24L);
+
+        PaymentEventEnvelope envelope = new PaymentEventEnvelope(
+                PaymentEventTypes.PAYMENT_SUCCEEDED_V1, "pay-1", Map.of("userId", "user-1"));
+        lenient().when(objectMapper.readValue(anyString(), eq(PaymentEventEnvelope.class))).thenReturn(envelope);
+        lenient().when(projectionService.userIdOf(any())).thenReturn("user-1");
+        lenient().when(projectionService.replay(anyList()))
+                .thenAnswer(invocation -> invocation.<List<InboundPaymentEvent>>getArgument(0).size());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void should_stream_window_in_chunks_and_checkpoint_cursor() {
+        EntitlementInboxReplayRow first = row("ev-1", FROM.plusSeconds(1));
+        EntitlementInboxReplayRow second = row("ev-2", FROM.plusSeconds(2));
+        EntitlementInboxReplayRow third = row("ev-3", FROM.plusSeconds(3));
+        when(checkpointRepository.findById("replay-1")).thenReturn(Optional.empty());
+        when(inboxRepository.findReplayChunk(eq(FROM), eq(""), eq(TO), any())).thenReturn(List.of(first, second));
+        when(inboxRepository.findReplayChunk(eq(second.processedAt()), eq("ev-2"), eq(TO), any())).thenReturn(List.of(third));
+
+        EntitlementReplayReport report = replayService.replay("replay-1", FROM, TO);
+
+        assertEquals(ReplayStatus.COMPLETED, report.status());
+        assertEquals(3, report.scanned());
+        assertEquals(3, report.replayed());
+        assertEquals(0, report.failed());
+        assertEquals(2, report.chunks());
+        verify(checkpointRepository, atLeast(3)).save(any(EntitlementReplayCheckpointEntity.class));
+    }
+
+    @Test
+    void should_resume_interrupted_replay_from_stored_cursor() {
+        EntitlementReplayCheckpointEntity checkpoint = new EntitlementReplayCheckpointEntity();
+        checkpoint.setReplayId("replay-2");
+        checkpoint.setWindowFrom(FROM);
+        checkpoint.setWindowTo(TO);
+        checkpoint.setCursorProcessedAt(FROM.plusSeconds(10));
+        checkpoint.setCursorEventId("ev-10");
+        checkpoint.setScanned(10);
+        checkpoint.setReplayed(9);
+        checkpoint.setFailed(1);
+        checkpoint.setChunks(5);
+        checkpoint.setStatus(ReplayStatus.INTERRUPTED);
+        checkpoint.setStartedAt(FROM);
+        when(checkpointRepository.findById("replay-2")).thenReturn(Optional.of(checkpoint));
+        when(checkpointRepository.claim(eq("replay-2"), anyString(), any(), any())).thenReturn(1);
+        when(inboxRepository.findReplayChunk(eq(FROM.plusSeconds(10)), eq("ev-10"), eq(TO), any()))
+                .thenReturn(List.of(row("ev-11", FROM.plusSeconds(11))));
+
+        EntitlementReplayReport report = replayService.replay("replay-2", FROM, TO);
+
+        assertTrue(report.resumed());
+        assertEquals(ReplayStatus.COMPLETED, report.status());
+        assertEquals(11, report.scanned());
+        assertEquals(10, report.replayed());
+        assertEquals(6, report.chunks());
+    }
+
+    @Test
+    void should_not_take_over_a_run_leased_by_another_instance() {
+        EntitlementReplayCheckpointEntity checkpoint = new EntitlementReplayCheckpointEntity();
+        checkpoint.setReplayId("replay-3");
+        checkpoint.setStatus(ReplayStatus.RUNNING);
+        checkpoint.setOwnerId("other-instance");
+        checkpoint.setLeaseUntil(Instant.now().plusSeconds(120));
+        when(checkpointRepository.findById("replay-3")).thenReturn(Optional.of(checkpoint));
+        when(checkpointRepository.claim(eq("replay-3"), anyString(), any(), any())).thenReturn(0);
+
+        EntitlementReplayReport report = replayService.replay("replay-3", FROM, TO);
+
+        assertEquals(ReplayStatus.REJECTED, report.status());
+        verify(inboxRepository, never()).findReplayChunk(any(), any(), any(), any());
+        verify(checkpointRepository, never()).save(any(EntitlementReplayCheckpointEntity.class));
+    }
+
+    @Test
+    void should_partition_revocations_by_stored_owner_and_replay_unresolved_ones_last() {
+        ReflectionTestUtils.setField(replayService, "chunkSize", 3);
+        PaymentEventEnvelope storedRevoke = new PaymentEventEnvelope(
+                PaymentEventTypes.PAYMENT_REFUNDED_V1, "pay-2", Map.of());
+        PaymentEventEnvelope unknownRevoke = new PaymentEventEnvelope(
+                PaymentEventTypes.PAYMENT_REFUNDED_V1, "pay-3", Map.of());
+        lenient().when(objectMapper.readValue(eq("revoke-2"), eq(PaymentEventEnvelope.class))).thenReturn(storedRevoke);
+        lenient().when(objectMapper.readValue(eq("revoke-3"), eq(PaymentEventEnvelope.class))).thenReturn(unknownRevoke);
+        lenient().when(projectionService.userIdOf(storedRevoke)).thenReturn(null);
+        lenient().when(projectionService.userIdOf(unknownRevoke)).thenReturn(null);
+        when(projectionService.userIdOfPayment("pay-2")).thenReturn("user-1");
+        when(projectionService.userIdOfPayment("pay-3")).thenReturn(null);
+        when(checkpointRepository.findById("replay-4")).thenReturn(Optional.empty());
+        when(inboxRepository.findReplayChunk(eq(FROM), eq(""), eq(TO), any())).thenReturn(List.of(
+                row("ev-1", FROM.plusSeconds(1)),
+                new EntitlementInboxReplayRow("ev-2", FROM.plusSeconds(2), "revoke-2"),
+                new EntitlementInboxReplayRow("ev-3", FROM.plusSeconds(3), "revoke-3")));
+        when(inboxRepository.findReplayChunk(eq(FROM.plusSeconds(3)), eq("ev-3"), eq(TO), any())).thenReturn(List.of());
+
+        EntitlementReplayReport report = replayService.replay("replay-4", FROM, TO);
+
+        assertEquals(3, report.replayed());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<InboundPaymentEvent>> batches = ArgumentCaptor.forClass(List.class);
+        verify(projectionService, times(2)).replay(batches.capture());
+        assertEquals(List.of("replay-ev-1", "replay-ev-2"), eventIds(batches.getAllValues().getFirst()));
+        assertEquals(List.of("replay-ev-3"), eventIds(batches.getAllValues().getLast()));
+    }
+
+    @Test
+    void should_resume_only_expired_runs_and_purge_completed_checkpoints() {
+        ReflectionTestUtils.setField(replayService, "replayEnabled", true);
+        when(checkpointRepository.findFirstResumable(any())).thenReturn(Optional.empty());
+
+        replayService.scheduledReplay();
+
+        verify(checkpointRepository).findFirstResumable(any(Instant.class));
+        verify(checkpointRepository).deleteByStatusAndUpdatedAtBefore(eq(ReplayStatus.COMPLETED), any(Instant.class));
+    }
+
+    private List<String> eventIds(List<InboundPaymentEvent> events) {
+        return events.stream().map(InboundPaymentEvent::eventId).toList();
+    }
+
+    private EntitlementInboxReplayRow row(String eventId, Instant processedAt) {
+        return new EntitlementInboxReplayRow(eventId, processedAt, "{}");
+    }
+}
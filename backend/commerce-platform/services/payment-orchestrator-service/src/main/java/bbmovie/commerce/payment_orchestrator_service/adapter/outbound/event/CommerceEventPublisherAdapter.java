@@ -7,6 +7,7 @@ import bbmovie.commerce.payment_orchestrator_service.infrastructure.persistence.
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,15 +20,18 @@ public class CommerceEventPublisherAdapter implements EventPublisherPort {
 
     private final OutboxEventRepository outboxEventRepository;
     private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher applicationEventPublisher;
     private final boolean enabled;
 
     public CommerceEventPublisherAdapter(
             OutboxEventRepository outboxEventRepository,
             ObjectMapper objectMapper,
+            ApplicationEventPublisher applicationEventPublisher,
             @Value("${app.kafka.events.enabled:false}") boolean enabled
     ) {
         this.outboxEventRepository = outboxEventRepository;
         this.objectMapper = objectMapper;
+        this.applicationEventPublisher = applicationEventPublisher;
         this.enabled = enabled;
     }
 
@@ -55,6 +59,7 @@ public class CommerceEventPublisherAdapter implements EventPublisherPort {
             row.setCreatedAt(Instant.now());
             row.setNextAttemptAt(Instant.now());
             outboxEventRepository.save(row);
+            applicationEventPublisher.publishEvent(new OutboxEventQueued(row.getId()));
             log.info("Outbox event queued: eventType={}, paymentId={}, outboxId={}", eventType, paymentId, row.getId());
         } catch (Exception e) {
             log.error("Failed to enqueue outbox event: eventType={}, paymentId={}", eventType, paymentId, e);
@@ -0,0 +1,6 @@
+package bbmovie.commerce.payment_orchestrator_service.adapter.outbound.event;
+
+/**
+ * In-process hint that an outbox row was written; the relay reacts after the writing transaction commits.
+ */
+public record OutboxEventQueued(String outboxId) {}
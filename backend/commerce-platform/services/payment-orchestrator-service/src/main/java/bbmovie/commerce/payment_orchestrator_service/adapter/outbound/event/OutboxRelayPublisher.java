@@ -3,42 +3,94 @@ package bbmovie.commerce.payment_orchestrator_service.adapter.outbound.event;
 import bbmovie.commerce.payment_orchestrator_service.infrastructure.persistence.entity.OutboxEventEntity;
 import bbmovie.commerce.payment_orchestrator_service.infrastructure.persistence.entity.OutboxStatus;
 import bbmovie.commerce.payment_orchestrator_service.infrastructure.persistence.jpa.OutboxEventRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.ObjectProvider;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Relays pending outbox rows to Kafka in batches.
+ * <p>
+ * Each batch claims up to {@code app.outbox.relay.batch-size} rows with {@code FOR UPDATE SKIP LOCKED},
+ * sends them all asynchronously, waits once for the acks and marks the published rows with a single
+ * bulk update. Events of the same payment are chained so a failed send never lets a later event of that
+ * payment overtake it. Besides the fixed-delay poll, a committed {@link OutboxEventQueued} hint wakes the
+ * relay immediately; concurrent triggers are coalesced into one more drain pass.
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class OutboxRelayPublisher {
 
-    private static final int RELAY_BATCH_SIZE = 100;
     private static final long KAFKA_SEND_TIMEOUT_SECONDS = 10;
+    private static final int MAX_BATCHES_PER_RUN = 50;
 
     private final OutboxEventRepository outboxEventRepository;
     private final TransactionTemplate transactionTemplate;
-    @Qualifier("outboxKafkaTemplate")
     private final ObjectProvider<KafkaTemplate<String, String>> kafkaTemplateProvider;
 
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean rerunRequested = new AtomicBoolean();
+
+    private final Timer batchLatency;
+    private final Timer publishLag;
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+
     @Value("${app.kafka.events.enabled:false}")
     private boolean kafkaEnabled;
 
     @Value("${app.outbox.relay.enabled:true}")
     private boolean relayEnabled;
 
+    @Value("${app.outbox.relay.batch-size:200}")
+    private int batchSize;
+
     @Value("${app.kafka.topic.payment-events:commerce.payment.events.v1}")
     private String topic;
 
+    public OutboxRelayPublisher(
+            OutboxEventRepository outboxEventRepository,
+            TransactionTemplate transactionTemplate,
+            @Qualifier("outboxKafkaTemplate") ObjectProvider<KafkaTemplate<String, String>> kafkaTemplateProvider,
+            MeterRegistry meterRegistry
+    ) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.kafkaTemplateProvider = kafkaTemplateProvider;
+        this.batchLatency = Timer.builder("outbox.relay.batch.latency")
+                .description("Time to claim, publish and mark one outbox batch")
+                .register(meterRegistry);
+        this.publishLag = Timer.builder("outbox.relay.lag")
+                .description("Delay between outbox row creation and its publication to Kafka")
+                .register(meterRegistry);
+        this.publishedCounter = Counter.builder("outbox.relay.published").register(meterRegistry);
+        this.failedCounter = Counter.builder("outbox.relay.failed").register(meterRegistry);
+    }
+
     @Scheduled(fixedDelayString = "${app.outbox.relay.fixed-delay-ms:2000}")
     public void relayBatch() {
         if (!relayEnabled || !kafkaEnabled) {
@@ -50,42 +102,116 @@ public class OutboxRelayPublisher {
             return;
         }
 
-        for (int i = 0; i < RELAY_BATCH_SIZE; i++) {
-            Boolean processed = transactionTemplate.execute(status -> {
-                // Claim a single row with FOR UPDATE SKIP LOCKED to avoid cross-instance duplicates.
-                List<OutboxEventEntity> claimed = outboxEventRepository
-                        .claimPendingBatch(OutboxStatus.PENDING.name(), Instant.now(), 1);
-                if (claimed.isEmpty()) {
-                    return false;
-                }
-
-                OutboxEventEntity event = claimed.get(0);
-                try {
-                    kafkaTemplate.send(topic, event.getPaymentId(), event.getPayloadJson())
-                            .get(KAFKA_SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-                    event.setStatus(OutboxStatus.SENT);
-                    event.setPublishedAt(Instant.now());
-                    event.setLastError(null);
-                } catch (Exception ex) {
-                    if (ex instanceof InterruptedException) {
-                        Thread.currentThread().interrupt();
-                    }
-                    event.setAttempts(event.getAttempts() + 1);
-                    event.setLastError(truncate(ex.getMessage(), 1900));
-                    event.setNextAttemptAt(Instant.now().plusSeconds(backoffSeconds(event.getAttempts())));
-                    log.warn("Outbox publish failed: id={}, attempts={}", event.getId(), event.getAttempts(), ex);
-                }
-
-                outboxEventRepository.save(event);
-                return true;
-            });
-
-            if (!Boolean.TRUE.equals(processed)) {
-                break;
+        // A trigger arriving while another drain runs only flags a rerun; the running drain picks it up.
+        rerunRequested.set(true);
+        while (rerunRequested.get() && running.compareAndSet(false, true)) {
+            try {
+                rerunRequested.set(false);
+                drain(kafkaTemplate);
+            } finally {
+                running.set(false);
+            }
+        }
+    }
+
+    @Async("virtualTaskExecutor")
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOutboxEventQueued(OutboxEventQueued event) {
+        relayBatch();
+    }
+
+    private void drain(KafkaTemplate<String, String> kafkaTemplate) {
+        for (int i = 0; i < MAX_BATCHES_PER_RUN; i++) {
+            Integer claimed = transactionTemplate.execute(status -> relayOnce(kafkaTemplate));
+            if (claimed == null || claimed < batchSize) {
+                return;
             }
         }
     }
 
+    private int relayOnce(KafkaTemplate<String, String> kafkaTemplate) {
+        List<OutboxEventEntity> claimed = outboxEventRepository
+                .claimPendingBatch(OutboxStatus.PENDING.name(), Instant.now(), batchSize);
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        long startedAt = System.nanoTime();
+        Map<String, CompletableFuture<?>> lastSendByPayment = new HashMap<>();
+        List<CompletableFuture<?>> sends = new ArrayList<>(claimed.size());
+        for (OutboxEventEntity event : claimed) {
+            CompletableFuture<?> previous = lastSendByPayment.get(event.getPaymentId());
+            CompletableFuture<?> send = previous == null
+                    ? sendAsync(kafkaTemplate, event)
+                    : previous.thenCompose(ignored -> sendAsync(kafkaTemplate, event));
+            lastSendByPayment.put(event.getPaymentId(), send);
+            sends.add(send);
+        }
+        awaitAll(sends);
+
+        Instant now = Instant.now();
+        List<String> publishedIds = new ArrayList<>(claimed.size());
+        List<OutboxEventEntity> failed = new ArrayList<>();
+        for (int i = 0; i < claimed.size(); i++) {
+            OutboxEventEntity event = claimed.get(i);
+            Throwable failure = failureOf(sends.get(i));
+            if (failure == null) {
+                publishedIds.add(event.getId());
+                publishLag.record(Duration.between(event.getCreatedAt(), now));
+                continue;
+            }
+            event.setAttempts(event.getAttempts() + 1);
+            event.setLastError(truncate(failure.getMessage(), 1900));
+            event.setNextAttemptAt(now.plusSeconds(backoffSeconds(event.getAttempts())));
+            failed.add(event);
+            log.warn("Outbox publish failed: id={}, attempts={}", event.getId(), event.getAttempts(), failure);
+        }
+
+        if (!failed.isEmpty()) {
+            outboxEventRepository.saveAll(failed);
+        }
+        if (!publishedIds.isEmpty()) {
+            outboxEventRepository.markPublished(publishedIds, OutboxStatus.SENT, now);
+        }
+        publishedCounter.increment(publishedIds.size());
+        failedCounter.increment(failed.size());
+        batchLatency.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        log.debug("Outbox batch relayed: claimed={}, published={}, failed={}",
+                claimed.size(), publishedIds.size(), failed.size());
+        return claimed.size();
+    }
+
+    private CompletableFuture<?> sendAsync(KafkaTemplate<String, String> kafkaTemplate, OutboxEventEntity event) {
+        try {
+            return kafkaTemplate.send(topic, event.getPaymentId(), event.getPayloadJson());
+        } catch (Exception ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    private void awaitAll(List<CompletableFuture<?>> sends) {
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(KAFKA_SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException ex) {
+            // Individual outcomes are inspected per event; unfinished sends count as failures.
+        }
+    }
+
+    private Throwable failureOf(CompletableFuture<?> send) {
+        if (!send.isDone()) {
+            return new TimeoutException("Kafka ack not received within " + KAFKA_SEND_TIMEOUT_SECONDS + "s");
+        }
+        try {
+            send.join();
+            return null;
+        } catch (CompletionException | CancellationException ex) {
+            return ex.getCause() != null ? ex.getCause() : ex;
+        }
+    }
+
     private long backoffSeconds(int attempts) {
         return Math.min(60, Math.max(2, attempts * 2L));
     }
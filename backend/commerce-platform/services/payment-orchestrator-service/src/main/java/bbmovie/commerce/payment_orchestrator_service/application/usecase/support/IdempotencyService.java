@@ -5,27 +5,83 @@ import bbmovie.commerce.payment_orchestrator_service.application.port.outbound.i
 import bbmovie.commerce.payment_orchestrator_service.application.port.result.IdempotencyResult;
 import bbmovie.commerce.payment_orchestrator_service.application.config.IdempotencyOperation;
 import bbmovie.commerce.commerce_common.crypto.Sha256Hasher;
+import bbmovie.commerce.payment_orchestrator_service.infrastructure.idempotency.LocalIdempotencyCache;
 import bbmovie.commerce.payment_orchestrator_service.infrastructure.json.JsonSerdeUtils;
 import bbmovie.commerce.payment_orchestrator_service.infrastructure.persistence.entity.IdempotencyRecordEntity;
 import bbmovie.commerce.payment_orchestrator_service.infrastructure.persistence.jpa.IdempotencyRecordRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 
+/**
+ * Runs an operation at most once per idempotency key and replays its result for retries.
+ * <p>
+ * Lookups go from the in-process {@link LocalIdempotencyCache} to Redis to the idempotency table.
+ * Concurrent duplicates on the same node are collapsed: one call executes, the others wait and replay
+ * its result, or give up after {@code app.idempotency.local.await-timeout-ms}.
+ * <p>
+ * With {@code app.idempotency.store.async-write-through} (off by default) the durable record is written off
+ * the request thread after the result has been cached locally and in Redis. If another node stored a record
+ * for the same key first, its result replaces ours in both caches so every retry replays the stored winner;
+ * other write failures are retried and then counted in {@code idempotency.store.write.lost}.
+ */
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class IdempotencyService {
 
+    private static final int WRITE_THROUGH_ATTEMPTS = 3;
+    private static final Duration WRITE_THROUGH_BACKOFF = Duration.ofMillis(200);
+
     private final IdempotencyRecordRepository repo;
     private final ObjectMapper objectMapper;
     private final IdempotencyPort cache;
+    private final LocalIdempotencyCache localCache;
+    private final Executor writeThroughExecutor;
+    private final boolean asyncWriteThrough;
+    private final Duration awaitTimeout;
+
+    private final Counter localHits;
+    private final Counter singleFlightJoins;
+    private final Counter writeThroughFailures;
+    private final Counter writeThroughConflicts;
+    private final Counter writeThroughLost;
+
+    public IdempotencyService(
+            IdempotencyRecordRepository repo,
+            ObjectMapper objectMapper,
+            IdempotencyPort cache,
+            LocalIdempotencyCache localCache,
+            @Qualifier("virtualTaskExecutor") Executor writeThroughExecutor,
+            @Value("${app.idempotency.store.async-write-through:false}") boolean asyncWriteThrough,
+            @Value("${app.idempotency.local.await-timeout-ms:10000}") long awaitTimeoutMs,
+            MeterRegistry meterRegistry
+    ) {
+        this.repo = repo;
+        this.objectMapper = objectMapper;
+        this.cache = cache;
+        this.localCache = localCache;
+        this.writeThroughExecutor = writeThroughExecutor;
+        this.asyncWriteThrough = asyncWriteThrough;
+        this.awaitTimeout = Duration.ofMillis(awaitTimeoutMs);
+        this.localHits = Counter.builder("idempotency.local.hits").register(meterRegistry);
+        this.singleFlightJoins = Counter.builder("idempotency.singleflight.joined").register(meterRegistry);
+        this.writeThroughFailures = Counter.builder("idempotency.store.write.failed").register(meterRegistry);
+        this.writeThroughConflicts = Counter.builder("idempotency.store.write.conflict").register(meterRegistry);
+        this.writeThroughLost = Counter.builder("idempotency.store.write.lost")
+                .description("Idempotency records that could not be stored after all retries")
+                .register(meterRegistry);
+    }
 
     public <T> IdempotencyResult<T> execute(
         IdempotencyOperation op, String key, Object request,
@@ -39,6 +95,36 @@ public class IdempotencyService {
         String requestJson = writeJson(request);
         String requestHash = Sha256Hasher.sha256Hex(requestJson);
 
+        var local = localCache.get(op, key);
+        if (local.isPresent()) {
+            localHits.increment();
+            return replayFromLocal(local.get(), requestHash, responseType);
+        }
+
+        try (LocalIdempotencyCache.Flight flight = localCache.claim(op, key)) {
+            if (!flight.isLeader()) {
+                singleFlightJoins.increment();
+                if (!flight.await(awaitTimeout)) {
+                    throw new IdempotencyConflictException("Request is being processed. Please retry later.");
+                }
+                var settled = localCache.get(op, key);
+                if (settled.isPresent()) {
+                    return replayFromLocal(settled.get(), requestHash, responseType);
+                }
+                // The leader failed; behave like a later retry would.
+                return execute(op, key, request, responseType, action);
+            }
+            return executeUncached(op, key, requestHash, responseType, action);
+        }
+    }
+
+    private <T> IdempotencyResult<T> executeUncached(
+            IdempotencyOperation op,
+            String key,
+            String requestHash,
+            Class<T> responseType,
+            ThrowingSupplier<T> action
+    ) {
         var cached = cache.get(op, key, responseType);
         if (cached.isPresent()) {
             return new IdempotencyResult<>(true, cached.get());
@@ -53,6 +139,17 @@ public class IdempotencyService {
         return saveResult(op, key, requestHash, result, responseType);
     }
 
+    private <T> IdempotencyResult<T> replayFromLocal(
+            LocalIdempotencyCache.CachedResult cached,
+            String requestHash,
+            Class<T> responseType
+    ) {
+        if (!cached.requestHash().equals(requestHash)) {
+            throw new IdempotencyConflictException("Idempotency key reuse with different payload");
+        }
+        return new IdempotencyResult<>(true, localCache.read(cached, responseType));
+    }
+
     private <T> IdempotencyResult<T> replayFromRecord(
             IdempotencyRecordEntity record,
             String requestHash,
@@ -67,6 +164,7 @@ public class IdempotencyService {
             throw new IdempotencyConflictException("Request is being processed. Please retry later.");
         }
         T value = readJson(record.getResponseJson(), responseType);
+        putLocalBestEffort(op, key, requestHash, value);
         putCacheBestEffort(op, key, value);
         return new IdempotencyResult<>(true, value);
     }
@@ -84,8 +182,15 @@ public class IdempotencyService {
         record.setRequestHash(requestHash);
         record.setResponseJson(writeJson(result));
         record.setExpiresAt(Instant.now().plus(24, ChronoUnit.HOURS));
+        if (asyncWriteThrough) {
+            putLocalBestEffort(op, key, requestHash, result);
+            putCacheBestEffort(op, key, result);
+            writeThroughExecutor.execute(() -> writeThrough(record, responseType));
+            return new IdempotencyResult<>(false, result);
+        }
         try {
             repo.saveAndFlush(record);
+            putLocalBestEffort(op, key, requestHash, result);
             putCacheBestEffort(op, key, result);
             return new IdempotencyResult<>(false, result);
         } catch (DataIntegrityViolationException e) {
@@ -95,6 +200,60 @@ public class IdempotencyService {
         }
     }
 
+    private <T> void writeThrough(IdempotencyRecordEntity record, Class<T> responseType) {
+        IdempotencyOperation op = record.getOperation();
+        String key = record.getIdempotencyKey();
+        for (int attempt = 1; attempt <= WRITE_THROUGH_ATTEMPTS; attempt++) {
+            try {
+                repo.saveAndFlush(record);
+                return;
+            } catch (DataIntegrityViolationException e) {
+                adoptStoredWinner(op, key, responseType);
+                return;
+            } catch (RuntimeException e) {
+                writeThroughFailures.increment();
+                log.warn("Idempotency write-through attempt {}/{} failed: op={} key={}",
+                        attempt, WRITE_THROUGH_ATTEMPTS, op, key, e);
+            }
+            try {
+                Thread.sleep(WRITE_THROUGH_BACKOFF.multipliedBy(attempt));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        writeThroughLost.increment();
+        log.error("Idempotency record could not be stored, retries are only protected by the caches: op={} key={}",
+                op, key);
+    }
+
+    /**
+     * Another node stored a record for this key first. Replace what this node cached with the stored
+     * result so retries replay the same response no matter which node they reach.
+     */
+    private <T> void adoptStoredWinner(IdempotencyOperation op, String key, Class<T> responseType) {
+        writeThroughConflicts.increment();
+        var winner = repo.findByOperationAndIdempotencyKey(op, key)
+                .filter(stored -> stored.getResponseJson() != null);
+        if (winner.isEmpty()) {
+            writeThroughLost.increment();
+            log.error("Idempotency record conflicted but no stored result was found: op={} key={}", op, key);
+            return;
+        }
+        T value = readJson(winner.get().getResponseJson(), responseType);
+        putLocalBestEffort(op, key, winner.get().getRequestHash(), value);
+        putCacheBestEffort(op, key, value);
+        log.warn("Idempotency record already stored by another node, replaying its result: op={} key={}", op, key);
+    }
+
+    private <T> void putLocalBestEffort(IdempotencyOperation op, String key, String requestHash, T value) {
+        try {
+            localCache.put(op, key, requestHash, value);
+        } catch (RuntimeException e) {
+            log.warn("Local idempotency cache write failed for op={} key={}", op, key, e);
+        }
+    }
+
     private <T> void putCacheBestEffort(IdempotencyOperation op, String key, T value) {
         try {
             cache.put(op, key, value);
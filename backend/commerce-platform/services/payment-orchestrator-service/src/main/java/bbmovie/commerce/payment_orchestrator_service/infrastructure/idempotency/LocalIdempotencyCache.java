@@ -0,0 +1,150 @@
+package bbmovie.commerce.payment_orchestrator_service.infrastructure.idempotency;
+
+import bbmovie.commerce.payment_orchestrator_service.application.config.IdempotencyOperation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * In-process tier in front of Redis and the idempotency table.
+ * <p>
+ * Recent results are kept as Smile-encoded bytes together with the request hash, so a retry on the same
+ * node is answered (or rejected as a payload conflict) without any network hop. The map is an LRU bounded
+ * by {@code app.idempotency.local.max-entries}; entries also expire after
+ * {@code app.idempotency.local.ttl-seconds}. {@link #claim} provides single-flight: only the first of
+ * several concurrent calls with the same key runs, the others wait for it and then read its result.
+ */
+@Component
+public class LocalIdempotencyCache {
+
+    private final ObjectMapper binaryMapper = new ObjectMapper(new SmileFactory());
+    private final ConcurrentMap<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, CachedResult> entries;
+    private final boolean enabled;
+    private final long ttlMs;
+
+    public LocalIdempotencyCache(
+            @Value("${app.idempotency.local.enabled:true}") boolean enabled,
+            @Value("${app.idempotency.local.max-entries:10000}") int maxEntries,
+            @Value("${app.idempotency.local.ttl-seconds:300}") long ttlSeconds
+    ) {
+        this.enabled = enabled;
+        this.ttlMs = ttlSeconds * 1000;
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    public Optional<CachedResult> get(IdempotencyOperation op, String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        String cacheKey = cacheKey(op, key);
+        CachedResult cached = entries.get(cacheKey);
+        if (cached == null) {
+            return Optional.empty();
+        }
+        if (cached.expiresAtMs() <= System.currentTimeMillis()) {
+            entries.remove(cacheKey, cached);
+            return Optional.empty();
+        }
+        return Optional.of(cached);
+    }
+
+    public void put(IdempotencyOperation op, String key, String requestHash, Object response) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            byte[] payload = binaryMapper.writeValueAsBytes(response);
+            entries.put(cacheKey(op, key), new CachedResult(requestHash, payload, System.currentTimeMillis() + ttlMs));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to serialize idempotent response", e);
+        }
+    }
+
+    public <T> T read(CachedResult cached, Class<T> responseType) {
+        try {
+            return binaryMapper.readValue(cached.payload(), responseType);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to deserialize idempotent response", e);
+        }
+    }
+
+    /**
+     * Registers the caller as the one executing {@code op/key} on this node. If another call already is,
+     * the returned flight is a follower that must {@link Flight#await} instead of executing.
+     */
+    public Flight claim(IdempotencyOperation op, String key) {
+        String cacheKey = cacheKey(op, key);
+        CompletableFuture<Void> mine = new CompletableFuture<>();
+        CompletableFuture<Void> running = enabled ? inFlight.putIfAbsent(cacheKey, mine) : null;
+        return running == null ? new Flight(cacheKey, mine, true) : new Flight(cacheKey, running, false);
+    }
+
+    private String cacheKey(IdempotencyOperation op, String key) {
+        return op.name() + ":" + key;
+    }
+
+    public record CachedResult(String requestHash, byte[] payload, long expiresAtMs) {
+    }
+
+    public final class Flight implements AutoCloseable {
+        private final String cacheKey;
+        private final CompletableFuture<Void> done;
+        private final boolean leader;
+
+        private Flight(String cacheKey, CompletableFuture<Void> done, boolean leader) {
+            this.cacheKey = cacheKey;
+            this.done = done;
+            this.leader = leader;
+        }
+
+        public boolean isLeader() {
+            return leader;
+        }
+
+        /**
+         * Blocks until the leader finishes, whether it succeeded or not, or until {@code timeout} passes.
+         *
+         * @return {@code false} if the leader was still running when the timeout expired
+         */
+        public boolean await(Duration timeout) {
+            try {
+                done.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+                return true;
+            } catch (ExecutionException e) {
+                return true;
+            } catch (TimeoutException e) {
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (leader) {
+                inFlight.remove(cacheKey, done);
+                done.complete(null);
+            }
+        }
+    }
+}
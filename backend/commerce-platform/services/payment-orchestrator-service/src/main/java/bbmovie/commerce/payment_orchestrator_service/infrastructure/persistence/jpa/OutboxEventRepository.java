@@ -3,11 +3,13 @@ package bbmovie.commerce.payment_orchestrator_service.infrastructure.persistence
 import bbmovie.commerce.payment_orchestrator_service.infrastructure.persistence.entity.OutboxEventEntity;
 import bbmovie.commerce.payment_orchestrator_service.infrastructure.persistence.entity.OutboxStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +28,15 @@ public interface OutboxEventRepository extends JpaRepository<OutboxEventEntity,
     List<OutboxEventEntity> claimPendingBatch(@Param("status") String status,
                                               @Param("now") Instant now,
                                               @Param("limitRows") int limitRows);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE OutboxEventEntity e
+            SET e.status = :status, e.publishedAt = :publishedAt, e.lastError = null
+            WHERE e.id IN :ids
+            """)
+    int markPublished(@Param("ids") Collection<String> ids,
+                      @Param("status") OutboxStatus status,
+                      @Param("publishedAt") Instant publishedAt);
     long countByStatus(OutboxStatus status);
     Optional<OutboxEventEntity> findFirstByStatusOrderByCreatedAtAsc(OutboxStatus status);
 }
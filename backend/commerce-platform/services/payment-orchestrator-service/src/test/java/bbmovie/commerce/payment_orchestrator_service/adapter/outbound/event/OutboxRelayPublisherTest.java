@@ -1,96 +1,93 @@
 package bbmovie.commerce.payment_orchestrator_service.adapter.outbound.event;
 
 import bbmovie.commerce.payment_orchestrator_service.infrastructure.persistence.entity.OutboxEventEntity;
+import bbmovie.commerce.payment_orchestrator_service.infrastructure.persistence.entity.OutboxStatus;
 import bbmovie.commerce.payment_orchestrator_service.infrastructure.persistence.jpa.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class OutboxRelayPublisherTest {
 
+    private static final String TOPIC = "commerce.payment.events.v1";
+
     @Mock
     private OutboxEventRepository outboxEventRepository;
     @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
     private ObjectProvider<KafkaTemplate<String, String>> kafkaTemplateProvider;
     @Mock
     private KafkaTemplate<String, String> kafkaTemplate;
 
-    @InjectMocks
     private OutboxRelayPublisher outboxRelayPublisher;
 
-    @Test
-    void should_mark_event_sent_on_successful_publish() {
+    @BeforeEach
+    void setUp() {
+        outboxRelayPublisher = new OutboxRelayPublisher(
+                outboxEventRepository, transactionTemplate, kafkaTemplateProvider, new SimpleMeterRegistry());
         ReflectionTestUtils.setField(outboxRelayPublisher, "relayEnabled", true);
         ReflectionTestUtils.setField(outboxRelayPublisher, "kafkaEnabled", true);
-        ReflectionTestUtils.setField(outboxRelayPublisher, "topic", "commerce.payment.events.v1");
-
-        OutboxEventEntity event = new OutboxEventEntity();
-        event.setId("outbox-1");
-        event.setPaymentId("pay-1");
-        event.setPayloadJson("{\"eventType\":\"PaymentSucceededV1\"}");
-        event.setStatus(bbmovie.commerce.payment_orchestrator_service.infrastructure.persistence.entity.OutboxStatus.PENDING);
-        event.setCreatedAt(Instant.now());
-        event.setNextAttemptAt(Instant.now());
+        ReflectionTestUtils.setField(outboxRelayPublisher, "batchSize", 200);
+        ReflectionTestUtils.setField(outboxRelayPublisher, "topic", TOPIC);
 
         when(kafkaTemplateProvider.getIfAvailable()).thenReturn(kafkaTemplate);
-        when(outboxEventRepository.findTop100ByStatusAndNextAttemptAtLessThanEqualOrderByCreatedAtAsc(
-            eq(bbmovie.commerce.payment_orchestrator_service.infrastructure.persistence.entity.OutboxStatus.PENDING)
-            , any())
-        ).thenReturn(List.of(event));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void should_mark_batch_sent_with_single_bulk_update() {
+        OutboxEventEntity first = pendingEvent("outbox-1", "pay-1");
+        OutboxEventEntity second = pendingEvent("outbox-2", "pay-2");
+        when(outboxEventRepository.claimPendingBatch(eq(OutboxStatus.PENDING.name()), any(), eq(200)))
+                .thenReturn(List.of(first, second));
+        when(kafkaTemplate.send(any(String.class), any(String.class), any(String.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
 
         outboxRelayPublisher.relayBatch();
 
-        assertEquals("SENT", event.getStatus());
-        assertNotNull(event.getPublishedAt());
-        verify(outboxEventRepository).saveAll(List.of(event));
+        verify(outboxEventRepository).markPublished(eq(List.of("outbox-1", "outbox-2")), eq(OutboxStatus.SENT), any());
+        verify(outboxEventRepository, never()).saveAll(any());
     }
 
     @Test
     void should_increment_attempt_and_keep_pending_on_publish_failure() {
-        ReflectionTestUtils.setField(outboxRelayPublisher, "relayEnabled", true);
-        ReflectionTestUtils.setField(outboxRelayPublisher, "kafkaEnabled", true);
-        ReflectionTestUtils.setField(outboxRelayPublisher, "topic", "commerce.payment.events.v1");
-
-        OutboxEventEntity event = new OutboxEventEntity();
-        event.setId("outbox-2");
-        event.setPaymentId("pay-2");
-        event.setPayloadJson("{\"eventType\":\"PaymentFailedV1\"}");
-        event.setStatus(bbmovie.commerce.payment_orchestrator_service.infrastructure.persistence.entity.OutboxStatus.PENDING);
-        event.setAttempts(0);
-        event.setCreatedAt(Instant.now());
-        event.setNextAttemptAt(Instant.now());
-
-        when(kafkaTemplateProvider.getIfAvailable()).thenReturn(kafkaTemplate);
-        when(outboxEventRepository.findTop100ByStatusAndNextAttemptAtLessThanEqualOrderByCreatedAtAsc(
-            eq(bbmovie.commerce.payment_orchestrator_service.infrastructure.persistence.entity.OutboxStatus.PENDING)
-            , any())
-        )
+        OutboxEventEntity event = pendingEvent("outbox-2", "pay-2");
+        when(outboxEventRepository.claimPendingBatch(eq(OutboxStatus.PENDING.name()), any(), eq(200)))
                 .thenReturn(List.of(event));
         doThrow(new RuntimeException("broker unavailable"))
                 .when(kafkaTemplate).send(any(String.class), any(String.class), any(String.class));
 
         outboxRelayPublisher.relayBatch();
 
-        assertEquals("PENDING", event.getStatus());
+        assertEquals(OutboxStatus.PENDING, event.getStatus());
         assertEquals(1, event.getAttempts());
         assertNotNull(event.getLastError());
         assertTrue(event.getNextAttemptAt().isAfter(Instant.now().minusSeconds(1)));
@@ -99,5 +96,35 @@ class OutboxRelayPublisherTest {
         ArgumentCaptor<List<OutboxEventEntity>> captor = ArgumentCaptor.forClass(List.class);
         verify(outboxEventRepository).saveAll(captor.capture());
         assertEquals(1, captor.getValue().size());
+        verify(outboxEventRepository, never()).markPublished(anyCollection(), any(), any());
+    }
+
+    @Test
+    void should_not_send_later_event_of_same_payment_after_failure() {
+        OutboxEventEntity first = pendingEvent("outbox-1", "pay-1");
+        OutboxEventEntity second = pendingEvent("outbox-2", "pay-1");
+        when(outboxEventRepository.claimPendingBatch(eq(OutboxStatus.PENDING.name()), any(), eq(200)))
+                .thenReturn(List.of(first, second));
+        when(kafkaTemplate.send(TOPIC, "pay-1", first.getPayloadJson()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker unavailable")));
+
+        outboxRelayPublisher.relayBatch();
+
+        verify(kafkaTemplate, times(1)).send(any(String.class), any(String.class), any(String.class));
+        assertEquals(1, first.getAttempts());
+        assertEquals(1, second.getAttempts());
+        verify(outboxEventRepository, never()).markPublished(anyCollection(), any(), any());
+    }
+
+    private OutboxEventEntity pendingEvent(String id, String paymentId) {
+        OutboxEventEntity event = new OutboxEventEntity();
+        event.setId(id);
+        event.setPaymentId(paymentId);
+        event.setPayloadJson("{\"eventType\":\"PaymentSucceededV1\",\"outboxId\":\"" + id + "\"}");
+        event.setStatus(OutboxStatus.PENDING);
+        event.setAttempts(0);
+        event.setCreatedAt(Instant.now());
+        event.setNextAttemptAt(Instant.now());
+        return event;
     }
 }
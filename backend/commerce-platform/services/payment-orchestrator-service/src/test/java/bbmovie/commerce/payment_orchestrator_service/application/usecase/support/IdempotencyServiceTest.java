@@ -0,0 +1,147 @@
+package bbmovie.commerce.payment_orchestrator_service.application.usecase.support;
+
+import bbmovie.commerce.commerce_common.crypto.Sha256Hasher;
+import bbmovie.commerce.payment_orchestrator_service.application.config.IdempotencyOperation;
+import bbmovie.commerce.payment_orchestrator_service.application.exception.IdempotencyConflictException;
+import bbmovie.commerce.payment_orchestrator_service.application.port.outbound.idempotency.IdempotencyPort;
+import bbmovie.commerce.payment_orchestrator_service.application.port.result.IdempotencyResult;
+import bbmovie.commerce.payment_orchestrator_service.infrastructure.idempotency.LocalIdempotencyCache;
+import bbmovie.commerce.payment_orchestrator_service.infrastructure.persistence.entity.IdempotencyRecordEntity;
+import bbmovie.commerce.payment_orchestrator_service.infrastructure.persistence.jpa.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository repo;
+    @Mock
+    private IdempotencyPort cache;
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(cache.get(any(), any(), any())).thenReturn(Optional.empty());
+        lenient().when(repo.findByOperationAndIdempotencyKey(any(), any())).thenReturn(Optional.empty());
+        idempotencyService = new IdempotencyService(
+                repo,
+                new ObjectMapper(),
+                cache,
+                new LocalIdempotencyCache(true, 100, 300),
+                Runnable::run,
+                true,
+                10_000,
+                new SimpleMeterRegistry()
+        );
+    }
+
+    @Test
+    void should_replay_retry_from_local_tier_without_remote_lookups() {
+        AtomicInteger executions = new AtomicInteger();
+        Map<String, String> request = Map.of("amount", "10");
+
+        IdempotencyResult<String> first = idempotencyService.execute(
+                IdempotencyOperation.CHECKOUT, "key-1", request, String.class, () -> "live-" + executions.incrementAndGet());
+        IdempotencyResult<String> retry = idempotencyService.execute(
+                IdempotencyOperation.CHECKOUT, "key-1", request, String.class, () -> "live-" + executions.incrementAndGet());
+
+        assertFalse(first.fromCache());
+        assertTrue(retry.fromCache());
+        assertEquals("live-1", retry.value());
+        assertEquals(1, executions.get());
+        verify(cache, times(1)).get(eq(IdempotencyOperation.CHECKOUT), eq("key-1"), eq(String.class));
+        verify(repo).saveAndFlush(any(IdempotencyRecordEntity.class));
+    }
+
+    @Test
+    void should_reject_local_hit_with_different_payload() {
+        idempotencyService.execute(
+                IdempotencyOperation.REFUND, "key-2", Map.of("amount", "10"), String.class, () -> "refunded");
+
+        assertThrows(IdempotencyConflictException.class, () -> idempotencyService.execute(
+                IdempotencyOperation.REFUND, "key-2", Map.of("amount", "99"), String.class, () -> "refunded"));
+    }
+
+    @Test
+    void should_execute_concurrent_duplicates_once() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLeader = new CountDownLatch(1);
+        Map<String, String> request = Map.of("amount", "10");
+
+        CompletableFuture<IdempotencyResult<String>> leader = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute(IdempotencyOperation.CHECKOUT, "key-3", request, String.class, () -> {
+                    leaderStarted.countDown();
+                    await(releaseLeader);
+                    return "live-" + executions.incrementAndGet();
+                }));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<IdempotencyResult<String>> duplicate = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute(IdempotencyOperation.CHECKOUT, "key-3", request, String.class,
+                        () -> "live-" + executions.incrementAndGet()));
+
+        releaseLeader.countDown();
+
+        assertEquals("live-1", leader.get(5, TimeUnit.SECONDS).value());
+        assertEquals("live-1", duplicate.get(5, TimeUnit.SECONDS).value());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void should_replay_winner_stored_by_another_node_after_async_write_conflict() throws Exception {
+        Map<String, String> request = Map.of("amount", "10");
+        String requestHash = Sha256Hasher.sha256Hex(
+                new ObjectMapper().writeValueAsString(request));
+        IdempotencyRecordEntity winner = new IdempotencyRecordEntity();
+        winner.setOperation(IdempotencyOperation.CHECKOUT);
+        winner.setIdempotencyKey("key-4");
+        winner.setRequestHash(requestHash);
+        winner.setResponseJson("\"winner\"");
+        when(repo.findByOperationAndIdempotencyKey(IdempotencyOperation.CHECKOUT, "key-4"))
+                .thenReturn(Optional.empty(), Optional.of(winner));
+        when(repo.saveAndFlush(any(IdempotencyRecordEntity.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        idempotencyService.execute(IdempotencyOperation.CHECKOUT, "key-4", request, String.class, () -> "loser");
+        IdempotencyResult<String> retry = idempotencyService.execute(
+                IdempotencyOperation.CHECKOUT, "key-4", request, String.class, () -> "again");
+
+        assertTrue(retry.fromCache());
+        assertEquals("winner", retry.value());
+        verify(cache).put(IdempotencyOperation.CHECKOUT, "key-4", "winner");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
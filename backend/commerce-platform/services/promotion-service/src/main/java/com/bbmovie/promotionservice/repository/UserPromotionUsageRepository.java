@@ -2,11 +2,23 @@ package com.bbmovie.promotionservice.repository;
 
 import com.bbmovie.promotionservice.entity.UserPromotionUsage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Set;
 import java.util.UUID;
 
 @Repository
 public interface UserPromotionUsageRepository extends JpaRepository<UserPromotionUsage, UUID> {
     boolean existsByUserIdAndPromotionId(UUID userId, UUID promotionId);
+
+    @Query("""
+            SELECT DISTINCT u.promotion.id
+            FROM UserPromotionUsage u
+            WHERE u.userId = :userId
+              AND u.promotion.id IN :promotionIds
+            """)
+    Set<UUID> findUsedPromotionIds(@Param("userId") UUID userId, @Param("promotionIds") Collection<UUID> promotionIds);
 }
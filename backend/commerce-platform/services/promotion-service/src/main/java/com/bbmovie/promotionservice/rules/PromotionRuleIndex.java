@@ -0,0 +1,138 @@
+package com.bbmovie.promotionservice.rules;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Immutable lookup structure compiled from a rule set on reload.
+ * <p>
+ * Rules are bucketed by currency, then region, then role, with lowercase keys computed once; a rule that
+ * leaves a dimension unset lives under the wildcard key. A lookup therefore visits at most two buckets per
+ * dimension (the exact value and the wildcard) and only checks the time window and minimum cart value of
+ * the rules it finds. A context that leaves a dimension unset matches every bucket of it, as before.
+ * Matches are returned in rule-file order.
+ */
+public final class PromotionRuleIndex {
+
+    private static final String WILDCARD = "*";
+    private static final PromotionRuleIndex EMPTY = new PromotionRuleIndex(Map.of(), Set.of(), 0);
+
+    private final Map<String, Map<String, Map<String, List<CompiledRule>>>> byCurrency;
+    private final Set<UUID> promotionIds;
+    private final int size;
+
+    private PromotionRuleIndex(Map<String, Map<String, Map<String, List<CompiledRule>>>> byCurrency,
+                               Set<UUID> promotionIds,
+                               int size) {
+        this.byCurrency = byCurrency;
+        this.promotionIds = promotionIds;
+        this.size = size;
+    }
+
+    public static PromotionRuleIndex empty() {
+        return EMPTY;
+    }
+
+    public static PromotionRuleIndex compile(List<PromotionRule> rules) {
+        Map<String, Map<String, Map<String, List<CompiledRule>>>> byCurrency = new HashMap<>();
+        Set<UUID> promotionIds = new LinkedHashSet<>();
+        for (int ordinal = 0; ordinal < rules.size(); ordinal++) {
+            PromotionRule rule = rules.get(ordinal);
+            byCurrency.computeIfAbsent(key(rule.getCurrency()), k -> new HashMap<>())
+                    .computeIfAbsent(key(rule.getUserRegion()), k -> new HashMap<>())
+                    .computeIfAbsent(key(rule.getUserRole()), k -> new ArrayList<>())
+                    .add(new CompiledRule(ordinal, rule));
+            if (rule.getPromotionId() != null) {
+                promotionIds.add(rule.getPromotionId());
+            }
+        }
+        return new PromotionRuleIndex(freeze(byCurrency), Set.copyOf(promotionIds), rules.size());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Promotion ids referenced by any rule, for warming promotion lookups.
+     */
+    public Set<UUID> promotionIds() {
+        return promotionIds;
+    }
+
+    public List<PromotionRule> match(String currency, String region, String role, Double cartValue, LocalDateTime at) {
+        List<CompiledRule> matches = new ArrayList<>();
+        for (Map<String, Map<String, List<CompiledRule>>> byRegion : buckets(byCurrency, currency)) {
+            for (Map<String, List<CompiledRule>> byRole : buckets(byRegion, region)) {
+                for (List<CompiledRule> candidates : buckets(byRole, role)) {
+                    for (CompiledRule candidate : candidates) {
+                        if (candidate.matches(cartValue, at)) {
+                            matches.add(candidate);
+                        }
+                    }
+                }
+            }
+        }
+        if (matches.size() > 1) {
+            matches.sort(Comparator.comparingInt(CompiledRule::ordinal));
+        }
+        List<PromotionRule> rules = new ArrayList<>(matches.size());
+        for (CompiledRule match : matches) {
+            rules.add(match.rule());
+        }
+        return rules;
+    }
+
+    private static <T> Collection<T> buckets(Map<String, T> level, String value) {
+        if (value == null) {
+            return level.values();
+        }
+        T exact = level.get(value.toLowerCase(Locale.ROOT));
+        T wildcard = level.get(WILDCARD);
+        if (exact == null) {
+            return wildcard == null ? List.of() : List.of(wildcard);
+        }
+        return wildcard == null ? List.of(exact) : List.of(exact, wildcard);
+    }
+
+    private static String key(String value) {
+        return value == null ? WILDCARD : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static Map<String, Map<String, Map<String, List<CompiledRule>>>> freeze(
+            Map<String, Map<String, Map<String, List<CompiledRule>>>> byCurrency) {
+        Map<String, Map<String, Map<String, List<CompiledRule>>>> frozen = new HashMap<>();
+        byCurrency.forEach((currency, byRegion) -> {
+            Map<String, Map<String, List<CompiledRule>>> regions = new HashMap<>();
+            byRegion.forEach((region, byRole) -> {
+                Map<String, List<CompiledRule>> roles = new HashMap<>();
+                byRole.forEach((role, rules) -> roles.put(role, List.copyOf(rules)));
+                regions.put(region, Map.copyOf(roles));
+            });
+            frozen.put(currency, Map.copyOf(regions));
+        });
+        return Map.copyOf(frozen);
+    }
+
+    private record CompiledRule(int ordinal, PromotionRule rule) {
+
+        boolean matches(Double cartValue, LocalDateTime at) {
+            if (rule.getStartDate() != null && at.isBefore(rule.getStartDate())) {
+                return false;
+            }
+            if (rule.getEndDate() != null && at.isAfter(rule.getEndDate())) {
+                return false;
+            }
+            return rule.getMinCartValue() == null || cartValue == null || cartValue >= rule.getMinCartValue();
+        }
+    }
+}
@@ -5,6 +5,9 @@ import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -23,17 +26,30 @@ import java.util.concurrent.atomic.AtomicReference;
 public class PromotionRuleLoader {
     private final ResourceLoader resourceLoader;
     private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
     private final AtomicReference<List<PromotionRule>> cachedRules = new AtomicReference<>(Collections.emptyList());
+    private final AtomicReference<PromotionRuleIndex> cachedIndex = new AtomicReference<>(PromotionRuleIndex.empty());
     private volatile String checksum = "";
+    private volatile boolean ready;
 
     @Value("${promotion.rules.resource:classpath:promotions-rules.json}")
     private String ruleResource;
 
+    /**
+     * Loads the rules before any bean reads them. The reload event is held back until the application is ready,
+     * because listeners are not registered yet at this point.
+     */
     @PostConstruct
     public void initialLoad() {
         reloadIfChanged();
     }
 
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        ready = true;
+        eventPublisher.publishEvent(new PromotionRulesReloadedEvent(cachedIndex.get()));
+    }
+
     @Scheduled(fixedDelayString = "${promotion.rules.reload-ms:30000}")
     public void reloadIfChanged() {
         try {
@@ -55,9 +71,14 @@ public class PromotionRuleLoader {
             }
             PromotionRuleSet ruleSet = objectMapper.readValue(data, PromotionRuleSet.class);
             List<PromotionRule> rules = ruleSet.getRules() == null ? Collections.emptyList() : List.copyOf(ruleSet.getRules());
+            PromotionRuleIndex index = PromotionRuleIndex.compile(rules);
             cachedRules.set(rules);
+            cachedIndex.set(index);
             checksum = nextChecksum;
             log.info("Promotion rules reloaded. count={}", rules.size());
+            if (ready) {
+                eventPublisher.publishEvent(new PromotionRulesReloadedEvent(index));
+            }
         } catch (Exception ex) {
             log.error("Failed to reload promotion rules", ex);
         }
@@ -67,6 +88,10 @@ public class PromotionRuleLoader {
         return cachedRules.get();
     }
 
+    public PromotionRuleIndex currentIndex() {
+        return cachedIndex.get();
+    }
+
     private String sha256(byte[] data) throws Exception {
         MessageDigest digest = MessageDigest.getInstance("SHA-256");
         byte[] hash = digest.digest(data);
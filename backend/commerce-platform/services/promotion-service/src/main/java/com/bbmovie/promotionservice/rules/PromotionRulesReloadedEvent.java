@@ -0,0 +1,4 @@
+package com.bbmovie.promotionservice.rules;
+
+public record PromotionRulesReloadedEvent(PromotionRuleIndex index) {
+}
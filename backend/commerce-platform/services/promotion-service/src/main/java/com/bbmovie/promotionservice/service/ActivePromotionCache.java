@@ -0,0 +1,65 @@
+package com.bbmovie.promotionservice.service;
+
+import com.bbmovie.promotionservice.entity.Promotion;
+import com.bbmovie.promotionservice.enums.PromotionStatus;
+import com.bbmovie.promotionservice.repository.PromotionRepository;
+import com.bbmovie.promotionservice.rules.PromotionRuleLoader;
+import com.bbmovie.promotionservice.rules.PromotionRulesReloadedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory view of the active promotions referenced by automatic rules.
+ * <p>
+ * The view is rebuilt with one {@code findAllById} whenever the rule set changes, on
+ * {@link #invalidate()}, and every {@code promotion.cache.refresh-ms} to pick up status changes made
+ * directly in the database. A failed refresh keeps serving the previous view.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ActivePromotionCache {
+
+    private final PromotionRepository promotionRepository;
+    private final PromotionRuleLoader ruleLoader;
+    private volatile Map<UUID, Promotion> activeById = Map.of();
+
+    public Optional<Promotion> find(UUID promotionId) {
+        return promotionId == null ? Optional.empty() : Optional.ofNullable(activeById.get(promotionId));
+    }
+
+    @EventListener
+    public void onRulesReloaded(PromotionRulesReloadedEvent event) {
+        refresh(event.index().promotionIds());
+    }
+
+    @Scheduled(fixedDelayString = "${promotion.cache.refresh-ms:60000}")
+    public void invalidate() {
+        refresh(ruleLoader.currentIndex().promotionIds());
+    }
+
+    private void refresh(Set<UUID> promotionIds) {
+        if (promotionIds.isEmpty()) {
+            activeById = Map.of();
+            return;
+        }
+        try {
+            activeById = promotionRepository.findAllById(promotionIds).stream()
+                    .filter(promotion -> promotion.getStatus() == PromotionStatus.ACTIVE)
+                    .collect(Collectors.toUnmodifiableMap(Promotion::getId, Function.identity()));
+            log.debug("Active promotion cache refreshed. referenced={}, active={}", promotionIds.size(), activeById.size());
+        } catch (Exception ex) {
+            log.error("Failed to refresh active promotion cache", ex);
+        }
+    }
+}
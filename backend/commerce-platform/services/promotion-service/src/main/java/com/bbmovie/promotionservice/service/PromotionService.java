@@ -7,9 +7,9 @@ import com.bbmovie.promotionservice.entity.Promotion;
 import com.bbmovie.promotionservice.entity.UserPromotionUsage;
 import com.bbmovie.promotionservice.enums.PromotionStatus;
 import com.bbmovie.promotionservice.rules.PromotionRule;
+import com.bbmovie.promotionservice.rules.PromotionRuleIndex;
 import com.bbmovie.promotionservice.rules.PromotionRuleLoader;
 import com.bbmovie.promotionservice.repository.CouponRepository;
-import com.bbmovie.promotionservice.repository.PromotionRepository;
 import com.bbmovie.promotionservice.repository.UserPromotionUsageRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -18,18 +18,20 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.Clock;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class PromotionService {
 
-    private final PromotionRepository promotionRepository;
     private final CouponRepository couponRepository;
     private final UserPromotionUsageRepository userPromotionUsageRepository;
     private final PromotionRuleLoader ruleLoader;
+    private final ActivePromotionCache activePromotionCache;
     private final Clock clock;
 
     @Transactional
@@ -114,14 +116,33 @@ public class PromotionService {
                 .build();
     }
 
+    /**
+     * Runs on every checkout render: candidate rules come from the compiled {@link PromotionRuleIndex},
+     * promotions from {@link ActivePromotionCache}, and one-time-per-user rules are checked with a single
+     * usage query for all candidates.
+     */
     public List<PromotionEvaluationContext> evaluateAutomaticPromotions(PromotionEvaluationContext context) {
-        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime evaluationTime = context.getCurrentDateTime() != null
+                ? context.getCurrentDateTime()
+                : LocalDateTime.now(clock);
+        List<PromotionRule> candidates = ruleLoader.currentIndex().match(
+                context.getCurrency(),
+                context.getUserRegion(),
+                context.getUserRole(),
+                context.getCartValue(),
+                evaluationTime
+        );
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        Set<UUID> usedPromotionIds = findUsedPromotionIds(context.getUserId(), candidates);
         List<PromotionEvaluationContext> results = new ArrayList<>();
-        for (PromotionRule rule : ruleLoader.currentRules()) {
-            if (!matchesRule(rule, context, now)) {
+        for (PromotionRule rule : candidates) {
+            if (rule.isOneTimePerUser() && usedPromotionIds.contains(rule.getPromotionId())) {
                 continue;
             }
-            Optional<Promotion> promoOpt = findActivePromotion(rule.getPromotionId());
+            Optional<Promotion> promoOpt = activePromotionCache.find(rule.getPromotionId());
             if (promoOpt.isEmpty()) {
                 continue;
             }
@@ -145,46 +166,19 @@ public class PromotionService {
         return results;
     }
 
-    private boolean matchesRule(PromotionRule rule, PromotionEvaluationContext context, LocalDateTime now) {
-        LocalDateTime evaluationTime = context.getCurrentDateTime() != null ? context.getCurrentDateTime() : now;
-
-        if (rule.getStartDate() != null && evaluationTime.isBefore(rule.getStartDate())) {
-            return false;
-        }
-
-        if (rule.getEndDate() != null && evaluationTime.isAfter(rule.getEndDate())) {
-            return false;
-        }
-
-        if (rule.getMinCartValue() != null && context.getCartValue() != null && context.getCartValue() < rule.getMinCartValue()) {
-            return false;
-        }
-
-        if (rule.getCurrency() != null && context.getCurrency() != null && !rule.getCurrency().equalsIgnoreCase(context.getCurrency())) {
-            return false;
+    private Set<UUID> findUsedPromotionIds(UUID userId, List<PromotionRule> candidates) {
+        if (userId == null) {
+            return Set.of();
         }
-
-        if (rule.getUserRole() != null && context.getUserRole() != null && !rule.getUserRole().equalsIgnoreCase(context.getUserRole())) {
-            return false;
-        }
-
-        if (rule.getUserRegion() != null && context.getUserRegion() != null && !rule.getUserRegion().equalsIgnoreCase(context.getUserRegion())) {
-            return false;
-        }
-
-        if (rule.isOneTimePerUser() && context.getUserId() != null && rule.getPromotionId() != null) {
-            if (userPromotionUsageRepository.existsByUserIdAndPromotionId(context.getUserId(), rule.getPromotionId())) {
-                return false;
+        Set<UUID> oneTimePromotionIds = new HashSet<>();
+        for (PromotionRule rule : candidates) {
+            if (rule.isOneTimePerUser() && rule.getPromotionId() != null) {
+                oneTimePromotionIds.add(rule.getPromotionId());
             }
         }
-        return true;
-    }
-
-    private Optional<Promotion> findActivePromotion(UUID promotionId) {
-        if (promotionId == null) {
-            return Optional.empty();
+        if (oneTimePromotionIds.isEmpty()) {
+            return Set.of();
         }
-        return promotionRepository.findById(promotionId)
-                .filter(p -> p.getStatus() == PromotionStatus.ACTIVE);
+        return userPromotionUsageRepository.findUsedPromotionIds(userId, oneTimePromotionIds);
     }
 }
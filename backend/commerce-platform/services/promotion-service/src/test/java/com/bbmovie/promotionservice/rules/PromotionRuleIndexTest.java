@@ -0,0 +1,53 @@
+package com.bbmovie.promotionservice.rules;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PromotionRuleIndexTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 15, 12, 0);
+
+    @Test
+    void should_match_exact_and_wildcard_buckets_case_insensitively_in_file_order() {
+        PromotionRule any = rule("any", null, null, null);
+        PromotionRule usd = rule("usd", "USD", null, null);
+        PromotionRule eurVip = rule("eur-vip", "EUR", null, "vip");
+        PromotionRuleIndex index = PromotionRuleIndex.compile(List.of(usd, eurVip, any));
+
+        assertEquals(List.of(usd, any), index.match("usd", "eu", "user", 20.0, NOW));
+        assertEquals(List.of(eurVip, any), index.match("eur", null, "VIP", 20.0, NOW));
+        assertEquals(List.of(usd, eurVip, any), index.match(null, null, null, null, NOW));
+    }
+
+    @Test
+    void should_filter_by_time_window_and_min_cart_value() {
+        PromotionRule expired = rule("expired", "USD", null, null);
+        expired.setEndDate(NOW.minusDays(1));
+        PromotionRule upcoming = rule("upcoming", "USD", null, null);
+        upcoming.setStartDate(NOW.plusDays(1));
+        PromotionRule bigCart = rule("big-cart", "USD", null, null);
+        bigCart.setMinCartValue(50.0);
+        PromotionRuleIndex index = PromotionRuleIndex.compile(List.of(expired, upcoming, bigCart));
+
+        assertTrue(index.match("USD", null, null, 20.0, NOW).isEmpty());
+        assertEquals(List.of(bigCart), index.match("USD", null, null, 60.0, NOW));
+        assertEquals(3, index.promotionIds().size());
+    }
+
+    private PromotionRule rule(String ruleId, String currency, String region, String role) {
+        PromotionRule rule = new PromotionRule();
+        rule.setRuleId(ruleId);
+        rule.setName(ruleId);
+        rule.setPromotionId(UUID.randomUUID());
+        rule.setCurrency(currency);
+        rule.setUserRegion(region);
+        rule.setUserRole(role);
+        return rule;
+    }
+}
@@ -1,10 +1,15 @@
 package com.bbmovie.revenuedashboard;
 
+import com.vaadin.flow.component.page.AppShellConfigurator;
+import com.vaadin.flow.component.page.Push;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+@Push
+@EnableScheduling
 @SpringBootApplication
-public class RevenueDashboardApplication {
+public class RevenueDashboardApplication implements AppShellConfigurator {
 
     public static void main(String[] args) {
         SpringApplication.run(RevenueDashboardApplication.class, args);
@@ -13,6 +13,7 @@ public class RevenueAnalyticsProperties {
 
     private final Clickhouse clickhouse = new Clickhouse();
     private final Messaging messaging = new Messaging();
+    private final Ingest ingest = new Ingest();
 
     @Getter
     @Setter
@@ -23,6 +24,15 @@ public class RevenueAnalyticsProperties {
         private String password = "";
     }
 
+    @Getter
+    @Setter
+    public static class Ingest {
+        private int batchSize = 5000;
+        private long flushIntervalMs = 1000;
+        private int maxBuffered = 100000;
+        private String spillDir = "./data/revenue-events-spill";
+    }
+
     @Getter
     @Setter
     public static class Messaging {
@@ -0,0 +1,16 @@
+package com.bbmovie.revenuedashboard.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record DashboardSnapshot(
+        RevenueMetrics metrics,
+        List<DailyRevenueTrend> dailyTrend,
+        List<RevenueByPlan> topPlans,
+        List<RevenueByProvider> providers,
+        Instant refreshedAt
+) {
+    public static DashboardSnapshot empty() {
+        return new DashboardSnapshot(RevenueMetrics.empty(), List.of(), List.of(), List.of(), null);
+    }
+}
@@ -4,6 +4,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 public record PaymentEvent(
+        String eventId,          // <eventType>:<transactionId>, or the broker position when there is no transaction id
         String eventType,        // payment.completed, payment.refunded, subscription.created, subscription.cancelled, subscription.renewed
         String transactionId,
         String userId,
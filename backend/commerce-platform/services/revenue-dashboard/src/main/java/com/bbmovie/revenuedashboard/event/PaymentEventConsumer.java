@@ -8,7 +8,6 @@ import io.nats.client.Dispatcher;
 import io.nats.client.Message;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
@@ -18,6 +17,7 @@ import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.UUID;
 import java.util.concurrent.TimeoutException;
 
 @Slf4j
@@ -33,14 +33,14 @@ public class PaymentEventConsumer {
     };
 
     private final Connection natsConnection;
-    private final JdbcTemplate clickHouseJdbcTemplate;
+    private final RevenueEventBuffer revenueEventBuffer;
     private final ObjectMapper objectMapper;
     private Dispatcher dispatcher;
 
     public PaymentEventConsumer(
-            Connection natsConnection,JdbcTemplate clickHouseJdbcTemplate) {
+            Connection natsConnection, RevenueEventBuffer revenueEventBuffer) {
         this.natsConnection = natsConnection;
-        this.clickHouseJdbcTemplate = clickHouseJdbcTemplate;
+        this.revenueEventBuffer = revenueEventBuffer;
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
     }
@@ -79,9 +79,11 @@ public class PaymentEventConsumer {
             String subject = msg.getSubject();
             String eventType = mapSubjectToEventType(subject);
 
+            String transactionId = getJsonString(json, "transactionId");
             PaymentEvent event = new PaymentEvent(
+                    eventId(msg, eventType, transactionId),
                     eventType,
-                    getJsonString(json, "transactionId"),
+                    transactionId,
                     getJsonString(json, "userId"),
                     getJsonString(json, "subscriptionId"),
                     getJsonString(json, "planId"),
@@ -93,8 +95,8 @@ public class PaymentEventConsumer {
                     LocalDateTime.now(ZoneOffset.UTC)
             );
 
-            persistEvent(event);
-            log.info("Persisted payment event: type={}, txId={}, userId={}", event.eventType(), event.transactionId(), event.userId());
+            revenueEventBuffer.submit(event).whenComplete((ignored, failure) -> acknowledge(msg, failure));
+            log.debug("Buffered payment event: type={}, txId={}, userId={}", event.eventType(), event.transactionId(), event.userId());
 
         } catch (Exception e) {
             log.error("Error processing NATS payment event on subject {}: {}", msg.getSubject(), e.getMessage(), e);
@@ -111,27 +113,29 @@ public class PaymentEventConsumer {
         };
     }
 
-    private void persistEvent(PaymentEvent event) {
-        String sql = """
-                INSERT INTO revenue_events
-                (event_type, transaction_id, user_id, subscription_id, plan_id, plan_type,
-                 amount, currency, provider, billing_cycle, event_timestamp)
-                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-                """;
-
-        clickHouseJdbcTemplate.update(sql,
-                event.eventType(),
-                event.transactionId(),
-                event.userId(),
-                event.subscriptionId(),
-                event.planId(),
-                event.planType(),
-                event.amount(),
-                event.currency(),
-                event.provider(),
-                event.billingCycle(),
-                event.eventTimestamp()
-        );
+    private String eventId(Message msg, String eventType, String transactionId) {
+        if (transactionId != null) {
+            return eventType + ":" + transactionId;
+        }
+        if (msg.isJetStream()) {
+            return "nats:" + msg.metaData().getStream() + ":" + msg.metaData().streamSequence();
+        }
+        return "nats:" + UUID.randomUUID();
+    }
+
+    private void acknowledge(Message msg, Throwable failure) {
+        if (failure != null) {
+            log.error("Payment event on subject {} was not stored: {}", msg.getSubject(), failure.getMessage());
+        }
+        // Core NATS subjects have no redelivery; JetStream deliveries are acked only once the event is stored.
+        if (!msg.isJetStream()) {
+            return;
+        }
+        if (failure == null) {
+            msg.ack();
+        } else {
+            msg.nak();
+        }
     }
 
     private String getJsonString(JsonNode json, String field) {
@@ -6,7 +6,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
@@ -14,6 +13,8 @@ import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
 
 @Slf4j
 @Component
@@ -21,17 +22,40 @@ import java.time.ZoneOffset;
 @ConditionalOnProperty(name = "revenue.analytics.messaging.kafka.enabled", havingValue = "true")
 public class PaymentEventKafkaConsumer {
     private final ObjectMapper objectMapper;
-    private final JdbcTemplate clickHouseJdbcTemplate;
+    private final RevenueEventBuffer revenueEventBuffer;
 
-    @KafkaListener(topics = "${revenue.analytics.messaging.kafka.topic:commerce.payment.events.v1}")
-    public void handle(ConsumerRecord<String, String> record) {
+    /**
+     * Hands the whole poll to the shared buffer and returns only once every event is stored, so the
+     * container commits offsets after the ClickHouse flush. A full buffer blocks the poll instead of
+     * failing it. If an event cannot be stored at all the batch is redelivered; events of it that were
+     * already inserted are skipped by their event id.
+     */
+    @KafkaListener(topics = "${revenue.analytics.messaging.kafka.topic:commerce.payment.events.v1}", batch = "true")
+    public void handle(List<ConsumerRecord<String, String>> records) {
+        List<PaymentEvent> events = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, String> record : records) {
+            PaymentEvent event = toEvent(record);
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        revenueEventBuffer.submitAll(events).join();
+    }
+
+    private PaymentEvent toEvent(ConsumerRecord<String, String> record) {
         String message = record.value();
         try {
             JsonNode root = objectMapper.readTree(message);
             JsonNode payload = root.path("payload");
-            PaymentEvent event = new PaymentEvent(
-                    root.path("eventType").asText("payment.unknown"),
-                    root.path("paymentId").asText(null),
+            String eventType = root.path("eventType").asText("payment.unknown");
+            String paymentId = root.path("paymentId").asText(null);
+            String eventId = paymentId != null
+                    ? eventType + ":" + paymentId
+                    : "kafka:" + record.topic() + ":" + record.partition() + ":" + record.offset();
+            return new PaymentEvent(
+                    eventId,
+                    eventType,
+                    paymentId,
                     payload.path("userId").asText(null),
                     payload.path("subscriptionId").asText(payload.path("subscriptionCampaignId").asText(null)),
                     payload.path("planId").asText(null),
@@ -42,34 +66,12 @@ public class PaymentEventKafkaConsumer {
                     payload.path("billingCycle").asText("UNKNOWN"),
                     LocalDateTime.ofInstant(Instant.ofEpochMilli(record.timestamp()), ZoneOffset.UTC)
             );
-            persist(event);
         } catch (Exception ex) {
             log.error("Failed to process kafka payment event payload={}", message, ex);
+            return null;
         }
     }
 
-    private void persist(PaymentEvent event) {
-        String sql = """
-                INSERT INTO revenue_events
-                (event_type, transaction_id, user_id, subscription_id, plan_id, plan_type,
-                 amount, currency, provider, billing_cycle, event_timestamp)
-                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-                """;
-        clickHouseJdbcTemplate.update(sql,
-                event.eventType(),
-                event.transactionId(),
-                event.userId(),
-                event.subscriptionId(),
-                event.planId(),
-                event.planType(),
-                event.amount(),
-                event.currency(),
-                event.provider(),
-                event.billingCycle(),
-                event.eventTimestamp()
-        );
-    }
-
     private BigDecimal decimalOrZero(JsonNode node) {
         if (node == null || node.isMissingNode() || node.isNull()) {
             return BigDecimal.ZERO;
@@ -0,0 +1,291 @@
+package com.bbmovie.revenuedashboard.event;
+
+import com.bbmovie.revenuedashboard.config.RevenueAnalyticsProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Buffers payment events from the NATS and Kafka consumers and writes them to {@code revenue_events}
+ * as batched inserts.
+ * <p>
+ * A flush runs every {@code revenue.analytics.ingest.flush-interval-ms}, or as soon as
+ * {@code revenue.analytics.ingest.batch-size} events are waiting, so ClickHouse sees a few large
+ * inserts instead of one part per event. The future returned by {@link #submit} completes once the
+ * event is durable, and consumers acknowledge upstream only then. When ClickHouse rejects a batch, the
+ * batch is spilled to a local JSON-lines file and counts as durable; spilled files are re-inserted
+ * after the next successful flush. Only if the spill fails too does the future fail.
+ * <p>
+ * Inserts are idempotent per {@code event_id}: events already present in {@code revenue_events} are
+ * dropped before the insert, because the rollup materialized views would count a second copy even
+ * though the ReplacingMergeTree eventually collapses it in the raw table.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "revenue.analytics.clickhouse.enabled", havingValue = "true")
+public class RevenueEventBuffer {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO revenue_events
+            (event_id, event_type, transaction_id, user_id, subscription_id, plan_id, plan_type,
+             amount, currency, provider, billing_cycle, event_timestamp)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+    private static final String STORED_IDS_SQL = "SELECT DISTINCT event_id FROM revenue_events WHERE event_id IN (%s)";
+    private static final String SPILL_SUFFIX = ".jsonl";
+    private static final long FULL_BUFFER_WAIT_MS = 50;
+
+    private final JdbcTemplate clickHouseJdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<PendingEvent> queue;
+    private final int batchSize;
+    private final Path spillDir;
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private final AtomicLong spillSequence = new AtomicLong();
+
+    private final Timer flushLatency;
+    private final Counter flushedCounter;
+    private final Counter spilledCounter;
+    private final Counter replayedCounter;
+    private final Counter failedCounter;
+    private final Counter duplicateCounter;
+
+    public RevenueEventBuffer(
+            JdbcTemplate clickHouseJdbcTemplate,
+            RevenueAnalyticsProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        var ingest = properties.getIngest();
+        this.clickHouseJdbcTemplate = clickHouseJdbcTemplate;
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        this.queue = new LinkedBlockingQueue<>(ingest.getMaxBuffered());
+        this.batchSize = ingest.getBatchSize();
+        this.spillDir = Path.of(ingest.getSpillDir());
+
+        Gauge.builder("revenue.ingest.buffer.size", queue, BlockingQueue::size)
+                .description("Payment events waiting for the next ClickHouse flush")
+                .register(meterRegistry);
+        this.flushLatency = Timer.builder("revenue.ingest.flush.latency")
+                .description("Time to insert one batch into revenue_events")
+                .register(meterRegistry);
+        this.flushedCounter = Counter.builder("revenue.ingest.flushed").register(meterRegistry);
+        this.spilledCounter = Counter.builder("revenue.ingest.spilled").register(meterRegistry);
+        this.replayedCounter = Counter.builder("revenue.ingest.spill.replayed").register(meterRegistry);
+        this.failedCounter = Counter.builder("revenue.ingest.failed").register(meterRegistry);
+        this.duplicateCounter = Counter.builder("revenue.ingest.duplicate")
+                .description("Redelivered payment events skipped because they were already inserted")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues an event for the next flush. The returned future completes when the event has been
+     * inserted or spilled, and fails if the buffer is full or the event could not be stored at all.
+     */
+    public CompletableFuture<Void> submit(PaymentEvent event) {
+        PendingEvent pending = new PendingEvent(event, new CompletableFuture<>());
+        if (!queue.offer(pending)) {
+            failedCounter.increment();
+            return CompletableFuture.failedFuture(new IllegalStateException("Revenue event buffer is full"));
+        }
+        if (queue.size() >= batchSize) {
+            CompletableFuture.runAsync(this::flush);
+        }
+        return pending.stored();
+    }
+
+    /**
+     * Queues a whole batch, blocking while the buffer is full instead of failing, and flushing on the
+     * caller's thread if no flush is running. The returned future completes once every event is stored.
+     */
+    public CompletableFuture<Void> submitAll(List<PaymentEvent> events) {
+        List<CompletableFuture<Void>> stored = new ArrayList<>(events.size());
+        for (PaymentEvent event : events) {
+            PendingEvent pending = new PendingEvent(event, new CompletableFuture<>());
+            try {
+                while (!queue.offer(pending, FULL_BUFFER_WAIT_MS, TimeUnit.MILLISECONDS)) {
+                    flush();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stored.add(CompletableFuture.failedFuture(e));
+                break;
+            }
+            stored.add(pending.stored());
+        }
+        if (queue.size() >= batchSize) {
+            CompletableFuture.runAsync(this::flush);
+        }
+        return CompletableFuture.allOf(stored.toArray(CompletableFuture[]::new));
+    }
+
+    @Scheduled(fixedDelayString = "${revenue.analytics.ingest.flush-interval-ms:1000}")
+    public void flush() {
+        if (!flushing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            boolean healthy = true;
+            List<PendingEvent> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+            while (queue.drainTo(batch, batchSize) > 0) {
+                healthy &= write(batch);
+                batch.clear();
+            }
+            if (healthy) {
+                replaySpill();
+            }
+        } finally {
+            flushing.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private boolean write(List<PendingEvent> batch) {
+        List<PaymentEvent> events = batch.stream().map(PendingEvent::event).toList();
+        try {
+            insert(events);
+            flushedCounter.increment(events.size());
+            batch.forEach(pending -> pending.stored().complete(null));
+            return true;
+        } catch (Exception e) {
+            log.warn("ClickHouse insert of {} revenue events failed, spilling to disk: {}", events.size(), e.getMessage());
+        }
+        try {
+            spill(events);
+            spilledCounter.increment(events.size());
+            batch.forEach(pending -> pending.stored().complete(null));
+        } catch (IOException e) {
+            log.error("Could not spill {} revenue events to {}", events.size(), spillDir, e);
+            failedCounter.increment(events.size());
+            batch.forEach(pending -> pending.stored().completeExceptionally(e));
+        }
+        return false;
+    }
+
+    private void insert(List<PaymentEvent> events) {
+        long startedAt = System.nanoTime();
+        List<PaymentEvent> unstored = withoutStored(events);
+        if (unstored.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = unstored.stream()
+                .map(event -> new Object[]{
+                        event.eventId(),
+                        event.eventType(),
+                        event.transactionId(),
+                        event.userId(),
+                        event.subscriptionId(),
+                        event.planId(),
+                        event.planType(),
+                        event.amount(),
+                        event.currency(),
+                        event.provider(),
+                        event.billingCycle(),
+                        event.eventTimestamp()
+                })
+                .toList();
+        clickHouseJdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        flushLatency.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Drops events whose id is already in {@code revenue_events}, or repeated within the batch.
+     */
+    private List<PaymentEvent> withoutStored(List<PaymentEvent> events) {
+        List<String> ids = events.stream().map(PaymentEvent::eventId).filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty()) {
+            return events;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        Set<String> seen = new HashSet<>(clickHouseJdbcTemplate.queryForList(
+                STORED_IDS_SQL.formatted(placeholders), String.class, ids.toArray()));
+        List<PaymentEvent> unstored = events.stream()
+                .filter(event -> event.eventId() == null || seen.add(event.eventId()))
+                .toList();
+        if (unstored.size() < events.size()) {
+            duplicateCounter.increment(events.size() - unstored.size());
+            log.info("Skipped {} revenue events that were already inserted", events.size() - unstored.size());
+        }
+        return unstored;
+    }
+
+    private void spill(List<PaymentEvent> events) throws IOException {
+        Files.createDirectories(spillDir);
+        String name = "revenue-events-" + System.currentTimeMillis() + "-" + spillSequence.incrementAndGet();
+        Path tmp = spillDir.resolve(name + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (PaymentEvent event : events) {
+                writer.write(objectMapper.writeValueAsString(event));
+                writer.newLine();
+            }
+        }
+        // Only complete files carry the suffix, so replay never picks up a half-written spill.
+        Files.move(tmp, spillDir.resolve(name + SPILL_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void replaySpill() {
+        if (!Files.isDirectory(spillDir)) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(spillDir)) {
+            files = listing.filter(path -> path.getFileName().toString().endsWith(SPILL_SUFFIX)).sorted().toList();
+        } catch (IOException e) {
+            log.warn("Could not list revenue event spill directory {}: {}", spillDir, e.getMessage());
+            return;
+        }
+        for (Path file : files) {
+            try {
+                List<PaymentEvent> events = new ArrayList<>();
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    if (!line.isBlank()) {
+                        events.add(objectMapper.readValue(line, PaymentEvent.class));
+                    }
+                }
+                insert(events);
+                Files.delete(file);
+                replayedCounter.increment(events.size());
+                log.info("Replayed {} spilled revenue events from {}", events.size(), file.getFileName());
+            } catch (Exception e) {
+                log.warn("Replay of spilled revenue events {} failed, will retry: {}", file.getFileName(), e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private record PendingEvent(PaymentEvent event, CompletableFuture<Void> stored) {
+    }
+}
@@ -0,0 +1,101 @@
+package com.bbmovie.revenuedashboard.service;
+
+import com.bbmovie.revenuedashboard.dto.DailyRevenueTrend;
+import com.bbmovie.revenuedashboard.dto.DashboardSnapshot;
+import com.bbmovie.revenuedashboard.dto.RevenueByPlan;
+import com.bbmovie.revenuedashboard.dto.RevenueByProvider;
+import com.bbmovie.revenuedashboard.dto.RevenueMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Shared, periodically refreshed dashboard data.
+ * <p>
+ * All open dashboard views read the same snapshot, so ClickHouse sees one set of queries every
+ * {@code revenue.analytics.dashboard.refresh-ms} no matter how many people have the dashboard open.
+ * Views subscribe to get each new snapshot pushed to them. A manual refresh only starts a new build when
+ * none is running.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "revenue.analytics.clickhouse.enabled", havingValue = "true")
+public class DashboardSnapshotService {
+
+    private static final int TREND_DAYS = 30;
+    private static final int TOP_PLANS = 10;
+
+    private final RevenueQueryService revenueQueryService;
+    private final AtomicReference<DashboardSnapshot> current = new AtomicReference<>(DashboardSnapshot.empty());
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final List<Consumer<DashboardSnapshot>> subscribers = new CopyOnWriteArrayList<>();
+
+    public DashboardSnapshotService(RevenueQueryService revenueQueryService) {
+        this.revenueQueryService = revenueQueryService;
+    }
+
+    public DashboardSnapshot current() {
+        return current.get();
+    }
+
+    /**
+     * Registers a listener for new snapshots; run the returned handle to unsubscribe.
+     */
+    public Runnable subscribe(Consumer<DashboardSnapshot> subscriber) {
+        subscribers.add(subscriber);
+        return () -> subscribers.remove(subscriber);
+    }
+
+    public void requestRefresh() {
+        CompletableFuture.runAsync(this::refresh);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${revenue.analytics.dashboard.refresh-ms:30000}")
+    public void refresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long startedAt = System.nanoTime();
+            LocalDate today = LocalDate.now();
+            CompletableFuture<RevenueMetrics> metrics =
+                    CompletableFuture.supplyAsync(revenueQueryService::getRevenueMetrics);
+            CompletableFuture<List<DailyRevenueTrend>> trend =
+                    CompletableFuture.supplyAsync(() -> revenueQueryService.getDailyRevenueTrend(TREND_DAYS));
+            CompletableFuture<List<RevenueByPlan>> plans =
+                    CompletableFuture.supplyAsync(() -> revenueQueryService.getTopPlans(TOP_PLANS));
+            CompletableFuture<List<RevenueByProvider>> providers =
+                    CompletableFuture.supplyAsync(() -> revenueQueryService.getRevenueByProvider(today.minusDays(TREND_DAYS), today));
+
+            DashboardSnapshot snapshot = new DashboardSnapshot(
+                    metrics.join(), trend.join(), plans.join(), providers.join(), Instant.now());
+            current.set(snapshot);
+            log.debug("Dashboard snapshot refreshed in {} ms", (System.nanoTime() - startedAt) / 1_000_000);
+            publish(snapshot);
+        } catch (Exception e) {
+            log.error("Error refreshing dashboard snapshot: {}", e.getMessage());
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    private void publish(DashboardSnapshot snapshot) {
+        for (Consumer<DashboardSnapshot> subscriber : subscribers) {
+            try {
+                subscriber.accept(snapshot);
+            } catch (Exception e) {
+                log.warn("Dashboard subscriber failed: {}", e.getMessage());
+            }
+        }
+    }
+}
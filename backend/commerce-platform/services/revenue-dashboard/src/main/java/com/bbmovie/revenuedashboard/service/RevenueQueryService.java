@@ -1,6 +1,7 @@
 package com.bbmovie.revenuedashboard.service;
 
 import com.bbmovie.revenuedashboard.dto.*;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -10,18 +11,37 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Dashboard queries. They read the {@code mrr_daily}, {@code subscription_events} and
+ * {@code subscription_users_daily} rollups that materialized views maintain from {@code revenue_events}
+ * (see {@code schema/clickhouse_init.sql}). That way a dashboard load scans a few rows per day instead of
+ * every raw event. The independent metric queries run concurrently.
+ */
 @Slf4j
 @Service
 @ConditionalOnProperty(name = "revenue.analytics.clickhouse.enabled", havingValue = "true")
 public class RevenueQueryService {
 
+    private static final String RECURRING_EVENTS = "('subscription.created', 'subscription.renewed')";
+
     private final JdbcTemplate clickHouseJdbcTemplate;
+    private final ExecutorService queryExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
     public RevenueQueryService(JdbcTemplate clickHouseJdbcTemplate) {
         this.clickHouseJdbcTemplate = clickHouseJdbcTemplate;
     }
 
+    @PreDestroy
+    void shutdown() {
+        queryExecutor.shutdown();
+    }
+
     // =============================================================
     // Core Dashboard Metrics
     // =============================================================
@@ -32,121 +52,74 @@ public class RevenueQueryService {
             var monthStart = now.withDayOfMonth(1);
             var lastMonthStart = monthStart.minusMonths(1);
             var thirtyDaysAgo = now.minusDays(30);
-
-            // MRR: sum of active subscription amounts normalized to monthly
-            BigDecimal mrr = clickHouseJdbcTemplate.queryForObject("""
-                            SELECT COALESCE(SUM(
-                                CASE
-                                    WHEN billing_cycle = 'ANNUAL' THEN amount / 12
-                                    ELSE amount
-                                END
-                            ), 0)
-                            FROM revenue_events
-                            WHERE event_type IN ('subscription.created', 'subscription.renewed')
-                              AND event_timestamp >= toDateTime64(?)
-                            """, BigDecimal.class,
-                    monthStart.atStartOfDay().toString());
-
-            // ARR
-            BigDecimal arr = mrr != null ? mrr.multiply(BigDecimal.valueOf(12)) : BigDecimal.ZERO;
-
-            // Revenue today
-            BigDecimal todayRevenue = clickHouseJdbcTemplate.queryForObject("""
-                            SELECT COALESCE(SUM(amount), 0)
-                            FROM revenue_events
-                            WHERE event_type IN ('subscription.created', 'subscription.renewed')
-                              AND toDate(event_timestamp) = today()
-                            """, BigDecimal.class);
-
-            // Revenue this month
-            BigDecimal monthRevenue = clickHouseJdbcTemplate.queryForObject("""
-                            SELECT COALESCE(SUM(amount), 0)
-                            FROM revenue_events
-                            WHERE event_type IN ('subscription.created', 'subscription.renewed')
-                              AND event_timestamp >= toDateTime64(?)
-                            """, BigDecimal.class,
-                    monthStart.atStartOfDay().toString());
+            var earliest = monthStart.isBefore(thirtyDaysAgo) ? monthStart : thirtyDaysAgo;
+
+            // Revenue and lifecycle counts for today, this month and the last 30 days in one pass
+            CompletableFuture<Map<String, Object>> lifecycle = supplyAsync(() -> clickHouseJdbcTemplate.queryForMap("""
+                            SELECT
+                                sumIf(revenue, event_type IN %1$s AND date = today()) AS today_revenue,
+                                sumIf(revenue, event_type IN %1$s AND date >= toDate(?)) AS month_revenue,
+                                sumIf(count, event_type = 'subscription.created' AND date = today()) AS new_today,
+                                sumIf(count, event_type = 'subscription.cancelled' AND date = today()) AS cancelled_today,
+                                sumIf(count, event_type = 'subscription.renewed' AND date = today()) AS renewed_today,
+                                sumIf(count, event_type = 'subscription.cancelled' AND date >= toDate(?)) AS cancellations_30d
+                            FROM subscription_events
+                            WHERE date >= toDate(?)
+                            """.formatted(RECURRING_EVENTS),
+                    monthStart.toString(), thirtyDaysAgo.toString(), earliest.toString()));
+
+            // MRR this month and last month (for growth calculation)
+            CompletableFuture<Map<String, Object>> mrrs = supplyAsync(() -> clickHouseJdbcTemplate.queryForMap("""
+                            SELECT
+                                sumIf(mrr, date >= toDate(?)) AS mrr,
+                                sumIf(mrr, date < toDate(?)) AS last_month_mrr
+                            FROM mrr_daily
+                            WHERE date >= toDate(?)
+                            """,
+                    monthStart.toString(), monthStart.toString(), lastMonthStart.toString()));
 
             // Active subscriptions (distinct users with recent create/renewal)
-            Long activeSubs = clickHouseJdbcTemplate.queryForObject("""
-                            SELECT COUNT(DISTINCT user_id)
-                            FROM revenue_events
-                            WHERE event_type IN ('subscription.created', 'subscription.renewed')
-                              AND event_timestamp >= toDateTime64(?)
-                            """, Long.class,
-                    thirtyDaysAgo.atStartOfDay().toString());
-
-            // New subscriptions today
-            Long newToday = clickHouseJdbcTemplate.queryForObject("""
-                            SELECT COUNT(*)
-                            FROM revenue_events
-                            WHERE event_type = 'subscription.created'
-                              AND toDate(event_timestamp) = today()
-                            """, Long.class);
-
-            // Cancelled today
-            Long cancelledToday = clickHouseJdbcTemplate.queryForObject("""
-                            SELECT COUNT(*)
-                            FROM revenue_events
-                            WHERE event_type = 'subscription.cancelled'
-                              AND toDate(event_timestamp) = today()
-                            """, Long.class);
-
-            // Renewed today
-            Long renewedToday = clickHouseJdbcTemplate.queryForObject("""
-                            SELECT COUNT(*)
-                            FROM revenue_events
-                            WHERE event_type = 'subscription.renewed'
-                              AND toDate(event_timestamp) = today()
-                            """, Long.class);
+            CompletableFuture<Long> activeSubsFuture = supplyAsync(() -> clickHouseJdbcTemplate.queryForObject("""
+                            SELECT uniqExactMerge(users)
+                            FROM subscription_users_daily
+                            WHERE event_type IN %s
+                              AND date >= toDate(?)
+                            """.formatted(RECURRING_EVENTS), Long.class,
+                    thirtyDaysAgo.toString()));
+
+            CompletableFuture.allOf(lifecycle, mrrs, activeSubsFuture).join();
+            Map<String, Object> lifecycleRow = lifecycle.join();
+            Map<String, Object> mrrRow = mrrs.join();
+
+            BigDecimal mrr = toBigDecimal(mrrRow.get("mrr"));
+            BigDecimal lastMonthMrr = toBigDecimal(mrrRow.get("last_month_mrr"));
+            BigDecimal arr = mrr.multiply(BigDecimal.valueOf(12));
+            long activeSubs = activeSubsFuture.join() != null ? activeSubsFuture.join() : 0;
+            long cancellations30d = toLong(lifecycleRow.get("cancellations_30d"));
 
             // Churn rate (last 30 days): cancellations / total active
-            Long cancellations30d = clickHouseJdbcTemplate.queryForObject("""
-                            SELECT COUNT(*)
-                            FROM revenue_events
-                            WHERE event_type = 'subscription.cancelled'
-                              AND event_timestamp >= toDateTime64(?)
-                            """, Long.class,
-                    thirtyDaysAgo.atStartOfDay().toString());
-
-            double churnRate = (activeSubs != null && activeSubs > 0 && cancellations30d != null)
-                    ? (cancellations30d.doubleValue() / activeSubs.doubleValue()) * 100
+            double churnRate = activeSubs > 0
+                    ? (cancellations30d / (double) activeSubs) * 100
                     : 0.0;
 
             // ARPU
-            BigDecimal arpu = (activeSubs != null && activeSubs > 0 && mrr != null)
+            BigDecimal arpu = activeSubs > 0
                     ? mrr.divide(BigDecimal.valueOf(activeSubs), 2, java.math.RoundingMode.HALF_UP)
                     : BigDecimal.ZERO;
 
-            // MRR last month (for growth calculation)
-            BigDecimal lastMonthMrr = clickHouseJdbcTemplate.queryForObject("""
-                            SELECT COALESCE(SUM(
-                                CASE
-                                    WHEN billing_cycle = 'ANNUAL' THEN amount / 12
-                                    ELSE amount
-                                END
-                            ), 0)
-                            FROM revenue_events
-                            WHERE event_type IN ('subscription.created', 'subscription.renewed')
-                              AND event_timestamp >= toDateTime64(?)
-                              AND event_timestamp < toDateTime64(?)
-                            """, BigDecimal.class,
-                    lastMonthStart.atStartOfDay().toString(),
-                    monthStart.atStartOfDay().toString());
-
-            double mrrGrowth = (lastMonthMrr != null && lastMonthMrr.compareTo(BigDecimal.ZERO) > 0 && mrr != null)
+            double mrrGrowth = lastMonthMrr.compareTo(BigDecimal.ZERO) > 0
                     ? mrr.subtract(lastMonthMrr).divide(lastMonthMrr, 4, java.math.RoundingMode.HALF_UP).doubleValue() * 100
                     : 0.0;
 
             return new RevenueMetrics(
-                    mrr != null ? mrr : BigDecimal.ZERO,
+                    mrr,
                     arr,
-                    todayRevenue != null ? todayRevenue : BigDecimal.ZERO,
-                    monthRevenue != null ? monthRevenue : BigDecimal.ZERO,
-                    activeSubs != null ? activeSubs : 0,
-                    newToday != null ? newToday : 0,
-                    cancelledToday != null ? cancelledToday : 0,
-                    renewedToday != null ? renewedToday : 0,
+                    toBigDecimal(lifecycleRow.get("today_revenue")),
+                    toBigDecimal(lifecycleRow.get("month_revenue")),
+                    activeSubs,
+                    toLong(lifecycleRow.get("new_today")),
+                    toLong(lifecycleRow.get("cancelled_today")),
+                    toLong(lifecycleRow.get("renewed_today")),
                     churnRate,
                     arpu,
                     mrrGrowth
@@ -163,48 +136,7 @@ public class RevenueQueryService {
     // =============================================================
 
     public List<RevenueByPlan> getRevenueByPlan(LocalDate from, LocalDate to) {
-        String sql = """
-                SELECT
-                    plan_type,
-                    COUNT(DISTINCT user_id) as sub_count,
-                    COALESCE(SUM(
-                        CASE
-                            WHEN billing_cycle = 'ANNUAL' THEN amount / 12
-                            ELSE amount
-                        END
-                    ), 0) as mrr,
-                    COALESCE(SUM(amount), 0) as total_revenue
-                FROM revenue_events
-                WHERE event_type IN ('subscription.created', 'subscription.renewed')
-                  AND toDate(event_timestamp) >= ?
-                  AND toDate(event_timestamp) <= ?
-                GROUP BY plan_type
-                ORDER BY total_revenue DESC
-                """;
-
-        var rows = clickHouseJdbcTemplate.queryForList(sql, from.toString(), to.toString());
-        BigDecimal grandTotal = BigDecimal.ZERO;
-
-        // First pass: calculate grand total
-        for (var row : rows) {
-            BigDecimal total = (BigDecimal) row.get("total_revenue");
-            if (total != null) grandTotal = grandTotal.add(total);
-        }
-
-        List<RevenueByPlan> result = new ArrayList<>();
-        for (var row : rows) {
-            String planType = (String) row.get("plan_type");
-            Long subCount = ((Number) row.get("sub_count")).longValue();
-            BigDecimal mrr = (BigDecimal) row.get("mrr");
-            BigDecimal totalRevenue = (BigDecimal) row.get("total_revenue");
-            double percentOfTotal = grandTotal.compareTo(BigDecimal.ZERO) > 0
-                    ? totalRevenue.divide(grandTotal, 4, java.math.RoundingMode.HALF_UP).doubleValue() * 100
-                    : 0.0;
-
-            result.add(new RevenueByPlan(planType, subCount, mrr, totalRevenue, percentOfTotal));
-        }
-
-        return result;
+        return planBreakdown(from, to, null);
     }
 
     // =============================================================
@@ -215,12 +147,12 @@ public class RevenueQueryService {
         String sql = """
                 SELECT
                     provider,
-                    COUNT(*) as tx_count,
-                    COALESCE(SUM(amount), 0) as total_amount,
-                    COALESCE(SUM(CASE WHEN event_type = 'payment.refunded' THEN amount ELSE 0 END), 0) as refunded
-                FROM revenue_events
-                WHERE toDate(event_timestamp) >= ?
-                  AND toDate(event_timestamp) <= ?
+                    SUM(count) as tx_count,
+                    COALESCE(SUM(revenue), 0) as total_amount,
+                    COALESCE(sumIf(revenue, event_type = 'payment.refunded'), 0) as refunded
+                FROM subscription_events
+                WHERE date >= toDate(?)
+                  AND date <= toDate(?)
                 GROUP BY provider
                 ORDER BY total_amount DESC
                 """;
@@ -229,16 +161,15 @@ public class RevenueQueryService {
         BigDecimal grandTotal = BigDecimal.ZERO;
 
         for (var row : rows) {
-            BigDecimal total = (BigDecimal) row.get("total_amount");
-            if (total != null) grandTotal = grandTotal.add(total);
+            grandTotal = grandTotal.add(toBigDecimal(row.get("total_amount")));
         }
 
         List<RevenueByProvider> result = new ArrayList<>();
         for (var row : rows) {
             String provider = (String) row.get("provider");
-            long txCount = ((Number) row.get("tx_count")).longValue();
-            BigDecimal totalAmount = (BigDecimal) row.get("total_amount");
-            BigDecimal refunded = (BigDecimal) row.get("refunded");
+            long txCount = toLong(row.get("tx_count"));
+            BigDecimal totalAmount = toBigDecimal(row.get("total_amount"));
+            BigDecimal refunded = toBigDecimal(row.get("refunded"));
             double percentOfTotal = grandTotal.compareTo(BigDecimal.ZERO) > 0
                     ? totalAmount.divide(grandTotal, 4, java.math.RoundingMode.HALF_UP).doubleValue() * 100
                     : 0.0;
@@ -256,20 +187,17 @@ public class RevenueQueryService {
     public List<DailyRevenueTrend> getDailyRevenueTrend(int days) {
         String sql = """
                 SELECT
-                    toDate(event_timestamp) as date,
-                    COALESCE(SUM(CASE
-                        WHEN event_type IN ('subscription.created', 'subscription.renewed') THEN amount
-                        ELSE 0
-                    END), 0) as revenue,
-                    COUNT(CASE WHEN event_type = 'subscription.created' THEN 1 END) as new_subs,
-                    COUNT(CASE WHEN event_type = 'subscription.cancelled' THEN 1 END) as cancellations
-                FROM revenue_events
-                WHERE event_timestamp >= toDateTime64(?)
+                    date,
+                    COALESCE(sumIf(revenue, event_type IN %s), 0) as revenue,
+                    sumIf(count, event_type = 'subscription.created') as new_subs,
+                    sumIf(count, event_type = 'subscription.cancelled') as cancellations
+                FROM subscription_events
+                WHERE date >= toDate(?)
                 GROUP BY date
                 ORDER BY date ASC
-                """;
+                """.formatted(RECURRING_EVENTS);
 
-        var startDate = LocalDate.now().minusDays(days).atStartOfDay().toString();
+        var startDate = LocalDate.now().minusDays(days).toString();
 
         var rows = clickHouseJdbcTemplate.queryForList(sql, startDate);
         List<DailyRevenueTrend> result = new ArrayList<>();
@@ -277,9 +205,9 @@ public class RevenueQueryService {
         for (var row : rows) {
             Object dateObj = row.get("date");
             LocalDate date = (dateObj instanceof LocalDate ld) ? ld : LocalDate.parse(dateObj.toString());
-            BigDecimal revenue = (BigDecimal) row.get("revenue");
-            long newSubs = ((Number) row.get("new_subs")).longValue();
-            long cancellations = ((Number) row.get("cancellations")).longValue();
+            BigDecimal revenue = toBigDecimal(row.get("revenue"));
+            long newSubs = toLong(row.get("new_subs"));
+            long cancellations = toLong(row.get("cancellations"));
 
             result.add(new DailyRevenueTrend(date, revenue, newSubs, cancellations));
         }
@@ -292,40 +220,54 @@ public class RevenueQueryService {
     // =============================================================
 
     public List<RevenueByPlan> getTopPlans(int limit) {
+        return planBreakdown(LocalDate.now().withDayOfMonth(1), LocalDate.now(), limit);
+    }
+
+    private List<RevenueByPlan> planBreakdown(LocalDate from, LocalDate to, Integer limit) {
         String sql = """
                 SELECT
-                    plan_type,
-                    COUNT(DISTINCT user_id) as sub_count,
-                    COALESCE(SUM(
-                        CASE
-                            WHEN billing_cycle = 'ANNUAL' THEN amount / 12
-                            ELSE amount
-                        END
-                    ), 0) as mrr,
-                    COALESCE(SUM(amount), 0) as total_revenue
-                FROM revenue_events
-                WHERE event_type IN ('subscription.created', 'subscription.renewed')
-                  AND event_timestamp >= toDateTime64(?)
-                GROUP BY plan_type
+                    e.plan_type as plan_type,
+                    u.sub_count as sub_count,
+                    e.mrr as mrr,
+                    e.total_revenue as total_revenue
+                FROM (
+                    SELECT
+                        plan_type,
+                        COALESCE(SUM(if(billing_cycle = 'ANNUAL', revenue / 12, revenue)), 0) as mrr,
+                        COALESCE(SUM(revenue), 0) as total_revenue
+                    FROM subscription_events
+                    WHERE event_type IN %1$s
+                      AND date >= toDate(?)
+                      AND date <= toDate(?)
+                    GROUP BY plan_type
+                ) AS e
+                LEFT JOIN (
+                    SELECT plan_type, uniqExactMerge(users) as sub_count
+                    FROM subscription_users_daily
+                    WHERE event_type IN %1$s
+                      AND date >= toDate(?)
+                      AND date <= toDate(?)
+                    GROUP BY plan_type
+                ) AS u ON e.plan_type = u.plan_type
                 ORDER BY total_revenue DESC
-                LIMIT ?
-                """;
+                """.formatted(RECURRING_EVENTS);
 
-        var monthStart = LocalDate.now().withDayOfMonth(1).atStartOfDay().toString();
-        var rows = clickHouseJdbcTemplate.queryForList(sql, monthStart, limit);
+        var rows = limit == null
+                ? clickHouseJdbcTemplate.queryForList(sql, from.toString(), to.toString(), from.toString(), to.toString())
+                : clickHouseJdbcTemplate.queryForList(sql + "LIMIT ?",
+                        from.toString(), to.toString(), from.toString(), to.toString(), limit);
 
         BigDecimal grandTotal = BigDecimal.ZERO;
         for (var row : rows) {
-            BigDecimal total = (BigDecimal) row.get("total_revenue");
-            if (total != null) grandTotal = grandTotal.add(total);
+            grandTotal = grandTotal.add(toBigDecimal(row.get("total_revenue")));
         }
 
         List<RevenueByPlan> result = new ArrayList<>();
         for (var row : rows) {
             String planType = (String) row.get("plan_type");
-            Long subCount = ((Number) row.get("sub_count")).longValue();
-            BigDecimal mrr = (BigDecimal) row.get("mrr");
-            BigDecimal totalRevenue = (BigDecimal) row.get("total_revenue");
+            long subCount = toLong(row.get("sub_count"));
+            BigDecimal mrr = toBigDecimal(row.get("mrr"));
+            BigDecimal totalRevenue = toBigDecimal(row.get("total_revenue"));
             double percentOfTotal = grandTotal.compareTo(BigDecimal.ZERO) > 0
                     ? totalRevenue.divide(grandTotal, 4, java.math.RoundingMode.HALF_UP).doubleValue() * 100
                     : 0.0;
@@ -335,4 +277,18 @@ public class RevenueQueryService {
 
         return result;
     }
+
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(query, queryExecutor);
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value == null) return BigDecimal.ZERO;
+        if (value instanceof BigDecimal decimal) return decimal;
+        return new BigDecimal(value.toString());
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
 }
@@ -1,10 +1,13 @@
 package com.bbmovie.revenuedashboard.view;
 
 import com.bbmovie.revenuedashboard.dto.DailyRevenueTrend;
+import com.bbmovie.revenuedashboard.dto.DashboardSnapshot;
 import com.bbmovie.revenuedashboard.dto.RevenueByPlan;
 import com.bbmovie.revenuedashboard.dto.RevenueByProvider;
 import com.bbmovie.revenuedashboard.dto.RevenueMetrics;
-import com.bbmovie.revenuedashboard.service.RevenueQueryService;
+import com.bbmovie.revenuedashboard.service.DashboardSnapshotService;
+import com.vaadin.flow.component.AttachEvent;
+import com.vaadin.flow.component.DetachEvent;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
@@ -16,14 +19,19 @@ import com.vaadin.flow.router.Route;
 import org.springframework.security.access.annotation.Secured;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.util.List;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 
 @Route("")
 @Secured("ROLE_ADMIN")
 public class MainDashboardView extends VerticalLayout {
 
-    private final RevenueQueryService revenueQueryService;
+    private static final DateTimeFormatter LAST_UPDATE_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private final DashboardSnapshotService snapshotService;
+    private Runnable unsubscribe;
+
+    private Span lastUpdate;
 
     private Span mrrValue;
     private Span arrValue;
@@ -38,8 +46,8 @@ public class MainDashboardView extends VerticalLayout {
     private Grid<RevenueByPlan> planGrid;
     private Grid<RevenueByProvider> providerGrid;
 
-    public MainDashboardView(RevenueQueryService revenueQueryService) {
-        this.revenueQueryService = revenueQueryService;
+    public MainDashboardView(DashboardSnapshotService snapshotService) {
+        this.snapshotService = snapshotService;
 
         setSizeFull();
         setPadding(true);
@@ -50,16 +58,33 @@ public class MainDashboardView extends VerticalLayout {
         add(buildTrendTable());
         add(buildBreakdowns());
 
-        refreshData();
+        render(snapshotService.current());
+    }
+
+    @Override
+    protected void onAttach(AttachEvent attachEvent) {
+        super.onAttach(attachEvent);
+        UI ui = attachEvent.getUI();
+        // Snapshots are built off the UI thread and pushed to every open view.
+        unsubscribe = snapshotService.subscribe(snapshot -> ui.access(() -> render(snapshot)));
+    }
+
+    @Override
+    protected void onDetach(DetachEvent detachEvent) {
+        if (unsubscribe != null) {
+            unsubscribe.run();
+            unsubscribe = null;
+        }
+        super.onDetach(detachEvent);
     }
 
     private HorizontalLayout buildHeader() {
         var title = new H2("Revenue Dashboard");
-        var lastUpdate = new Span();
+        lastUpdate = new Span();
         lastUpdate.setId("lastUpdate");
         lastUpdate.getStyle().set("color", "var(--lumo-secondary-text-color)");
 
-        var refreshBtn = new Button("Refresh", e -> refreshData());
+        var refreshBtn = new Button("Refresh", e -> snapshotService.requestRefresh());
         refreshBtn.addThemeVariants(ButtonVariant.LUMO_PRIMARY);
 
         var header = new HorizontalLayout(title, lastUpdate, refreshBtn);
@@ -177,8 +202,8 @@ public class MainDashboardView extends VerticalLayout {
         return layout;
     }
 
-    private void refreshData() {
-        RevenueMetrics metrics = revenueQueryService.getRevenueMetrics();
+    private void render(DashboardSnapshot snapshot) {
+        RevenueMetrics metrics = snapshot.metrics();
 
         mrrValue.setText(formatCurrency(metrics.mrr()));
         arrValue.setText(formatCurrency(metrics.arr()));
@@ -196,19 +221,14 @@ public class MainDashboardView extends VerticalLayout {
                         : "var(--lumo-error-color)");
 
         // Update tables
-        List<DailyRevenueTrend> trends = revenueQueryService.getDailyRevenueTrend(30);
-        trendGrid.setItems(trends);
-
-        List<RevenueByPlan> plans = revenueQueryService.getTopPlans(10);
-        planGrid.setItems(plans);
-
-        List<RevenueByProvider> providers = revenueQueryService.getRevenueByProvider(
-                LocalDate.now().minusDays(30), LocalDate.now());
-        providerGrid.setItems(providers);
+        trendGrid.setItems(snapshot.dailyTrend());
+        planGrid.setItems(snapshot.topPlans());
+        providerGrid.setItems(snapshot.providers());
 
         // Update last update timestamp
-        UI.getCurrent().getPage().executeJs(
-                "document.getElementById('lastUpdate').textContent = 'Last updated: ' + new Date().toLocaleTimeString()");
+        lastUpdate.setText(snapshot.refreshedAt() == null
+                ? "Loading..."
+                : "Last updated: " + LAST_UPDATE_FORMAT.format(snapshot.refreshedAt().atZone(ZoneId.systemDefault())));
     }
 
     private Span createSpan(String text) {
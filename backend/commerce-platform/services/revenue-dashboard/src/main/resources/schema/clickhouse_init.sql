@@ -9,8 +9,12 @@ CREATE DATABASE IF NOT EXISTS bbmovie_analytics;
 -- =============================================================
 -- Raw event table (ingested from NATS)
 -- =============================================================
+-- ReplacingMergeTree on event_id collapses redelivered events in the raw
+-- table. The writer also skips ids that are already present, since the
+-- rollup views below would otherwise count a second insert.
 CREATE TABLE IF NOT EXISTS bbmovie_analytics.revenue_events
 (
+    event_id        String,
     event_type      LowCardinality(String),
     transaction_id  String,
     user_id         String,
@@ -24,9 +28,9 @@ CREATE TABLE IF NOT EXISTS bbmovie_analytics.revenue_events
     event_timestamp DateTime64(3, 'UTC'),
     ingested_at     DateTime64(3, 'UTC') DEFAULT now64()
 )
-ENGINE = MergeTree()
+ENGINE = ReplacingMergeTree(ingested_at)
 PARTITION BY toYYYYMM(event_timestamp)
-ORDER BY (event_type, event_timestamp, user_id)
+ORDER BY (event_type, event_id)
 TTL event_timestamp + INTERVAL 2 YEAR;
 
 -- =============================================================
@@ -61,8 +65,87 @@ ENGINE = SummingMergeTree()
 PARTITION BY toYYYYMM(date)
 ORDER BY (date, event_type, plan_type, provider, billing_cycle);
 
+-- =============================================================
+-- Rollup: distinct users per day (COUNT(DISTINCT user_id) source)
+-- =============================================================
+CREATE TABLE IF NOT EXISTS bbmovie_analytics.subscription_users_daily
+(
+    date        Date,
+    event_type  LowCardinality(String),
+    plan_type   LowCardinality(String),
+    users       AggregateFunction(uniqExact, String)
+)
+ENGINE = AggregatingMergeTree()
+PARTITION BY toYYYYMM(date)
+ORDER BY (date, event_type, plan_type);
+
+-- =============================================================
+-- Materialized views feeding the rollups on every insert into revenue_events.
+-- Summing/Aggregating tables merge in the background, so readers must still
+-- SUM(...) / uniqExactMerge(...) with GROUP BY.
+-- =============================================================
+CREATE MATERIALIZED VIEW IF NOT EXISTS bbmovie_analytics.mrr_daily_mv
+TO bbmovie_analytics.mrr_daily
+AS
+SELECT
+    toDate(event_timestamp) AS date,
+    plan_type,
+    provider,
+    billing_cycle,
+    sum(if(billing_cycle = 'ANNUAL', amount / 12, amount)) AS mrr
+FROM bbmovie_analytics.revenue_events
+WHERE event_type IN ('subscription.created', 'subscription.renewed')
+GROUP BY date, plan_type, provider, billing_cycle;
+
+CREATE MATERIALIZED VIEW IF NOT EXISTS bbmovie_analytics.subscription_events_mv
+TO bbmovie_analytics.subscription_events
+AS
+SELECT
+    toDate(event_timestamp) AS date,
+    event_type,
+    plan_type,
+    provider,
+    billing_cycle,
+    count() AS count,
+    sum(amount) AS revenue
+FROM bbmovie_analytics.revenue_events
+GROUP BY date, event_type, plan_type, provider, billing_cycle;
+
+CREATE MATERIALIZED VIEW IF NOT EXISTS bbmovie_analytics.subscription_users_daily_mv
+TO bbmovie_analytics.subscription_users_daily
+AS
+SELECT
+    toDate(event_timestamp) AS date,
+    event_type,
+    plan_type,
+    uniqExactState(user_id) AS users
+FROM bbmovie_analytics.revenue_events
+GROUP BY date, event_type, plan_type;
+
+-- =============================================================
+-- One-time backfill of the rollups from rows ingested before the
+-- materialized views existed. Run once, right after creating the views.
+-- =============================================================
+-- INSERT INTO bbmovie_analytics.mrr_daily
+-- SELECT toDate(event_timestamp), plan_type, provider, billing_cycle,
+--        sum(if(billing_cycle = 'ANNUAL', amount / 12, amount))
+-- FROM bbmovie_analytics.revenue_events
+-- WHERE event_type IN ('subscription.created', 'subscription.renewed')
+-- GROUP BY toDate(event_timestamp), plan_type, provider, billing_cycle;
+--
+-- INSERT INTO bbmovie_analytics.subscription_events
+-- SELECT toDate(event_timestamp), event_type, plan_type, provider, billing_cycle, count(), sum(amount)
+-- FROM bbmovie_analytics.revenue_events
+-- GROUP BY toDate(event_timestamp), event_type, plan_type, provider, billing_cycle;
+--
+-- INSERT INTO bbmovie_analytics.subscription_users_daily
+-- SELECT toDate(event_timestamp), event_type, plan_type, uniqExactState(user_id)
+-- FROM bbmovie_analytics.revenue_events
+-- GROUP BY toDate(event_timestamp), event_type, plan_type;
+
 -- =============================================================
 -- Indexes for performance
 -- =============================================================
+ALTER TABLE bbmovie_analytics.revenue_events ADD INDEX IF NOT EXISTS idx_event_id (event_id) TYPE bloom_filter GRANULARITY 4;
 ALTER TABLE bbmovie_analytics.revenue_events ADD INDEX IF NOT EXISTS idx_user_id (user_id) TYPE bloom_filter GRANULARITY 4;
 ALTER TABLE bbmovie_analytics.revenue_events ADD INDEX IF NOT EXISTS idx_subscription_id (subscription_id) TYPE bloom_filter GRANULARITY 4;
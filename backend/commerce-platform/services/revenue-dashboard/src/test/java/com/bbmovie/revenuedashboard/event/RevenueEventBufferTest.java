@@ -0,0 +1,131 @@
+package com.bbmovie.revenuedashboard.event;
+
+import com.bbmovie.revenuedashboard.config.RevenueAnalyticsProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RevenueEventBufferTest {
+
+    @Mock
+    private JdbcTemplate clickHouseJdbcTemplate;
+
+    @TempDir
+    Path spillDir;
+
+    private RevenueEventBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        buffer = buffer(100_000);
+    }
+
+    @Test
+    void should_insert_buffered_events_as_one_batch_and_complete_after_flush() {
+        CompletableFuture<Void> first = buffer.submit(event("tx-1"));
+        CompletableFuture<Void> second = buffer.submit(event("tx-2"));
+        assertFalse(first.isDone());
+
+        buffer.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(clickHouseJdbcTemplate).batchUpdate(anyString(), rows.capture());
+        assertEquals(2, rows.getValue().size());
+        assertTrue(first.isDone() && !first.isCompletedExceptionally());
+        assertTrue(second.isDone() && !second.isCompletedExceptionally());
+    }
+
+    @Test
+    void should_spill_failed_batch_and_replay_it_on_next_successful_flush() throws IOException {
+        when(clickHouseJdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("too many parts"))
+                .thenReturn(new int[0]);
+
+        CompletableFuture<Void> stored = buffer.submit(event("tx-1"));
+        buffer.flush();
+
+        assertTrue(stored.isDone() && !stored.isCompletedExceptionally());
+        assertEquals(1, spillFiles());
+
+        buffer.flush();
+
+        verify(clickHouseJdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+        assertEquals(0, spillFiles());
+    }
+
+    @Test
+    void should_skip_events_that_were_already_inserted() {
+        when(clickHouseJdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class)))
+                .thenReturn(List.of("subscription.created:tx-1"));
+
+        CompletableFuture<Void> redelivered = buffer.submit(event("tx-1"));
+        buffer.submit(event("tx-2"));
+        buffer.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(clickHouseJdbcTemplate).batchUpdate(anyString(), rows.capture());
+        assertEquals(1, rows.getValue().size());
+        assertEquals("subscription.created:tx-2", rows.getValue().getFirst()[0]);
+        assertTrue(redelivered.isDone() && !redelivered.isCompletedExceptionally());
+    }
+
+    @Test
+    void should_block_a_batch_on_a_full_buffer_instead_of_failing_it() {
+        buffer = buffer(1);
+
+        CompletableFuture<Void> stored = buffer.submitAll(List.of(event("tx-1"), event("tx-2")));
+        buffer.flush();
+
+        stored.join();
+        verify(clickHouseJdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+    }
+
+    private RevenueEventBuffer buffer(int maxBuffered) {
+        RevenueAnalyticsProperties properties = new RevenueAnalyticsProperties();
+        properties.getIngest().setBatchSize(100);
+        properties.getIngest().setMaxBuffered(maxBuffered);
+        properties.getIngest().setSpillDir(spillDir.toString());
+        return new RevenueEventBuffer(clickHouseJdbcTemplate, properties, new SimpleMeterRegistry());
+    }
+
+    private long spillFiles() throws IOException {
+        try (Stream<Path> files = Files.list(spillDir)) {
+            return files.count();
+        }
+    }
+
+    private PaymentEvent event(String transactionId) {
+        return new PaymentEvent("subscription.created:" + transactionId, "subscription.created", transactionId, "user-1", "sub-1", "plan-1", "PREMIUM",
+                new BigDecimal("9.99"), "USD", "STRIPE", "MONTHLY", LocalDateTime.of(2026, 1, 1, 0, 0));
+    }
+}
@@ -0,0 +1,84 @@
+package bbmovie.commerce.subscription_service.adapter.inbound.kafka;
+
+import bbmovie.commerce.subscription_service.application.dto.InboundPaymentEvent;
+import bbmovie.commerce.subscription_service.application.dto.PaymentEventEnvelope;
+import bbmovie.commerce.subscription_service.application.service.SubscriptionLifecycleService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batch variant of {@link PaymentEventKafkaConsumer}: one poll is ingested in a single transaction.
+ * If the batch transaction fails, records are replayed one by one so the error handler can commit
+ * everything before the offending record and retry or dead-letter only that one.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.kafka.consumer.batch-enabled", havingValue = "true", matchIfMissing = true)
+public class PaymentEventBatchKafkaConsumer {
+
+    private final SubscriptionLifecycleService lifecycleService;
+    private final ObjectMapper objectMapper;
+
+    @KafkaListener(
+            topics = "${app.kafka.topic.payment-events}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "batchKafkaListenerContainerFactory"
+    )
+    public void onMessages(List<ConsumerRecord<String, String>> records) {
+        List<InboundPaymentEvent> events = new ArrayList<>(records.size());
+        RuntimeException parseFailure = null;
+        for (ConsumerRecord<String, String> record : records) {
+            try {
+                PaymentEventEnvelope envelope = objectMapper.readValue(record.value(), PaymentEventEnvelope.class);
+                String eventId = PaymentEventKafkaConsumer.resolveEventId(record.key(), header(record, "ce_id"), record.value());
+                events.add(new InboundPaymentEvent(eventId, envelope));
+            } catch (Exception ex) {
+                parseFailure = new BatchListenerFailedException("Unreadable subscription event", ex, events.size());
+                break;
+            }
+        }
+
+        ingest(events);
+        if (parseFailure != null) {
+            throw parseFailure;
+        }
+    }
+
+    private void ingest(List<InboundPaymentEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            int applied = lifecycleService.ingestBatch(events);
+            log.info("Subscription batch ingested: records={}, applied={}", events.size(), applied);
+        } catch (Exception batchEx) {
+            log.warn("Subscription batch ingestion failed, falling back to per-record ingestion: records={}",
+                    events.size(), batchEx);
+            for (int i = 0; i < events.size(); i++) {
+                InboundPaymentEvent event = events.get(i);
+                try {
+                    lifecycleService.ingest(event.eventId(), event.envelope());
+                } catch (Exception ex) {
+                    throw new BatchListenerFailedException("Subscription event ingestion failed", ex, i);
+                }
+            }
+        }
+    }
+
+    private String header(ConsumerRecord<String, String> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+}
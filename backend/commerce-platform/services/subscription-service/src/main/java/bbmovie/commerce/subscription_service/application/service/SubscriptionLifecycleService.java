@@ -1,12 +1,14 @@
 package bbmovie.commerce.subscription_service.application.service;
 
 import bbmovie.commerce.commerce_contracts.contracts.payment.PaymentEventTypes;
+import bbmovie.commerce.subscription_service.application.dto.InboundPaymentEvent;
 import bbmovie.commerce.subscription_service.application.dto.PaymentEventEnvelope;
 import bbmovie.commerce.subscription_service.domain.SubscriptionStatus;
 import bbmovie.commerce.subscription_service.infrastructure.persistence.entity.CampaignEntity;
 import bbmovie.commerce.subscription_service.infrastructure.persistence.entity.PlanEntity;
 import bbmovie.commerce.subscription_service.infrastructure.persistence.entity.SubscriptionEventInboxEntity;
 import bbmovie.commerce.subscription_service.infrastructure.persistence.entity.UserSubscriptionEntity;
+import bbmovie.commerce.subscription_service.infrastructure.persistence.jdbc.SubscriptionInboxBatchWriter;
 import bbmovie.commerce.subscription_service.infrastructure.persistence.repo.CampaignRepository;
 import bbmovie.commerce.subscription_service.infrastructure.persistence.repo.PlanRepository;
 import bbmovie.commerce.subscription_service.infrastructure.persistence.repo.SubscriptionEventInboxRepository;
@@ -19,7 +21,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -30,35 +37,76 @@ public class SubscriptionLifecycleService {
     private final PlanRepository planRepository;
     private final CampaignRepository campaignRepository;
     private final UserSubscriptionRepository userSubscriptionRepository;
+    private final SubscriptionInboxBatchWriter inboxBatchWriter;
     @Value("${subscription.fallback-plan.duration-days:30}")
     private int fallbackPlanDurationDays;
 
     @Transactional
     public void ingest(String eventId, PaymentEventEnvelope envelope) {
+        validate(eventId, envelope);
+        if (inboxRepository.existsByEventId(eventId)) {
+            log.info("Skipping duplicate subscription event: eventId={}", eventId);
+            return;
+        }
+
+        apply(envelope);
+        inboxRepository.save(toInbox(eventId, envelope));
+    }
+
+    /**
+     * Applies a poll's worth of events in one transaction. Duplicates are filtered with a single inbox
+     * {@code IN} query (and within the batch itself), events are applied in the given order so per-payment
+     * ordering from the partition is kept, and inbox rows are written as one JDBC batch.
+     *
+     * @return the number of events applied
+     */
+    @Transactional
+    public int ingestBatch(List<InboundPaymentEvent> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        events.forEach(event -> validate(event.eventId(), event.envelope()));
+
+        Set<String> eventIds = events.stream().map(InboundPaymentEvent::eventId).collect(Collectors.toSet());
+        Set<String> seen = new HashSet<>(inboxRepository.findExistingEventIds(eventIds));
+        List<SubscriptionEventInboxEntity> inboxRows = new ArrayList<>(events.size());
+        for (InboundPaymentEvent event : events) {
+            if (!seen.add(event.eventId())) {
+                log.debug("Skipping duplicate subscription event in batch: eventId={}", event.eventId());
+                continue;
+            }
+            apply(event.envelope());
+            inboxRows.add(toInbox(event.eventId(), event.envelope()));
+        }
+        inboxBatchWriter.insertAll(inboxRows);
+        return inboxRows.size();
+    }
+
+    private void validate(String eventId, PaymentEventEnvelope envelope) {
         if (eventId == null || eventId.isBlank()) {
             throw new IllegalArgumentException("eventId is required");
         }
         if (envelope == null || envelope.eventType() == null || envelope.paymentId() == null) {
             throw new IllegalArgumentException("event payload is invalid");
         }
-        if (inboxRepository.existsByEventId(eventId)) {
-            log.info("Skipping duplicate subscription event: eventId={}", eventId);
-            return;
-        }
+    }
 
+    private void apply(PaymentEventEnvelope envelope) {
         switch (envelope.eventType()) {
             case PaymentEventTypes.PAYMENT_SUCCEEDED_V1 -> handlePaymentSucceeded(envelope);
             case PaymentEventTypes.PAYMENT_REFUNDED_V1 -> handlePaymentCancelledOrRefunded(envelope, true);
             case PaymentEventTypes.PAYMENT_STATUS_UPDATED_V1 -> handlePaymentStatusUpdated(envelope);
             default -> log.debug("Ignoring unsupported payment event type for subscriptions: {}", envelope.eventType());
         }
+    }
 
+    private SubscriptionEventInboxEntity toInbox(String eventId, PaymentEventEnvelope envelope) {
         SubscriptionEventInboxEntity inbox = new SubscriptionEventInboxEntity();
         inbox.setEventId(eventId);
         inbox.setEventType(envelope.eventType());
         inbox.setPaymentId(envelope.paymentId());
         inbox.setProcessedAt(Instant.now());
-        inboxRepository.save(inbox);
+        return inbox;
     }
 
     private void handlePaymentSucceeded(PaymentEventEnvelope envelope) {
@@ -0,0 +1,39 @@
+package bbmovie.commerce.subscription_service.infrastructure.persistence.jdbc;
+
+import bbmovie.commerce.subscription_service.infrastructure.persistence.entity.SubscriptionEventInboxEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Inserts inbox rows with a single JDBC batch. Rows are known to be new (deduplicated beforehand),
+ * so the per-entity existence check that {@code save} performs for assigned ids is skipped.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SubscriptionInboxBatchWriter {
+    private static final String INSERT_SQL = """
+            INSERT INTO subscription_event_inbox (event_id, event_type, payment_id, processed_at)
+            VALUES (?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertAll(List<SubscriptionEventInboxEntity> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.getEventId());
+            ps.setString(2, row.getEventType());
+            ps.setString(3, row.getPaymentId());
+            ps.setTimestamp(4, Timestamp.from(row.getProcessedAt()), utc);
+        });
+    }
+}
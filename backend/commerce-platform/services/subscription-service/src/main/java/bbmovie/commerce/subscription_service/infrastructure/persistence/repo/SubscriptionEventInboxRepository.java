@@ -2,9 +2,17 @@ package bbmovie.commerce.subscription_service.infrastructure.persistence.repo;
 
 import bbmovie.commerce.subscription_service.infrastructure.persistence.entity.SubscriptionEventInboxEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Set;
+
 @Repository
 public interface SubscriptionEventInboxRepository extends JpaRepository<SubscriptionEventInboxEntity, String> {
     boolean existsByEventId(String eventId);
+
+    @Query("select i.eventId from SubscriptionEventInboxEntity i where i.eventId in :eventIds")
+    Set<String> findExistingEventIds(@Param("eventIds") Collection<String> eventIds);
 }
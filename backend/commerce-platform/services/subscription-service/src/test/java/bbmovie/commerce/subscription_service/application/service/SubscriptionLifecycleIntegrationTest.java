@@ -1,6 +1,7 @@
 package bbmovie.commerce.subscription_service.application.service;
 
 import bbmovie.commerce.commerce_contracts.contracts.payment.PaymentEventTypes;
+import bbmovie.commerce.subscription_service.application.dto.InboundPaymentEvent;
 import bbmovie.commerce.subscription_service.application.dto.PaymentEventEnvelope;
 import bbmovie.commerce.subscription_service.infrastructure.persistence.entity.PlanEntity;
 import bbmovie.commerce.subscription_service.infrastructure.persistence.repo.PlanRepository;
@@ -11,6 +12,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -55,4 +57,29 @@ class SubscriptionLifecycleIntegrationTest {
         assertEquals(1, inboxRepository.count());
         assertEquals(1, userSubscriptionRepository.count());
     }
+
+    @Test
+    void should_skip_known_and_in_batch_duplicates_when_ingesting_batch() {
+        PaymentEventEnvelope first = new PaymentEventEnvelope(
+                PaymentEventTypes.PAYMENT_SUCCEEDED_V1,
+                "pay-batch-1",
+                Map.of("userId", "user-batch-1", "planId", "plan_monthly")
+        );
+        PaymentEventEnvelope second = new PaymentEventEnvelope(
+                PaymentEventTypes.PAYMENT_SUCCEEDED_V1,
+                "pay-batch-2",
+                Map.of("userId", "user-batch-2", "planId", "plan_monthly")
+        );
+        lifecycleService.ingest("event-batch-1", first);
+
+        int applied = lifecycleService.ingestBatch(List.of(
+                new InboundPaymentEvent("event-batch-1", first),
+                new InboundPaymentEvent("event-batch-2", second),
+                new InboundPaymentEvent("event-batch-2", second)
+        ));
+
+        assertEquals(1, applied);
+        assertEquals(2, inboxRepository.count());
+        assertEquals(2, userSubscriptionRepository.count());
+    }
 }
@@ -1,5 +1,8 @@
 package com.bbmovie.gateway.security.anonymity;
 
+import com.bbmovie.gateway.security.anonymity.local.IpIntelligenceProperties;
+import com.bbmovie.gateway.security.anonymity.local.IpRangeVerdict;
+import com.bbmovie.gateway.security.anonymity.local.LocalIpIntelligenceDatabase;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
@@ -9,6 +12,8 @@ import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @Log4j2
@@ -16,20 +21,33 @@ public final class AnonymityCheckService {
 
     private final List<IpAnonymityProvider> providers;
     private final ReactiveRedisTemplate<String, Boolean> redisTemplate;
+    private final LocalIpIntelligenceDatabase localDatabase;
+    private final int maxInFlightEnrichments;
+    private final Set<String> inFlightEnrichments = ConcurrentHashMap.newKeySet();
 
     private static final Duration CACHE_TTL = Duration.ofHours(24);
     private static final String CACHE_KEY_PREFIX = "anonymity_check:";
 
     public AnonymityCheckService(
             List<IpAnonymityProvider> providers,
-            @Qualifier("ipRedisReactive") ReactiveRedisTemplate<String, Boolean> redisTemplate) {
+            @Qualifier("ipRedisReactive") ReactiveRedisTemplate<String, Boolean> redisTemplate,
+            LocalIpIntelligenceDatabase localDatabase,
+            IpIntelligenceProperties properties) {
         if (providers == null || providers.isEmpty()) {
             throw new IllegalArgumentException("Anonymity providers list cannot be null or empty.");
         }
         this.providers = providers;
         this.redisTemplate = redisTemplate;
+        this.localDatabase = localDatabase;
+        this.maxInFlightEnrichments = properties.getMaxInFlightEnrichments();
     }
 
+    /**
+     * Resolves the anonymity status of an IP without waiting on third-party APIs.
+     * <p>
+     * The local range database answers first. Otherwise a cached provider verdict is used, and on a
+     * cache miss the request is let through while external providers enrich the cache in the background.
+     */
     public Mono<Boolean> isAnonymous(String ip) {
         if (providers.isEmpty()) {
             log.warn("No IP anonymity providers configured. Defaulting to non-anonymous.");
@@ -40,22 +58,51 @@ public final class AnonymityCheckService {
             return Mono.just(false);
         }
 
+        IpRangeVerdict verdict = localDatabase.lookup(ip);
+        if (verdict == IpRangeVerdict.ANONYMOUS) {
+            log.info("IP {} matched a blocked range in the local IP intelligence database.", ip);
+            return Mono.just(true);
+        }
+        if (verdict == IpRangeVerdict.CLEAN) {
+            return Mono.just(false);
+        }
+
         String cacheKey = CACHE_KEY_PREFIX + ip;
 
         return redisTemplate.opsForValue().get(cacheKey)
                 .doOnSuccess(cachedResult -> {
                     if (cachedResult != null) {
-                        log.info("Returning cached anonymity status for IP: {} -> {}", ip, cachedResult);
+                        log.debug("Returning cached anonymity status for IP: {} -> {}", ip, cachedResult);
                     }
                 })
-                .switchIfEmpty(Mono.defer(() -> {
-                    log.info("IP {} not found in cache. Performing API checks.", ip);
-                    return checkProviders(ip)
-                            .flatMap(result -> redisTemplate.opsForValue().set(cacheKey, result, CACHE_TTL).thenReturn(result))
-                            .doOnSuccess(result -> log.info("Cached anonymity status for IP: {} -> {} with TTL {} hours", ip, result, CACHE_TTL.toHours()));
+                .onErrorResume(e -> {
+                    log.error("Failed to read cached anonymity status for IP {}: {}", ip, e.getMessage());
+                    return Mono.empty();
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    enrichAsync(ip, cacheKey);
+                    return false;
                 }));
     }
 
+    private void enrichAsync(String ip, String cacheKey) {
+        if (inFlightEnrichments.size() >= maxInFlightEnrichments) {
+            log.warn("Skipping anonymity enrichment for IP {}: {} lookups already in flight.", ip, inFlightEnrichments.size());
+            return;
+        }
+        if (!inFlightEnrichments.add(ip)) {
+            return;
+        }
+        log.info("IP {} not found in cache. Enriching asynchronously with external providers.", ip);
+        checkProviders(ip)
+                .flatMap(result -> redisTemplate.opsForValue().set(cacheKey, result, CACHE_TTL).thenReturn(result))
+                .doFinally(signal -> inFlightEnrichments.remove(ip))
+                .subscribe(
+                        result -> log.info("Cached anonymity status for IP: {} -> {} with TTL {} hours", ip, result, CACHE_TTL.toHours()),
+                        e -> log.error("Anonymity enrichment failed for IP {}: {}", ip, e.getMessage())
+                );
+    }
+
     private Mono<Boolean> checkProviders(String ip) {
         return Flux.fromIterable(providers)
                 .concatMap(provider -> provider.isAnonymity(ip)
@@ -0,0 +1,20 @@
+package com.bbmovie.gateway.security.anonymity.local;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "ip.local-db")
+public class IpIntelligenceProperties {
+
+    private boolean enabled = true;
+    private String resource = "classpath:ip-ranges.txt";
+    private long reloadMs = 60000;
+    private List<String> blockedCategories = new ArrayList<>(List.of("datacenter", "hosting", "vpn", "proxy", "tor"));
+    private int maxInFlightEnrichments = 256;
+}
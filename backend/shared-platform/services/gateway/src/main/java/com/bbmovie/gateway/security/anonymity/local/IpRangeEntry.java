@@ -0,0 +1,9 @@
+package com.bbmovie.gateway.security.anonymity.local;
+
+/**
+ * A single classified range from the local IP intelligence file.
+ *
+ * @param category lower-cased classification such as {@code datacenter}, {@code vpn} or {@code residential}
+ * @param asn      autonomous system number announcing the range, or {@code 0} when unknown
+ */
+public record IpRangeEntry(String category, long asn) {}
@@ -0,0 +1,169 @@
+package com.bbmovie.gateway.security.anonymity.local;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable snapshot of the local IP intelligence database.
+ * <p>
+ * The source is a plain text file with one entry per line; blank lines and lines starting with
+ * {@code #} are ignored:
+ * <pre>
+ * # cidr[,category[,AS&lt;number&gt;]]
+ * 203.0.113.0/24,datacenter,AS64500
+ * 2001:db8::/32,vpn
+ * 203.0.113.16/28,residential
+ * # AS&lt;number&gt;,category flags every range announced by that ASN
+ * AS64501,hosting
+ * </pre>
+ * A missing category defaults to {@code datacenter}. Longest-prefix match decides the category of an
+ * address, so narrower entries can carve exceptions out of broader ones.
+ */
+@Log4j2
+public final class IpRangeIndex {
+
+    private static final String DEFAULT_CATEGORY = "datacenter";
+    private static final Pattern IPV4_LITERAL = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+    private static final Pattern IPV6_LITERAL = Pattern.compile("[0-9a-fA-F:.]+");
+
+    private static final IpRangeIndex EMPTY = new IpRangeIndex(
+            new IpRangeTrie<>(4), new IpRangeTrie<>(16), Collections.emptyMap(), Collections.emptySet());
+
+    private final IpRangeTrie<IpRangeEntry> ipv4;
+    private final IpRangeTrie<IpRangeEntry> ipv6;
+    private final Map<Long, String> asnCategories;
+    private final Set<String> blockedCategories;
+
+    private IpRangeIndex(IpRangeTrie<IpRangeEntry> ipv4,
+                         IpRangeTrie<IpRangeEntry> ipv6,
+                         Map<Long, String> asnCategories,
+                         Set<String> blockedCategories) {
+        this.ipv4 = ipv4;
+        this.ipv6 = ipv6;
+        this.asnCategories = asnCategories;
+        this.blockedCategories = blockedCategories;
+    }
+
+    public static IpRangeIndex empty() {
+        return EMPTY;
+    }
+
+    public static IpRangeIndex parse(Reader source, Set<String> blockedCategories) throws IOException {
+        IpRangeTrie<IpRangeEntry> ipv4 = new IpRangeTrie<>(4);
+        IpRangeTrie<IpRangeEntry> ipv6 = new IpRangeTrie<>(16);
+        Map<Long, String> asnCategories = new HashMap<>();
+        Map<String, String> categoryPool = new HashMap<>();
+
+        try (BufferedReader reader = new BufferedReader(source)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = trimmed.split(",");
+                String category = parts.length > 1 && !parts[1].isBlank()
+                        ? categoryPool.computeIfAbsent(parts[1].trim().toLowerCase(Locale.ROOT), c -> c)
+                        : DEFAULT_CATEGORY;
+                try {
+                    String first = parts[0].trim();
+                    if (isAsn(first)) {
+                        asnCategories.put(parseAsn(first), category);
+                        continue;
+                    }
+                    long asn = parts.length > 2 && isAsn(parts[2].trim()) ? parseAsn(parts[2].trim()) : 0L;
+                    insertCidr(first, new IpRangeEntry(category, asn), ipv4, ipv6);
+                } catch (IllegalArgumentException e) {
+                    log.warn("Skipping invalid IP intelligence entry at line {}: {} ({})", lineNumber, trimmed, e.getMessage());
+                }
+            }
+        }
+
+        Set<String> normalizedBlocked = blockedCategories.stream()
+                .map(c -> c.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        return new IpRangeIndex(ipv4, ipv6, Map.copyOf(asnCategories), normalizedBlocked);
+    }
+
+    public int size() {
+        return ipv4.size() + ipv6.size() + asnCategories.size();
+    }
+
+    public IpRangeVerdict lookup(String ip) {
+        byte[] address = toAddress(ip);
+        if (address == null) {
+            return IpRangeVerdict.UNKNOWN;
+        }
+        IpRangeEntry entry = address.length == 4 ? ipv4.longestMatch(address) : ipv6.longestMatch(address);
+        if (entry == null) {
+            return IpRangeVerdict.UNKNOWN;
+        }
+        if (blockedCategories.contains(entry.category())) {
+            return IpRangeVerdict.ANONYMOUS;
+        }
+        if (entry.asn() != 0) {
+            String asnCategory = asnCategories.get(entry.asn());
+            if (asnCategory != null && blockedCategories.contains(asnCategory)) {
+                return IpRangeVerdict.ANONYMOUS;
+            }
+        }
+        return IpRangeVerdict.CLEAN;
+    }
+
+    private static void insertCidr(String cidr,
+                                   IpRangeEntry entry,
+                                   IpRangeTrie<IpRangeEntry> ipv4,
+                                   IpRangeTrie<IpRangeEntry> ipv6) {
+        int slash = cidr.indexOf('/');
+        String host = slash < 0 ? cidr : cidr.substring(0, slash);
+        byte[] address = toAddress(host);
+        if (address == null) {
+            throw new IllegalArgumentException("not an IP literal");
+        }
+        int prefixLength = slash < 0 ? address.length * 8 : Integer.parseInt(cidr.substring(slash + 1));
+        (address.length == 4 ? ipv4 : ipv6).insert(address, prefixLength, entry);
+    }
+
+    /**
+     * Converts an IP literal to its network-order bytes without ever triggering a DNS lookup.
+     * IPv4-mapped IPv6 literals are returned as 4-byte IPv4 addresses.
+     */
+    static byte[] toAddress(String ip) {
+        if (ip == null || ip.isEmpty()) {
+            return null;
+        }
+        boolean literal = ip.indexOf(':') >= 0
+                ? IPV6_LITERAL.matcher(ip).matches()
+                : IPV4_LITERAL.matcher(ip).matches();
+        if (!literal) {
+            return null;
+        }
+        try {
+            return InetAddress.getByName(ip).getAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private static boolean isAsn(String token) {
+        return token.length() > 2 && (token.startsWith("AS") || token.startsWith("as"));
+    }
+
+    private static long parseAsn(String token) {
+        return Long.parseLong(token.substring(2));
+    }
+}
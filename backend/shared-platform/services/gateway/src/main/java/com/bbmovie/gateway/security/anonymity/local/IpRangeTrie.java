@@ -0,0 +1,161 @@
+package com.bbmovie.gateway.security.anonymity.local;
+
+/**
+ * Path-compressed binary radix (PATRICIA) trie keyed by IP prefixes.
+ * <p>
+ * One trie holds a single address family: IPv4 keys are 4 bytes and IPv6 keys are 16 bytes.
+ * Lookups return the value of the longest prefix that covers the address, so a more specific
+ * entry (for example, an allow-listed /28 inside a hosting /16) wins over a broader one.
+ * <p>
+ * Internal split nodes reuse the key array of one of their descendants instead of allocating
+ * a masked copy, so memory stays proportional to the number of inserted prefixes.
+ * The trie is not thread-safe for writes; it is built once by {@link IpRangeIndex} and then
+ * published read-only.
+ */
+final class IpRangeTrie<V> {
+
+    private final int addressBits;
+    private Node<V> root;
+    private int size;
+
+    IpRangeTrie(int addressBytes) {
+        this.addressBits = addressBytes * 8;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void insert(byte[] key, int prefixLength, V value) {
+        if (key.length * 8 != addressBits) {
+            throw new IllegalArgumentException("Key length does not match trie address family");
+        }
+        if (prefixLength < 0 || prefixLength > addressBits) {
+            throw new IllegalArgumentException("Invalid prefix length: " + prefixLength);
+        }
+        if (root == null) {
+            root = new Node<>(key, prefixLength, value);
+            size++;
+            return;
+        }
+
+        Node<V> parent = null;
+        Node<V> node = root;
+        while (true) {
+            int common = commonPrefixLength(node.key, key, Math.min(node.prefixLength, prefixLength));
+            if (common < node.prefixLength) {
+                Node<V> split;
+                if (common == prefixLength) {
+                    split = new Node<>(key, common, value);
+                    split.setChild(bit(node.key, common), node);
+                } else {
+                    split = new Node<>(key, common, null);
+                    split.setChild(bit(node.key, common), node);
+                    split.setChild(bit(key, common), new Node<>(key, prefixLength, value));
+                }
+                replace(parent, node, split);
+                size++;
+                return;
+            }
+            if (prefixLength == node.prefixLength) {
+                if (node.value == null) {
+                    size++;
+                }
+                node.value = value;
+                return;
+            }
+            int direction = bit(key, node.prefixLength);
+            Node<V> next = node.child(direction);
+            if (next == null) {
+                node.setChild(direction, new Node<>(key, prefixLength, value));
+                size++;
+                return;
+            }
+            parent = node;
+            node = next;
+        }
+    }
+
+    /**
+     * @return the value of the longest prefix covering {@code address}, or {@code null} when none matches
+     */
+    V longestMatch(byte[] address) {
+        if (address.length * 8 != addressBits) {
+            return null;
+        }
+        V best = null;
+        Node<V> node = root;
+        while (node != null) {
+            if (commonPrefixLength(node.key, address, node.prefixLength) < node.prefixLength) {
+                break;
+            }
+            if (node.value != null) {
+                best = node.value;
+            }
+            if (node.prefixLength == addressBits) {
+                break;
+            }
+            node = node.child(bit(address, node.prefixLength));
+        }
+        return best;
+    }
+
+    private void replace(Node<V> parent, Node<V> current, Node<V> replacement) {
+        if (parent == null) {
+            root = replacement;
+        } else if (parent.zero == current) {
+            parent.zero = replacement;
+        } else {
+            parent.one = replacement;
+        }
+    }
+
+    private static int bit(byte[] key, int index) {
+        return (key[index >>> 3] >>> (7 - (index & 7))) & 1;
+    }
+
+    private static int commonPrefixLength(byte[] a, byte[] b, int limit) {
+        int fullBytes = limit >>> 3;
+        for (int i = 0; i < fullBytes; i++) {
+            int diff = (a[i] ^ b[i]) & 0xFF;
+            if (diff != 0) {
+                return i * 8 + Integer.numberOfLeadingZeros(diff) - 24;
+            }
+        }
+        int remainingBits = limit & 7;
+        if (remainingBits == 0) {
+            return limit;
+        }
+        int diff = (a[fullBytes] ^ b[fullBytes]) & 0xFF & (0xFF << (8 - remainingBits));
+        if (diff == 0) {
+            return limit;
+        }
+        return fullBytes * 8 + Integer.numberOfLeadingZeros(diff) - 24;
+    }
+
+    private static final class Node<V> {
+        private final byte[] key;
+        private final int prefixLength;
+        private V value;
+        private Node<V> zero;
+        private Node<V> one;
+
+        private Node(byte[] key, int prefixLength, V value) {
+            this.key = key;
+            this.prefixLength = prefixLength;
+            this.value = value;
+        }
+
+        private Node<V> child(int direction) {
+            return direction == 0 ? zero : one;
+        }
+
+        private void setChild(int direction, Node<V> child) {
+            if (direction == 0) {
+                zero = child;
+            } else {
+                one = child;
+            }
+        }
+    }
+}
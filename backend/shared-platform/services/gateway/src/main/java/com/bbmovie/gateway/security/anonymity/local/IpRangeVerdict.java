@@ -0,0 +1,13 @@
+package com.bbmovie.gateway.security.anonymity.local;
+
+/**
+ * Outcome of a local IP intelligence lookup.
+ */
+public enum IpRangeVerdict {
+    /** The address falls in a range (or ASN) classified with a blocked category. */
+    ANONYMOUS,
+    /** The address falls in a range explicitly classified with a non-blocked category. */
+    CLEAN,
+    /** The local database has no opinion; callers fall back to cached or external checks. */
+    UNKNOWN
+}
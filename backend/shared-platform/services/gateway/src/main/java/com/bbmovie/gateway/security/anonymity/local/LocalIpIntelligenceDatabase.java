@@ -0,0 +1,86 @@
+package com.bbmovie.gateway.security.anonymity.local;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory datacenter/VPN range database consulted before any network call.
+ * <p>
+ * The range file is re-read on a fixed delay and swapped in atomically when its checksum changes,
+ * so lookups never observe a half-built index and never block on I/O.
+ */
+@Log4j2
+@Component
+public class LocalIpIntelligenceDatabase {
+
+    private final ResourceLoader resourceLoader;
+    private final IpIntelligenceProperties properties;
+    private final AtomicReference<IpRangeIndex> index = new AtomicReference<>(IpRangeIndex.empty());
+    private volatile String checksum = "";
+
+    public LocalIpIntelligenceDatabase(ResourceLoader resourceLoader, IpIntelligenceProperties properties) {
+        this.resourceLoader = resourceLoader;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void initialLoad() {
+        reloadIfChanged();
+    }
+
+    @Scheduled(fixedDelayString = "${ip.local-db.reload-ms:60000}")
+    public void reloadIfChanged() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            Resource resource = resourceLoader.getResource(properties.getResource());
+            if (!resource.exists()) {
+                log.warn("IP intelligence resource does not exist: {}", properties.getResource());
+                return;
+            }
+            byte[] data;
+            try (InputStream in = resource.getInputStream()) {
+                data = in.readAllBytes();
+            }
+            String nextChecksum = sha256(data);
+            if (nextChecksum.equals(checksum)) {
+                return;
+            }
+            IpRangeIndex next = IpRangeIndex.parse(
+                    new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8),
+                    new HashSet<>(properties.getBlockedCategories())
+            );
+            index.set(next);
+            checksum = nextChecksum;
+            log.info("IP intelligence database reloaded. entries={}", next.size());
+        } catch (Exception ex) {
+            log.error("Failed to reload IP intelligence database, keeping previous snapshot", ex);
+        }
+    }
+
+    public IpRangeVerdict lookup(String ip) {
+        if (!properties.isEnabled()) {
+            return IpRangeVerdict.UNKNOWN;
+        }
+        return index.get().lookup(ip);
+    }
+
+    private String sha256(byte[] data) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        return HexFormat.of().formatHex(digest.digest(data));
+    }
+}
@@ -0,0 +1,58 @@
+package com.bbmovie.gateway.security.anonymity.local;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IpRangeIndexTest {
+
+    private static final String RANGES = """
+            # comment
+            203.0.113.0/24,datacenter,AS64500
+            203.0.113.16/28,residential
+            198.51.100.0/24,residential,AS64501
+            AS64501,hosting
+            2001:db8::/32,vpn
+            2001:db8:1::/48,residential
+            not-an-ip/12,vpn
+            """;
+
+    private IpRangeIndex index() throws IOException {
+        return IpRangeIndex.parse(new StringReader(RANGES), Set.of("datacenter", "hosting", "vpn"));
+    }
+
+    @Test
+    void longestPrefixWins() throws IOException {
+        IpRangeIndex index = index();
+        assertEquals(IpRangeVerdict.ANONYMOUS, index.lookup("203.0.113.1"));
+        assertEquals(IpRangeVerdict.CLEAN, index.lookup("203.0.113.20"));
+        assertEquals(IpRangeVerdict.ANONYMOUS, index.lookup("203.0.113.32"));
+        assertEquals(IpRangeVerdict.UNKNOWN, index.lookup("192.0.2.1"));
+    }
+
+    @Test
+    void flaggedAsnMarksRangeAnonymous() throws IOException {
+        assertEquals(IpRangeVerdict.ANONYMOUS, index().lookup("198.51.100.7"));
+    }
+
+    @Test
+    void supportsIpv6AndMappedAddresses() throws IOException {
+        IpRangeIndex index = index();
+        assertEquals(IpRangeVerdict.ANONYMOUS, index.lookup("2001:db8:ffff::1"));
+        assertEquals(IpRangeVerdict.CLEAN, index.lookup("2001:db8:1::1"));
+        assertEquals(IpRangeVerdict.UNKNOWN, index.lookup("2001:db9::1"));
+        assertEquals(IpRangeVerdict.ANONYMOUS, index.lookup("::ffff:203.0.113.1"));
+    }
+
+    @Test
+    void ignoresHostnamesAndInvalidEntries() throws IOException {
+        IpRangeIndex index = index();
+        assertEquals(IpRangeVerdict.UNKNOWN, index.lookup("example.com"));
+        assertEquals(IpRangeVerdict.UNKNOWN, index.lookup(""));
+        assertEquals(6, index.size());
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.kafka.config.TopicBuilder;
 public class KafkaConfig {
 
     public static final String NOTIFY_TRIGGERS = "notifications.trigger";
+    public static final String NOTIFY_FANOUT_SEGMENTS = "notifications.fanout.segments";
     public static final String NOTIFY_WEB = "notify.web";
     public static final String NOTIFY_PUSH = "notify.push";
     public static final String NOTIFY_EMAIL = "notify.email";
@@ -19,6 +20,12 @@ public class KafkaConfig {
         return TopicBuilder.name(NOTIFY_TRIGGERS).partitions(3).replicas(1).build();
     }
 
+    // More partitions than the other topics so segments spread across every dispatcher instance.
+    @Bean
+    public NewTopic fanoutSegmentsTopic() {
+        return TopicBuilder.name(NOTIFY_FANOUT_SEGMENTS).partitions(12).replicas(1).build();
+    }
+
     @Bean
     public NewTopic webTopic() {
         return TopicBuilder.name(NOTIFY_WEB).partitions(3).replicas(1).build();
@@ -1,8 +1,12 @@
 package com.bbmovie.notificationservice.config;
 
+import com.bbmovie.notificationservice.service.SseService;
+import com.bbmovie.notificationservice.service.push.DeviceTokenCache;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
 import org.springframework.data.redis.listener.PatternTopic;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.listener.adapter.MessageListenerAdapter;
@@ -11,18 +15,26 @@ import org.springframework.data.redis.listener.adapter.MessageListenerAdapter;
 public class RedisConfig {
 
     public static final String SSE_TOPIC = "sse-notifications";
+    public static final String DEVICE_TOKEN_INVALIDATION_TOPIC = "device-token-invalidations";
 
     @Bean
     RedisMessageListenerContainer container(RedisConnectionFactory connectionFactory,
-                                            MessageListenerAdapter listenerAdapter) {
+                                            @Qualifier("listenerAdapter") MessageListenerAdapter listenerAdapter,
+                                            @Qualifier("deviceTokenInvalidationAdapter") MessageListenerAdapter deviceTokenInvalidationAdapter) {
         RedisMessageListenerContainer container = new RedisMessageListenerContainer();
         container.setConnectionFactory(connectionFactory);
         container.addMessageListener(listenerAdapter, new PatternTopic(SSE_TOPIC));
+        container.addMessageListener(deviceTokenInvalidationAdapter, new ChannelTopic(DEVICE_TOKEN_INVALIDATION_TOPIC));
         return container;
     }
 
     @Bean
-    MessageListenerAdapter listenerAdapter(com.bbmovie.notificationservice.service.SseService sseService) {
+    MessageListenerAdapter listenerAdapter(SseService sseService) {
         return new MessageListenerAdapter(sseService, "handleRedisMessage");
     }
+
+    @Bean
+    MessageListenerAdapter deviceTokenInvalidationAdapter(DeviceTokenCache deviceTokenCache) {
+        return new MessageListenerAdapter(deviceTokenCache, "evict");
+    }
 }
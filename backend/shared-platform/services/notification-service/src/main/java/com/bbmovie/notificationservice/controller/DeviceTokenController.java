@@ -0,0 +1,20 @@
+package com.bbmovie.notificationservice.controller;
+
+import com.bbmovie.notificationservice.controller.openapi.DeviceTokenControllerOpenApi;
+import com.bbmovie.notificationservice.entity.UserDeviceToken;
+import com.bbmovie.notificationservice.service.DeviceTokenService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/notifications/devices")
+@RequiredArgsConstructor
+public class DeviceTokenController implements DeviceTokenControllerOpenApi {
+
+    private final DeviceTokenService deviceTokenService;
+
+    @PostMapping("/{userId}")
+    public UserDeviceToken registerToken(@PathVariable String userId, @RequestParam String fcmToken) {
+        return deviceTokenService.registerToken(userId, fcmToken);
+    }
+}
@@ -0,0 +1,13 @@
+package com.bbmovie.notificationservice.controller.openapi;
+
+import com.bbmovie.notificationservice.entity.UserDeviceToken;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+@Tag(name = "Device Tokens", description = "Push notification device registration APIs")
+public interface DeviceTokenControllerOpenApi {
+    @Operation(summary = "Register device token")
+    UserDeviceToken registerToken(@PathVariable String userId, @RequestParam String fcmToken);
+}
@@ -0,0 +1,9 @@
+package com.bbmovie.notificationservice.dto;
+
+public record FanoutRecipientRow(
+        String userId,
+        String userEmail,
+        boolean webEnabled,
+        boolean emailEnabled,
+        boolean pushEnabled
+) {}
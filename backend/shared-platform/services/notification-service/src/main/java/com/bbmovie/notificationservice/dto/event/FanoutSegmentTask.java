@@ -0,0 +1,16 @@
+package com.bbmovie.notificationservice.dto.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FanoutSegmentTask {
+    private UUID notificationId;
+    private int segmentIndex;
+}
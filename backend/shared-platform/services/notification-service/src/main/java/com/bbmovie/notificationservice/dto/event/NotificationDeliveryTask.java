@@ -4,12 +4,15 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import java.util.UUID;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class NotificationDeliveryTask {
+    /** Same for every redelivery of this notification to this user, so receivers can drop duplicates. */
+    private UUID deliveryId;
     private String userId;
     private String email;
     private String title;
@@ -0,0 +1,31 @@
+package com.bbmovie.notificationservice.dto.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compact per-channel delivery record: the notification body is stored once and referenced by id,
+ * so each record only carries the recipients of one fan-out chunk.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationRecipientBatch {
+    private UUID notificationId;
+    private int segmentIndex;
+    private String type;
+    private List<Recipient> recipients;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Recipient {
+        private String userId;
+        private String email;
+    }
+}
@@ -5,12 +5,14 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import java.util.Map;
+import java.util.UUID;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class NotificationTriggerEvent {
+    private UUID notificationId;
     private String type; // NEWS, MOVIE_RELEASE, etc.
     private String title;
     private String content;
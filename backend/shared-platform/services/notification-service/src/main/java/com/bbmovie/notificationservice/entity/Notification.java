@@ -22,6 +22,10 @@ public class Notification extends BaseEntity {
     @Column(name = "notification_type")
     private String type; // e.g., NEWS, ALERT, PROMO
 
+    /** Identity of the trigger that created this notification, so a redelivered trigger reuses it. */
+    @Column(name = "trigger_key", unique = true)
+    private String triggerKey;
+
     @Builder.Default
     @Column(name = "published_at")
     private LocalDateTime publishedAt = LocalDateTime.now();
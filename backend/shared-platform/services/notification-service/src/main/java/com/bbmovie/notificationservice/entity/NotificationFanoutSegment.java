@@ -0,0 +1,61 @@
+package com.bbmovie.notificationservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A contiguous userId range of a broadcast, processed independently by any dispatcher instance.
+ * {@code lastUserId} is the checkpoint: a redelivered segment resumes after it instead of starting over.
+ */
+@Entity
+@Table(
+        name = "notification_fanout_segments",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_fanout_segment",
+                columnNames = {"notification_id", "segment_index"}
+        )
+)
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationFanoutSegment extends BaseEntity {
+
+    @Column(name = "notification_id", nullable = false)
+    private UUID notificationId;
+
+    @Column(name = "segment_index", nullable = false)
+    private int segmentIndex;
+
+    /** Exclusive lower bound; empty string for the first segment. */
+    @Column(name = "from_user_id", nullable = false)
+    private String fromUserId;
+
+    /** Inclusive upper bound; {@code null} for the tail segment, which also marks the plan as complete. */
+    @Column(name = "to_user_id")
+    private String toUserId;
+
+    @Column(name = "last_user_id")
+    private String lastUserId;
+
+    @Builder.Default
+    @Column(name = "recipients_processed")
+    private long recipientsProcessed = 0;
+
+    @Builder.Default
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private Status status = Status.PENDING;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    public enum Status {
+        PENDING,
+        RUNNING,
+        DONE
+    }
+}
@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "user_device_tokens")
+@Table(
+        name = "user_device_tokens",
+        indexes = @Index(name = "idx_device_token_user", columnList = "user_id, fcm_token")
+)
 @Getter
 @Setter
 @Builder
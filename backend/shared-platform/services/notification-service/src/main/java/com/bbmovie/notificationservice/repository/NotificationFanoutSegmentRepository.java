@@ -0,0 +1,66 @@
+package com.bbmovie.notificationservice.repository;
+
+import com.bbmovie.notificationservice.entity.NotificationFanoutSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface NotificationFanoutSegmentRepository extends JpaRepository<NotificationFanoutSegment, UUID> {
+
+    List<NotificationFanoutSegment> findByNotificationIdOrderBySegmentIndexAsc(UUID notificationId);
+
+    Optional<NotificationFanoutSegment> findByNotificationIdAndSegmentIndex(UUID notificationId, int segmentIndex);
+
+    /**
+     * Segments whose worker stopped renewing the lease, i.e. crashed or lost its consumer mid-segment.
+     */
+    List<NotificationFanoutSegment> findByStatusAndLeaseUntilBefore(NotificationFanoutSegment.Status status, LocalDateTime now);
+
+    /**
+     * Takes a time-bounded lease on a segment so a duplicate segment record does not double-send.
+     * An expired lease can be taken over, which is how a crashed instance's segment gets resumed.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+            UPDATE NotificationFanoutSegment s
+            SET s.status = com.bbmovie.notificationservice.entity.NotificationFanoutSegment.Status.RUNNING,
+                s.leaseUntil = :leaseUntil
+            WHERE s.id = :id
+              AND s.status <> com.bbmovie.notificationservice.entity.NotificationFanoutSegment.Status.DONE
+              AND (s.leaseUntil IS NULL OR s.leaseUntil < :now)
+            """)
+    int claim(@Param("id") UUID id, @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Transactional
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+            UPDATE NotificationFanoutSegment s
+            SET s.lastUserId = :lastUserId,
+                s.recipientsProcessed = s.recipientsProcessed + :processed,
+                s.leaseUntil = :leaseUntil
+            WHERE s.id = :id
+            """)
+    int checkpoint(@Param("id") UUID id,
+                   @Param("lastUserId") String lastUserId,
+                   @Param("processed") long processed,
+                   @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Transactional
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+            UPDATE NotificationFanoutSegment s
+            SET s.status = com.bbmovie.notificationservice.entity.NotificationFanoutSegment.Status.DONE,
+                s.leaseUntil = NULL
+            WHERE s.id = :id
+            """)
+    int markDone(@Param("id") UUID id);
+}
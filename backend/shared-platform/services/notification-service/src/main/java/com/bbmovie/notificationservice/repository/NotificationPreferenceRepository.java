@@ -1,12 +1,47 @@
 package com.bbmovie.notificationservice.repository;
 
+import com.bbmovie.notificationservice.dto.FanoutRecipientRow;
 import com.bbmovie.notificationservice.entity.NotificationPreference;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface NotificationPreferenceRepository extends JpaRepository<NotificationPreference, UUID> {
     Optional<NotificationPreference> findByUserId(String userId);
+
+    /**
+     * Keyset page of userIds after {@code afterUserId}; each page is an index seek, never an offset scan.
+     */
+    @Query("""
+            SELECT p.userId FROM NotificationPreference p
+            WHERE p.userId > :afterUserId
+            ORDER BY p.userId
+            """)
+    List<String> findUserIdsAfter(@Param("afterUserId") String afterUserId, Pageable pageable);
+
+    @Query("""
+            SELECT new com.bbmovie.notificationservice.dto.FanoutRecipientRow(
+                p.userId, p.userEmail, p.webEnabled, p.emailEnabled, p.pushEnabled)
+            FROM NotificationPreference p
+            WHERE p.userId > :afterUserId AND p.userId <= :upToUserId
+            ORDER BY p.userId
+            """)
+    List<FanoutRecipientRow> findRecipientsInRange(@Param("afterUserId") String afterUserId,
+                                                   @Param("upToUserId") String upToUserId,
+                                                   Pageable pageable);
+
+    @Query("""
+            SELECT new com.bbmovie.notificationservice.dto.FanoutRecipientRow(
+                p.userId, p.userEmail, p.webEnabled, p.emailEnabled, p.pushEnabled)
+            FROM NotificationPreference p
+            WHERE p.userId > :afterUserId
+            ORDER BY p.userId
+            """)
+    List<FanoutRecipientRow> findRecipientsAfter(@Param("afterUserId") String afterUserId, Pageable pageable);
 }
@@ -3,8 +3,10 @@ package com.bbmovie.notificationservice.repository;
 import com.bbmovie.notificationservice.entity.Notification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, UUID> {
+    Optional<Notification> findByTriggerKey(String triggerKey);
 }
@@ -2,11 +2,26 @@ package com.bbmovie.notificationservice.repository;
 
 import com.bbmovie.notificationservice.entity.UserDeviceToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface UserDeviceTokenRepository extends JpaRepository<UserDeviceToken, UUID> {
     List<UserDeviceToken> findByUserId(String userId);
+
+    List<UserDeviceToken> findByUserIdIn(Collection<String> userIds);
+
+    Optional<UserDeviceToken> findByFcmToken(String fcmToken);
+
+    @Transactional
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("DELETE FROM UserDeviceToken t WHERE t.fcmToken IN :tokens")
+    int deleteByFcmTokenIn(@Param("tokens") Collection<String> tokens);
 }
@@ -0,0 +1,92 @@
+package com.bbmovie.notificationservice.service;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Service;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Drops redelivered notifications before they are sent again.
+ * <p>
+ * A replayed fan-out chunk carries the same {@code deliveryId}s (see {@link NotificationPayloadCache#expand}).
+ * Each channel marks the ids it is about to send with a Redis {@code SET NX} and skips those already marked.
+ * Marks expire after {@code notification.delivery.dedup-ttl-hours}. If Redis is unreachable every delivery
+ * goes out: a duplicate notification is preferred over a lost one.
+ */
+@Log4j2
+@Service
+public class DeliveryDeduplicator {
+
+    private static final String KEY_PREFIX = "notification:delivered:";
+    private static final byte[] MARK = "1".getBytes(StandardCharsets.UTF_8);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+
+    public DeliveryDeduplicator(StringRedisTemplate redisTemplate,
+                                @Value("${notification.delivery.dedup-ttl-hours:24}") long ttlHours) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = Duration.ofHours(ttlHours);
+    }
+
+    /**
+     * Marks the deliveries as sent on {@code channel} in one pipelined round trip and returns the ids that were
+     * not marked before.
+     */
+    public Set<UUID> claim(String channel, Collection<UUID> deliveryIds) {
+        List<UUID> ids = List.copyOf(new LinkedHashSet<>(deliveryIds));
+        if (ids.isEmpty()) {
+            return new LinkedHashSet<>();
+        }
+        try {
+            List<Object> marked = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (UUID id : ids) {
+                    connection.stringCommands().set(key(channel, id), MARK, Expiration.from(ttl),
+                            RedisStringCommands.SetOption.SET_IF_ABSENT);
+                }
+                return null;
+            });
+            Set<UUID> claimed = new LinkedHashSet<>();
+            for (int i = 0; i < ids.size(); i++) {
+                if (Boolean.TRUE.equals(marked.get(i))) {
+                    claimed.add(ids.get(i));
+                }
+            }
+            if (claimed.size() < ids.size()) {
+                log.info("Skipped {} {} deliveries that were already sent", ids.size() - claimed.size(), channel);
+            }
+            return claimed;
+        } catch (Exception e) {
+            log.warn("Delivery dedup unavailable for {}, sending without it: {}", channel, e.getMessage());
+            return new LinkedHashSet<>(ids);
+        }
+    }
+
+    /**
+     * Removes the marks of deliveries that could not be sent, so a redelivery sends them.
+     */
+    public void release(String channel, Collection<UUID> deliveryIds) {
+        if (deliveryIds.isEmpty()) {
+            return;
+        }
+        try {
+            redisTemplate.delete(deliveryIds.stream().map(id -> KEY_PREFIX + channel + ":" + id).toList());
+        } catch (Exception e) {
+            log.warn("Failed to release {} {} deliveries: {}", deliveryIds.size(), channel, e.getMessage());
+        }
+    }
+
+    private static byte[] key(String channel, UUID deliveryId) {
+        return (KEY_PREFIX + channel + ":" + deliveryId).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,59 @@
+package com.bbmovie.notificationservice.service;
+
+import com.bbmovie.notificationservice.config.RedisConfig;
+import com.bbmovie.notificationservice.entity.UserDeviceToken;
+import com.bbmovie.notificationservice.repository.UserDeviceTokenRepository;
+import com.bbmovie.notificationservice.service.push.DeviceTokenCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
+import java.util.Set;
+
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class DeviceTokenService {
+
+    private final UserDeviceTokenRepository deviceTokenRepository;
+    private final DeviceTokenCache deviceTokenCache;
+    private final StringRedisTemplate redisTemplate;
+
+    @Transactional
+    public UserDeviceToken registerToken(String userId, String fcmToken) {
+        UserDeviceToken token = deviceTokenRepository.findByFcmToken(fcmToken)
+                .orElseGet(() -> UserDeviceToken.builder().fcmToken(fcmToken).build());
+        String previousOwner = token.getUserId();
+        token.setUserId(userId);
+        UserDeviceToken saved = deviceTokenRepository.save(token);
+
+        invalidate(userId);
+        if (previousOwner != null && !previousOwner.equals(userId)) {
+            invalidate(previousOwner);
+        }
+        return saved;
+    }
+
+    /**
+     * Drops tokens the push provider reported as unregistered and evicts their owners' cache entries.
+     */
+    public void removeInvalidTokens(Collection<String> fcmTokens, Set<String> ownerUserIds) {
+        if (fcmTokens.isEmpty()) {
+            return;
+        }
+        int deleted = deviceTokenRepository.deleteByFcmTokenIn(fcmTokens);
+        ownerUserIds.forEach(this::invalidate);
+        log.info("Removed {} unregistered device tokens", deleted);
+    }
+
+    private void invalidate(String userId) {
+        deviceTokenCache.evict(userId);
+        try {
+            redisTemplate.convertAndSend(RedisConfig.DEVICE_TOKEN_INVALIDATION_TOPIC, userId);
+        } catch (Exception e) {
+            log.warn("Failed to publish device token invalidation for user {}: {}", userId, e.getMessage());
+        }
+    }
+}
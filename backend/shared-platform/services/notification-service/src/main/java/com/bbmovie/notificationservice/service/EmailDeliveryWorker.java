@@ -2,22 +2,46 @@ package com.bbmovie.notificationservice.service;
 
 import com.bbmovie.notificationservice.config.KafkaConfig;
 import com.bbmovie.notificationservice.dto.event.NotificationDeliveryTask;
+import com.bbmovie.notificationservice.dto.event.NotificationRecipientBatch;
 import com.bbmovie.notificationservice.dto.event.EmailNewsEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 @Log4j2
 @Service
 @RequiredArgsConstructor
 public class EmailDeliveryWorker {
 
+    private static final String CHANNEL = "email";
+
+    private final NotificationPayloadCache payloadCache;
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final DeliveryDeduplicator deduplicator;
 
     @KafkaListener(topics = KafkaConfig.NOTIFY_EMAIL, groupId = "delivery-email")
-    public void deliver(NotificationDeliveryTask task) {
+    public void deliver(NotificationRecipientBatch batch) {
+        List<NotificationDeliveryTask> tasks = payloadCache.expand(batch);
+        Set<UUID> claimed = deduplicator.claim(CHANNEL, tasks.stream().map(NotificationDeliveryTask::getDeliveryId).toList());
+        for (NotificationDeliveryTask task : tasks) {
+            if (!claimed.remove(task.getDeliveryId())) {
+                continue;
+            }
+            try {
+                deliver(task);
+            } catch (RuntimeException e) {
+                deduplicator.release(CHANNEL, List.of(task.getDeliveryId()));
+                throw e;
+            }
+        }
+    }
+
+    private void deliver(NotificationDeliveryTask task) {
         log.debug("Delivering Email to user {}: {}", task.getUserId(), task.getTitle());
         if (task.getEmail() != null) {
             EmailNewsEvent event = EmailNewsEvent.builder()
@@ -26,7 +50,12 @@ public class EmailDeliveryWorker {
                     .title(task.getTitle())
                     .content(task.getContent())
                     .build();
-            kafkaTemplate.send(KafkaConfig.EMAIL_NEWS_EVENTS, event);
+            kafkaTemplate.send(KafkaConfig.EMAIL_NEWS_EVENTS, event).whenComplete((result, failure) -> {
+                if (failure != null) {
+                    log.error("Failed to queue email for user {}: {}", task.getUserId(), failure.getMessage());
+                    deduplicator.release(CHANNEL, List.of(task.getDeliveryId()));
+                }
+            });
         }
     }
 }
@@ -1,60 +1,128 @@
 package com.bbmovie.notificationservice.service;
 
 import com.bbmovie.notificationservice.config.KafkaConfig;
-import com.bbmovie.notificationservice.dto.event.NotificationDeliveryTask;
+import com.bbmovie.notificationservice.dto.event.FanoutSegmentTask;
 import com.bbmovie.notificationservice.dto.event.NotificationTriggerEvent;
-import com.bbmovie.notificationservice.entity.NotificationPreference;
+import com.bbmovie.notificationservice.entity.NotificationFanoutSegment;
+import com.bbmovie.notificationservice.repository.NotificationFanoutSegmentRepository;
 import com.bbmovie.notificationservice.repository.NotificationPreferenceRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
 
+/**
+ * Plans a broadcast: splits the preference table into userId segments and publishes one
+ * {@link FanoutSegmentTask} per segment, so {@link NotificationFanoutWorker} instances share the work.
+ * Planning only walks the userId index by keyset pages and never reads recipient rows.
+ * Segments whose worker died mid-way are re-published by {@link #resumeExpiredSegments()} once their lease expires.
+ */
 @Log4j2
 @Service
 @RequiredArgsConstructor
 public class NotificationDispatcherWorker {
 
     private final NotificationPreferenceRepository preferenceRepository;
+    private final NotificationFanoutSegmentRepository segmentRepository;
+    private final NotificationService notificationService;
     private final KafkaTemplate<String, Object> kafkaTemplate;
-    private static final int PAGE_SIZE = 500; // Chunking as recommended in fix.txt
+
+    private static final int BOUNDARY_PAGE_SIZE = 5000;
+
+    @Value("${notification.fanout.segment-size:50000}")
+    private int segmentSize;
 
     @KafkaListener(topics = KafkaConfig.NOTIFY_TRIGGERS, groupId = "notification-dispatcher")
-    public void dispatch(NotificationTriggerEvent event) {
-        log.info("Dispatching notification: {}", event.getTitle());
-
-        int pageNum = 0;
-        Page<NotificationPreference> page;
-
-        do {
-            page = preferenceRepository.findAll(PageRequest.of(pageNum, PAGE_SIZE));
-            log.info("Processing page {} of preferences (size: {})", pageNum, page.getNumberOfElements());
-
-            for (NotificationPreference pref : page.getContent()) {
-                NotificationDeliveryTask task = NotificationDeliveryTask.builder()
-                        .userId(pref.getUserId())
-                        .email(pref.getUserEmail())
-                        .title(event.getTitle())
-                        .content(event.getContent())
-                        .type(event.getType())
-                        .build();
-
-                if (pref.isWebEnabled()) {
-                    kafkaTemplate.send(KafkaConfig.NOTIFY_WEB, task);
-                }
-                if (pref.isEmailEnabled() && pref.getUserEmail() != null) {
-                    kafkaTemplate.send(KafkaConfig.NOTIFY_EMAIL, task);
-                }
-                if (pref.isPushEnabled()) {
-                    kafkaTemplate.send(KafkaConfig.NOTIFY_PUSH, task);
-                }
+    public void dispatch(@Payload NotificationTriggerEvent event,
+                         @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+                         @Header(KafkaHeaders.OFFSET) long offset) {
+        // The record's position identifies the trigger, so a redelivery finds the notification it created before.
+        UUID notificationId = event.getNotificationId() != null
+                ? event.getNotificationId()
+                : notificationService.saveNotification(event.getTitle(), event.getContent(), event.getType(),
+                        KafkaConfig.NOTIFY_TRIGGERS + "-" + partition + "@" + offset).getId();
+        log.info("Planning fan-out for notification {}: {}", notificationId, event.getTitle());
+
+        // A redelivered trigger resumes the plan: unfinished segments are re-published, planning continues after the last one.
+        List<NotificationFanoutSegment> planned = segmentRepository.findByNotificationIdOrderBySegmentIndexAsc(notificationId);
+        for (NotificationFanoutSegment segment : planned) {
+            if (segment.getStatus() != NotificationFanoutSegment.Status.DONE) {
+                publish(segment);
+            }
+        }
+        if (!planned.isEmpty() && planned.getLast().getToUserId() == null) {
+            log.info("Fan-out plan for notification {} already complete ({} segments)", notificationId, planned.size());
+            return;
+        }
+
+        String after = planned.isEmpty() ? "" : planned.getLast().getToUserId();
+        int index = planned.size();
+        while (true) {
+            String boundary = findSegmentBoundary(after);
+            NotificationFanoutSegment segment = segmentRepository.save(NotificationFanoutSegment.builder()
+                    .notificationId(notificationId)
+                    .segmentIndex(index++)
+                    .fromUserId(after)
+                    .toUserId(boundary)
+                    .build());
+            publish(segment);
+            if (boundary == null) {
+                break;
+            }
+            after = boundary;
+        }
+
+        log.info("Planned {} fan-out segments for notification {}", index, notificationId);
+    }
+
+    /**
+     * Re-publishes RUNNING segments whose lease expired. The claim in {@link NotificationFanoutWorker} lets only
+     * one instance take each of them over, so every instance may sweep.
+     */
+    @Scheduled(fixedDelayString = "${notification.fanout.sweep-ms:60000}")
+    public void resumeExpiredSegments() {
+        List<NotificationFanoutSegment> expired = segmentRepository
+                .findByStatusAndLeaseUntilBefore(NotificationFanoutSegment.Status.RUNNING, LocalDateTime.now());
+        if (expired.isEmpty()) {
+            return;
+        }
+        expired.forEach(this::publish);
+        log.warn("Re-published {} fan-out segments with expired leases", expired.size());
+    }
+
+    /**
+     * Returns the {@code segmentSize}-th userId after {@code after}, or {@code null} when fewer remain.
+     */
+    private String findSegmentBoundary(String after) {
+        String cursor = after;
+        int remaining = segmentSize;
+        while (remaining > 0) {
+            int page = Math.min(remaining, BOUNDARY_PAGE_SIZE);
+            List<String> userIds = preferenceRepository.findUserIdsAfter(cursor, PageRequest.of(0, page));
+            if (userIds.size() < page) {
+                return null;
             }
-            pageNum++;
-        } while (page.hasNext());
+            cursor = userIds.getLast();
+            remaining -= page;
+        }
+        return cursor;
+    }
 
-        log.info("Finished dispatching all notifications for event: {}", event.getTitle());
+    private void publish(NotificationFanoutSegment segment) {
+        FanoutSegmentTask task = FanoutSegmentTask.builder()
+                .notificationId(segment.getNotificationId())
+                .segmentIndex(segment.getSegmentIndex())
+                .build();
+        kafkaTemplate.send(KafkaConfig.NOTIFY_FANOUT_SEGMENTS, segment.getNotificationId() + ":" + segment.getSegmentIndex(), task);
     }
 }
@@ -0,0 +1,144 @@
+package com.bbmovie.notificationservice.service;
+
+import com.bbmovie.notificationservice.config.KafkaConfig;
+import com.bbmovie.notificationservice.dto.FanoutRecipientRow;
+import com.bbmovie.notificationservice.dto.event.FanoutSegmentTask;
+import com.bbmovie.notificationservice.dto.event.NotificationRecipientBatch;
+import com.bbmovie.notificationservice.entity.Notification;
+import com.bbmovie.notificationservice.entity.NotificationFanoutSegment;
+import com.bbmovie.notificationservice.repository.NotificationFanoutSegmentRepository;
+import com.bbmovie.notificationservice.repository.NotificationPreferenceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Expands one fan-out segment into per-channel recipient batches.
+ * <p>
+ * Rows are read by keyset over the covering preference index, and each chunk becomes at most one
+ * {@link NotificationRecipientBatch} per channel. The segment checkpoint only advances after the
+ * chunk's records are acknowledged by Kafka, so a crash resumes at the last completed chunk: the lease stops
+ * being renewed, and once it expires {@link NotificationDispatcherWorker#resumeExpiredSegments()} re-publishes
+ * the segment for whichever instance claims it next.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class NotificationFanoutWorker {
+
+    private final NotificationPreferenceRepository preferenceRepository;
+    private final NotificationFanoutSegmentRepository segmentRepository;
+    private final NotificationPayloadCache payloadCache;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Value("${notification.fanout.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${notification.fanout.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @KafkaListener(topics = KafkaConfig.NOTIFY_FANOUT_SEGMENTS, groupId = "notification-fanout")
+    public void fanout(FanoutSegmentTask task) {
+        Optional<NotificationFanoutSegment> found = segmentRepository
+                .findByNotificationIdAndSegmentIndex(task.getNotificationId(), task.getSegmentIndex());
+        if (found.isEmpty() || found.get().getStatus() == NotificationFanoutSegment.Status.DONE) {
+            return;
+        }
+        NotificationFanoutSegment segment = found.get();
+        if (segmentRepository.claim(segment.getId(), LocalDateTime.now(), nextLease()) == 0) {
+            // A live lease means another worker is on it; if that worker died, the sweeper re-publishes after expiry.
+            log.info("Segment {} of notification {} is leased by another worker, skipping",
+                    segment.getSegmentIndex(), segment.getNotificationId());
+            return;
+        }
+        Optional<Notification> notification = payloadCache.get(segment.getNotificationId());
+        if (notification.isEmpty()) {
+            segmentRepository.markDone(segment.getId());
+            return;
+        }
+        String type = notification.get().getType();
+
+        long started = System.nanoTime();
+        long processed = 0;
+        String after = segment.getLastUserId() != null ? segment.getLastUserId() : segment.getFromUserId();
+        while (true) {
+            PageRequest chunk = PageRequest.of(0, chunkSize);
+            List<FanoutRecipientRow> rows = segment.getToUserId() == null
+                    ? preferenceRepository.findRecipientsAfter(after, chunk)
+                    : preferenceRepository.findRecipientsInRange(after, segment.getToUserId(), chunk);
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            sendChunk(segment, type, rows).join();
+            after = rows.getLast().userId();
+            processed += rows.size();
+            segmentRepository.checkpoint(segment.getId(), after, rows.size(), nextLease());
+
+            if (rows.size() < chunkSize) {
+                break;
+            }
+        }
+        segmentRepository.markDone(segment.getId());
+
+        log.info("Fan-out segment {} of notification {} done: {} recipients in {} ms",
+                segment.getSegmentIndex(), segment.getNotificationId(), processed,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private CompletableFuture<Void> sendChunk(NotificationFanoutSegment segment, String type, List<FanoutRecipientRow> rows) {
+        List<NotificationRecipientBatch.Recipient> web = new ArrayList<>();
+        List<NotificationRecipientBatch.Recipient> email = new ArrayList<>();
+        List<NotificationRecipientBatch.Recipient> push = new ArrayList<>();
+        for (FanoutRecipientRow row : rows) {
+            NotificationRecipientBatch.Recipient recipient = new NotificationRecipientBatch.Recipient(row.userId(), row.userEmail());
+            if (row.webEnabled()) {
+                web.add(recipient);
+            }
+            if (row.emailEnabled() && row.userEmail() != null) {
+                email.add(recipient);
+            }
+            if (row.pushEnabled()) {
+                push.add(new NotificationRecipientBatch.Recipient(row.userId(), null));
+            }
+        }
+
+        String key = segment.getNotificationId() + ":" + segment.getSegmentIndex();
+        List<CompletableFuture<?>> sends = new ArrayList<>(3);
+        send(KafkaConfig.NOTIFY_WEB, key, segment, type, web, sends);
+        send(KafkaConfig.NOTIFY_EMAIL, key, segment, type, email, sends);
+        send(KafkaConfig.NOTIFY_PUSH, key, segment, type, push, sends);
+        return CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new));
+    }
+
+    private void send(String topic,
+                      String key,
+                      NotificationFanoutSegment segment,
+                      String type,
+                      List<NotificationRecipientBatch.Recipient> recipients,
+                      List<CompletableFuture<?>> sends) {
+        if (recipients.isEmpty()) {
+            return;
+        }
+        NotificationRecipientBatch batch = NotificationRecipientBatch.builder()
+                .notificationId(segment.getNotificationId())
+                .segmentIndex(segment.getSegmentIndex())
+                .type(type)
+                .recipients(recipients)
+                .build();
+        sends.add(kafkaTemplate.send(topic, key, batch));
+    }
+
+    private LocalDateTime nextLease() {
+        return LocalDateTime.now().plusSeconds(leaseSeconds);
+    }
+}
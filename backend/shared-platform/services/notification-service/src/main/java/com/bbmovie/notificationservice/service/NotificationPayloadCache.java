@@ -0,0 +1,81 @@
+package com.bbmovie.notificationservice.service;
+
+import com.bbmovie.notificationservice.dto.event.NotificationDeliveryTask;
+import com.bbmovie.notificationservice.dto.event.NotificationRecipientBatch;
+import com.bbmovie.notificationservice.entity.Notification;
+import com.bbmovie.notificationservice.repository.NotificationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Resolves the shared notification body referenced by recipient batches.
+ * A broadcast is read from the database once per instance instead of being copied into every record.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class NotificationPayloadCache {
+
+    private static final int MAX_ENTRIES = 256;
+
+    private final NotificationRepository notificationRepository;
+    private final Map<UUID, Notification> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(MAX_ENTRIES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<UUID, Notification> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            });
+
+    public Optional<Notification> get(UUID notificationId) {
+        if (notificationId == null) {
+            return Optional.empty();
+        }
+        Notification cached = cache.get(notificationId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<Notification> loaded = notificationRepository.findById(notificationId);
+        loaded.ifPresentOrElse(
+                notification -> cache.put(notificationId, notification),
+                () -> log.warn("Notification {} referenced by a delivery batch does not exist", notificationId));
+        return loaded;
+    }
+
+    /**
+     * Joins a recipient batch with the shared notification body into per-user delivery tasks.
+     */
+    public List<NotificationDeliveryTask> expand(NotificationRecipientBatch batch) {
+        Optional<Notification> notification = get(batch.getNotificationId());
+        if (notification.isEmpty() || batch.getRecipients() == null) {
+            return List.of();
+        }
+        Notification body = notification.get();
+        return batch.getRecipients().stream()
+                .map(recipient -> NotificationDeliveryTask.builder()
+                        .deliveryId(deliveryId(batch, recipient))
+                        .userId(recipient.getUserId())
+                        .email(recipient.getEmail())
+                        .title(body.getTitle())
+                        .content(body.getContent())
+                        .type(batch.getType() != null ? batch.getType() : body.getType())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Deterministic per (notification, segment, recipient): a replayed chunk yields the same ids.
+     */
+    static UUID deliveryId(NotificationRecipientBatch batch, NotificationRecipientBatch.Recipient recipient) {
+        String key = batch.getNotificationId() + ":" + batch.getSegmentIndex() + ":" + recipient.getUserId();
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -32,6 +32,7 @@ public class NotificationService {
         // 2. Trigger Fan-out via Kafka (Non-transactional / After transaction)
         // This avoids holding DB connections while doing I/O or waiting for Kafka
         NotificationTriggerEvent triggerEvent = NotificationTriggerEvent.builder()
+                .notificationId(notification.getId())
                 .title(notification.getTitle())
                 .content(notification.getContent())
                 .type(notification.getType())
@@ -42,6 +43,20 @@ public class NotificationService {
         log.info("Sent notification trigger for: {}", title);
     }
 
+    /**
+     * Returns the notification created for {@code triggerKey}, creating it on first use.
+     */
+    @Transactional
+    public Notification saveNotification(String title, String content, String type, String triggerKey) {
+        return notificationRepository.findByTriggerKey(triggerKey)
+                .orElseGet(() -> notificationRepository.save(Notification.builder()
+                        .title(title)
+                        .content(content)
+                        .type(type)
+                        .triggerKey(triggerKey)
+                        .build()));
+    }
+
     @Transactional
     public Notification saveNotification(String title, String content, String type) {
         Notification notification = Notification.builder()
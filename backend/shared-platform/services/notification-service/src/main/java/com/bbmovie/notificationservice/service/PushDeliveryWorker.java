@@ -1,29 +1,163 @@
 package com.bbmovie.notificationservice.service;
 
 import com.bbmovie.notificationservice.config.KafkaConfig;
-import com.bbmovie.notificationservice.dto.event.NotificationDeliveryTask;
-import com.bbmovie.notificationservice.entity.UserDeviceToken;
-import com.bbmovie.notificationservice.repository.UserDeviceTokenRepository;
-import lombok.RequiredArgsConstructor;
+import com.bbmovie.notificationservice.dto.event.NotificationRecipientBatch;
+import com.bbmovie.notificationservice.entity.Notification;
+import com.bbmovie.notificationservice.service.push.DeviceTokenCache;
+import com.bbmovie.notificationservice.service.push.PushMessage;
+import com.bbmovie.notificationservice.service.push.PushSendResult;
+import com.bbmovie.notificationservice.service.push.PushSender;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
+/**
+ * Delivers push notifications a poll at a time.
+ * <p>
+ * Recipients of all records in the poll are grouped by notification, recipients whose delivery was already
+ * sent (a replayed chunk) are dropped by {@link DeliveryDeduplicator}, their device tokens are resolved in one
+ * cache-backed lookup, and each notification goes out as provider-sized multicast calls.
+ */
 @Log4j2
 @Service
-@RequiredArgsConstructor
 public class PushDeliveryWorker {
 
-    private final UserDeviceTokenRepository deviceTokenRepository;
+    private static final String CHANNEL = "push";
 
-    @KafkaListener(topics = KafkaConfig.NOTIFY_PUSH, groupId = "delivery-push")
-    public void deliver(NotificationDeliveryTask task) {
-        log.debug("Delivering Push to user {}: {}", task.getUserId(), task.getTitle());
-        List<UserDeviceToken> tokens = deviceTokenRepository.findByUserId(task.getUserId());
-        for (UserDeviceToken token : tokens) {
-            // Placeholder for FCM delivery
-            log.info("Would send FCM push to token: {} with content: {}", token.getFcmToken(), task.getTitle());
+    private final NotificationPayloadCache payloadCache;
+    private final DeliveryDeduplicator deduplicator;
+    private final DeviceTokenCache deviceTokenCache;
+    private final DeviceTokenService deviceTokenService;
+    private final PushSender pushSender;
+
+    private final Timer batchLatency;
+    private final DistributionSummary batchRecipients;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter batchFailures;
+
+    public PushDeliveryWorker(NotificationPayloadCache payloadCache,
+                              DeviceTokenCache deviceTokenCache,
+                              DeviceTokenService deviceTokenService,
+                              PushSender pushSender,
+                              DeliveryDeduplicator deduplicator,
+                              MeterRegistry meterRegistry) {
+        this.payloadCache = payloadCache;
+        this.deduplicator = deduplicator;
+        this.deviceTokenCache = deviceTokenCache;
+        this.deviceTokenService = deviceTokenService;
+        this.pushSender = pushSender;
+        this.batchLatency = Timer.builder("notification.push.batch.latency")
+                .description("Time to deliver one polled batch of push recipients")
+                .register(meterRegistry);
+        this.batchRecipients = DistributionSummary.builder("notification.push.batch.recipients")
+                .description("Recipients per polled push batch")
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder("notification.push.sent").register(meterRegistry);
+        this.failedCounter = Counter.builder("notification.push.failed").register(meterRegistry);
+        this.batchFailures = Counter.builder("notification.push.batch.failures").register(meterRegistry);
+    }
+
+    @KafkaListener(
+            topics = KafkaConfig.NOTIFY_PUSH,
+            groupId = "delivery-push",
+            batch = "true",
+            properties = "max.poll.records=${notification.push.max-poll-records:200}"
+    )
+    public void deliver(List<NotificationRecipientBatch> batches) {
+        Timer.Sample sample = Timer.start();
+        try {
+            Map<UUID, Map<String, UUID>> recipientsByNotification = new LinkedHashMap<>();
+            Map<UUID, String> typeByNotification = new HashMap<>();
+            List<UUID> deliveryIds = new ArrayList<>();
+            for (NotificationRecipientBatch batch : batches) {
+                if (batch.getRecipients() == null) {
+                    continue;
+                }
+                Map<String, UUID> users = recipientsByNotification.computeIfAbsent(batch.getNotificationId(), k -> new LinkedHashMap<>());
+                typeByNotification.putIfAbsent(batch.getNotificationId(), batch.getType());
+                for (NotificationRecipientBatch.Recipient recipient : batch.getRecipients()) {
+                    UUID deliveryId = NotificationPayloadCache.deliveryId(batch, recipient);
+                    if (users.putIfAbsent(recipient.getUserId(), deliveryId) == null) {
+                        deliveryIds.add(deliveryId);
+                    }
+                }
+            }
+
+            Set<UUID> claimed = deduplicator.claim(CHANNEL, deliveryIds);
+            Set<String> allUsers = new HashSet<>();
+            recipientsByNotification.values().forEach(users -> {
+                users.values().retainAll(claimed);
+                allUsers.addAll(users.keySet());
+            });
+            batchRecipients.record(allUsers.size());
+
+            Map<String, List<String>> tokensByUser = deviceTokenCache.resolve(allUsers);
+            recipientsByNotification.forEach((notificationId, users) ->
+                    deliver(notificationId, typeByNotification.get(notificationId), users, tokensByUser));
+        } catch (RuntimeException e) {
+            batchFailures.increment();
+            throw e;
+        } finally {
+            sample.stop(batchLatency);
+        }
+    }
+
+    private void deliver(UUID notificationId, String type, Map<String, UUID> users, Map<String, List<String>> tokensByUser) {
+        Optional<Notification> notification = payloadCache.get(notificationId);
+        if (notification.isEmpty() || users.isEmpty()) {
+            return;
+        }
+        PushMessage message = new PushMessage(
+                notificationId,
+                type != null ? type : notification.get().getType(),
+                notification.get().getTitle(),
+                notification.get().getContent()
+        );
+
+        List<String> tokens = new ArrayList<>();
+        Map<String, String> ownerByToken = new HashMap<>();
+        for (String userId : users.keySet()) {
+            for (String token : tokensByUser.getOrDefault(userId, List.of())) {
+                tokens.add(token);
+                ownerByToken.put(token, userId);
+            }
+        }
+
+        int limit = pushSender.maxTokensPerRequest();
+        for (int from = 0; from < tokens.size(); from += limit) {
+            List<String> chunk = tokens.subList(from, Math.min(from + limit, tokens.size()));
+            PushSendResult result;
+            try {
+                result = pushSender.sendMulticast(message, chunk);
+            } catch (RuntimeException e) {
+                // Users from this chunk on were not reached; let the redelivered poll send to them.
+                Set<UUID> unsent = new HashSet<>();
+                tokens.subList(from, tokens.size()).forEach(token -> unsent.add(users.get(ownerByToken.get(token))));
+                deduplicator.release(CHANNEL, unsent);
+                throw e;
+            }
+            sentCounter.increment(result.successCount());
+            failedCounter.increment(result.failureCount());
+            if (!result.invalidTokens().isEmpty()) {
+                Set<String> owners = new HashSet<>();
+                result.invalidTokens().forEach(token -> owners.add(ownerByToken.get(token)));
+                deviceTokenService.removeInvalidTokens(result.invalidTokens(), owners);
+            }
         }
+        log.debug("Push for notification {} sent to {} devices of {} users", notificationId, tokens.size(), users.size());
     }
 }
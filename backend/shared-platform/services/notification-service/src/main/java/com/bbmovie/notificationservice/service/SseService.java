@@ -2,15 +2,16 @@ package com.bbmovie.notificationservice.service;
 
 import com.bbmovie.notificationservice.config.RedisConfig;
 import com.bbmovie.notificationservice.dto.SseMessage;
+import com.bbmovie.notificationservice.service.sse.SseConnectionHub;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
-import java.io.IOException;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 
 @Log4j2
 @Service
@@ -19,27 +20,12 @@ public class SseService {
 
     private final StringRedisTemplate redisTemplate;
     private final ObjectMapper objectMapper;
-    private final Map<String, SseEmitter> emitters = new ConcurrentHashMap<>();
+    private final SseConnectionHub connectionHub;
 
-    // User connects to this specific instance
+    // User connects to this specific instance; every tab or device gets its own connection
     public SseEmitter createEmitter(String userId) {
-        // Use a shorter timeout (60 seconds) as recommended
-        SseEmitter emitter = new SseEmitter(60_000L); 
-        emitters.put(userId, emitter);
-
-        emitter.onCompletion(() -> emitters.remove(userId));
-        emitter.onTimeout(() -> emitters.remove(userId));
-        emitter.onError((e) -> emitters.remove(userId));
-
+        SseEmitter emitter = connectionHub.register(userId);
         log.info("SSE emitter created for user: {} on this instance", userId);
-        
-        // Initial keep-alive or connection message
-        try {
-            emitter.send(SseEmitter.event().name("connected").data("connected"));
-        } catch (IOException e) {
-            emitters.remove(userId);
-        }
-        
         return emitter;
     }
 
@@ -66,35 +52,24 @@ public class SseService {
         }
     }
 
-    // This method is called by Redis MessageListenerAdapter (from RedisConfig)
+    // This method is called by Redis MessageListenerAdapter (from RedisConfig).
+    // It only enqueues frames; socket writes happen on the hub's virtual threads.
     public void handleRedisMessage(String payload) {
         try {
-            SseMessage sseMessage = objectMapper.readValue(payload, SseMessage.class);
-            
-            if (sseMessage.getUserId() == null) {
-                // Broadcast to all emitters on this instance
-                emitters.forEach((userId, emitter) -> sendToEmitter(emitter, userId, sseMessage));
+            JsonNode message = objectMapper.readTree(payload);
+            String eventName = message.path("eventName").asText("notification");
+            JsonNode userId = message.get("userId");
+            // The data subtree is serialized once and shared by every recipient connection
+            Set<ResponseBodyEmitter.DataWithMediaType> frame =
+                    connectionHub.frame(eventName, objectMapper.writeValueAsString(message.get("data")));
+
+            if (userId == null || userId.isNull()) {
+                connectionHub.broadcast(frame);
             } else {
-                // Targeted notification
-                SseEmitter emitter = emitters.get(sseMessage.getUserId());
-                if (emitter != null) {
-                    sendToEmitter(emitter, sseMessage.getUserId(), sseMessage);
-                }
+                connectionHub.sendToUser(userId.asText(), frame);
             }
         } catch (Exception e) {
             log.error("Error handling Redis message for SSE", e);
         }
     }
-
-    private void sendToEmitter(SseEmitter emitter, String userId, SseMessage sseMessage) {
-        try {
-            emitter.send(SseEmitter.event()
-                    .name(sseMessage.getEventName())
-                    .data(sseMessage.getData()));
-            log.debug("Sent SSE event {} to user {} from this instance", sseMessage.getEventName(), userId);
-        } catch (IOException e) {
-            log.warn("Failed to send SSE to user {} from this instance, removing emitter", userId);
-            emitters.remove(userId);
-        }
-    }
 }
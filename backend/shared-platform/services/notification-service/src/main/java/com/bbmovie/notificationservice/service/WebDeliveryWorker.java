@@ -2,20 +2,44 @@ package com.bbmovie.notificationservice.service;
 
 import com.bbmovie.notificationservice.config.KafkaConfig;
 import com.bbmovie.notificationservice.dto.event.NotificationDeliveryTask;
+import com.bbmovie.notificationservice.dto.event.NotificationRecipientBatch;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 @Log4j2
 @Service
 @RequiredArgsConstructor
 public class WebDeliveryWorker {
 
+    private static final String CHANNEL = "web";
+
+    private final NotificationPayloadCache payloadCache;
     private final SseService sseService;
+    private final DeliveryDeduplicator deduplicator;
 
     @KafkaListener(topics = KafkaConfig.NOTIFY_WEB, groupId = "delivery-web")
-    public void deliver(NotificationDeliveryTask task) {
+    public void deliver(NotificationRecipientBatch batch) {
+        List<NotificationDeliveryTask> tasks = payloadCache.expand(batch);
+        Set<UUID> claimed = deduplicator.claim(CHANNEL, tasks.stream().map(NotificationDeliveryTask::getDeliveryId).toList());
+        for (NotificationDeliveryTask task : tasks) {
+            if (!claimed.remove(task.getDeliveryId())) {
+                continue;
+            }
+            try {
+                deliver(task);
+            } catch (RuntimeException e) {
+                deduplicator.release(CHANNEL, List.of(task.getDeliveryId()));
+                throw e;
+            }
+        }
+    }
+
+    private void deliver(NotificationDeliveryTask task) {
         log.debug("Delivering SSE to user {}: {}", task.getUserId(), task.getTitle());
         sseService.sendNotification(task.getUserId(), task);
     }
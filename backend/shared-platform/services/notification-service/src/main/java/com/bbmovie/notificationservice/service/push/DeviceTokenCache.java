@@ -0,0 +1,83 @@
+package com.bbmovie.notificationservice.service.push;
+
+import com.bbmovie.notificationservice.entity.UserDeviceToken;
+import com.bbmovie.notificationservice.repository.UserDeviceTokenRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded userId → device tokens cache for push delivery.
+ * <p>
+ * Misses for a whole delivery batch are loaded with one {@code IN} query per chunk, and users with no
+ * devices are cached as empty lists since they are the majority of any broadcast. Entries expire after
+ * a TTL and are evicted on every instance when a token is registered or removed.
+ */
+@Log4j2
+@Component
+public class DeviceTokenCache {
+
+    private static final int IN_CLAUSE_CHUNK = 1000;
+
+    private final UserDeviceTokenRepository deviceTokenRepository;
+    private final long ttlNanos;
+    private final Map<String, Entry> cache;
+
+    public DeviceTokenCache(UserDeviceTokenRepository deviceTokenRepository,
+                            @Value("${notification.push.token-cache.max-entries:100000}") int maxEntries,
+                            @Value("${notification.push.token-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.deviceTokenRepository = deviceTokenRepository;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    public Map<String, List<String>> resolve(Collection<String> userIds) {
+        Map<String, List<String>> result = new HashMap<>(userIds.size() * 2);
+        List<String> misses = new ArrayList<>();
+        long now = System.nanoTime();
+        for (String userId : userIds) {
+            Entry entry = cache.get(userId);
+            if (entry != null && now - entry.loadedAt() < ttlNanos) {
+                result.put(userId, entry.tokens());
+            } else {
+                misses.add(userId);
+            }
+        }
+
+        for (int from = 0; from < misses.size(); from += IN_CLAUSE_CHUNK) {
+            List<String> chunk = misses.subList(from, Math.min(from + IN_CLAUSE_CHUNK, misses.size()));
+            Map<String, List<String>> loaded = new HashMap<>(chunk.size() * 2);
+            for (UserDeviceToken token : deviceTokenRepository.findByUserIdIn(chunk)) {
+                loaded.computeIfAbsent(token.getUserId(), k -> new ArrayList<>(2)).add(token.getFcmToken());
+            }
+            for (String userId : chunk) {
+                List<String> tokens = List.copyOf(loaded.getOrDefault(userId, List.of()));
+                cache.put(userId, new Entry(tokens, now));
+                result.put(userId, tokens);
+            }
+        }
+        log.debug("Resolved device tokens for {} users ({} from database)", userIds.size(), misses.size());
+        return result;
+    }
+
+    /**
+     * Called locally and, through the Redis invalidation channel, by every other instance.
+     */
+    public void evict(String userId) {
+        cache.remove(userId);
+    }
+
+    private record Entry(List<String> tokens, long loadedAt) {}
+}
@@ -0,0 +1,89 @@
+package com.bbmovie.notificationservice.service.push;
+
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.MessagingErrorCode;
+import com.google.firebase.messaging.MulticastMessage;
+import com.google.firebase.messaging.Notification;
+import com.google.firebase.messaging.SendResponse;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "notification.push.sender", havingValue = "fcm")
+public class FcmPushSender implements PushSender {
+
+    // FCM rejects multicast requests above 500 tokens
+    private static final int FCM_MULTICAST_LIMIT = 500;
+    private static final int MAX_BODY_LENGTH = 240;
+
+    private final FirebaseMessaging messaging;
+
+    public FcmPushSender(@Value("${notification.push.fcm.credentials}") Resource credentials) throws IOException {
+        FirebaseApp app;
+        if (FirebaseApp.getApps().isEmpty()) {
+            try (InputStream in = credentials.getInputStream()) {
+                app = FirebaseApp.initializeApp(FirebaseOptions.builder()
+                        .setCredentials(GoogleCredentials.fromStream(in))
+                        .build());
+            }
+        } else {
+            app = FirebaseApp.getInstance();
+        }
+        this.messaging = FirebaseMessaging.getInstance(app);
+    }
+
+    @Override
+    public PushSendResult sendMulticast(PushMessage message, List<String> tokens) {
+        MulticastMessage.Builder builder = MulticastMessage.builder()
+                .addAllTokens(tokens)
+                .setNotification(Notification.builder()
+                        .setTitle(message.title())
+                        .setBody(truncate(message.body()))
+                        .build())
+                .putData("notificationId", String.valueOf(message.notificationId()));
+        if (message.type() != null) {
+            builder.putData("type", message.type());
+        }
+        try {
+            BatchResponse response = messaging.sendEachForMulticast(builder.build());
+            List<String> invalid = new ArrayList<>();
+            List<SendResponse> responses = response.getResponses();
+            for (int i = 0; i < responses.size(); i++) {
+                SendResponse sendResponse = responses.get(i);
+                if (!sendResponse.isSuccessful() && sendResponse.getException() != null
+                        && sendResponse.getException().getMessagingErrorCode() == MessagingErrorCode.UNREGISTERED) {
+                    invalid.add(tokens.get(i));
+                }
+            }
+            return new PushSendResult(response.getSuccessCount(), response.getFailureCount(), invalid);
+        } catch (FirebaseMessagingException e) {
+            log.error("FCM multicast for notification {} failed: {}", message.notificationId(), e.getMessage());
+            return PushSendResult.failed(tokens.size());
+        }
+    }
+
+    @Override
+    public int maxTokensPerRequest() {
+        return FCM_MULTICAST_LIMIT;
+    }
+
+    private String truncate(String body) {
+        if (body == null || body.length() <= MAX_BODY_LENGTH) {
+            return body;
+        }
+        return body.substring(0, MAX_BODY_LENGTH - 1) + "…";
+    }
+}
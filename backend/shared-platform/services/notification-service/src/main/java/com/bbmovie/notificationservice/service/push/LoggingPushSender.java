@@ -0,0 +1,26 @@
+package com.bbmovie.notificationservice.service.push;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import java.util.List;
+
+/**
+ * Local stand-in used when no push provider is configured; every token is reported as delivered.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "notification.push.sender", havingValue = "log", matchIfMissing = true)
+public class LoggingPushSender implements PushSender {
+
+    @Override
+    public PushSendResult sendMulticast(PushMessage message, List<String> tokens) {
+        log.info("Would send push '{}' for notification {} to {} devices", message.title(), message.notificationId(), tokens.size());
+        return new PushSendResult(tokens.size(), 0, List.of());
+    }
+
+    @Override
+    public int maxTokensPerRequest() {
+        return 500;
+    }
+}
@@ -0,0 +1,5 @@
+package com.bbmovie.notificationservice.service.push;
+
+import java.util.UUID;
+
+public record PushMessage(UUID notificationId, String type, String title, String body) {}
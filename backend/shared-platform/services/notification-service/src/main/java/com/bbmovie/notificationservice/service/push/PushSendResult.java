@@ -0,0 +1,13 @@
+package com.bbmovie.notificationservice.service.push;
+
+import java.util.List;
+
+/**
+ * @param invalidTokens tokens the provider reported as unregistered; callers should forget them
+ */
+public record PushSendResult(int successCount, int failureCount, List<String> invalidTokens) {
+
+    public static PushSendResult failed(int tokenCount) {
+        return new PushSendResult(0, tokenCount, List.of());
+    }
+}
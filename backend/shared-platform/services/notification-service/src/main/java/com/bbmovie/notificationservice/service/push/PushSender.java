@@ -0,0 +1,15 @@
+package com.bbmovie.notificationservice.service.push;
+
+import java.util.List;
+
+/**
+ * Delivers one message to many device tokens in a single provider call.
+ * Implementations must not throw for per-token failures; they are reported in the result.
+ */
+public interface PushSender {
+
+    PushSendResult sendMulticast(PushMessage message, List<String> tokens);
+
+    /** Largest token list accepted by one {@link #sendMulticast} call. */
+    int maxTokensPerRequest();
+}
@@ -0,0 +1,107 @@
+package com.bbmovie.notificationservice.service.sse;
+
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * One open SSE stream with its own bounded outbound queue.
+ * <p>
+ * Producers only enqueue pre-built frames and never touch the socket. A single drain task per
+ * connection writes queued frames on the hub executor, so a slow client only fills its own queue
+ * and is evicted once that queue is full.
+ */
+@Log4j2
+final class SseConnection {
+
+    @Getter
+    private final String id = UUID.randomUUID().toString();
+    @Getter
+    private final String userId;
+    @Getter
+    private final SseEmitter emitter;
+    private final int capacity;
+    private final Executor executor;
+    private final Consumer<SseConnection> onClose;
+
+    private final Queue<Set<ResponseBodyEmitter.DataWithMediaType>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    SseConnection(String userId, SseEmitter emitter, int capacity, Executor executor, Consumer<SseConnection> onClose) {
+        this.userId = userId;
+        this.emitter = emitter;
+        this.capacity = capacity;
+        this.executor = executor;
+        this.onClose = onClose;
+    }
+
+    /**
+     * @return {@code false} when the connection is closed or its queue is full
+     */
+    boolean offer(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+        if (closed.get()) {
+            return false;
+        }
+        if (queued.incrementAndGet() > capacity) {
+            queued.decrementAndGet();
+            return false;
+        }
+        queue.offer(frame);
+        scheduleDrain();
+        return true;
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        queue.clear();
+        queued.set(0);
+        try {
+            emitter.complete();
+        } catch (Exception e) {
+            log.debug("Failed to complete SSE emitter {} of user {}: {}", id, userId, e.getMessage());
+        }
+        onClose.accept(this);
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            Set<ResponseBodyEmitter.DataWithMediaType> frame;
+            while (!closed.get() && (frame = queue.poll()) != null) {
+                queued.decrementAndGet();
+                emitter.send(frame);
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("SSE connection {} of user {} failed, closing: {}", id, userId, e.getMessage());
+            close();
+        } finally {
+            draining.set(false);
+            if (!closed.get() && !queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
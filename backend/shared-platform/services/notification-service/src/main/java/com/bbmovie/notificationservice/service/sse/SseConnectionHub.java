@@ -0,0 +1,156 @@
+package com.bbmovie.notificationservice.service.sse;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds every SSE connection served by this instance.
+ * <p>
+ * Connections are spread over a fixed number of shards keyed by userId, and a user may keep several
+ * connections open (one per tab or device). Frames are built once and offered to each connection's
+ * bounded queue; socket writes happen on virtual threads, so broadcasts and the Redis listener thread
+ * never block on a slow client. Idle streams get a comment heartbeat to keep proxies from closing them.
+ */
+@Log4j2
+@Component
+public class SseConnectionHub {
+
+    private static final Set<ResponseBodyEmitter.DataWithMediaType> HEARTBEAT =
+            SseEmitter.event().comment("heartbeat").build();
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, List<SseConnection>>[] shards;
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final AtomicLong evictedCount = new AtomicLong();
+
+    private final long timeoutMs;
+    private final int queueCapacity;
+    private final int maxConnectionsPerUser;
+
+    @SuppressWarnings("unchecked")
+    public SseConnectionHub(@Value("${notification.sse.shards:16}") int shardCount,
+                            @Value("${notification.sse.timeout-ms:1800000}") long timeoutMs,
+                            @Value("${notification.sse.queue-capacity:64}") int queueCapacity,
+                            @Value("${notification.sse.max-connections-per-user:8}") int maxConnectionsPerUser) {
+        this.shards = new Map[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+        this.timeoutMs = timeoutMs;
+        this.queueCapacity = queueCapacity;
+        this.maxConnectionsPerUser = maxConnectionsPerUser;
+    }
+
+    public SseEmitter register(String userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        SseConnection connection = new SseConnection(userId, emitter, queueCapacity, executor, this::remove);
+        emitter.onCompletion(connection::close);
+        emitter.onTimeout(connection::close);
+        emitter.onError(e -> connection.close());
+
+        shard(userId).compute(userId, (key, connections) -> {
+            List<SseConnection> list = connections != null ? connections : new CopyOnWriteArrayList<>();
+            list.add(connection);
+            return list;
+        });
+        connectionCount.incrementAndGet();
+
+        List<SseConnection> userConnections = shard(userId).get(userId);
+        if (userConnections != null && userConnections.size() > maxConnectionsPerUser) {
+            // Oldest stream goes first; it is the one most likely left open in a forgotten tab.
+            userConnections.getFirst().close();
+        }
+
+        connection.offer(SseEmitter.event().name("connected").data("connected").build());
+        log.debug("SSE connection {} registered for user {} ({} on this instance)", connection.getId(), userId, connectionCount.get());
+        return emitter;
+    }
+
+    /**
+     * Builds an SSE frame once so the same immutable payload can be offered to many connections.
+     * {@code jsonData} is written verbatim and is expected to already be serialized.
+     */
+    public Set<ResponseBodyEmitter.DataWithMediaType> frame(String eventName, String jsonData) {
+        return SseEmitter.event().name(eventName).data(jsonData, MediaType.APPLICATION_JSON).build();
+    }
+
+    public void sendToUser(String userId, Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+        List<SseConnection> connections = shard(userId).get(userId);
+        if (connections == null) {
+            return;
+        }
+        for (SseConnection connection : connections) {
+            deliver(connection, frame);
+        }
+    }
+
+    /**
+     * Fans a frame out to every local connection, one task per shard.
+     */
+    public void broadcast(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+        for (Map<String, List<SseConnection>> shard : shards) {
+            executor.execute(() -> shard.values().forEach(connections -> {
+                for (SseConnection connection : connections) {
+                    deliver(connection, frame);
+                }
+            }));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notification.sse.heartbeat-ms:25000}")
+    public void heartbeat() {
+        broadcast(HEARTBEAT);
+    }
+
+    public int connectionCount() {
+        return connectionCount.get();
+    }
+
+    public long evictedCount() {
+        return evictedCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Map<String, List<SseConnection>> shard : shards) {
+            shard.values().forEach(connections -> connections.forEach(SseConnection::close));
+        }
+        executor.shutdown();
+    }
+
+    private void deliver(SseConnection connection, Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+        if (!connection.offer(frame) && !connection.isClosed()) {
+            evictedCount.incrementAndGet();
+            log.warn("Evicting slow SSE consumer {} of user {}: outbound queue full", connection.getId(), connection.getUserId());
+            connection.close();
+        }
+    }
+
+    private void remove(SseConnection connection) {
+        shard(connection.getUserId()).computeIfPresent(connection.getUserId(), (key, connections) -> {
+            if (connections.remove(connection)) {
+                connectionCount.decrementAndGet();
+            }
+            return connections.isEmpty() ? null : connections;
+        });
+    }
+
+    private Map<String, List<SseConnection>> shard(String userId) {
+        return shards[Math.floorMod(userId.hashCode(), shards.length)];
+    }
+}
@@ -0,0 +1,127 @@
+package com.bbmovie.notificationservice.service;
+
+import com.bbmovie.notificationservice.dto.FanoutRecipientRow;
+import com.bbmovie.notificationservice.dto.event.FanoutSegmentTask;
+import com.bbmovie.notificationservice.dto.event.NotificationRecipientBatch;
+import com.bbmovie.notificationservice.entity.Notification;
+import com.bbmovie.notificationservice.entity.NotificationFanoutSegment;
+import com.bbmovie.notificationservice.repository.NotificationFanoutSegmentRepository;
+import com.bbmovie.notificationservice.repository.NotificationPreferenceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationFanoutWorkerTest {
+
+    private final UUID notificationId = UUID.randomUUID();
+    private final UUID segmentId = UUID.randomUUID();
+
+    private NotificationPreferenceRepository preferenceRepository;
+    private NotificationFanoutSegmentRepository segmentRepository;
+    private KafkaTemplate<String, Object> kafkaTemplate;
+    private NotificationFanoutWorker worker;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        preferenceRepository = mock(NotificationPreferenceRepository.class);
+        segmentRepository = mock(NotificationFanoutSegmentRepository.class);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        NotificationPayloadCache payloadCache = mock(NotificationPayloadCache.class);
+        when(payloadCache.get(notificationId)).thenReturn(Optional.of(
+                Notification.builder().title("New release").content("Watch now").type("NEWS").build()));
+
+        worker = new NotificationFanoutWorker(preferenceRepository, segmentRepository, payloadCache, kafkaTemplate);
+        ReflectionTestUtils.setField(worker, "chunkSize", 2);
+        ReflectionTestUtils.setField(worker, "leaseSeconds", 300L);
+
+        when(preferenceRepository.findRecipientsAfter(eq(""), any(Pageable.class)))
+                .thenReturn(List.of(row("u1"), row("u2")));
+        when(preferenceRepository.findRecipientsAfter(eq("u2"), any(Pageable.class)))
+                .thenReturn(List.of(row("u3")));
+    }
+
+    @Test
+    void replayAfterCrashResumesAtLastCompletedChunk() {
+        when(segmentRepository.findByNotificationIdAndSegmentIndex(notificationId, 0))
+                .thenReturn(Optional.of(segment(NotificationFanoutSegment.Status.PENDING, null)));
+        when(segmentRepository.claim(eq(segmentId), any(), any())).thenReturn(1);
+        when(kafkaTemplate.send(anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        // The second chunk is never acknowledged: the worker dies with the segment half done.
+        assertThrows(RuntimeException.class, () -> worker.fanout(task()));
+        verify(segmentRepository).checkpoint(eq(segmentId), eq("u2"), eq(2L), any());
+        verify(segmentRepository, never()).markDone(segmentId);
+
+        // The lease expired and the record is replayed; the stored checkpoint is where it picks up.
+        clearInvocations(kafkaTemplate, preferenceRepository);
+        when(segmentRepository.findByNotificationIdAndSegmentIndex(notificationId, 0))
+                .thenReturn(Optional.of(segment(NotificationFanoutSegment.Status.RUNNING, "u2")));
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        worker.fanout(task());
+
+        verify(preferenceRepository, never()).findRecipientsAfter(eq(""), any(Pageable.class));
+        ArgumentCaptor<Object> sent = ArgumentCaptor.forClass(Object.class);
+        verify(kafkaTemplate, times(1)).send(anyString(), anyString(), sent.capture());
+        NotificationRecipientBatch batch = (NotificationRecipientBatch) sent.getValue();
+        assertEquals(List.of("u3"), batch.getRecipients().stream().map(NotificationRecipientBatch.Recipient::getUserId).toList());
+        verify(segmentRepository).checkpoint(eq(segmentId), eq("u3"), eq(1L), any());
+        verify(segmentRepository).markDone(segmentId);
+    }
+
+    @Test
+    void replayWhileLeaseIsLiveSendsNothing() {
+        when(segmentRepository.findByNotificationIdAndSegmentIndex(notificationId, 0))
+                .thenReturn(Optional.of(segment(NotificationFanoutSegment.Status.RUNNING, "u2")));
+        when(segmentRepository.claim(eq(segmentId), any(), any())).thenReturn(0);
+
+        worker.fanout(task());
+
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+        verify(segmentRepository, never()).checkpoint(any(), anyString(), anyLong(), any());
+    }
+
+    private FanoutSegmentTask task() {
+        return FanoutSegmentTask.builder().notificationId(notificationId).segmentIndex(0).build();
+    }
+
+    private NotificationFanoutSegment segment(NotificationFanoutSegment.Status status, String lastUserId) {
+        NotificationFanoutSegment segment = NotificationFanoutSegment.builder()
+                .notificationId(notificationId)
+                .segmentIndex(0)
+                .fromUserId("")
+                .lastUserId(lastUserId)
+                .status(status)
+                .build();
+        segment.setId(segmentId);
+        return segment;
+    }
+
+    private static FanoutRecipientRow row(String userId) {
+        return new FanoutRecipientRow(userId, null, true, false, false);
+    }
+}
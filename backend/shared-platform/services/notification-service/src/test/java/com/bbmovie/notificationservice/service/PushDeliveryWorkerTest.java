@@ -0,0 +1,153 @@
+package com.bbmovie.notificationservice.service;
+
+import com.bbmovie.notificationservice.dto.event.NotificationRecipientBatch;
+import com.bbmovie.notificationservice.entity.Notification;
+import com.bbmovie.notificationservice.entity.UserDeviceToken;
+import com.bbmovie.notificationservice.repository.UserDeviceTokenRepository;
+import com.bbmovie.notificationservice.service.push.DeviceTokenCache;
+import com.bbmovie.notificationservice.service.push.PushMessage;
+import com.bbmovie.notificationservice.service.push.PushSendResult;
+import com.bbmovie.notificationservice.service.push.PushSender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PushDeliveryWorkerTest {
+
+    private final UUID notificationId = UUID.randomUUID();
+
+    private UserDeviceTokenRepository tokenRepository;
+    private DeviceTokenService deviceTokenService;
+    private RecordingPushSender pushSender;
+    private SimpleMeterRegistry meterRegistry;
+    private PushDeliveryWorker worker;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        tokenRepository = mock(UserDeviceTokenRepository.class);
+        deviceTokenService = mock(DeviceTokenService.class);
+        NotificationPayloadCache payloadCache = mock(NotificationPayloadCache.class);
+        Notification notification = Notification.builder().title("New release").content("Watch now").type("NEWS").build();
+        when(payloadCache.get(notificationId)).thenReturn(Optional.of(notification));
+
+        // Behaves like the Redis SET NX marks: each delivery id is claimed once.
+        Set<UUID> delivered = new HashSet<>();
+        DeliveryDeduplicator deduplicator = mock(DeliveryDeduplicator.class);
+        when(deduplicator.claim(anyString(), anyCollection())).thenAnswer(invocation -> {
+            Set<UUID> claimed = new LinkedHashSet<>();
+            for (UUID id : (Collection<UUID>) invocation.getArgument(1)) {
+                if (delivered.add(id)) {
+                    claimed.add(id);
+                }
+            }
+            return claimed;
+        });
+
+        pushSender = new RecordingPushSender(2);
+        meterRegistry = new SimpleMeterRegistry();
+        worker = new PushDeliveryWorker(payloadCache, new DeviceTokenCache(tokenRepository, 1000, 600),
+                deviceTokenService, pushSender, deduplicator, meterRegistry);
+    }
+
+    @Test
+    void resolvesTokensForWholePollInOneQueryAndChunksMulticasts() {
+        when(tokenRepository.findByUserIdIn(anyCollection())).thenReturn(List.of(
+                token("u1", "t1"), token("u1", "t2"), token("u2", "t3")));
+
+        worker.deliver(List.of(batch("u1", "u2"), batch("u3")));
+
+        verify(tokenRepository, times(1)).findByUserIdIn(anyCollection());
+        assertEquals(List.of(List.of("t1", "t2"), List.of("t3")), pushSender.calls);
+        assertEquals(3.0, meterRegistry.counter("notification.push.sent").count());
+    }
+
+    @Test
+    void cachesUsersWithoutDevicesAcrossPolls() {
+        when(tokenRepository.findByUserIdIn(anyCollection())).thenReturn(List.of());
+
+        worker.deliver(List.of(batch("u1")));
+        worker.deliver(List.of(batch("u1")));
+
+        verify(tokenRepository, times(1)).findByUserIdIn(anyCollection());
+        assertEquals(0, pushSender.calls.size());
+    }
+
+    @Test
+    void skipsRecipientsOfAReplayedChunk() {
+        when(tokenRepository.findByUserIdIn(anyCollection())).thenReturn(List.of(token("u1", "t1"), token("u2", "t2")));
+
+        worker.deliver(List.of(batch("u1")));
+        worker.deliver(List.of(batch("u1", "u2")));
+
+        assertEquals(List.of(List.of("t1"), List.of("t2")), pushSender.calls);
+    }
+
+    @Test
+    void removesTokensReportedAsUnregistered() {
+        when(tokenRepository.findByUserIdIn(anyCollection())).thenReturn(List.of(token("u1", "stale")));
+        pushSender.invalid = List.of("stale");
+
+        worker.deliver(List.of(batch("u1")));
+
+        verify(deviceTokenService).removeInvalidTokens(eq(List.of("stale")), eq(Set.of("u1")));
+        verify(deviceTokenService, never()).registerToken(any(), any());
+    }
+
+    private NotificationRecipientBatch batch(String... userIds) {
+        List<NotificationRecipientBatch.Recipient> recipients = new ArrayList<>();
+        for (String userId : userIds) {
+            recipients.add(new NotificationRecipientBatch.Recipient(userId, null));
+        }
+        return NotificationRecipientBatch.builder()
+                .notificationId(notificationId)
+                .type("NEWS")
+                .recipients(recipients)
+                .build();
+    }
+
+    private UserDeviceToken token(String userId, String fcmToken) {
+        return UserDeviceToken.builder().userId(userId).fcmToken(fcmToken).build();
+    }
+
+    private static final class RecordingPushSender implements PushSender {
+        private final int limit;
+        private final List<List<String>> calls = new ArrayList<>();
+        private List<String> invalid = List.of();
+
+        private RecordingPushSender(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public PushSendResult sendMulticast(PushMessage message, List<String> tokens) {
+            calls.add(List.copyOf(tokens));
+            return new PushSendResult(tokens.size() - invalid.size(), invalid.size(), invalid);
+        }
+
+        @Override
+        public int maxTokensPerRequest() {
+            return limit;
+        }
+    }
+}